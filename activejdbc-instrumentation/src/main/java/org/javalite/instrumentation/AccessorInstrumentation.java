@@ -0,0 +1,256 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.instrumentation;
+
+import javassist.*;
+
+import java.io.FileOutputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Generates typed accessors into model classes from static metadata, see
+ * {@link org.javalite.activejdbc.StaticMetadataGenerator}. For a column <code>first_name</code> of type
+ * <code>VARCHAR</code>, a model gets methods <code>String getFirstName()</code> and
+ * <code>setFirstName(String)</code>, which read and write the value in its slot, instead of looking it up by name.
+ * Methods which a model already has are not generated.
+ *
+ * <p></p>
+ * Names of columns are also kept in a static field of a model. When columns found at runtime differ from these,
+ * or converters are registered for the model, accessors fall back to <code>get(String)</code> and
+ * <code>set(String, Object)</code>. If there is no static metadata, models are left as they are.
+ *
+ * @author Igor Polevoy
+ */
+public class AccessorInstrumentation {
+
+    private static final String ATTRIBUTES_FIELD = "ACTIVEJDBC_ATTRIBUTES";
+    private static final String CONVERT = "org.javalite.common.Convert";
+    private static final Map<String, String[]> TYPES = new HashMap<>();
+
+    static {
+        // SQL type -> Java type, method of Convert, getter of Model
+        String[] string = {"java.lang.String", "toString", "getString"};
+        String[] integer = {"java.lang.Integer", "toInteger", "getInteger"};
+        String[] longs = {"java.lang.Long", "toLong", "getLong"};
+        String[] shorts = {"java.lang.Short", "toShort", "getShort"};
+        String[] decimal = {"java.math.BigDecimal", "toBigDecimal", "getBigDecimal"};
+        String[] doubles = {"java.lang.Double", "toDouble", "getDouble"};
+        String[] floats = {"java.lang.Float", "toFloat", "getFloat"};
+        String[] bool = {"java.lang.Boolean", "toBoolean", "getBoolean"};
+        for (String type : new String[]{"CHAR", "VARCHAR", "VARCHAR2", "NCHAR", "NVARCHAR", "NVARCHAR2", "CHARACTER",
+                "CHARACTER VARYING", "VARCHAR_IGNORECASE", "TEXT", "TINYTEXT", "MEDIUMTEXT", "LONGTEXT", "CLOB", "NCLOB"}) {
+            TYPES.put(type, string);
+        }
+        for (String type : new String[]{"INT", "INTEGER", "INT4", "SERIAL", "MEDIUMINT"}) {
+            TYPES.put(type, integer);
+        }
+        for (String type : new String[]{"BIGINT", "INT8", "BIGSERIAL"}) {
+            TYPES.put(type, longs);
+        }
+        for (String type : new String[]{"SMALLINT", "INT2", "TINYINT"}) {
+            TYPES.put(type, shorts);
+        }
+        for (String type : new String[]{"DECIMAL", "NUMERIC", "NUMBER", "MONEY"}) {
+            TYPES.put(type, decimal);
+        }
+        for (String type : new String[]{"DOUBLE", "DOUBLE PRECISION", "FLOAT", "FLOAT8"}) {
+            TYPES.put(type, doubles);
+        }
+        for (String type : new String[]{"REAL", "FLOAT4"}) {
+            TYPES.put(type, floats);
+        }
+        for (String type : new String[]{"BOOLEAN", "BOOL", "BIT"}) {
+            TYPES.put(type, bool);
+        }
+        TYPES.put("DATE", new String[]{"java.sql.Date", "toSqlDate", "getDate"});
+        TYPES.put("TIME", new String[]{"java.sql.Time", "toTime", "getTime"});
+        for (String type : new String[]{"TIMESTAMP", "DATETIME", "TIMESTAMP WITHOUT TIME ZONE", "TIMESTAMP WITH TIME ZONE"}) {
+            TYPES.put(type, new String[]{"java.sql.Timestamp", "toTimestamp", "getTimestamp"});
+        }
+    }
+
+    private final ClassPool pool;
+
+    public AccessorInstrumentation() {
+        pool = ClassPool.getDefault();
+        pool.insertClassPath(new ClassClassPath(this.getClass()));
+    }
+
+    /**
+     * Generates accessors into models found in <code>activejdbc_metadata.json</code> of a directory.
+     *
+     * @param outputDirectory directory with compiled models and static metadata
+     */
+    public void instrument(String outputDirectory) {
+        Path metadataPath = Paths.get(outputDirectory, "activejdbc_metadata.json");
+        if (!Files.exists(metadataPath)) {
+            Logger.info("No static metadata in " + outputDirectory + ", skipping generation of accessors");
+            return;
+        }
+        try {
+            pool.insertClassPath(outputDirectory);
+            for (Map model : readMetadata(new String(Files.readAllBytes(metadataPath), "UTF-8"))) {
+                Map columns = (Map) model.get("columnMetadata");
+                if (columns == null || columns.isEmpty()) {
+                    continue;
+                }
+                CtClass target = pool.get((String) model.get("modelClass"));
+                if (target.getURL() == null || !"file".equals(target.getURL().getProtocol())) {
+                    continue; // model from a jar, not compiled into this directory
+                }
+                if (generate(target, columns)) {
+                    byte[] bytecode = target.toBytecode();
+                    try (FileOutputStream out = new FileOutputStream(target.getURL().toURI().getPath())) {
+                        out.write(bytecode);
+                    }
+                    Logger.info("Generated accessors: " + target.getName());
+                }
+                target.detach();
+            }
+        } catch (Exception e) {
+            throw new InstrumentationException(e);
+        }
+    }
+
+    /**
+     * Parses metadata with <code>JSONHelper</code> of the project, to which this plugin has no dependency.
+     */
+    private List<Map> readMetadata(String json) throws ReflectiveOperationException {
+        Class<?> jsonHelper = Class.forName("org.javalite.json.JSONHelper", true, getClass().getClassLoader());
+        Method toList = jsonHelper.getMethod("toList", String.class);
+        return (List<Map>) toList.invoke(null, json);
+    }
+
+    private boolean generate(CtClass target, Map columns) throws CannotCompileException, NotFoundException {
+        try {
+            target.getDeclaredField(ATTRIBUTES_FIELD);
+            return false; // generated before
+        } catch (NotFoundException e) {
+            // not generated yet
+        }
+        // same order as at runtime, where column names are kept in a CaseInsensitiveMap
+        List<String> names = new ArrayList<>();
+        for (Object name : columns.keySet()) {
+            names.add((String) name);
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+
+        StringBuilder initializer = new StringBuilder("new String[]{");
+        for (int i = 0; i < names.size(); i++) {
+            initializer.append(i == 0 ? "" : ", ").append(literal(names.get(i)));
+        }
+        initializer.append('}');
+        CtField field = new CtField(pool.get("java.lang.String[]"), ATTRIBUTES_FIELD, target);
+        field.setModifiers(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL);
+        target.addField(field, CtField.Initializer.byExpr(initializer.toString()));
+
+        for (int slot = 0; slot < names.size(); slot++) {
+            String name = names.get(slot);
+            String property = property(name);
+            if (property == null) {
+                continue;
+            }
+            Map column = (Map) columns.get(name);
+            String[] type = TYPES.get(typeName(column == null ? null : (String) column.get("typeName")));
+            addGetter(target, slot, name, "get" + property, type);
+            addSetter(target, slot, name, "set" + property, type == null ? "java.lang.Object" : type[0]);
+        }
+        return true;
+    }
+
+    private void addGetter(CtClass target, int slot, String name, String methodName, String[] type)
+            throws CannotCompileException, NotFoundException {
+        if (hasMethod(target, methodName)) {
+            return;
+        }
+        String body;
+        if (type == null) {
+            body = "{ return slotAccessible(" + slot + ", " + literal(name) + ") ? slotValue(" + slot + ") : get("
+                    + literal(name) + "); }";
+        } else {
+            body = "{ return slotAccessible(" + slot + ", " + literal(name) + ") ? " + CONVERT + "." + type[1]
+                    + "(slotValue(" + slot + ")) : " + type[2] + "(" + literal(name) + "); }";
+        }
+        String returnType = type == null ? "java.lang.Object" : type[0];
+        target.addMethod(CtNewMethod.make("public " + returnType + " " + methodName + "() " + body, target));
+    }
+
+    private void addSetter(CtClass target, int slot, String name, String methodName, String type)
+            throws CannotCompileException, NotFoundException {
+        if (hasMethod(target, methodName)) {
+            return;
+        }
+        String self = target.getName();
+        target.addMethod(CtNewMethod.make("public " + self + " " + methodName + "(" + type + " value) { return ("
+                + self + ") (slotAccessible(" + slot + ", " + literal(name) + ") ? setSlotValue(" + slot
+                + ", value) : set(" + literal(name) + ", value)); }", target));
+    }
+
+    /**
+     * @return true if a class or any of its superclasses declares a method of this name, with any parameters.
+     */
+    private static boolean hasMethod(CtClass target, String methodName) throws NotFoundException {
+        for (CtClass c = target; c != null; c = c.getSuperclass()) {
+            for (CtMethod method : c.getDeclaredMethods()) {
+                if (method.getName().equals(methodName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return name of a column in CamelCase, such as <code>FirstName</code>, or null if it is not a valid identifier.
+     */
+    private static String property(String column) {
+        StringBuilder property = new StringBuilder();
+        for (String part : column.toLowerCase(Locale.ROOT).split("_")) {
+            if (!part.isEmpty()) {
+                property.append(Character.toUpperCase(part.charAt(0))).append(part, 1, part.length());
+            }
+        }
+        if (property.length() == 0 || !Character.isJavaIdentifierStart(property.charAt(0))) {
+            return null;
+        }
+        for (int i = 1; i < property.length(); i++) {
+            if (!Character.isJavaIdentifierPart(property.charAt(i))) {
+                return null;
+            }
+        }
+        return property.toString();
+    }
+
+    /**
+     * @return SQL type in upper case, without size, such as <code>VARCHAR</code> for <code>varchar(56)</code>.
+     */
+    private static String typeName(String type) {
+        if (type == null) {
+            return null;
+        }
+        int parenthesis = type.indexOf('(');
+        return (parenthesis == -1 ? type : type.substring(0, parenthesis)).toUpperCase(Locale.ROOT)
+                .replace(" UNSIGNED", "").trim();
+    }
+
+    private static String literal(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -82,6 +82,12 @@ public class ActiveJdbcInstrumentationPlugin extends AbstractMojo {
      */
     private boolean generateStaticMetadata = false;
 
+    /**
+     * Generate typed accessors into models from static metadata, see {@link AccessorInstrumentation}
+     * @parameter
+     */
+    private boolean generateAccessors = false;
+
 
     public void execute() throws MojoExecutionException{
         Logger.setLog(new Log() {
@@ -106,11 +112,17 @@ public class ActiveJdbcInstrumentationPlugin extends AbstractMojo {
                 if (generateStaticMetadata) {
                     generateStaticMetadata(outputDirectory);
                 }
+                if (generateAccessors) {
+                    generateAccessors(outputDirectory);
+                }
             } else{
                 instrument(project.getBuild().getOutputDirectory());
                 if (generateStaticMetadata) {
                     generateStaticMetadata(project.getBuild().getOutputDirectory());
                 }
+                if (generateAccessors) {
+                    generateAccessors(project.getBuild().getOutputDirectory());
+                }
                 //Kadvin enhance: instruct test-classes also
                 instrument(project.getBuild().getTestOutputDirectory());
             }
@@ -158,4 +170,12 @@ public class ActiveJdbcInstrumentationPlugin extends AbstractMojo {
         generator.setDBParameters(databases);
         generator.generate(outputDirectory);
     }
-}
\ No newline at end of file
+
+    private void generateAccessors(String outputDirectory) {
+        if(!new File(outputDirectory).exists()){
+            Logger.info("Output directory " + outputDirectory + " does not exist, skipping");
+            return;
+        }
+        new AccessorInstrumentation().instrument(outputDirectory);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.associations.Association;
+import org.javalite.activejdbc.associations.BelongsToAssociation;
+import org.javalite.activejdbc.associations.BelongsToPolymorphicAssociation;
+import org.javalite.activejdbc.logging.LogFilter;
+import org.javalite.activejdbc.logging.LogLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Models hydrated together by a {@link LazyList}, which load associations one by one with
+ * {@link Model#parent(Class)} and {@link Model#getAll(Class)}, instead of with {@link LazyList#include(Class[])}.
+ *
+ * <p></p>
+ * When detection is on, the second association of the same class loaded by a model of the batch is logged as an
+ * N+1 query. When batching is on, the first association loaded by a model of the batch is loaded for all models of
+ * the batch at once, the same as if it were included.
+ *
+ * <p></p>
+ * Every model of the batch refers to it, so the list of models is only referred to weakly. A model kept after its
+ * list is gone does not keep other models of the list in memory, and loads its associations one by one.
+ *
+ * @author Igor Polevoy
+ */
+final class AssociationBatch<T extends Model> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssociationBatch.class);
+
+    private final MetaModel metaModel;
+    private final WeakReference<List<T>> models;
+    private final boolean batch, detect;
+    private final Map<Class<? extends Model>, Integer> loads = new HashMap<>();
+
+    AssociationBatch(MetaModel metaModel, List<T> models, boolean batch, boolean detect) {
+        this.metaModel = metaModel;
+        this.models = new WeakReference<>(models);
+        this.batch = batch;
+        this.detect = detect;
+    }
+
+    /**
+     * Called before a model loads a parent or children of a class with a query of its own.
+     *
+     * @param targetClass class of parent or children
+     * @param parent true for a parent, false for children
+     * @return true if the association was loaded into all models of the batch.
+     */
+    synchronized boolean load(Class<? extends Model> targetClass, boolean parent) {
+        List<T> models = this.models.get();
+        if (models == null) {
+            return false;
+        }
+        Integer count = loads.get(targetClass);
+        loads.put(targetClass, count == null ? 1 : count + 1);
+        if (count == null && batch) {
+            Association association = association(targetClass, parent);
+            if (association != null) {
+                new LazyList<T>(null, metaModel).processInclude(association, models);
+                return true;
+            }
+        }
+        if (count != null && count == 1 && detect) {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "N+1 queries: models {} of a list of {} load {} one by one, "
+                    + "use include({}.class)", metaModel.getModelClass().getName(), models.size(),
+                    targetClass.getSimpleName(), targetClass.getSimpleName());
+        }
+        return false;
+    }
+
+    private Association association(Class<? extends Model> targetClass, boolean parent) {
+        for (Association association : metaModel.getAssociationsForTarget(targetClass)) {
+            boolean belongsTo = association instanceof BelongsToAssociation
+                    || association instanceof BelongsToPolymorphicAssociation;
+            if (belongsTo == parent) {
+                return association;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.common.CaseInsensitiveMap;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Case-insensitive map of attribute values of a model. Values are kept in an array indexed by {@link AttributeSlots},
+ * with a bit set to tell a <code>null</code> value from a missing one. Names which are not attributes of the model
+ * are kept in a separate map, created only if needed. Iterates in the order of slots, which is the same as the order of
+ * {@link CaseInsensitiveMap}, followed by names which are not attributes.
+ *
+ * <p></p>
+ * Serialized as {@link CaseInsensitiveMap}.
+ *
+ * @author Igor Polevoy
+ */
+final class AttributeMap extends AbstractMap<String, Object> implements Serializable {
+
+    private final transient AttributeSlots slots;
+    private final transient Object[] values;
+    private final transient BitSet present;
+    private transient String[] keys;
+    private transient Map<String, Object> other;
+    private transient Set<Entry<String, Object>> entrySet;
+
+    AttributeMap(AttributeSlots slots) {
+        this.slots = slots;
+        this.values = new Object[slots.size()];
+        this.present = new BitSet(slots.size());
+    }
+
+    AttributeMap(AttributeSlots slots, Map<String, Object> map) {
+        this(slots);
+        putAll(map);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = slots.slot((String) key);
+        if (slot != -1) {
+            return values[slot];
+        }
+        return other == null ? null : other.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        int slot = slots.slot((String) key);
+        if (slot != -1) {
+            return present.get(slot);
+        }
+        return other != null && other.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = slots.slot(key);
+        if (slot != -1) {
+            if (!present.get(slot)) {
+                key(slot, key);
+                present.set(slot);
+            }
+            Object old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        if (other == null) {
+            other = new CaseInsensitiveMap<>();
+        }
+        return other.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = slots.slot((String) key);
+        if (slot != -1) {
+            return removeSlot(slot);
+        }
+        return other == null ? null : other.remove(key);
+    }
+
+    private Object removeSlot(int slot) {
+        Object old = values[slot];
+        values[slot] = null;
+        present.clear(slot);
+        key(slot, null);
+        return old;
+    }
+
+    /**
+     * Keeps the name of an attribute as it was first put, like {@link CaseInsensitiveMap} does. Names are only stored
+     * if they differ from names of slots.
+     */
+    private void key(int slot, String key) {
+        if (keys == null) {
+            if (key == null || key.equals(slots.name(slot))) {
+                return;
+            }
+            keys = new String[values.length];
+        }
+        keys[slot] = key;
+    }
+
+    private String key(int slot) {
+        return keys != null && keys[slot] != null ? keys[slot] : slots.name(slot);
+    }
+
+    /**
+     * @return true if the slot is of the attribute with this very instance of name, see
+     * {@link AttributeSlots#isGenerated(int, String)}.
+     */
+    boolean isSlot(int slot, String name) {
+        return slots.isGenerated(slot, name);
+    }
+
+    String slotName(int slot) {
+        return slots.name(slot);
+    }
+
+    Object getSlot(int slot) {
+        return values[slot];
+    }
+
+    void putSlot(int slot, Object value) {
+        if (!present.get(slot)) {
+            key(slot, slots.name(slot));
+            present.set(slot);
+        }
+        values[slot] = value;
+    }
+
+    @Override
+    public int size() {
+        return present.cardinality() + (other == null ? 0 : other.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return present.isEmpty() && (other == null || other.isEmpty());
+    }
+
+    @Override
+    public void clear() {
+        present.clear();
+        Arrays.fill(values, null);
+        keys = null;
+        other = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override public Iterator<Entry<String, Object>> iterator() { return new EntryIterator(); }
+                @Override public int size() { return AttributeMap.this.size(); }
+                @Override public void clear() { AttributeMap.this.clear(); }
+            };
+        }
+        return entrySet;
+    }
+
+    private Object writeReplace() {
+        return new CaseInsensitiveMap<>(this);
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next = present.nextSetBit(0);
+        private int last = -1;
+        private boolean lastFromOthers;
+        private Iterator<Entry<String, Object>> others;
+
+        @Override
+        public boolean hasNext() {
+            if (next != -1) {
+                return true;
+            }
+            if (others == null && other != null) {
+                others = other.entrySet().iterator();
+            }
+            return others != null && others.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next != -1) {
+                last = next;
+                next = present.nextSetBit(next + 1);
+                return new SlotEntry(last);
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Object> entry = others.next();
+            last = -1;
+            lastFromOthers = true;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastFromOthers) {
+                others.remove();
+                lastFromOthers = false;
+            } else if (last != -1) {
+                removeSlot(last);
+                last = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private final class SlotEntry implements Entry<String, Object> {
+        private final int slot;
+
+        private SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override public String getKey() { return key(slot); }
+
+        @Override public Object getValue() { return values[slot]; }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && (getValue() == null ? e.getValue() == null : getValue().equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.common.CaseInsensitiveSet;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Case-insensitive set of attribute names of a model, kept as a bit set indexed by {@link AttributeSlots}. Names
+ * which are not attributes of the model are kept in a separate set, created only if needed.
+ *
+ * <p></p>
+ * Serialized as {@link CaseInsensitiveSet}.
+ *
+ * @author Igor Polevoy
+ */
+final class AttributeNameSet extends AbstractSet<String> implements Serializable {
+
+    private final transient AttributeSlots slots;
+    private final transient BitSet bits;
+    private transient Set<String> other;
+
+    AttributeNameSet(AttributeSlots slots) {
+        this.slots = slots;
+        this.bits = new BitSet(slots.size());
+    }
+
+    AttributeNameSet(AttributeSlots slots, Collection<String> names) {
+        this(slots);
+        addAll(names);
+    }
+
+    @Override
+    public boolean add(String name) {
+        int slot = slots.slot(name);
+        if (slot != -1) {
+            boolean added = !bits.get(slot);
+            bits.set(slot);
+            return added;
+        }
+        if (other == null) {
+            other = new CaseInsensitiveSet();
+        }
+        return other.add(name);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int slot = slots.slot((String) o);
+        if (slot != -1) {
+            return bits.get(slot);
+        }
+        return other != null && other.contains(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int slot = slots.slot((String) o);
+        if (slot != -1) {
+            boolean removed = bits.get(slot);
+            bits.clear(slot);
+            return removed;
+        }
+        return other != null && other.remove(o);
+    }
+
+    void addSlot(int slot) {
+        bits.set(slot);
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality() + (other == null ? 0 : other.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty() && (other == null || other.isEmpty());
+    }
+
+    @Override
+    public void clear() {
+        bits.clear();
+        other = null;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = bits.nextSetBit(0);
+            private int last = -1;
+            private boolean lastFromOthers;
+            private Iterator<String> others;
+
+            @Override
+            public boolean hasNext() {
+                if (next != -1) {
+                    return true;
+                }
+                if (others == null && other != null) {
+                    others = other.iterator();
+                }
+                return others != null && others.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (next != -1) {
+                    last = next;
+                    next = bits.nextSetBit(next + 1);
+                    return slots.name(last);
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String name = others.next();
+                last = -1;
+                lastFromOthers = true;
+                return name;
+            }
+
+            @Override
+            public void remove() {
+                if (lastFromOthers) {
+                    others.remove();
+                    lastFromOthers = false;
+                } else if (last != -1) {
+                    bits.clear(last);
+                    last = -1;
+                } else {
+                    throw new IllegalStateException();
+                }
+            }
+        };
+    }
+
+    private Object writeReplace() {
+        return new CaseInsensitiveSet(this);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assigns a fixed slot index to every attribute of a model, so that models can keep values of attributes in
+ * arrays, see {@link AttributeMap}. Slots follow the order of names passed to the constructor. Names are looked up
+ * case-insensitively with a minimal perfect hash, built once per model by hash and displace: names are hashed into
+ * groups of about four, and every group gets a displacement which sends its names to free positions of a table
+ * with one position per name. A lookup costs one hash of the name and one comparison, and the tables take about
+ * 1.25 ints per name.
+ *
+ * @author Igor Polevoy
+ */
+final class AttributeSlots {
+
+    static final AttributeSlots EMPTY = new AttributeSlots(Collections.<String>emptyList());
+
+    private static final int NAMES_PER_GROUP = 4;
+    private static final int MAX_DISPLACEMENTS = 1 << 16;
+    private static final int MAX_SEEDS = 64;
+
+    private final String[] names;
+    private final String[] generated;
+    private final int[] displacements;
+    private final int[] positions;
+    private final int seed;
+
+    /**
+     * @param names attribute names, must be unique regardless of case.
+     */
+    AttributeSlots(Collection<String> names) {
+        this(names, null);
+    }
+
+    /**
+     * @param names attribute names, must be unique regardless of case.
+     * @param generated the same names in the same order, as generated into the model class by instrumentation, or null.
+     */
+    AttributeSlots(Collection<String> names, String[] generated) {
+        this.names = names.toArray(new String[0]);
+        this.generated = generated;
+        this.positions = new int[Math.max(this.names.length, 1)];
+        long[] hashes = new long[this.names.length];
+        for (int seed = 0; seed < MAX_SEEDS; seed++) {
+            for (int slot = 0; slot < hashes.length; slot++) {
+                hashes[slot] = hash(this.names[slot], seed);
+            }
+            // fewer names per group on retries, which makes groups easier to place
+            int groups = Math.max(1, Math.min(this.names.length, (this.names.length << (seed / 4)) / NAMES_PER_GROUP));
+            int[] displacements = displacements(hashes, groups);
+            if (displacements != null) {
+                this.displacements = displacements;
+                this.seed = seed;
+                return;
+            }
+        }
+        throw new IllegalArgumentException("attribute names are not unique: " + Arrays.toString(this.names));
+    }
+
+    /**
+     * Places groups from the largest to the smallest, and fills positions with slots.
+     *
+     * @return displacements of groups, or null if a group could not be placed.
+     */
+    private int[] displacements(long[] hashes, int groupCount) {
+        List<List<Integer>> groups = new ArrayList<>(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            groups.add(new ArrayList<>(NAMES_PER_GROUP));
+        }
+        for (int slot = 0; slot < hashes.length; slot++) {
+            groups.get(reduce((int) hashes[slot], groupCount)).add(slot);
+        }
+        Integer[] order = new Integer[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            order[group] = group;
+        }
+        Arrays.sort(order, (g1, g2) -> groups.get(g2).size() - groups.get(g1).size());
+
+        int[] displacements = new int[groupCount];
+        Arrays.fill(positions, -1);
+        int[] candidates = new int[NAMES_PER_GROUP];
+        for (int group : order) {
+            List<Integer> slots = groups.get(group);
+            if (slots.isEmpty()) {
+                break;
+            }
+            if (candidates.length < slots.size()) {
+                candidates = new int[slots.size()];
+            }
+            int displacement = 0;
+            while (!place(hashes, slots, displacement, candidates)) {
+                if (++displacement == MAX_DISPLACEMENTS) {
+                    return null;
+                }
+            }
+            displacements[group] = displacement;
+        }
+        return displacements;
+    }
+
+    /**
+     * @return true if all slots of a group fall into distinct free positions with the displacement, and were put there.
+     */
+    private boolean place(long[] hashes, List<Integer> slots, int displacement, int[] candidates) {
+        for (int i = 0; i < slots.size(); i++) {
+            int position = position(hashes[slots.get(i)], displacement, positions.length);
+            if (positions[position] != -1) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (candidates[j] == position) {
+                    return false;
+                }
+            }
+            candidates[i] = position;
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            positions[candidates[i]] = slots.get(i);
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit hash which ignores case the same way as {@link String#CASE_INSENSITIVE_ORDER} does. The lower half
+     * selects a group, the upper half a position.
+     */
+    private static long hash(String name, int seed) {
+        long h = 0xcbf29ce484222325L + seed * 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ Character.toLowerCase(Character.toUpperCase(name.charAt(i)))) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static int position(long hash, int displacement, int size) {
+        int h = (int) (hash >>> 32) + displacement * 0x9e3779b9;
+        h = (h ^ (h >>> 16)) * 0x85ebca6b;
+        h = (h ^ (h >>> 13)) * 0xc2b2ae35;
+        return reduce(h ^ (h >>> 16), size);
+    }
+
+    /**
+     * @return value between 0 and size - 1, without a division
+     */
+    private static int reduce(int hash, int size) {
+        return (int) (((hash & 0xffffffffL) * size) >>> 32);
+    }
+
+    /**
+     * @param name attribute name, case-insensitive
+     * @return slot of attribute, or -1 if this is not a name of an attribute
+     */
+    int slot(String name) {
+        long hash = hash(name, seed);
+        int displacement = displacements[reduce((int) hash, displacements.length)];
+        int slot = positions[position(hash, displacement, positions.length)];
+        return slot != -1 && names[slot].equalsIgnoreCase(name) ? slot : -1;
+    }
+
+    /**
+     * @return true if the slot is of an attribute with this very instance of name, as generated by instrumentation.
+     */
+    boolean isGenerated(int slot, String name) {
+        return generated != null && slot >= 0 && slot < generated.length && generated[slot] == name;
+    }
+
+    String name(int slot) {
+        return names[slot];
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * @return number of ints in lookup tables
+     */
+    int footprint() {
+        return displacements.length + positions.length;
+    }
+}
@@ -23,6 +23,7 @@ import java.sql.PreparedStatement;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -478,6 +479,34 @@ public class Base {
         return new DB(DB.DEFAULT_NAME).withDb(supplier);
     }
 
+    /**
+     * Same as {@link DB#async(Supplier)}, but with db name {@link DB#DEFAULT_NAME}.
+     */
+    public static <T> CompletableFuture<T> async(Supplier<T> supplier) {
+        return new DB(DB.DEFAULT_NAME).async(supplier);
+    }
+
+    /**
+     * Same as {@link DB#findAsync(String, Object...)}, but with db name {@link DB#DEFAULT_NAME}.
+     */
+    public static CompletableFuture<List<Map<String, Object>>> findAsync(String query, Object... params) {
+        return new DB(DB.DEFAULT_NAME).findAsync(query, params);
+    }
+
+    /**
+     * Same as {@link DB#firstCellAsync(String, Object...)}, but with db name {@link DB#DEFAULT_NAME}.
+     */
+    public static CompletableFuture<Object> firstCellAsync(String query, Object... params) {
+        return new DB(DB.DEFAULT_NAME).firstCellAsync(query, params);
+    }
+
+    /**
+     * Same as {@link DB#execAsync(String, Object...)}, but with db name {@link DB#DEFAULT_NAME}.
+     */
+    public static CompletableFuture<Integer> execAsync(String query, Object... params) {
+        return new DB(DB.DEFAULT_NAME).execAsync(query, params);
+    }
+
     /**
      * Same as {@link DB#doInTransaction(DB.ThrowingSupplier, Consumer, Runnable)}, but with db name {@link DB#DEFAULT_NAME}.
      */
@@ -0,0 +1,283 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.logging.LogFilter;
+import org.javalite.activejdbc.logging.LogLevel;
+import org.javalite.common.CaseInsensitiveMap;
+import org.javalite.common.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Reads columns of tables from JDBC metadata. Columns of all tables of the schema of a connection are read with one
+ * call of {@link DatabaseMetaData#getColumns(String, String, String, String)}, instead of up to four calls per table.
+ * Tables with a schema in their names, and tables not found this way, are looked up one by one, as before.
+ *
+ * @author Igor Polevoy
+ */
+final class ColumnMetadataReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ColumnMetadataReader.class);
+
+    private final DatabaseMetaData databaseMetaData;
+    private final String dbType;
+    private int calls;
+
+    ColumnMetadataReader(DatabaseMetaData databaseMetaData, String dbType) {
+        this.databaseMetaData = databaseMetaData;
+        this.dbType = dbType;
+    }
+
+    /**
+     * @return number of calls to {@link DatabaseMetaData#getColumns(String, String, String, String)} made so far.
+     */
+    int calls() {
+        return calls;
+    }
+
+    /**
+     * @param tables names of tables, as registered for models
+     * @return columns keyed by column name, keyed by table as passed in. Tables which were not found have no columns.
+     */
+    Map<String, Map<String, ColumnMetadata>> read(String[] tables) throws SQLException {
+        Map<String, Map<String, ColumnMetadata>> all = null;
+        Map<String, Map<String, ColumnMetadata>> columnsByTable = new LinkedHashMap<>();
+        for (String table : tables) {
+            Map<String, ColumnMetadata> columns = null;
+            if (!table.contains(".")) {
+                if (all == null) {
+                    all = readAll();
+                }
+                columns = find(all, mangleTableName(table));
+            }
+            if (columns != null) {
+                LogFilter.log(LOGGER, LogLevel.INFO, "Fetched metadata for table: {}", table);
+            } else {
+                columns = fetch(table);
+            }
+            columnsByTable.put(table, columns);
+        }
+        return columnsByTable;
+    }
+
+    /**
+     * @return columns of all tables of the schema of the connection, keyed by table names as reported by the driver.
+     */
+    private Map<String, Map<String, ColumnMetadata>> readAll() throws SQLException {
+        Map<String, Map<String, ColumnMetadata>> all = new HashMap<>();
+        calls++;
+        try (ResultSet rs = databaseMetaData.getColumns(getConnectionCatalog(), getConnectionSchema(), "%", null)) {
+            while (rs.next()) {
+                if (!skip(rs)) {
+                    ColumnMetadata cm = columnMetadata(rs);
+                    all.computeIfAbsent(rs.getString("TABLE_NAME"), t -> new CaseInsensitiveMap<>())
+                            .put(cm.getColumnName(), cm);
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Finds tables which have a column, such as a foreign key, without reading all columns of all tables.
+     *
+     * @param column name of a column
+     * @param tables names of tables to look in, as registered for models
+     * @return those of the tables which have the column.
+     */
+    Set<String> tablesWithColumn(String column, Collection<String> tables) throws SQLException {
+        Map<String, Map<String, ColumnMetadata>> found = new HashMap<>();
+        for (String variant : new LinkedHashSet<>(Arrays.asList(column, column.toUpperCase(), column.toLowerCase()))) {
+            calls++;
+            try (ResultSet rs = databaseMetaData.getColumns(getConnectionCatalog(), getConnectionSchema(), "%", variant)) {
+                while (rs.next()) {
+                    // '_' in the name is a wildcard
+                    if (!skip(rs) && column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        ColumnMetadata cm = columnMetadata(rs);
+                        found.computeIfAbsent(rs.getString("TABLE_NAME"), t -> new CaseInsensitiveMap<>())
+                                .put(cm.getColumnName(), cm);
+                    }
+                }
+            }
+            if (!found.isEmpty()) {
+                break;
+            }
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String table : tables) {
+            if (table.contains(".") ? fetch(table).containsKey(column) : find(found, mangleTableName(table)) != null) {
+                result.add(table);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tries the same variants of a table name as {@link #fetch(String)} does.
+     */
+    private static Map<String, ColumnMetadata> find(Map<String, Map<String, ColumnMetadata>> all, String tableName) {
+        Map<String, ColumnMetadata> columns = all.get(tableName);
+        if (columns == null) {
+            columns = all.get(tableName.toUpperCase());
+        }
+        if (columns == null) {
+            columns = all.get(tableName.toLowerCase());
+        }
+        if (columns == null && tableName.contains("`")) {
+            columns = all.get(tableName.substring(1, tableName.length() - 1).toLowerCase());
+        }
+        return columns;
+    }
+
+    /**
+     * Some databases will improve the search of metadata if you give them the schema name
+     *
+     * @return  may return null
+     *
+     */
+    private String getConnectionSchema() throws SQLException {
+        try {
+            return databaseMetaData.getConnection().getSchema();
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception ignore) {} // getSchema does not exist on android.
+        return null;
+    }
+
+
+    /**
+     * Some databases will improve the search of metadata if you give them the catalog name
+     *
+     * @return  may return null
+     *
+     */
+    private String getConnectionCatalog() throws SQLException {
+        try {
+            return databaseMetaData.getConnection().getCatalog();
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception ignore) {} // getCatalog does not exist on android.
+        return null;
+    }
+
+
+    /**
+     * Workarounds for some DB idiosyncrasies
+     */
+    private String mangleTableName(String tableName) {
+        if(dbType.toLowerCase().contains("h2")){
+            // keep quoted table names as is, otherwise use uppercase
+            if (!tableName.contains("\"")) {
+                tableName = tableName.toUpperCase();
+            } else if(tableName.startsWith("\"") && tableName.endsWith("\"")) {
+                tableName = tableName.substring(1, tableName.length() - 1);
+            }
+        } else if(dbType.toLowerCase().contains("postgres") && tableName.startsWith("\"") && tableName.endsWith("\"")) {
+            tableName = tableName.substring(1, tableName.length() - 1);
+        }
+        return tableName;
+    }
+
+    /**
+     * Returns a hash keyed off a column name.
+     */
+    Map<String, ColumnMetadata> fetch(String table) throws SQLException {
+
+        /*
+         * Valid table name format: tablename or schemaname.tablename
+         */
+        String[] parts = table.split("\\.", 3);
+
+        String schema = null;
+
+        String tableName = null;
+
+        switch (parts.length) {
+            case 1:
+                schema = getConnectionSchema();
+                tableName = parts[0];
+                break;
+            case 2:
+                schema = parts[0];
+                tableName = parts[1];
+                break;
+        }
+
+        if (Util.blank(tableName) || (schema != null && schema.trim().length() == 0)) {
+            throw new DBException("invalid table name : " + table);
+        }
+
+        String catalog = getConnectionCatalog();
+
+        tableName = mangleTableName(tableName);
+
+        Map<String, ColumnMetadata> columns = getColumns(catalog, schema, tableName);
+
+        //try upper case table name - Oracle uses upper case
+        if (columns.isEmpty()) {
+            columns = getColumns(catalog, schema, tableName.toUpperCase());
+        }
+
+        //if upper case not found, try lower case.
+        if (columns.isEmpty()) {
+            columns = getColumns(catalog, schema, tableName.toLowerCase());
+        }
+
+        //if table is back-quoted, try to remove quotes - helped with MySQL
+        if (columns.isEmpty() && tableName.contains("`")) {
+            tableName = tableName.substring(1, tableName.length() -1);
+            columns = getColumns(catalog, schema, tableName.toLowerCase());
+        }
+
+        if (columns.size() > 0) {
+            LogFilter.log(LOGGER, LogLevel.INFO, "Fetched metadata for table: {}", table);
+        } else {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "Failed to retrieve metadata for table: '{}'."
+                    + " Are you sure this table exists? For some databases table names are case sensitive.",
+                    table);
+        }
+
+        return columns;
+    }
+
+    private Map<String, ColumnMetadata> getColumns(String catalog, String schema, String tableName) throws SQLException {
+        Map<String, ColumnMetadata> columns = new CaseInsensitiveMap<>();
+        calls++;
+        try (ResultSet rs = databaseMetaData.getColumns(catalog, schema, tableName, null)) {
+            while (rs.next()) {
+                if (!skip(rs)) {
+                    ColumnMetadata cm = columnMetadata(rs);
+                    columns.put(cm.getColumnName(), cm);
+                }
+            }
+        }
+        return columns;
+    }
+
+    // skip h2 INFORMATION_SCHEMA table columns.
+    private boolean skip(ResultSet rs) throws SQLException {
+        return "h2".equalsIgnoreCase(dbType) && "INFORMATION_SCHEMA".equals(rs.getString("TABLE_SCHEM"));
+    }
+
+    private static ColumnMetadata columnMetadata(ResultSet rs) throws SQLException {
+        return new ColumnMetadata(rs.getString("COLUMN_NAME"), rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"));
+    }
+}
@@ -16,6 +16,7 @@ limitations under the License.
 package org.javalite.activejdbc;
 
 import org.javalite.activejdbc.logging.ActiveJDBCLogger;
+import org.javalite.activejdbc.statistics.StatisticsQueue;
 
 import org.javalite.common.Convert;
 import org.javalite.common.Util;
@@ -40,7 +41,17 @@ public class Configuration {
         CacheManager("cache.manager"),
         ActiveJdbcLogger("activejdbc.logger"),
         CollectStatistics("collectStatistics"),
-        CollectStatisticsOnHold("collectStatisticsOnHold");
+        CollectStatisticsOnHold("collectStatisticsOnHold"),
+        CollectStatisticsMaxQueries("collectStatisticsMaxQueries"),
+        SlowQueryThresholdMillis("slowQueryThresholdMillis"),
+        SlowQueryExplainSampleRate("slowQueryExplainSampleRate"),
+        SlowQueryLogSize("slowQueryLogSize"),
+        DetectNPlusOne("detectNPlusOne"),
+        BatchAssociations("batchAssociations"),
+        StatementCacheSize("statementCacheSize"),
+        MetadataSnapshotDir("metadataSnapshotDir"),
+        LazyMetadata("lazyMetadata"),
+        ConnectionScope("connectionScope");
 
         private String name;
 
@@ -130,6 +141,101 @@ public class Configuration {
         return Convert.toBoolean(properties.getProperty(PropertyName.CollectStatisticsOnHold.name, "false"));
     }
 
+    /**
+     * @return maximum number of shapes of queries to collect statistics for. Defaults to
+     * {@link StatisticsQueue#DEFAULT_MAX_QUERIES}.
+     */
+    public int collectStatisticsMaxQueries() {
+        return Convert.toInteger(properties.getProperty(PropertyName.CollectStatisticsMaxQueries.name,
+                String.valueOf(StatisticsQueue.DEFAULT_MAX_QUERIES)));
+    }
+
+    /**
+     * @param dbName name of a database
+     * @return time in milliseconds after which queries to a database are slow, from a property
+     * <code>slowQueryThresholdMillis.&lt;dbName&gt;</code>, or <code>slowQueryThresholdMillis</code> for all databases.
+     * Returns -1 if neither is defined.
+     */
+    public long getSlowQueryThresholdMillis(String dbName) {
+        String threshold = properties.getProperty(PropertyName.SlowQueryThresholdMillis.name + "." + dbName,
+                properties.getProperty(PropertyName.SlowQueryThresholdMillis.name));
+        return threshold == null ? -1 : Convert.toLong(threshold.trim());
+    }
+
+    /**
+     * @return true if a threshold of slow queries is defined for any database.
+     */
+    public boolean hasSlowQueryThresholds() {
+        for (Object name : properties.keySet()) {
+            if (name.toString().startsWith(PropertyName.SlowQueryThresholdMillis.name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return share of slow queries to get a plan for, between 0 and 1. Defaults to 1.
+     */
+    public double getSlowQueryExplainSampleRate() {
+        return Convert.toDouble(properties.getProperty(PropertyName.SlowQueryExplainSampleRate.name, "1"));
+    }
+
+    /**
+     * @return number of most recent slow queries to keep. Defaults to 100.
+     */
+    public int getSlowQueryLogSize() {
+        return Convert.toInteger(properties.getProperty(PropertyName.SlowQueryLogSize.name, "100"));
+    }
+
+    /**
+     * @return true to log models of a list which load associations one by one. Defaults to false.
+     */
+    public boolean detectNPlusOne() {
+        return Convert.toBoolean(properties.getProperty(PropertyName.DetectNPlusOne.name, "false"));
+    }
+
+    /**
+     * @return true to load associations for all models of a list at once, see
+     * {@link LazyList#batchAssociations()}. Defaults to false.
+     */
+    public boolean batchAssociations() {
+        return Convert.toBoolean(properties.getProperty(PropertyName.BatchAssociations.name, "false"));
+    }
+
+    /**
+     * @return maximum number of prepared statements cached per connection, 0 to turn statement caching off.
+     * Defaults to 256.
+     */
+    public int getStatementCacheSize() {
+        return Convert.toInteger(properties.getProperty(PropertyName.StatementCacheSize.name, "256"));
+    }
+
+    /**
+     * @return directory to save columns of tables to, and read them from on the next start, instead of reading them
+     * from the database, or null to always read them from the database. Used only for databases migrated with the
+     * DB-Migrator, which records their versions in table <code>schema_version</code>.
+     */
+    public String getMetadataSnapshotDir() {
+        return properties.getProperty(PropertyName.MetadataSnapshotDir.name);
+    }
+
+    /**
+     * @return true to read metadata of a model when it is used for the first time, rather than of all models of its
+     * database at once. Models get the same associations either way, listed in the same order.
+     * Metadata snapshots are not used in this mode. Defaults to false.
+     */
+    public boolean lazyMetadata() {
+        return Convert.toBoolean(properties.getProperty(PropertyName.LazyMetadata.name, "false"));
+    }
+
+    /**
+     * @return class name of {@link org.javalite.activejdbc.ConnectionScope} to keep connections in, or null for default.
+     */
+    public String getConnectionScope() {
+        return properties.getProperty(PropertyName.ConnectionScope.name);
+    }
+
     public String getCacheManager(){
         return properties.getProperty(Configuration.PropertyName.CacheManager.name);
     }
@@ -0,0 +1,62 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import java.sql.Connection;
+import java.util.Map;
+
+/**
+ * Defines where connections opened by {@link DB} are kept, and so which code can see them. By default, connections are
+ * bound to the current thread, see {@link ThreadLocalConnectionScope}. Another implementation can be configured with a
+ * property <code>connectionScope</code> in file <code>activejdbc.properties</code>, or set with
+ * {@link ConnectionsAccess#setScope(ConnectionScope)}:
+ *
+ * <pre>
+ * connectionScope=org.javalite.activejdbc.InheritableConnectionScope
+ * </pre>
+ *
+ * Implementations must be thread safe, and must provide a default constructor.
+ *
+ * @author Igor Polevoy
+ */
+public interface ConnectionScope {
+
+    /**
+     * @param dbName name of a database.
+     * @return connection bound to current scope under a name, or null if there is none.
+     */
+    Connection get(String dbName);
+
+    /**
+     * Binds a connection to current scope under a name.
+     *
+     * @param dbName name of a database.
+     * @param connection connection to bind.
+     */
+    void attach(String dbName, Connection connection);
+
+    /**
+     * Removes a connection from current scope, does not close it.
+     *
+     * @param dbName name of a database.
+     */
+    void detach(String dbName);
+
+    /**
+     * @return connections bound to current scope, keyed by database name. Never null, should not be modified.
+     */
+    Map<String, Connection> all();
+}
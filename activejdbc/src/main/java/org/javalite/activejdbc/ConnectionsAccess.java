@@ -31,16 +31,55 @@ import java.util.*;
 public class ConnectionsAccess {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionsAccess.class);
-    private static final ThreadLocal<HashMap<String, Connection>> connectionsTL = new ThreadLocal<>();
+    private static volatile ConnectionScope scope;
 
     private ConnectionsAccess() {
         
     }
-    
+
+    /**
+     * Replaces scope of connections, see {@link ConnectionScope}. Should be called before any connection is opened,
+     * since connections bound to a previous scope are not carried over.
+     *
+     * @param scope new scope of connections.
+     */
+    public static void setScope(ConnectionScope scope) {
+        if (scope == null) {
+            throw new IllegalArgumentException("scope cannot be null");
+        }
+        ConnectionsAccess.scope = scope;
+    }
+
+    static ConnectionScope scope() {
+        ConnectionScope s = scope;
+        if (s == null) {
+            synchronized (ConnectionsAccess.class) {
+                if (scope == null) {
+                    scope = createScope(Registry.instance().getConfiguration().getConnectionScope());
+                }
+                s = scope;
+            }
+        }
+        return s;
+    }
+
+    private static ConnectionScope createScope(String className) {
+        if (className == null) {
+            return new ThreadLocalConnectionScope();
+        }
+        try {
+            ConnectionScope s = (ConnectionScope) Class.forName(className).getDeclaredConstructor().newInstance();
+            LogFilter.log(LOGGER, LogLevel.INFO, "Using connection scope: {}", className);
+            return s;
+        } catch (Exception e) {
+            throw new InitException("Failed to initialize a connection scope. Please, ensure that the property " +
+                    "'connectionScope' points to correct class which implements '" + ConnectionScope.class.getName()
+                    + "' and provides a default constructor.", e);
+        }
+    }
+
     static Map<String, Connection> getConnectionMap(){
-        if (connectionsTL.get() == null)
-            connectionsTL.set(new HashMap<String, Connection>());
-        return connectionsTL.get();
+        return scope().all();
     }
 
 
@@ -50,7 +89,7 @@ public class ConnectionsAccess {
      * @return a named connection attached to current thread and bound to name specified by argument.
      */
     static Connection getConnection(String dbName){
-        return getConnectionMap().get(dbName);
+        return scope().get(dbName);
     }
 
 
@@ -61,16 +100,17 @@ public class ConnectionsAccess {
      * @param connection
      */
     static void attach(String dbName, Connection connection, String extraInfo) {
-        if(ConnectionsAccess.getConnectionMap().get(dbName) != null){
-            throw new InternalException("You are opening a connection " + dbName + " without closing a previous one. Check your logic. Connection still remains on thread: " + ConnectionsAccess.getConnectionMap().get(dbName));
+        Connection existing = scope().get(dbName);
+        if(existing != null){
+            throw new InternalException("You are opening a connection " + dbName + " without closing a previous one. Check your logic. Connection still remains on thread: " + existing);
         }
-        ConnectionsAccess.getConnectionMap().put(dbName, connection);
+        scope().attach(dbName, connection);
         LogFilter.log(LOGGER, LogLevel.DEBUG, "Attached connection named: {}: to current thread: {}. Extra info: {}", dbName, connection, extraInfo);
     }
 
     static void detach(String dbName){
-        LogFilter.log(LOGGER, LogLevel.DEBUG, "Detached connection named: {} from current thread: {}", dbName, getConnectionMap().get(dbName));
-        getConnectionMap().remove(dbName);
+        LogFilter.log(LOGGER, LogLevel.DEBUG, "Detached connection named: {} from current thread: {}", dbName, scope().get(dbName));
+        scope().detach(dbName);
     }
 
 
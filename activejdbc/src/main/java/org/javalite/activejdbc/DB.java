@@ -18,6 +18,7 @@ package org.javalite.activejdbc;
 import org.javalite.activejdbc.connection_config.*;
 import org.javalite.activejdbc.logging.LogFilter;
 import org.javalite.activejdbc.logging.LogLevel;
+import org.javalite.activejdbc.pool.ConnectionPool;
 import org.javalite.app_config.AppConfig;
 import org.javalite.common.Convert;
 import org.slf4j.Logger;
@@ -32,6 +33,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -58,6 +62,8 @@ public class DB implements Closeable{
 
     public static final String DEFAULT_NAME = "default";
 
+    private static volatile Executor asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     private final String name;
 
     /**
@@ -256,6 +262,14 @@ public class DB implements Closeable{
         }
     }
 
+    /**
+     * Logs a query, and keeps it if it was slow, see {@link org.javalite.activejdbc.statistics.SlowQueryLog}.
+     */
+    private void logQuery(String query, Object[] params, long start) {
+        Registry.instance().getSlowQueryLog().check(name, query, params, start);
+        LogFilter.logQueryNanos(LOGGER, query, params, start);
+    }
+
     private void checkExistingConnection(String name) {
         if (null != ConnectionsAccess.getConnection(name)) {
             throw new DBException("Cannot open a new connection because existing connection is still on current thread, name: " + name + ", connection instance: " + connection()
@@ -270,13 +284,26 @@ public class DB implements Closeable{
      */
     private DB openJdbc(ConnectionJdbcConfig config) {
 
-        if(config.getProps()!= null){
+        if(config.getPoolConfig() != null){
+            return openPooled(config);
+        }else if(config.getProps()!= null){
             return open(config.getDriver(), config.getUrl(), config.getProps());
         }else{
             return open(config.getDriver(), config.getUrl(), config.getUser(), config.getPassword());
         }
     }
 
+    private DB openPooled(ConnectionJdbcConfig config) {
+        try {
+            Connection connection = ConnectionPool.of(config).getConnection();
+            LogFilter.log(LOGGER, LogLevel.DEBUG, "Borrowed connection: {}, URL: {}", connection, config.getUrl());
+            ConnectionsAccess.attach(name, connection, config.getUrl());
+            return this;
+        } catch (SQLException e) {
+            throw new InitException("Failed to get a pooled connection to JDBC URL: " + config.getUrl() + " with user: " + config.getUser(), e);
+        }
+    }
+
     /**
      * This method is used internally by framework.
      *
@@ -390,20 +417,20 @@ public class DB implements Closeable{
         ResultSet rs = null;
         try {
             Object result = null;
-            long start = System.currentTimeMillis();
-            ps = connection().prepareStatement(query);
+            long start = System.nanoTime();
+            ps = prepareStatement(query);
             setParameters(ps, params);
             rs = ps.executeQuery();
             if (rs.next()) {
                 result = rs.getObject(1);
             }
-            LogFilter.logQuery(LOGGER, query, params, start);
+            logQuery(query, params, start);
             return result;
         } catch (SQLException e) {
             throw new DBException(query, params, e);
         } finally {
             closeQuietly(rs);
-            closeQuietly(ps);
+            releaseStatement(ps);
         }
     }
 
@@ -431,13 +458,13 @@ public class DB implements Closeable{
     public List<Map<String, Object>> findAll(String query, Object ... params) {
 
         final List<Map<String, Object>> results = new ArrayList<>();
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         find(query, params).with(new RowListenerAdapter() {
             @Override public void onNext(Map<String, Object> row) {
                 results.add(row);
             }
         });
-        LogFilter.logQuery(LOGGER, query, params, start);
+        logQuery(query, params, start);
         return results;
     }
 
@@ -462,20 +489,20 @@ public class DB implements Closeable{
         ResultSet rs = null;
         try {
             List<Object> results = new ArrayList<>();
-            long start = System.currentTimeMillis();
-            ps = connection().prepareStatement(query);
+            long start = System.nanoTime();
+            ps = prepareStatement(query);
             setParameters(ps, params);
             rs = ps.executeQuery();
             while (rs.next()) {
                 results.add(rs.getObject(1));
             }
-            LogFilter.logQuery(LOGGER, query, params, start);
+            logQuery(query, params, start);
             return results;
         } catch (SQLException e) {
             throw new DBException(query, params, e);
         } finally {
             closeQuietly(rs);
-            closeQuietly(ps);
+            releaseStatement(ps);
         }
     }
 
@@ -495,14 +522,14 @@ public class DB implements Closeable{
     public List<Map<String, Object>> findAll(String query) {
 
         final ArrayList<Map<String, Object>> results = new ArrayList<>();
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         find(query).with(new RowListenerAdapter() {
             @Override public void onNext(Map<String, Object> row) {
                 results.add(row);
             }
         });
 
-        LogFilter.logQuery(LOGGER, query, null, start);
+        logQuery(query, null, start);
         return results;
     }
 
@@ -566,20 +593,26 @@ public class DB implements Closeable{
             throw new IllegalArgumentException("you passed arguments, but the query does not have placeholders: (?)");
         }
 
-        PreparedStatement ps;
+        PreparedStatement ps = null;
         ResultSet rs;
         try {
             ps = createStreamingPreparedStatement(query, type, concur, fetchSize);
             setParameters(ps, params);
             rs = ps.executeQuery();
-            return new RowProcessor(rs, ps);
+            return new RowProcessor(rs, ps, connection());
 
-        } catch (SQLException e) { throw new DBException(query, params, e); }
+        } catch (SQLException e) {
+            releaseStatement(ps);
+            throw new DBException(query, params, e);
+        }
     }
 
     private PreparedStatement createStreamingPreparedStatement(String query, RowProcessor.ResultSetType type, RowProcessor.ResultSetConcur concur, int fetchSize) throws SQLException {
-        Connection conn = connection();
-        PreparedStatement res = conn.prepareStatement(query, type.getValue(), concur.getValue());
+        // forward only, read only is what a plain prepareStatement(query) creates, so these can share a cached statement
+        String key = type == RowProcessor.ResultSetType.FORWARD_ONLY && concur == RowProcessor.ResultSetConcur.READ_ONLY
+                ? query : type.getValue() + ":" + concur.getValue() + ":" + query;
+        PreparedStatement res = StatementCache.instance().checkout(connection(), key,
+                c -> c.prepareStatement(query, type.getValue(), concur.getValue()));
         res.setFetchSize(fetchSize);
         return res;
     }
@@ -627,12 +660,12 @@ public class DB implements Closeable{
      * @return number of rows afected by query.
      */
     public int exec(String query){
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         Statement s = null;
         try {
             s = connection().createStatement();
             int count = s.executeUpdate(query);
-            LogFilter.logQuery(LOGGER, query, null, start);
+            logQuery(query, null, start);
             return count;
         } catch (SQLException e) {
             logException("Query failed: " + query, e);
@@ -654,19 +687,19 @@ public class DB implements Closeable{
 
         if(query.indexOf('?') == -1) throw new IllegalArgumentException("query must be parametrized");
 
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         PreparedStatement ps = null;
         try {
-            ps = connection().prepareStatement(query);
+            ps = prepareStatement(query);
             setParameters(ps, params);
             int count = ps.executeUpdate();
-            LogFilter.logQuery(LOGGER, query, params, start);
+            logQuery(query, params, start);
             return count;
         } catch (SQLException e) {
             logException("Failed query: " + query, e);
             throw new DBException(query, params, e);
         } finally {
-            closeQuietly(ps);
+            releaseStatement(ps);
         }
 
     }
@@ -685,34 +718,12 @@ public class DB implements Closeable{
         if (!INSERT_PATTERN.matcher(query).find())
             throw new IllegalArgumentException("this method is only for inserts");
 
-        long start = System.currentTimeMillis();
-        PreparedStatement ps;
+        long start = System.nanoTime();
+        PreparedStatement ps = null;
         try {
             Connection connection = connection();
-            ps = StatementCache.instance().getPreparedStatement(connection, query);
-            if(ps == null){
-                ps = connection.prepareStatement(query, new String[]{autoIncrementColumnName});
-                StatementCache.instance().cache(connection, query, ps);
-            }
-            for (int index = 0; index < params.length;) {
-                Object param = params[index++];
-                if (param instanceof byte[]) {
-                    byte[] bytes = (byte[]) param;
-                    try {
-                        Blob blob = connection.createBlob();
-                        if (blob == null) { // SQLite
-                            ps.setBytes(index, bytes);
-                        } else {
-                            blob.setBytes(1, bytes);
-                            ps.setBlob(index, blob);
-                        }
-                    } catch (AbstractMethodError | SQLException e) {// net.sourceforge.jtds.jdbc.ConnectionJDBC2.createBlob is abstract :)
-                        ps.setObject(index, param);
-                    }
-                } else {
-                    ps.setObject(index, param);
-                }
-            }
+            ps = prepareInsert(connection, query, autoIncrementColumnName);
+            setInsertParameters(connection, ps, params);
 
             if (ps.executeUpdate() != 1) {
                 return null;
@@ -723,7 +734,7 @@ public class DB implements Closeable{
                 rs = ps.getGeneratedKeys();
                 if (rs.next()) {
                     Object id = rs.getObject(1);
-                    LogFilter.logQuery(LOGGER, query, params, start);
+                    logQuery(query, params, start);
                     return id;
                 } else {
                     return -1;
@@ -737,7 +748,169 @@ public class DB implements Closeable{
         } catch (SQLException e) {
             throw new DBException(query, params, e);
         } finally {
-            // don't close ps as it could have come from the cache!
+            releaseStatement(ps);
+        }
+    }
+
+    /**
+     * Same as {@link #execInsert(String, String, Object...)}, but inserts many rows in a single JDBC batch.
+     * The batch runs in a savepoint, or in a transaction of its own if the connection is in auto-commit mode,
+     * so that it can be rolled back if the driver does not return a generated value for each row.
+     *
+     * @param query SQL for inserts.
+     * @param autoIncrementColumnName name of a column that is auto-incremented.
+     * @param paramsList list of parameter values, one array per row.
+     * @return new values of auto-incremented column, one per row, in the same order as rows, or null if the driver
+     * did not return them for the batch, in which case nothing was inserted.
+     */
+    List<Object> execInsertBatch(String query, String autoIncrementColumnName, List<Object[]> paramsList) {
+        if (!INSERT_PATTERN.matcher(query).find())
+            throw new IllegalArgumentException("this method is only for inserts");
+
+        long start = System.nanoTime();
+        Connection connection = connection();
+        PreparedStatement ps = null;
+        Boolean autoCommit = null;
+        Savepoint savepoint = null;
+        try {
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            } else {
+                savepoint = connection.setSavepoint();
+            }
+            ps = prepareInsert(connection, query, autoIncrementColumnName);
+            for (Object[] params : paramsList) {
+                setInsertParameters(connection, ps, params);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            logQuery(query, null, start);
+
+            List<Object> ids = new ArrayList<>(paramsList.size());
+            ResultSet rs = null;
+            try {
+                rs = ps.getGeneratedKeys();
+                while (rs.next()) {
+                    ids.add(rs.getObject(1));
+                }
+            } catch (SQLException e) {
+                LOGGER.error("Failed to find out the auto-incremented values, query: {}", query, e);
+            } finally {
+                closeQuietly(rs);
+            }
+            if (ids.size() != paramsList.size()) {
+                rollback(connection, autoCommit, savepoint);
+                LogFilter.log(LOGGER, LogLevel.WARNING, "Driver returned {} auto-incremented values for a batch of {} "
+                        + "inserts, rolled it back, query: {}", ids.size(), paramsList.size(), query);
+                return null;
+            }
+            if (autoCommit) {
+                connection.commit();
+            } else {
+                releaseQuietly(connection, savepoint);
+            }
+            return ids;
+        } catch (SQLException e) {
+            clearBatchQuietly(ps);
+            if (autoCommit != null) {
+                try {
+                    rollback(connection, autoCommit, savepoint);
+                } catch (SQLException rollbackException) {
+                    e.addSuppressed(rollbackException);
+                }
+            }
+            throw new DBException(query, null, e);
+        } finally {
+            releaseStatement(ps);
+            if (Boolean.TRUE.equals(autoCommit)) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOGGER.error("Failed to restore auto-commit after a batch of inserts", e);
+                }
+            }
+        }
+    }
+
+    private static void rollback(Connection connection, boolean autoCommit, Savepoint savepoint) throws SQLException {
+        if (autoCommit) {
+            connection.rollback();
+        } else {
+            connection.rollback(savepoint);
+        }
+    }
+
+    // some drivers, such as Oracle, do not release savepoints, which go away with their transactions anyway
+    private static void releaseQuietly(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException ignore) {}
+    }
+
+    /**
+     * Executes a parametrized statement once per array of parameters, in a single JDBC batch.
+     *
+     * @param query parametrized statement
+     * @param paramsList list of parameter values, one array per execution.
+     * @return update counts, one per array of parameters. May contain <code>Statement.SUCCESS_NO_INFO</code>.
+     */
+    int[] execBatch(String query, List<Object[]> paramsList) {
+        long start = System.nanoTime();
+        PreparedStatement ps = null;
+        try {
+            ps = prepareStatement(query);
+            for (Object[] params : paramsList) {
+                setParameters(ps, params);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            logQuery(query, null, start);
+            return counts;
+        } catch (SQLException e) {
+            clearBatchQuietly(ps);
+            logException("Failed query: " + query, e);
+            throw new DBException(query, null, e);
+        } finally {
+            releaseStatement(ps);
+        }
+    }
+
+    private PreparedStatement prepareInsert(Connection connection, String query, String autoIncrementColumnName) throws SQLException {
+        return StatementCache.instance().checkout(connection, "keys:" + autoIncrementColumnName + ":" + query,
+                c -> c.prepareStatement(query, new String[]{autoIncrementColumnName}));
+    }
+
+    private void setInsertParameters(Connection connection, PreparedStatement ps, Object... params) throws SQLException {
+        for (int index = 0; index < params.length;) {
+            Object param = params[index++];
+            if (param instanceof byte[]) {
+                byte[] bytes = (byte[]) param;
+                try {
+                    Blob blob = connection.createBlob();
+                    if (blob == null) { // SQLite
+                        ps.setBytes(index, bytes);
+                    } else {
+                        blob.setBytes(1, bytes);
+                        ps.setBlob(index, blob);
+                    }
+                } catch (AbstractMethodError | SQLException e) {// net.sourceforge.jtds.jdbc.ConnectionJDBC2.createBlob is abstract :)
+                    ps.setObject(index, param);
+                }
+            } else {
+                ps.setObject(index, param);
+            }
+        }
+    }
+
+    /**
+     * Statements are cached, make sure a failed batch is not executed again with the next one.
+     */
+    private static void clearBatchQuietly(PreparedStatement ps) {
+        if (ps != null) {
+            try {
+                ps.clearBatch();
+            } catch (SQLException | RuntimeException ignore) {}
         }
     }
 
@@ -883,6 +1056,17 @@ public class DB implements Closeable{
         return ConnectionsAccess.getConnectionMap();
     }
 
+    /**
+     * Provides statistics of prepared statements cached for all connections: number of cache hits, misses and
+     * evictions, as well as number of statements currently cached. Cache size per connection is set by a property
+     * <code>statementCacheSize</code> in file <code>activejdbc.properties</code>.
+     *
+     * @return statistics of prepared statements cache.
+     */
+    public static Map<String, Object> statementCacheStatistics(){
+        return StatementCache.instance().statistics();
+    }
+
     /**
      * Creates a <code>java.sql.PreparedStatement</code> to be used in batch executions later.
      *
@@ -891,7 +1075,7 @@ public class DB implements Closeable{
      */
     public PreparedStatement startBatch(String parametrizedStatement){
         try {
-            return connection().prepareStatement(parametrizedStatement);
+            return prepareStatement(parametrizedStatement);
         } catch (SQLException e) {
             throw new DBException(e);
         }
@@ -934,7 +1118,8 @@ public class DB implements Closeable{
 
 
     /**
-     * Quietly closes the <code>java.sql.PreparedStatement</code> used in a batch execution. The advantage over calling
+     * Quietly releases the <code>java.sql.PreparedStatement</code> used in a batch execution: the statement goes back to
+     * a statement cache of the current connection, or is closed if it cannot be cached. The advantage over calling
      * <code>java.sql.PreparedStatement.close()</code> directly is not having to explicitly handle a checked exception
      * (<code>java.sql.SQLException</code>).
      * This method should typically be called in a finally block. So as not to displace any exception (e.g. from a failed
@@ -945,7 +1130,27 @@ public class DB implements Closeable{
      * @param ps <code>java.sql.PreparedStatement</code> with which a batch has been executed. If null, this is a no-op.
      */
     public void closePreparedStatement(PreparedStatement ps) {
-        closeQuietly(ps);
+        releaseStatement(ps);
+    }
+
+    /**
+     * Takes a statement from a cache of statements of a current connection, or prepares a new one.
+     * Must be returned with {@link #releaseStatement(PreparedStatement)}.
+     */
+    private PreparedStatement prepareStatement(String query) throws SQLException {
+        return StatementCache.instance().checkout(connection(), query, c -> c.prepareStatement(query));
+    }
+
+    /**
+     * Returns a statement to a cache of statements of a current connection. Closes it if there is no connection any longer.
+     */
+    private void releaseStatement(PreparedStatement ps) {
+        Connection connection = ConnectionsAccess.getConnection(name);
+        if (connection == null) {
+            closeQuietly(ps);
+        } else {
+            StatementCache.instance().release(connection, ps);
+        }
     }
 
     private void setParameters(PreparedStatement ps, Object... params) throws SQLException {
@@ -1126,6 +1331,94 @@ public class DB implements Closeable{
         }
     }
 
+    /**
+     * Runs code asynchronously, with its own connection to this database. Use it to run independent queries in
+     * parallel, instead of one after another:
+     * <pre>
+     CompletableFuture&lt;LazyList&lt;Order&gt;&gt; orders = Order.where("status = ?", "open").toFuture();
+     CompletableFuture&lt;Object&gt; total = db.firstCellAsync("SELECT SUM(amount) FROM payments");
+     CompletableFuture&lt;List&lt;Map&lt;String, Object&gt;&gt;&gt; stats = db.findAsync("SELECT * FROM daily_stats");
+     CompletableFuture.allOf(orders, total, stats).join();
+     * </pre>
+     *
+     * Connections are not shared between threads, so the following rules apply:
+     * <ul>
+     *     <li>If the current thread has a connection to this database with an open transaction, the code is executed
+     *     right away on the current thread, in the same connection, and a completed future is returned. This way the
+     *     code sees changes made in the transaction, and its own changes are committed or rolled back with it.</li>
+     *     <li>Otherwise, the code is executed by the executor set with {@link #asyncExecutor(Executor)}, using virtual
+     *     threads by default. The connection is borrowed for the duration of the call, the same way as in {@link #open()},
+     *     from a configuration in <code>database.properties</code> or from
+     *     {@link DBConfiguration#addConnectionConfig(ConnectionConfig)}, so it is best to configure a pool or a
+     *     data source. Since every call borrows a connection, the number of parallel calls is limited by the pool.</li>
+     * </ul>
+     *
+     * Models found by the code can be used on any thread after the future completes.
+     *
+     * @param supplier code to execute.
+     * @return future completed with the value returned by code, or with an exception thrown by it.
+     */
+    public <T> CompletableFuture<T> async(Supplier<T> supplier) {
+        if (inTransaction()) {
+            try {
+                return CompletableFuture.completedFuture(supplier.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        Connection callerConnection = ConnectionsAccess.getConnection(name);
+        return CompletableFuture.supplyAsync(() -> {
+            if (callerConnection != null && ConnectionsAccess.getConnection(name) == callerConnection) {
+                ConnectionsAccess.detach(name); // inherited from caller, see InheritableConnectionScope
+            }
+            return withDb(supplier);
+        }, asyncExecutor);
+    }
+
+    /**
+     * Same as {@link #findAll(String, Object...)}, but asynchronous, see {@link #async(Supplier)}.
+     */
+    public CompletableFuture<List<Map<String, Object>>> findAsync(String query, Object... params) {
+        return async(() -> findAll(query, params));
+    }
+
+    /**
+     * Same as {@link #firstCell(String, Object...)}, but asynchronous, see {@link #async(Supplier)}.
+     */
+    public CompletableFuture<Object> firstCellAsync(String query, Object... params) {
+        return async(() -> firstCell(query, params));
+    }
+
+    /**
+     * Same as {@link #exec(String, Object...)}, but asynchronous, see {@link #async(Supplier)}. Note that
+     * outside of a transaction, the statement is committed by its own connection.
+     */
+    public CompletableFuture<Integer> execAsync(String query, Object... params) {
+        return async(() -> params.length == 0 ? exec(query) : exec(query, params));
+    }
+
+    /**
+     * Sets executor used by {@link #async(Supplier)} for all databases. By default, every call runs on a new virtual
+     * thread.
+     *
+     * @param executor executor to run asynchronous calls.
+     */
+    public static void asyncExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        asyncExecutor = executor;
+    }
+
+    private boolean inTransaction() {
+        Connection connection = ConnectionsAccess.getConnection(name);
+        try {
+            return connection != null && !connection.getAutoCommit();
+        } catch (SQLException e) {
+            throw new DBException(e);
+        }
+    }
+
     /**
      * Executes a specified code block in a transaction and returns a result. May throw an exception.<br>
      * Usage:
@@ -0,0 +1,45 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ConnectionScope} which carries connections of a thread over to threads started by it, including virtual
+ * threads forked by <code>StructuredTaskScope</code>. A child thread starts with the connections its parent had at
+ * the time the child was created; connections it opens or closes later are its own.
+ *
+ * <p></p>
+ * A JDBC connection must not be used by two threads at the same time, so this scope fits code where the parent
+ * waits for forked work to complete, one fork at a time. A child thread should not close connections it got from
+ * its parent. To run queries in parallel, use {@link DB#async(java.util.function.Supplier)}, which borrows a
+ * connection for every call.
+ *
+ * @author Igor Polevoy
+ */
+public class InheritableConnectionScope extends ThreadLocalConnectionScope {
+
+    public InheritableConnectionScope() {
+        super(new InheritableThreadLocal<Map<String, Connection>>() {
+            @Override
+            protected Map<String, Connection> childValue(Map<String, Connection> parent) {
+                return parent == null ? null : new HashMap<>(parent);
+            }
+        });
+    }
+}
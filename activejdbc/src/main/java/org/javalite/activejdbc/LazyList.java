@@ -18,6 +18,7 @@ limitations under the License.
 package org.javalite.activejdbc;
 
 import org.javalite.activejdbc.associations.*;
+import org.javalite.activejdbc.cache.EntityCache;
 import org.javalite.activejdbc.cache.QueryCache;
 import org.javalite.activejdbc.logging.LogFilter;
 import org.javalite.common.Inflector;
@@ -25,7 +26,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.javalite.activejdbc.ModelDelegate.metaModelOf;
 import static org.javalite.common.Util.*;
@@ -41,6 +48,9 @@ import static org.javalite.common.Util.*;
 public class LazyList<T extends Model> extends AbstractLazyList<T> implements Externalizable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LazyList.class);
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+    private static final int DEFAULT_STREAM_INCLUDE_WINDOW = 1000;
+    private static final int WRITE_BUFFER_SIZE = 8192;
     private final List<String> orderBys = new ArrayList<>();
     private final MetaModel metaModel;
     private final String subQuery;
@@ -50,6 +60,7 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
     private final List<Association> includes = new ArrayList<>();
     private final boolean forPaginator;
     private LockMode lockMode = LockMode.NONE;
+    private boolean batchAssociations = Registry.instance().getConfiguration().batchAssociations();
 
     protected LazyList(String subQuery, MetaModel metaModel, Object... params) {
         this.fullQuery = null;
@@ -117,6 +128,26 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
         return (LazyList<E>) this;
     }
 
+    /**
+     * Loads parents and children of models of this list for all of them at once, when the first model loads them
+     * with {@link Model#parent(Class)} or {@link Model#getAll(Class)}, the same as if they were included with
+     * {@link #include(Class[])}. Loaded associations are kept by every model of this list. This is on for all lists
+     * with a property <code>batchAssociations=true</code> in <code>activejdbc.properties</code>.
+     *
+     * <p></p>
+     * Models of lists cached with {@link org.javalite.activejdbc.annotations.Cached} are shared, and never batched.
+     *
+     * @return this LazyList for method chaining
+     */
+    public <E extends Model> LazyList<E> batchAssociations() {
+        this.batchAssociations = true;
+        return (LazyList<E>) this;
+    }
+
+    MetaModel metaModel() {
+        return metaModel;
+    }
+
     /**
      * @deprecated Use {@link #lockMode(LockMode)} instead. This method defaults to FOR_UPDATE (with WAIT).
      */
@@ -229,23 +260,54 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
      * @return generated XML.
      */
     public String toXml(boolean pretty, boolean declaration, String... attrs) {
-        String topNode = Inflector.pluralize(Inflector.underscore(metaModel.getModelClass().getSimpleName()));
-
         hydrate();
-
         StringBuilder sb = new StringBuilder();
+        xml(sb, null, delegate.iterator(), pretty, declaration, attrs);
+        return sb.toString();
+    }
+
+    /**
+     * Writes the same XML document as {@link #toXml(boolean, boolean, String...)} to a writer. If this list is not
+     * loaded yet, models are read from a cursor as with {@link #stream(int, int)}, and written one by one, so that
+     * neither the list nor the document is kept in memory. Such models are not cached, and the list stays not loaded.
+     * The writer is flushed, but not closed.
+     *
+     * @param writer writer to write XML to
+     * @param pretty pretty format (human readable), or one line text.
+     * @param declaration true to include XML declaration at the top
+     * @param attrs list of attributes to include. No arguments == include all attributes.
+     * @throws UncheckedIOException if the writer fails
+     */
+    public void writeXml(Writer writer, boolean pretty, boolean declaration, String... attrs) {
+        try (Stream<T> models = stream(DEFAULT_STREAM_FETCH_SIZE, DEFAULT_STREAM_INCLUDE_WINDOW)) {
+            xml(new StringBuilder(WRITE_BUFFER_SIZE), writer, models.iterator(), pretty, declaration, attrs);
+        }
+    }
+
+    /**
+     * Writes the same XML document as {@link #toXml(boolean, boolean, String...)} to a stream in UTF-8,
+     * see {@link #writeXml(Writer, boolean, boolean, String...)}. The stream is flushed, but not closed.
+     */
+    public void writeXml(OutputStream out, boolean pretty, boolean declaration, String... attrs) {
+        writeXml(new OutputStreamWriter(out, StandardCharsets.UTF_8), pretty, declaration, attrs);
+    }
+
+    private void xml(StringBuilder sb, Writer writer, Iterator<T> models, boolean pretty, boolean declaration, String... attrs) {
+        String topNode = metaModel.xmlListTag();
+        char[] buffer = writer == null ? null : new char[WRITE_BUFFER_SIZE];
         if(declaration) {
             sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
             if (pretty) sb.append('\n');
         }
         sb.append('<').append(topNode).append('>');
         if (pretty) { sb.append('\n'); }
-        for (T t : delegate) {
-            t.toXmlP(sb, pretty, pretty ? "  " : "", attrs);
+        while (models.hasNext()) {
+            models.next().toXmlP(sb, pretty, pretty ? "  " : "", attrs);
+            write(writer, sb, buffer, false);
         }
         sb.append("</").append(topNode).append('>');
         if (pretty) { sb.append('\n'); }
-        return sb.toString();
+        write(writer, sb, buffer, true);
     }
 
 
@@ -259,19 +321,73 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
     public String toJson(boolean pretty, String ... attrs) {
         hydrate();
         StringBuilder sb = new StringBuilder();
+        json(sb, null, delegate.iterator(), pretty, attrs);
+        return sb.toString();
+    }
+
+    /**
+     * Writes the same JSON as {@link #toJson(boolean, String...)} to a writer. If this list is not loaded yet,
+     * models are read from a cursor as with {@link #stream(int, int)}, and written one by one, so that neither the list
+     * nor the document is kept in memory. Such models are not cached, and the list stays not loaded. The writer is
+     * flushed, but not closed.
+     *
+     * @param writer writer to write JSON to
+     * @param pretty true if you want pretty format, false if not
+     * @param attrs attributes to include, not providing any will include all.
+     * @throws UncheckedIOException if the writer fails
+     */
+    public void writeJson(Writer writer, boolean pretty, String... attrs) {
+        try (Stream<T> models = stream(DEFAULT_STREAM_FETCH_SIZE, DEFAULT_STREAM_INCLUDE_WINDOW)) {
+            json(new StringBuilder(WRITE_BUFFER_SIZE), writer, models.iterator(), pretty, attrs);
+        }
+    }
+
+    /**
+     * Writes the same JSON as {@link #toJson(boolean, String...)} to a stream in UTF-8,
+     * see {@link #writeJson(Writer, boolean, String...)}. The stream is flushed, but not closed.
+     */
+    public void writeJson(OutputStream out, boolean pretty, String... attrs) {
+        writeJson(new OutputStreamWriter(out, StandardCharsets.UTF_8), pretty, attrs);
+    }
+
+    private void json(StringBuilder sb, Writer writer, Iterator<T> models, boolean pretty, String... attrs) {
+        char[] buffer = writer == null ? null : new char[WRITE_BUFFER_SIZE];
         sb.append('[');
         if (pretty) sb.append('\n');
-
-        for (int i = 0; i < delegate.size(); i++) {
-            if (i > 0) {
+        for (boolean first = true; models.hasNext(); first = false) {
+            if (!first) {
                 sb.append(',');
                 if (pretty) { sb.append('\n'); }
             }
-            delegate.get(i).toJsonP(sb, pretty, (pretty ? "  " : ""), attrs);
+            models.next().toJsonP(sb, pretty, (pretty ? "  " : ""), attrs);
+            write(writer, sb, buffer, false);
         }
         if (pretty) { sb.append('\n'); }
         sb.append(']');
-        return sb.toString();
+        write(writer, sb, buffer, true);
+    }
+
+    /**
+     * Moves content of a builder to a writer, through a buffer reused for all models, once the builder is full
+     * or the document is complete. Does nothing if there is no writer and the document is built in memory.
+     */
+    private static void write(Writer writer, StringBuilder sb, char[] buffer, boolean last) {
+        if (writer == null || !last && sb.length() < WRITE_BUFFER_SIZE) {
+            return;
+        }
+        try {
+            for (int start = 0; start < sb.length(); start += buffer.length) {
+                int end = Math.min(sb.length(), start + buffer.length);
+                sb.getChars(start, end, buffer, 0);
+                writer.write(buffer, 0, end - start);
+            }
+            sb.setLength(0);
+            if (last) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 
@@ -290,6 +406,27 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
         return (LazyList<E>) this;
     }
 
+    /**
+     * Saves all models of this list in batches, see {@link Model#saveAll(Collection)}.
+     *
+     * @return number of models inserted or updated.
+     */
+    public int saveAll() {
+        return ModelDelegate.saveAll(this);
+    }
+
+    /**
+     * Loads this list asynchronously, with its own connection, see {@link DB#async(java.util.function.Supplier)}.
+     * Same as {@link #load()}, it should be the last to be called in the chain:
+     * <code>Person.where("name = ?", "Smith").orderBy("id").include(Address.class).toFuture();</code>.
+     *
+     * @return future completed with this list, fully loaded.
+     */
+    public <E extends Model> CompletableFuture<LazyList<E>> toFuture() {
+        if (hydrated()) { throw new DBException("toFuture() must be the last on the chain of methods"); }
+        return new DB(metaModel.getDbName()).async(this::load);
+    }
+
     /**
      * Same as <code>toSql(true)</code>, see {@link #toSql(boolean)};
      *
@@ -331,58 +468,268 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
 
         String sql= toSql(false);
 
+        // lists of IDs are only cached for queries of whole rows, which can be taken from the cache of rows
+        boolean idList = metaModel.idListsCached() && fullQuery == null;
         if(metaModel.cached()){
-            List<T> cached = (List<T>) QueryCache.instance().getItem(metaModel.getTableName(), sql, params);
-            if(cached != null){
-                delegate = cached;
-                LogFilter.logQuery(LOGGER, sql, params, System.currentTimeMillis(), true);
+            Object cached = QueryCache.instance().getItem(metaModel.getTableName(), sql, params);
+            if (cached instanceof Object[]) {
+                List<T> models = EntityCache.getAll(metaModel, (Object[]) cached);
+                if (models != null) {
+                    delegate = models;
+                    LogFilter.logCacheHit(LOGGER, sql, params);
+                    processIncludes(delegate);
+                    batch(delegate);
+                    return;
+                }
+            } else if(cached != null){
+                delegate = (List<T>) cached;
+                LogFilter.logCacheHit(LOGGER, sql, params);
                 return;
             }
         }
         delegate = new ArrayList<>();
-        long start = System.currentTimeMillis();
-        new DB(metaModel.getDbName()).find(sql, params).with(new RowListenerAdapter() {
-            @Override public void onNext(Map<String, Object> map) {
-                delegate.add(ModelDelegate.<T>instance(map, metaModel));
-            }
-        });
-        LogFilter.logQuery(LOGGER, sql, params, start, false);
+        long stamp = idList ? EntityCache.stamp(metaModel) : 0;
+        long start = System.nanoTime();
+        new DB(metaModel.getDbName()).find(sql, params).with(metaModel, sql, (T model) -> delegate.add(model));
+        Registry.instance().getSlowQueryLog().check(metaModel.getDbName(), sql, params, start);
+        LogFilter.logQueryNanos(LOGGER, sql, params, start, false, delegate.size());
         if(metaModel.cached()){
-            delegate = Collections.unmodifiableList(delegate);
-            QueryCache.instance().addItem(metaModel.getTableName(), sql, params, delegate);
+            Object[] ids = idList ? EntityCache.putAll(metaModel, delegate, stamp) : null;
+            if (ids != null) {
+                QueryCache.instance().addItem(metaModel.getTableName(), sql, params, ids);
+            } else {
+                delegate = Collections.unmodifiableList(delegate);
+                QueryCache.instance().addItem(metaModel.getTableName(), sql, params, delegate);
+                processIncludes(delegate);
+                return;
+            }
+        }
+        processIncludes(delegate);
+        batch(delegate);
+    }
+
+    /**
+     * Lets models detect or batch loading of associations one by one, see {@link AssociationBatch}.
+     */
+    private void batch(List<T> models) {
+        boolean detect = Registry.instance().getConfiguration().detectNPlusOne();
+        if (models.size() > 1 && (batchAssociations || detect)) {
+            AssociationBatch<T> batch = new AssociationBatch<>(metaModel, models, batchAssociations, detect);
+            for (T model : models) {
+                model.setAssociationBatch(batch);
+            }
         }
-        processIncludes();
     }
 
     private boolean hydrated() {
         return delegate != null;
     }
 
-    private void processIncludes() {
+    /**
+     * Same as {@link #forEachStreamed(int, int, Consumer)}, with fetch size and include window of 1000.
+     *
+     * @param action called for every model found.
+     */
+    public void forEachStreamed(Consumer<? super T> action) {
+        forEachStreamed(DEFAULT_STREAM_FETCH_SIZE, DEFAULT_STREAM_INCLUDE_WINDOW, action);
+    }
+
+    /**
+     * Iterates over results of this query without loading all of them into memory. See {@link #stream(int, int)}.
+     *
+     * @param fetchSize JDBC fetch size hint, number of rows the driver will fetch from the database at once.
+     * @param includeWindow number of models for which included associations are loaded at once.
+     * @param action called for every model found.
+     */
+    public void forEachStreamed(int fetchSize, int includeWindow, Consumer<? super T> action) {
+        try (Stream<T> stream = stream(fetchSize, includeWindow)) {
+            stream.forEach(action);
+        }
+    }
+
+    /**
+     * Same as {@link #stream(int, int)}, with include window equal to fetch size.
+     *
+     * @param fetchSize JDBC fetch size hint, number of rows the driver will fetch from the database at once.
+     * @return stream of models which must be closed after use.
+     */
+    public Stream<T> stream(int fetchSize) {
+        return stream(fetchSize, Math.max(fetchSize, 1));
+    }
+
+    /**
+     * Streams results of this query from a forward-only cursor, one model at a time, without loading the whole
+     * result into memory. Use this for very large result sets, such as exports:
+     *
+     * <pre>
+     * try (Stream&lt;Post&gt; posts = Post.where("created_at &gt; ?", yesterday).include(Author.class).orderBy("id").stream(500)) {
+     *     posts.forEach(post -&gt; export(post, post.parent(Author.class)));
+     * }
+     * </pre>
+     *
+     * Associations requested with {@link #include(Class[])} are loaded for windows of <code>includeWindow</code> models
+     * at a time, that is with one query per association per window. The stream keeps a database cursor open and must be
+     * closed, best with try-with-resources. It is also closed when read to the end. Results are not cached, even
+     * for cached models. If this list is already loaded, its content is streamed from memory.
+     *
+     * <p></p>
+     * Some drivers only use database cursors under certain conditions, for instance PostgreSQL requires a transaction
+     * (auto-commit off), and MySQL requires <code>useCursorFetch=true</code> in the URL.
+     *
+     * <p></p>
+     * Note that the inherited {@link #stream()} loads the entire list into memory first.
+     *
+     * @param fetchSize JDBC fetch size hint, number of rows the driver will fetch from the database at once.
+     * @param includeWindow number of models for which included associations are loaded at once.
+     * @return stream of models which must be closed after use.
+     */
+    public Stream<T> stream(int fetchSize, int includeWindow) {
+        if (fetchSize < 0) throw new IllegalArgumentException("fetchSize cannot be negative");
+        if (includeWindow < 1) throw new IllegalArgumentException("includeWindow must be positive");
+
+        if (hydrated()) {
+            return delegate.stream();
+        }
+        String sql = toSql(false);
+        long start = System.nanoTime();
+        RowProcessor processor = new DB(metaModel.getDbName()).find(RowProcessor.ResultSetType.FORWARD_ONLY,
+                RowProcessor.ResultSetConcur.READ_ONLY, fetchSize, sql, params);
+        Registry.instance().getSlowQueryLog().check(metaModel.getDbName(), sql, params, start);
+        LogFilter.logQueryNanos(LOGGER, sql, params, start, false, -1);
+        StreamingIterator iterator = new StreamingIterator(processor, sql, includeWindow);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Reads models from a cursor in windows, and loads includes for each window.
+     */
+    private class StreamingIterator implements Iterator<T> {
+        private final RowProcessor processor;
+        private final String sql;
+        private final int window;
+        private final List<T> buffer;
+        private int position;
+        private boolean closed;
+
+        private StreamingIterator(RowProcessor processor, String sql, int window) {
+            this.processor = processor;
+            this.sql = sql;
+            this.window = includes.isEmpty() ? 1 : window;
+            this.buffer = new ArrayList<>(this.window);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < buffer.size()) {
+                return true;
+            }
+            if (closed) {
+                return false;
+            }
+            buffer.clear();
+            position = 0;
+            try {
+                T model;
+                while (buffer.size() < window && (model = processor.nextModel(metaModel, sql)) != null) {
+                    buffer.add(model);
+                }
+            } catch (SQLException e) {
+                close();
+                throw new DBException(e);
+            }
+            if (buffer.size() < window) { // cursor is exhausted, no need to keep it open while includes are loaded
+                close();
+            }
+            processIncludes(buffer);
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.get(position++);
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                processor.close();
+            }
+        }
+    }
+
+    private void processIncludes(List<T> models) {
+        if (models.isEmpty()) { // no need to process includes if no models selected.
+            return;
+        }
         for (Association association : includes) {
-            if (association instanceof BelongsToAssociation) {
-                processParent((BelongsToAssociation) association);
-            } else if (association instanceof OneToManyAssociation) {
-                processChildren((OneToManyAssociation) association);
-            } else if (association instanceof Many2ManyAssociation) {
-                processManyToMany((Many2ManyAssociation) association);
-            } else if (association instanceof OneToManyPolymorphicAssociation) {
-                processPolymorphicChildren((OneToManyPolymorphicAssociation) association);
-            } else if (association instanceof BelongsToPolymorphicAssociation) {
-                processPolymorphicParent((BelongsToPolymorphicAssociation) association);
+            processInclude(association, models);
+        }
+    }
+
+    void processInclude(Association association, List<T> models) {
+        if (association instanceof BelongsToAssociation) {
+            processParent((BelongsToAssociation) association, models);
+        } else if (association instanceof OneToManyAssociation) {
+            processChildren((OneToManyAssociation) association, models);
+        } else if (association instanceof Many2ManyAssociation) {
+            processManyToMany((Many2ManyAssociation) association, models);
+        } else if (association instanceof OneToManyPolymorphicAssociation) {
+            processPolymorphicChildren((OneToManyPolymorphicAssociation) association, models);
+        } else if (association instanceof BelongsToPolymorphicAssociation) {
+            processPolymorphicParent((BelongsToPolymorphicAssociation) association, models);
+        }
+    }
+
+    private static Set<Object> distinctValues(List<? extends Model> models, String attributeName) {
+        Set<Object> results = new LinkedHashSet<>();
+        for (Model model : models) {
+            results.add(model.get(attributeName));
+        }
+        return results;
+    }
+
+    /**
+     * Splits values into arrays of parameters of <code>IN (?, ?, ...)</code> conditions. Arrays are not longer than
+     * {@link org.javalite.activejdbc.dialects.Dialect#maxInListSize()}, and their lengths are powers of two, padded
+     * by repeating the last value, so that any number of models is included with a few statements of the same
+     * shapes, which are prepared once and kept by the statement cache.
+     *
+     * @param values distinct values
+     * @param targetMetaModel meta model of the queried table
+     * @return arrays of parameters, one per query
+     */
+    static List<Object[]> chunks(Collection<Object> values, MetaModel targetMetaModel) {
+        int max = targetMetaModel.getDialect().maxInListSize();
+        List<Object[]> chunks = new ArrayList<>(values.size() / max + 1);
+        Iterator<Object> iterator = values.iterator();
+        for (int remaining = values.size(); remaining > 0; ) {
+            int count = Math.min(remaining, max);
+            Object[] chunk = new Object[count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1];
+            for (int i = 0; i < count; i++) {
+                chunk[i] = iterator.next();
             }
+            Arrays.fill(chunk, count, chunk.length, chunk[count - 1]);
+            chunks.add(chunk);
+            remaining -= count;
         }
+        return chunks;
     }
 
     /**
      * @author Evan Leonard
      */
-    private void processPolymorphicParent(BelongsToPolymorphicAssociation association) {
-        if (delegate.isEmpty()) { // no need to process children if no models selected.
-            return;
-        }
+    private void processPolymorphicParent(BelongsToPolymorphicAssociation association, List<T> models) {
         //need to remove duplicates because more than one child can belong to the same parent.
-        Set<Object> distinctParentIds = collectDistinct("parent_id", "parent_type", association.getParentClassName());
+        Set<Object> distinctParentIds = new LinkedHashSet<>();
+        for (Model model : models) {
+            if (model.get("parent_type").equals(association.getParentClassName())) {
+                distinctParentIds.add(model.get("parent_id"));
+            }
+        }
         distinctParentIds.remove(null); // remove null parent id
         if (distinctParentIds.isEmpty()) {
             return;
@@ -390,27 +737,26 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
         final MetaModel parentMetaModel = metaModelOf(association.getTargetClass());
         final Map<Object, Model> parentById = new HashMap<>();
 
-        StringBuilder query = new StringBuilder().append(parentMetaModel.getIdName()).append(" IN (");
-        appendQuestions(query, distinctParentIds.size());
-        query.append(')');
-        for (Model parent : new LazyList<>(query.toString(), parentMetaModel, distinctParentIds.toArray())) {
-            parentById.put(association.getParentClassName() + ":" + parent.getId(), parent);
+        for (Object[] ids : chunks(distinctParentIds, parentMetaModel)) {
+            StringBuilder query = new StringBuilder().append(parentMetaModel.getIdName()).append(" IN (");
+            appendQuestions(query, ids.length);
+            query.append(')');
+            for (Model parent : new LazyList<>(query.toString(), parentMetaModel, ids)) {
+                parentById.put(association.getParentClassName() + ":" + parent.getId(), parent);
+            }
         }
 
         //now that we have the parents in the has, we need to distribute them into list of children that are
-        //stored in the delegate.
-        for (Model child : delegate) {
+        //stored in the list of models.
+        for (Model child : models) {
             // parent could be null, which is fine
             child.setCachedParent(parentById.get(association.getParentClassName() + ":" + child.get("parent_id")));
         }
     }
 
-    private void processParent(BelongsToAssociation association) {
-        if (delegate.isEmpty()) { // no need to process parents if no models selected.
-            return;
-        }
+    private void processParent(BelongsToAssociation association, List<T> models) {
         //need to remove duplicates because more than one child can belong to the same parent.
-        Set<Object> distinctParentIds = collectDistinct(association.getFkName());
+        Set<Object> distinctParentIds = distinctValues(models, association.getFkName());
         distinctParentIds.remove(null); // remove null parent id
         if (distinctParentIds.isEmpty()) {
             return;
@@ -418,15 +764,17 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
         final MetaModel parentMetaModel = metaModelOf(association.getTargetClass());
         final Map<Object, Model> parentById = new HashMap<>();
 
-        StringBuilder query = new StringBuilder().append(parentMetaModel.getIdName()).append(" IN (");
-        appendQuestions(query, distinctParentIds.size());
-        query.append(')');
-        for (Model parent : new LazyList<>(query.toString(), parentMetaModel, distinctParentIds.toArray())) {
-            parentById.put(parent.getId(), parent);
+        for (Object[] ids : chunks(distinctParentIds, parentMetaModel)) {
+            StringBuilder query = new StringBuilder().append(parentMetaModel.getIdName()).append(" IN (");
+            appendQuestions(query, ids.length);
+            query.append(')');
+            for (Model parent : new LazyList<>(query.toString(), parentMetaModel, ids)) {
+                parentById.put(parent.getId(), parent);
+            }
         }
         //now that we have the parents in the has, we need to distribute them into list of children that are
-        //stored in the delegate.
-        for (Model child : delegate) {
+        //stored in the list of models.
+        for (Model child : models) {
             // parent could be null, which is fine
             child.setCachedParent(parentById.get(child.get(association.getFkName())));
         }
@@ -493,24 +841,22 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
         joinAndRepeat(sb, "?", ", ", count);
     }
 
-    private void processPolymorphicChildren(OneToManyPolymorphicAssociation association) {
-        if (delegate.isEmpty()) {//no need to process children if no models selected.
-            return;
-        }
+    private void processPolymorphicChildren(OneToManyPolymorphicAssociation association, List<T> models) {
         MetaModel childMetaModel = metaModelOf(association.getTargetClass());
         Map<Object, List<Model>> childrenByParentId = new HashMap<>();
-        List<Object> ids = collect(metaModel.getIdName());
-        StringBuilder query = new StringBuilder().append("parent_id IN (");
-        appendQuestions(query, ids.size());
-        query.append(") AND parent_type = '").append(association.getTypeLabel()).append('\'');
-        for (Model child : new LazyList<>(query.toString(), childMetaModel, ids.toArray()).orderBy(childMetaModel.getIdName())) {
-            if (childrenByParentId.get(child.get("parent_id")) == null) {
-                childrenByParentId.put(child.get("parent_id"), new SuperLazyList<>());
+        for (Object[] ids : chunks(distinctValues(models, metaModel.getIdName()), childMetaModel)) {
+            StringBuilder query = new StringBuilder().append("parent_id IN (");
+            appendQuestions(query, ids.length);
+            query.append(") AND parent_type = '").append(association.getTypeLabel()).append('\'');
+            for (Model child : new LazyList<>(query.toString(), childMetaModel, ids).orderBy(childMetaModel.getIdName())) {
+                if (childrenByParentId.get(child.get("parent_id")) == null) {
+                    childrenByParentId.put(child.get("parent_id"), new SuperLazyList<>());
+                }
+                childrenByParentId.get(child.get("parent_id")).add(child);
             }
-            childrenByParentId.get(child.get("parent_id")).add(child);
         }
 
-        for (T parent : delegate) {
+        for (T parent : models) {
             List<Model> children = childrenByParentId.get(parent.getId());
             if (children != null) {
                 parent.setChildren(childMetaModel.getModelClass(), children);
@@ -522,24 +868,22 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
     }
 
 
-    private void processChildren(OneToManyAssociation association) {
-        if(delegate.isEmpty()){//no need to process children if no models selected.
-            return;
-        }
+    private void processChildren(OneToManyAssociation association, List<T> models) {
         final MetaModel childMetaModel = metaModelOf(association.getTargetClass());
         final String fkName = association.getFkName();
         final Map<Object, List<Model>> childrenByParentId = new HashMap<>();
-        List<Object> ids = collect(metaModel.getIdName());
-        StringBuilder query = new StringBuilder().append(fkName).append(" IN (");
-        appendQuestions(query, ids.size());
-        query.append(')');
-        for (Model child : new LazyList<>(query.toString(), childMetaModel, ids.toArray()).orderBy(childMetaModel.getIdName())) {
-            if(childrenByParentId.get(child.get(fkName)) == null){
-                childrenByParentId.put(child.get(fkName), new SuperLazyList<>());
+        for (Object[] ids : chunks(distinctValues(models, metaModel.getIdName()), childMetaModel)) {
+            StringBuilder query = new StringBuilder().append(fkName).append(" IN (");
+            appendQuestions(query, ids.length);
+            query.append(')');
+            for (Model child : new LazyList<>(query.toString(), childMetaModel, ids).orderBy(childMetaModel.getIdName())) {
+                if(childrenByParentId.get(child.get(fkName)) == null){
+                    childrenByParentId.put(child.get(fkName), new SuperLazyList<>());
+                }
+                childrenByParentId.get(child.get(fkName)).add(child);
             }
-            childrenByParentId.get(child.get(fkName)).add(child);
         }
-        for(T parent : delegate){
+        for(T parent : models){
             List<Model> children = childrenByParentId.get(parent.getId());
             if(children != null){
                 parent.setChildren(childMetaModel.getModelClass(), children);
@@ -550,24 +894,23 @@ public class LazyList<T extends Model> extends AbstractLazyList<T> implements Ex
         }
     }
 
-    private void processManyToMany(Many2ManyAssociation association) {
-        if(delegate.isEmpty()){//no need to process other if no models selected.
-            return;
-        }
+    private void processManyToMany(Many2ManyAssociation association, List<T> models) {
         final MetaModel childMetaModel = metaModelOf(association.getTargetClass());
         final Map<Object, List<Model>> childrenByParentId = new HashMap<>();
-        List<Object> ids = collect(metaModel.getIdName());
-        List<Map<String, Object>> childResults = new DB(childMetaModel.getDbName()).findAll(childMetaModel.getDialect().selectManyToManyAssociation(
-                association, "the_parent_record_id", ids.size()), ids.toArray());
-        for(Map<String, Object> res: childResults){
-            Model child = ModelDelegate.instance(res, childMetaModel);
-            Object parentId = res.get("the_parent_record_id");
-            if(childrenByParentId.get(parentId) == null){
-                childrenByParentId.put(parentId, new SuperLazyList<>());
+        DB db = new DB(childMetaModel.getDbName());
+        for (Object[] ids : chunks(distinctValues(models, metaModel.getIdName()), childMetaModel)) {
+            List<Map<String, Object>> childResults = db.findAll(childMetaModel.getDialect().selectManyToManyAssociation(
+                    association, "the_parent_record_id", ids.length), ids);
+            for(Map<String, Object> res: childResults){
+                Model child = ModelDelegate.instance(res, childMetaModel);
+                Object parentId = res.get("the_parent_record_id");
+                if(childrenByParentId.get(parentId) == null){
+                    childrenByParentId.put(parentId, new SuperLazyList<>());
+                }
+                childrenByParentId.get(parentId).add(child);
             }
-            childrenByParentId.get(parentId).add(child);
         }
-        for(T parent : delegate){
+        for(T parent : models){
             List<Model> children = childrenByParentId.get(parent.getId());
             if (children != null) {
                 parent.setChildren(childMetaModel.getModelClass(), children);
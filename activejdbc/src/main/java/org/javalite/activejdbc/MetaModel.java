@@ -28,26 +28,34 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.javalite.common.Inflector.*;
 
 
 public class MetaModel implements Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MetaModel.class);
+    private static final int MAX_ROW_MAPPERS = 256;
+    static final String GENERATED_ATTRIBUTES = "ACTIVEJDBC_ATTRIBUTES";
     private static final ThreadLocal<HashMap<Class, String>> shardingTableNamesTL = new ThreadLocal<>();
 
     private Map<String, ColumnMetadata> columnMetadata;
-    private final List<Association> associations = new ArrayList<>();
+    // replaced as a whole, because models of other tables add to it while this one is in use, in lazy mode
+    private volatile List<Association> associations = Collections.emptyList();
+    private long[] associationRanks = new long[0];
     private final String idName;
     private final String[] compositeKeys;
     private final String tableName, dbType, dbName;
     private final Class<? extends Model> modelClass;
-    private final boolean cached;
+    private final boolean cached, entitiesCached, idListsCached;
     private final String idGeneratorCode;
     private Set<String> attributeNamesNoId;
     private final String versionColumn;
     private String[] partitionIDs = null;
     private String fkName;
+    private transient Map<String, RowMapper> rowMappers;
+    private transient AttributeSlots attributeSlots;
+    private transient String xmlTag, xmlListTag, jsonListName;
 
     protected MetaModel(String dbName, Class<? extends Model> modelClass, String dbType) {
         this.modelClass = modelClass;
@@ -55,7 +63,10 @@ public class MetaModel implements Serializable {
         this.compositeKeys = findCompositeKeys(modelClass);
         this.tableName = findTableName(modelClass);
         this.dbType = dbType;
-        this.cached = isCached(modelClass);
+        Cached cachedAnnotation = modelClass.getAnnotation(Cached.class);
+        this.idListsCached = cachedAnnotation != null && cachedAnnotation.idLists();
+        this.cached = cachedAnnotation != null && (cachedAnnotation.queries() || idListsCached);
+        this.entitiesCached = cachedAnnotation != null && (cachedAnnotation.entities() || idListsCached);
         this.dbName = dbName;
         this.idGeneratorCode = findIdGeneratorCode(modelClass);
         this.versionColumn = findVersionColumn(modelClass);
@@ -117,10 +128,6 @@ public class MetaModel implements Serializable {
         getTableNamesMap().remove(modelClass);
     }
 
-    private boolean isCached(Class<? extends Model> modelClass) {
-        return null != modelClass.getAnnotation(Cached.class);
-    }
-
     private String findIdName(Class<? extends Model> modelClass) {
         IdName idNameAnnotation = modelClass.getAnnotation(IdName.class);
         return idNameAnnotation == null ? "id" : idNameAnnotation.value();
@@ -161,14 +168,64 @@ public class MetaModel implements Serializable {
         return dbName;
     }
 
+    /**
+     * @return true if results of queries are cached, see {@link Cached}.
+     */
     public boolean cached(){
         return cached;
     }
 
+    /**
+     * @return true if rows are cached by ID, see {@link Cached#entities()}.
+     */
+    public boolean entitiesCached(){
+        return entitiesCached;
+    }
+
+    /**
+     * @return true if results of queries are cached as lists of IDs, see {@link Cached#idLists()}.
+     */
+    public boolean idListsCached(){
+        return idListsCached;
+    }
+
     public Class<? extends Model> getModelClass(){
         return modelClass;
     }
 
+    /**
+     * @return name of an XML element of this model, such as <code>person</code>.
+     */
+    String xmlTag() {
+        String tag = xmlTag;
+        if (tag == null) {
+            xmlTag = tag = underscore(modelClass.getSimpleName());
+        }
+        return tag;
+    }
+
+    /**
+     * @return name of an XML element of a list of these models, such as <code>people</code>.
+     */
+    String xmlListTag() {
+        String tag = xmlListTag;
+        if (tag == null) {
+            xmlListTag = tag = pluralize(underscore(modelClass.getSimpleName()));
+        }
+        return tag;
+    }
+
+    /**
+     * @return name of a list of these models in JSON, such as <code>people</code>.
+     */
+    String jsonListName() {
+        String name = jsonListName;
+        if (name == null) {
+            jsonListName = name = pluralize(modelClass.getSimpleName()).toLowerCase();
+        }
+        return name;
+    }
+
     /**
      * Returns table name currently associated with this model.
      * Table name can be modified for sharding using {@link #setShardTableName(String)}
@@ -185,6 +242,88 @@ public class MetaModel implements Serializable {
 
     void setColumnMetadata(Map<String, ColumnMetadata> columnMetadata){
         this.columnMetadata = columnMetadata;
+        this.attributeSlots = null;
+        this.rowMappers = null;
+    }
+
+    /**
+     * Slots of attributes in models of this type, in the same order as {@link #getAttributeNames()}.
+     *
+     * @return slots of attributes, empty if metadata of this model is not available.
+     */
+    AttributeSlots attributeSlots() {
+        AttributeSlots slots = attributeSlots;
+        if (slots == null) {
+            if (columnMetadata == null || columnMetadata.isEmpty()) {
+                return AttributeSlots.EMPTY;
+            }
+            attributeSlots = slots = new AttributeSlots(columnMetadata.keySet(), generatedAttributeNames());
+        }
+        return slots;
+    }
+
+    private static boolean sameNames(String[] names, Collection<String> columns) {
+        if (names.length != columns.size()) {
+            return false;
+        }
+        int i = 0;
+        for (String column : columns) {
+            if (!column.equalsIgnoreCase(names[i++])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Names of attributes of the model class, generated by instrumentation from static metadata in field
+     * {@value #GENERATED_ATTRIBUTES}. Accessors generated with them pass the same instances of names to
+     * {@link Model#slotAccessible(int, String)}, which tells that slots are laid out as they expect.
+     *
+     * @return generated names, or null if they were not generated, or columns of the table have changed since.
+     */
+    private String[] generatedAttributeNames() {
+        String[] names;
+        try {
+            java.lang.reflect.Field field = modelClass.getDeclaredField(GENERATED_ATTRIBUTES);
+            field.setAccessible(true);
+            names = (String[]) field.get(null);
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "Failed to read generated attributes of {}: {}", modelClass.getName(), e);
+            return null;
+        }
+        if (names == null || !sameNames(names, columnMetadata.keySet())) {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "Columns of table {} differ from attributes generated for {}, "
+                    + "generated accessors will look up attributes by name", getTableName(), modelClass.getName());
+            return null;
+        }
+        return names;
+    }
+
+    /**
+     * Returns a row mapper compiled for a query of this model, compiles a new one if this query was not seen before
+     * or if its columns changed.
+     *
+     * @param sql query
+     * @param labels column labels of the query result
+     * @return row mapper for the query
+     */
+    RowMapper rowMapper(String sql, String[] labels) {
+        Map<String, RowMapper> mappers = rowMappers;
+        if (mappers == null) {
+            rowMappers = mappers = new ConcurrentHashMap<>();
+        }
+        RowMapper mapper = mappers.get(sql);
+        if (mapper == null || !mapper.matches(labels)) {
+            mapper = new RowMapper(this, labels);
+            if (mappers.size() >= MAX_ROW_MAPPERS) { // queries with inlined values, no point caching them all
+                mappers.clear();
+            }
+            mappers.put(sql, mapper);
+        }
+        return mapper;
     }
 
     protected boolean tableExists(){
@@ -339,10 +478,55 @@ public class MetaModel implements Serializable {
     }
 
     protected void addAssociation(Association association) {
-        if (!associations.contains(association)) {
+        addAssociation(association, Long.MAX_VALUE);
+    }
+
+    /**
+     * Adds an association before those of higher ranks. The registry ranks associations by the order in which it
+     * discovers them when it reads metadata of all models at once, so that they are listed in the same order when
+     * metadata of each model is read when the model is used first.
+     *
+     * @param association association to add
+     * @param rank rank of the association. If it was added before, it keeps the lower of the two ranks.
+     */
+    synchronized void addAssociation(Association association, long rank) {
+        List<Association> list = new ArrayList<>(associations);
+        long[] ranks = associationRanks;
+        int index = list.indexOf(association);
+        if (index >= 0) {
+            if (ranks[index] <= rank) {
+                return;
+            }
+            list.remove(index);
+            ranks = remove(ranks, index);
+        } else {
             LogFilter.log(LOGGER, LogLevel.INFO, "Association found: {}", association);
-            associations.add(association);
         }
+        int position = 0;
+        while (position < ranks.length && ranks[position] <= rank) {
+            position++;
+        }
+        list.add(position, association);
+        long[] newRanks = new long[ranks.length + 1];
+        System.arraycopy(ranks, 0, newRanks, 0, position);
+        newRanks[position] = rank;
+        System.arraycopy(ranks, position, newRanks, position + 1, ranks.length - position);
+        associationRanks = newRanks;
+        associations = Collections.unmodifiableList(list);
+    }
+
+    private static long[] remove(long[] ranks, int index) {
+        long[] newRanks = new long[ranks.length - 1];
+        System.arraycopy(ranks, 0, newRanks, 0, index);
+        System.arraycopy(ranks, index + 1, newRanks, index, newRanks.length - index);
+        return newRanks;
+    }
+
+    /**
+     * @return true if columns of the table were read, even if the table was not found.
+     */
+    boolean hasColumnMetadata() {
+        return columnMetadata != null;
     }
 
     /**
@@ -441,7 +625,7 @@ public class MetaModel implements Serializable {
     }
 
     protected List<Association> getAssociations(){
-        return Collections.unmodifiableList(associations);
+        return associations;
     }
 
     /**
@@ -496,10 +680,14 @@ public class MetaModel implements Serializable {
         return false;
     }
 
-    public void removeAssociationForTarget(Class<? extends Model> modelClass) {
+    public synchronized void removeAssociationForTarget(Class<? extends Model> modelClass) {
         Association association = getAssociationForTarget(modelClass);
         if(association != null){
-            associations.remove(association);
+            List<Association> list = new ArrayList<>(associations);
+            int index = list.indexOf(association);
+            list.remove(index);
+            associationRanks = remove(associationRanks, index);
+            associations = Collections.unmodifiableList(list);
         }
     }
 
@@ -0,0 +1,190 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.logging.LogFilter;
+import org.javalite.activejdbc.logging.LogLevel;
+import org.javalite.common.CaseInsensitiveMap;
+import org.javalite.json.JSONHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+
+import static org.javalite.common.Collections.map;
+
+/**
+ * Columns of tables of a database, saved to a file between restarts, so that they are not read from JDBC metadata
+ * again, see {@link Configuration#getMetadataSnapshotDir()}.
+ *
+ * <p></p>
+ * A snapshot is named after a fingerprint of the database: its URL, user, schema, tables of models, and versions
+ * of migrations applied to it, as recorded in table <code>schema_version</code> by the DB-Migrator. A database
+ * without this table has no fingerprint, because there is no other cheap way to tell that its schema did not change,
+ * and its snapshot is never used.
+ *
+ * @author Igor Polevoy
+ */
+final class MetadataSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataSnapshot.class);
+    private static final String VERSION_TABLE = "schema_version";
+
+    private MetadataSnapshot() {}
+
+    /**
+     * @param connection connection to a database
+     * @param dbName name of the database connection
+     * @param tables names of tables of models of the database
+     * @return hexadecimal SHA-256 fingerprint, or null if the database has no table <code>schema_version</code>.
+     */
+    static String fingerprint(Connection connection, String dbName, String[] tables) throws SQLException {
+        DatabaseMetaData databaseMetaData = connection.getMetaData();
+        String versionTable = versionTable(databaseMetaData, connection.getCatalog(), connection.getSchema());
+        if (versionTable == null) {
+            return null;
+        }
+        List<String> versions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version FROM " + versionTable)) {
+            while (rs.next()) {
+                versions.add(rs.getString(1));
+            }
+        }
+        Collections.sort(versions);
+        String[] sortedTables = tables.clone();
+        Arrays.sort(sortedTables);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new InitException(e);
+        }
+        update(digest, dbName, databaseMetaData.getDatabaseProductName(), databaseMetaData.getDatabaseProductVersion(),
+                databaseMetaData.getURL(), databaseMetaData.getUserName(), connection.getCatalog(), connection.getSchema());
+        update(digest, sortedTables);
+        update(digest, versions.toArray(new String[0]));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String versionTable(DatabaseMetaData databaseMetaData, String catalog, String schema) throws SQLException {
+        for (String name : new String[]{VERSION_TABLE, VERSION_TABLE.toUpperCase()}) {
+            try (ResultSet rs = databaseMetaData.getTables(catalog, schema, name, null)) {
+                if (rs.next()) {
+                    return rs.getString("TABLE_NAME");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void update(MessageDigest digest, String... values) {
+        update(digest, values.length);
+        for (String value : values) {
+            byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            update(digest, bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    /**
+     * @param dir directory of snapshots
+     * @param fingerprint fingerprint of a database
+     * @return path of the snapshot of the database
+     */
+    static Path path(String dir, String fingerprint) {
+        return Path.of(dir, "activejdbc_metadata_" + fingerprint + ".json");
+    }
+
+    /**
+     * @param file snapshot file
+     * @param tables names of tables expected in the snapshot
+     * @return columns keyed by column name, keyed by table, or null if there is no snapshot, it cannot be read, or
+     * some of the tables are not in it.
+     */
+    static Map<String, Map<String, ColumnMetadata>> read(Path file, String[] tables) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Map<String, Object> snapshot = JSONHelper.toMap(Files.readString(file));
+            Map<String, Map<String, ColumnMetadata>> columnsByTable = new LinkedHashMap<>();
+            for (String table : tables) {
+                Map<String, Object> columnMaps = (Map<String, Object>) snapshot.get(table);
+                if (columnMaps == null) {
+                    return null;
+                }
+                Map<String, ColumnMetadata> columns = new CaseInsensitiveMap<>();
+                for (Object value : columnMaps.values()) {
+                    Map<String, Object> column = (Map<String, Object>) value;
+                    ColumnMetadata cm = new ColumnMetadata((String) column.get("columnName"),
+                            (String) column.get("typeName"), ((Number) column.get("columnSize")).intValue());
+                    columns.put(cm.getColumnName(), cm);
+                }
+                columnsByTable.put(table, columns);
+            }
+            return columnsByTable;
+        } catch (IOException | RuntimeException e) {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "Failed to read metadata snapshot: {}, {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file first, and then moves it in place, so that applications starting at the
+     * same time never read a part of it. Failures are logged, not thrown, because a snapshot only saves time.
+     *
+     * @param file snapshot file
+     * @param columnsByTable columns keyed by column name, keyed by table
+     */
+    static void write(Path file, Map<String, Map<String, ColumnMetadata>> columnsByTable) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        columnsByTable.forEach((table, columns) -> {
+            Map<String, Object> columnMaps = new LinkedHashMap<>();
+            columns.values().forEach(cm -> columnMaps.put(cm.getColumnName(), map("columnName", cm.getColumnName(),
+                    "typeName", cm.getTypeName(), "columnSize", cm.getColumnSize())));
+            snapshot.put(table, columnMaps);
+        });
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(temp, JSONHelper.toJSON(snapshot));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            LogFilter.log(LOGGER, LogLevel.INFO, "Saved metadata snapshot: {}", file);
+        } catch (IOException | RuntimeException e) {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "Failed to save metadata snapshot: {}, {}", file, e);
+        }
+    }
+}
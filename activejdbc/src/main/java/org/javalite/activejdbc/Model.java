@@ -21,12 +21,11 @@ import org.javalite.activejdbc.annotations.Cached;
 import org.javalite.activejdbc.annotations.CompositePK;
 import org.javalite.activejdbc.associations.*;
 import org.javalite.activejdbc.cache.CacheEventSquasher;
+import org.javalite.activejdbc.cache.EntityCache;
 import org.javalite.activejdbc.cache.QueryCache;
 import org.javalite.activejdbc.dialects.Dialect;
 import org.javalite.activejdbc.logging.LogFilter;
 import org.javalite.activejdbc.logging.LogLevel;
-import org.javalite.common.CaseInsensitiveMap;
-import org.javalite.common.CaseInsensitiveSet;
 import org.javalite.common.Convert;
 import org.javalite.common.Escape;
 import org.javalite.conversion.BlankToNullConverter;
@@ -72,9 +71,9 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Model.class);
 
-    private Map<String, Object> attributes = new CaseInsensitiveMap<>();
+    private Map<String, Object> attributes;
 
-    private Set<String> dirtyAttributeNames = new CaseInsensitiveSet();
+    private Set<String> dirtyAttributeNames;
 
     private boolean frozen;
 
@@ -86,6 +85,8 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
     private final Map<Class, List<Model>> cachedChildren = new HashMap<>();
 
+    private transient AssociationBatch<?> associationBatch;
+
     private boolean manageTime = true;
 
     private boolean compositeKeyPersisted;
@@ -95,11 +96,20 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
     protected Model() {
         metaModelLocal = metaModelOf(getClass());
         modelRegistryLocal = Registry.instance().modelRegistryOf(this.getClass());
+        attributes = new AttributeMap(attributeSlots());
+        dirtyAttributeNames = new AttributeNameSet(attributeSlots());
     }
 
     protected Model(MetaModel metaModel, ModelRegistry modelRegistry) {
         this.metaModelLocal = Objects.requireNonNull(metaModel, "metaModel is null");
         this.modelRegistryLocal = Objects.requireNonNull(modelRegistry, "modelRegistry is null");
+        attributes = new AttributeMap(attributeSlots());
+        dirtyAttributeNames = new AttributeNameSet(attributeSlots());
+    }
+
+    private AttributeSlots attributeSlots() {
+        AttributeSlots slots = metaModelLocal.attributeSlots();
+        return slots != null ? slots : AttributeSlots.EMPTY; // null if meta model is mocked
     }
 
     private void fireAfterLoad() {
@@ -116,7 +126,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         }
     }
 
-    private void fireAfterSave() {
+    void fireAfterSave() {
         afterSave();
         for (CallbackListener callback : modelRegistryLocal.callbacks()) {
             callback.afterSave(this);
@@ -258,9 +268,10 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
         Set<String> changedAttributeNames = new HashSet<>();
         Set<String> attributeNames = metaModelLocal.getAttributeNames();
+        boolean cached = metaModelLocal.cached() || metaModelLocal.entitiesCached();
         for (Map.Entry<String, Object> entry : attributesMap.entrySet()) {
             if (attributeNames.contains(entry.getKey()) ) {
-                if (entry.getValue() instanceof java.sql.Array && metaModelLocal.cached()) {
+                if (entry.getValue() instanceof java.sql.Array && cached) {
 
                     try {
                         var val = ((java.sql.Array)entry.getValue()).getArray();
@@ -270,7 +281,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
                         throw new RuntimeException(e);
                     }
                     
-                }else if (entry.getValue() instanceof Clob && metaModelLocal.cached()) {
+                }else if (entry.getValue() instanceof Clob && cached) {
                     String convertedString = Convert.toString(entry.getValue());
                     if (willAttributeModifyModel(entry.getKey(), convertedString)) {
                         this.attributes.put(entry.getKey(), convertedString);
@@ -296,6 +307,47 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         return changedAttributeNames;
     }
 
+    /**
+     * Hydrates this instance from a row read by {@link RowMapper}. Names are known to be attributes of this model,
+     * and values are already converted.
+     *
+     * @param attributeNames names of attributes
+     * @param values values of attributes, in the same order as names
+     */
+    void hydrate(String[] attributeNames, Object[] values) {
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (willAttributeModifyModel(attributeNames[i], values[i])) {
+                this.attributes.put(attributeNames[i], values[i]);
+            }
+        }
+        if (getCompositeKeys() != null){
+            compositeKeyPersisted = true;
+        }
+        fireAfterLoad();
+    }
+
+    /**
+     * Restores attributes of this instance from a cache, as they were when cached. Unlike hydrating, does not convert
+     * values and does not fire after-load callbacks.
+     *
+     * @param attributeNames names of attributes, <code>null</code> names are skipped
+     * @param values values of attributes, in the same order as names
+     */
+    void restore(String[] attributeNames, Object[] values) {
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (attributeNames[i] != null) {
+                attributes.put(attributeNames[i], values[i]);
+            }
+        }
+        if (getCompositeKeys() != null){
+            compositeKeyPersisted = true;
+        }
+    }
+
+    Map<String, Object> rawAttributes() {
+        return attributes;
+    }
+
     /**
      * Verifies if the passed value for attributeName will set this instance to modified state.
      */
@@ -398,6 +450,50 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         return (T) this;
     }
 
+    /**
+     * Used by typed accessors which instrumentation generates from static metadata, such as
+     * <code>getFirstName()</code> for a column <code>first_name</code>. Tells if an attribute can be read and written
+     * directly in its slot: this model is not frozen, its slots are laid out as they were when the accessor was
+     * generated, and no converters are registered for the model. Otherwise accessors fall back to
+     * {@link #get(String)} and {@link #set(String, Object)}.
+     *
+     * @param slot slot of the attribute, as generated
+     * @param attributeName name of the attribute, as generated
+     * @return true if {@link #slotValue(int)} and {@link #setSlotValue(int, Object)} can be used.
+     */
+    protected final boolean slotAccessible(int slot, String attributeName) {
+        return !frozen && ((AttributeMap) attributes).isSlot(slot, attributeName) && !modelRegistryLocal.hasConverters();
+    }
+
+    /**
+     * @param slot slot of an attribute, checked with {@link #slotAccessible(int, String)}
+     * @return raw value of the attribute
+     */
+    protected final Object slotValue(int slot) {
+        return ((AttributeMap) attributes).getSlot(slot);
+    }
+
+    /**
+     * Sets a value of an attribute the same as {@link #set(String, Object)} does, in its slot.
+     *
+     * @param slot slot of an attribute, checked with {@link #slotAccessible(int, String)}
+     * @param value new value
+     * @return reference to this model
+     */
+    protected final <T extends Model> T setSlotValue(int slot, Object value) {
+        AttributeMap map = (AttributeMap) attributes;
+        String attributeName = map.slotName(slot);
+        if (manageTime && attributeName.equalsIgnoreCase("created_at")) {
+            throw new IllegalArgumentException("cannot set 'created_at'");
+        }
+        Object currentValue = map.getSlot(slot);
+        if (currentValue != null ? !currentValue.equals(value) : value != null) {
+            map.putSlot(slot, value);
+            ((AttributeNameSet) dirtyAttributeNames).addSlot(slot);
+        }
+        return (T) this;
+    }
+
     /**
      * Will return true if any attribute of this instance was changed after latest load/save.
      * (Instance state differs from state in DB)
@@ -500,6 +596,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             result = new DB(metaModelLocal.getDbName()).exec(query.toString(), values.toArray());
         }
         if (1 == result) {
+            EntityCache.remove(this);
             frozen = true;
             try (CacheEventSquasher ces = new CacheEventSquasher()) {
                 ces.add(metaModelLocal);
@@ -694,6 +791,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         String join = association.getJoin();
         String sourceFK = association.getSourceFkName();
         new DB(metaModelLocal.getDbName()).exec("DELETE FROM " + join + " WHERE " + sourceFK + " = ?", getId());
+        EntityCache.purge(Registry.instance().getMetaModel(join));
     }
 
 
@@ -708,8 +806,9 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
      * Deletes immediate children.
      */
     private void deleteOne2ManyChildrenShallow(OneToManyAssociation association){
-        String targetTable = metaModelOf(association.getTargetClass()).getTableName();
-        new DB(metaModelLocal.getDbName()).exec("DELETE FROM " + targetTable + " WHERE " + association.getFkName() + " = ?", getId());
+        MetaModel targetMetaModel = metaModelOf(association.getTargetClass());
+        new DB(metaModelLocal.getDbName()).exec("DELETE FROM " + targetMetaModel.getTableName() + " WHERE " + association.getFkName() + " = ?", getId());
+        EntityCache.purge(targetMetaModel);
     }
 
     private void deletePolymorphicChildrenShallow() {
@@ -723,9 +822,10 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
      * Deletes immediate polymorphic children
      */
     private void deletePolymorphicChildrenShallow(OneToManyPolymorphicAssociation association){
-        String targetTable = metaModelOf(association.getTargetClass()).getTableName();
+        MetaModel targetMetaModel = metaModelOf(association.getTargetClass());
         String parentType = association.getTypeLabel();
-        new DB(metaModelLocal.getDbName()).exec("DELETE FROM " + targetTable + " WHERE parent_id = ? AND parent_type = ?", getId(), parentType);
+        new DB(metaModelLocal.getDbName()).exec("DELETE FROM " + targetMetaModel.getTableName() + " WHERE parent_id = ? AND parent_type = ?", getId(), parentType);
+        EntityCache.purge(targetMetaModel);
     }
 
     private void deleteChildrenDeep(List<? extends Association> childAssociations, Association... excludedAssociations){
@@ -990,7 +1090,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
     protected void toXmlP(StringBuilder sb, boolean pretty, String indent, String... attributeNames) {
 
-        String topTag = underscore(getClass().getSimpleName());
+        String topTag = metaModelLocal.xmlTag();
         if (pretty) { sb.append(indent); }
         sb.append('<').append(topTag).append('>');
         if (pretty) { sb.append('\n'); }
@@ -1008,7 +1108,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         }
         for (Entry<Class, List<Model>> cachedChild : cachedChildren.entrySet()) {
             if (pretty) { sb.append("  ").append(indent); }
-            String tag = pluralize(underscore(cachedChild.getKey().getSimpleName()));
+            String tag = metaModelOf(cachedChild.getKey()).xmlListTag();
             sb.append('<').append(tag).append('>');
             if (pretty) { sb.append('\n'); }
             for (Model child : cachedChild.getValue()) {
@@ -1088,7 +1188,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
                 sb.append('"').append(Convert.toIsoString((Date) attribute)).append('"');
             } else {
                 sb.append('"');
-                sb.append(JSONHelper.sanitize(Convert.toString(attribute)));
+                appendJsonEscaped(sb, attribute instanceof String ? (String) attribute : Convert.toString(attribute));
                 sb.append('"');
             }
         }
@@ -1104,7 +1204,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             for (int i = 0; i < parentClasses.size(); i++) {
                 if (i > 0) { sb.append(','); }
                 Class parentClass = parentClasses.get(i);
-                String name = pluralize(parentClasses.get(i).getSimpleName()).toLowerCase();
+                String name = metaModelOf(parentClass).jsonListName();
                 if (pretty) { sb.append("\n    ").append(indent); }
                 sb.append('"').append(name).append("\":[");
                 Model parent = cachedParents.get(parentClass);
@@ -1133,7 +1233,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             for (int i = 0; i < childClasses.size(); i++) {
                 if (i > 0) { sb.append(','); }
                 Class childClass = childClasses.get(i);
-                String name = pluralize(childClass.getSimpleName()).toLowerCase();
+                String name = metaModelOf(childClass).jsonListName();
                 if (pretty) { sb.append("\n    ").append(indent); }
                 sb.append('"').append(name).append("\":[");
 
@@ -1156,6 +1256,35 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         sb.append('}');
     }
 
+    /**
+     * Escapes like {@link JSONHelper#sanitize(String)}, without creating a copy of a value.
+     */
+    private static void appendJsonEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\b': sb.append("\\b"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\f': sb.append("\\f"); break;
+                default:
+                    if (c <= 0x1f || c == '\u2028' || c == '\u2029') {
+                        sb.append("\\u");
+                        String hex = Integer.toHexString(c);
+                        for (int pad = hex.length(); pad < 4; pad++) {
+                            sb.append('0');
+                        }
+                        sb.append(hex);
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+    }
+
     /**
      * Override in subclasses in order to inject custom content into Json just before the closing brace.
      *
@@ -1206,6 +1335,12 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         if (cachedParent != null) {
             return cachedParent;
         }
+        if (associationBatch != null && associationBatch.load(parentClass, true)) {
+            cachedParent = parentClass.cast(cachedParents.get(parentClass));
+            if (cachedParent != null) {
+                return cachedParent;
+            }
+        }
 
         BelongsToAssociation ass = metaModelLocal.getAssociationForTarget(parentClass, BelongsToAssociation.class);
         BelongsToPolymorphicAssociation assP = metaModelLocal.getAssociationForTarget(parentClass, BelongsToPolymorphicAssociation.class);
@@ -1232,6 +1367,13 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         }
 
         MetaModel parentMM = metaModelOf(parentClass);
+        P cachedEntity = EntityCache.get(parentMM, fkValue);
+        if (cachedEntity != null) {
+            if (cache) {
+                setCachedParent(cachedEntity);
+            }
+            return cachedEntity;
+        }
         String parentTable = parentMM.getTableName();
         String parentIdName = parentMM.getIdName();
         String query = metaModelLocal.getDialect().selectStarParametrized(parentTable, parentIdName);
@@ -1239,11 +1381,12 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         if (parentMM.cached()) {
             P parent = parentClass.cast(QueryCache.instance().getItem(parentTable, query, new Object[]{fkValue}));
             if (parent != null) {
-                LogFilter.logQuery(LOGGER, query, new Object[]{fkValue}, System.currentTimeMillis(), true);
+                LogFilter.logCacheHit(LOGGER, query, new Object[]{fkValue});
                 return parent;
             }
         }
 
+        long stamp = EntityCache.stamp(parentMM);
         List<Map<String, Object>> results = new DB(parentMM.getDbName()).findAll(query, fkValue);
         //expect only one result here
         if (results.isEmpty()) { //this should be covered by referential integrity constraint
@@ -1255,6 +1398,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
                 if (parentMM.cached()) {
                     QueryCache.instance().addItem(parentTable, query, new Object[]{fkValue}, parent);
                 }
+                EntityCache.put(parent, stamp);
                 if (cache) {
                     setCachedParent(parent);
                 }
@@ -1348,6 +1492,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
      */
     public void refresh() {
         QueryCache.instance().purgeTableCache(metaModelLocal);
+        EntityCache.remove(this);
         Model fresh = ModelDelegate.findById(this.getClass(), getId());
         if (fresh == null) {
             throw new StaleModelException("Failed to refresh self because probably record with " +
@@ -1442,7 +1587,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
     /**
      * Gets raw value of the attribute, without conversions applied.
      */
-    private Object getRaw(String attributeName) {
+    Object getRaw(String attributeName) {
         if(frozen){
             throw new FrozenException(this);
         }
@@ -1901,6 +2046,12 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         if(children != null){
             return (LazyList<C>) children;
         }
+        if (associationBatch != null && associationBatch.load(clazz, false)) {
+            children = cachedChildren.get(clazz);
+            if (children != null) {
+                return (LazyList<C>) children;
+            }
+        }
 
 //        String tableName = Registry.instance().getTableName(clazz);
 //        if(tableName == null) throw new IllegalArgumentException("table: " + tableName + " does not exist for model: " + clazz);
@@ -2733,7 +2884,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
      * After this method, this instance is equivalent to an empty, just created instance.
      */
     public void reset() {
-        attributes = new CaseInsensitiveMap<>();
+        attributes = new AttributeMap(attributeSlots());
     }
 
     /**
@@ -2782,18 +2933,13 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
      * False will also be returned if you set an ID value for the model, but such ID does not exist in DB.
      */
     public boolean save() {
-        if(frozen) throw new FrozenException(this);
-
-        fireBeforeSave();
-
-        validate();
-        if (hasErrors()) {
+        if (!prepareSave()) {
             return false;
         }
 
         boolean result;
         try (CacheEventSquasher ces = new CacheEventSquasher()) {
-            if (getId() == null && !compositeKeyPersisted) {
+            if (isNewRecord()) {
                 result = insert();
             } else {
                 result = update();
@@ -2803,6 +2949,60 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         return result;
     }
 
+    /**
+     * First half of {@link #save()}: fires <code>beforeSave</code> callbacks and runs validations.
+     *
+     * @return true if this model is valid.
+     */
+    boolean prepareSave() {
+        if(frozen) throw new FrozenException(this);
+
+        fireBeforeSave();
+
+        validate();
+        return !hasErrors();
+    }
+
+    /**
+     * @return true if {@link #save()} will insert this model, false if it will update it.
+     */
+    boolean isNewRecord() {
+        return getId() == null && !compositeKeyPersisted;
+    }
+
+    /**
+     * Saves many models in as few round trips to the database as possible. Models are inserted or updated the same way
+     * as by {@link #saveIt()}, with all callbacks and optimistic locking, but statements of the same shape,
+     * such as inserts into the same columns, are sent to the database as one JDBC batch. Cache of affected tables
+     * is purged once, after all models are saved.
+     *
+     * <pre>
+     * List&lt;Person&gt; people = ...;
+     * Person.saveAll(people);
+     * </pre>
+     *
+     * All models are validated before anything is written. If any model is not valid, nothing is saved and a
+     * {@link ValidationException} is thrown for the first invalid model. Wrap this call in a transaction if all models
+     * must be saved or none.
+     *
+     * <p></p>
+     * Some drivers can send a batch of inserts as a single multi-row insert, for instance PostgreSQL with
+     * <code>reWriteBatchedInserts=true</code> and MySQL with <code>rewriteBatchedStatements=true</code> in the URL.
+     * If a driver does not return generated IDs for a batch of inserts, the batch is rolled back and its models are
+     * inserted one by one.
+     *
+     * <p></p>
+     * Updates of models with optimistic locking are not batched, because some drivers do not report how many rows
+     * each statement of a batch updated. If one of them is stale, the others are saved first, and then
+     * {@link StaleModelException} is thrown.
+     *
+     * @param models models to save, may be of different types.
+     * @return number of models inserted or updated.
+     */
+    public static int saveAll(Collection<? extends Model> models) {
+        return ModelDelegate.saveAll(models);
+    }
+
     /**
      * Returns total count of records in table.
      *
@@ -2835,7 +3035,35 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
      * @return true if model was saved, false if not
      */
     public boolean insert() {
+        List<Object> values = new ArrayList<>();
+        String query = prepareInsert(values);
+        MetaModel metaModel = metaModelLocal;
+        try {
+            boolean done;
+            if (insertGeneratesId()) {
+                Object id = new DB(metaModel.getDbName()).execInsert(query, metaModel.getIdName(), values.toArray());
+                attributes.put(metaModel.getIdName(), id);
+                done = (id != null);
+            } else {
+                compositeKeyPersisted  = done = (1 == new DB(metaModel.getDbName()).exec(query, values.toArray()));
+            }
+            completeInsert();
+            return done;
+        } catch (DBException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
 
+    /**
+     * First half of {@link #insert()}: fires <code>beforeCreate</code> callbacks, sets timestamps and generates
+     * an insert statement.
+     *
+     * @param values list to add values of parameters of the statement to.
+     * @return parametrized insert statement.
+     */
+    String prepareInsert(List<Object> values) {
         fireBeforeCreate();
 
         doCreatedAt();
@@ -2843,7 +3071,6 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
         MetaModel metaModel = metaModelLocal;
         List<String> columns = new ArrayList<>();
-        List<Object> values = new ArrayList<>();
         for (Map.Entry<String, Object> entry : attributes.entrySet()) {
             if (entry.getValue() != null && !metaModel.getVersionColumn().equals(entry.getKey())) {
                 columns.add(entry.getKey());
@@ -2854,34 +3081,47 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             columns.add(metaModel.getVersionColumn());
             values.add(1);
         }
+        return metaModel.getDialect().insertParametrized(metaModel, columns, containsId());
+    }
 
-        try {
-            boolean containsId = (attributes.get(metaModel.getIdName()) != null); // do not use containsKey
-            boolean done;
-            String query = metaModel.getDialect().insertParametrized(metaModel, columns, containsId);
-            if (containsId || getCompositeKeys() != null) {
-                compositeKeyPersisted  = done = (1 == new DB(metaModel.getDbName()).exec(query, values.toArray()));
-            } else {
-                Object id = new DB(metaModel.getDbName()).execInsert(query, metaModel.getIdName(), values.toArray());
-                attributes.put(metaModel.getIdName(), id);
-                done = (id != null);
-            }
+    private boolean containsId() {
+        return attributes.get(metaModelLocal.getIdName()) != null; // do not use containsKey
+    }
 
-            CacheEventSquasher.purge(metaModel);
+    /**
+     * @return true if the ID of this model is generated by the database when it is inserted.
+     */
+    boolean insertGeneratesId() {
+        return !containsId() && getCompositeKeys() == null;
+    }
 
-            if (metaModel.isVersioned()) {
-                attributes.put(metaModel.getVersionColumn(), 1);
-            }
+    /**
+     * Second half of {@link #insert()}, called after the insert statement was executed.
+     */
+    void completeInsert() {
+        MetaModel metaModel = metaModelLocal;
+        CacheEventSquasher.purge(metaModel);
 
-            dirtyAttributeNames.clear(); // Clear all dirty attribute names as all were inserted. What about versionColumn ?
-            fireAfterCreate();
+        if (metaModel.isVersioned()) {
+            attributes.put(metaModel.getVersionColumn(), 1);
+        }
 
-            return done;
-        } catch (DBException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new DBException(e.getMessage(), e);
+        dirtyAttributeNames.clear(); // Clear all dirty attribute names as all were inserted. What about versionColumn ?
+        fireAfterCreate();
+    }
+
+    /**
+     * Called by batch inserts, see {@link #saveAll(Collection)}.
+     *
+     * @param id value generated for ID, or result of insert if ID was not generated.
+     */
+    void completeInsert(Object id) {
+        if (insertGeneratesId()) {
+            attributes.put(metaModelLocal.getIdName(), id);
+        } else {
+            compositeKeyPersisted = true;
         }
+        completeInsert();
     }
 
     private void doCreatedAt() {
@@ -2897,6 +3137,24 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
     }
 
     private boolean update() {
+        List<Object> values = new ArrayList<>();
+        String query = prepareUpdate(values);
+        if (query == null)
+            return false;
+
+        int updated = new DB(metaModelLocal.getDbName()).exec(query, values.toArray());
+        completeUpdate(updated);
+        return updated > 0;
+    }
+
+    /**
+     * First half of {@link #update()}: fires <code>beforeUpdate</code> callbacks, sets timestamp and generates
+     * an update statement.
+     *
+     * @param values list to add values of parameters of the statement to.
+     * @return parametrized update statement, or null if there is nothing to update.
+     */
+    String prepareUpdate(List<Object> values) {
 
         fireBeforeUpdate();
         doUpdatedAt();
@@ -2909,7 +3167,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
         metaModel.getDialect().appendQuestionsForUpdate(metaModel, query, attributeNames);
 
-        List<Object> values = getAttributeValues(attributeNames);
+        values.addAll(getAttributeValues(attributeNames));
 
         if (manageTime && metaModel.hasAttribute("updated_at")) {
             if(values.size() > 0)
@@ -2925,7 +3183,7 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             values.add(getLong(metaModelLocal.getVersionColumn()) + 1);
         }
         if(values.isEmpty())
-            return false;
+            return null;
 
         if (getCompositeKeys() != null) {
             String[] compositeKeys = getCompositeKeys();
@@ -2947,7 +3205,16 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             query.append(" AND ").append(metaModelLocal.getVersionColumn()).append(" = ?");
             values.add(get(metaModelLocal.getVersionColumn()));
         }
-        int updated = new DB(metaModel.getDbName()).exec(query.toString(), values.toArray());
+        return query.toString();
+    }
+
+    /**
+     * Second half of {@link #update()}, called after the update statement was executed.
+     *
+     * @param updated number of updated records
+     */
+    void completeUpdate(int updated) {
+        MetaModel metaModel = metaModelLocal;
         if(metaModel.isVersioned() && updated == 0){
             throw new StaleModelException("Failed to update record for model '" + getClass() +
                     "', with " + getIdName() + " = " + getId() + " and " + metaModelLocal.getVersionColumn()
@@ -2958,9 +3225,9 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
             set(metaModelLocal.getVersionColumn(), getLong(metaModelLocal.getVersionColumn()) + 1);
         }
         CacheEventSquasher.purge(metaModel);
+        EntityCache.remove(this);
         dirtyAttributeNames.clear();
         fireAfterUpdate();
-        return updated > 0;
     }
 
     private List<Object> getAttributeValues( List<String> attributeNames) {
@@ -3020,6 +3287,10 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
         cachedChildren.put(childClass, children);
     }
 
+    void setAssociationBatch(AssociationBatch<?> associationBatch) {
+        this.associationBatch = associationBatch;
+    }
+
     /**
      * Turns off automatic management of time-related attributes <code>created_at</code> and <code>updated_at</code>.
      * If management of time attributes is turned off,
@@ -3156,8 +3427,8 @@ public abstract class Model extends CallbackSupport implements Externalizable, V
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        attributes = (Map<String, Object>) in.readObject();
-        dirtyAttributeNames = (Set<String>) in.readObject();
+        attributes = new AttributeMap(attributeSlots(), (Map<String, Object>) in.readObject());
+        dirtyAttributeNames = new AttributeNameSet(attributeSlots(), (Set<String>) in.readObject());
     }
 
     /**
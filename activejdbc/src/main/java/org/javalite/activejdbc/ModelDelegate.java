@@ -20,6 +20,7 @@ import org.javalite.activejdbc.associations.Association;
 import org.javalite.activejdbc.associations.BelongsToAssociation;
 import org.javalite.activejdbc.associations.Many2ManyAssociation;
 import org.javalite.activejdbc.cache.CacheEventSquasher;
+import org.javalite.activejdbc.cache.EntityCache;
 import org.javalite.activejdbc.cache.QueryCache;
 import org.javalite.conversion.BlankToNullConverter;
 import org.javalite.conversion.Converter;
@@ -32,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.util.*;
@@ -84,6 +86,7 @@ public final class ModelDelegate {
                 ces.add(metaModel);
                 ModelDelegate.purgeEdges(metaModel);
             }
+            EntityCache.purge(metaModel);
         }
     }
 
@@ -103,7 +106,7 @@ public final class ModelDelegate {
                 result = Convert.toLong(new DB(metaModel.getDbName()).firstCell(sql));
                 QueryCache.instance().addItem(metaModel.getTableName(), sql, null, result);
             }else {
-                LogFilter.logQuery(LOGGER, sql, new Object[]{}, System.currentTimeMillis(), true);
+                LogFilter.logCacheHit(LOGGER, sql, new Object[]{});
             }
         } else {
             result = Convert.toLong(new DB(metaModel.getDbName()).firstCell(sql));
@@ -167,6 +170,7 @@ public final class ModelDelegate {
             ces.add(metaModel);
             purgeEdges(metaModel);
         }
+        EntityCache.purge(metaModel);
         return count;
     }
 
@@ -177,6 +181,7 @@ public final class ModelDelegate {
             ces.add(metaModel);
             purgeEdges(metaModel);
         }
+        EntityCache.purge(metaModel);
         return count;
     }
 
@@ -204,8 +209,21 @@ public final class ModelDelegate {
     public static <T extends Model> T findById(Class<T> clazz, Object id, LockMode lockMode) {
         if (id == null) { return null; }
         MetaModel metaModel = metaModelOf(clazz);
+        boolean entitiesCached = metaModel.entitiesCached() && lockMode == LockMode.NONE;
+        long stamp = 0;
+        if (entitiesCached) {
+            T cached = EntityCache.get(metaModel, id);
+            if (cached != null) {
+                return cached;
+            }
+            stamp = EntityCache.stamp(metaModel);
+        }
         LazyList<T> list = new LazyList<T>(metaModel.getIdName() + " = ?", metaModel, id).limit(1).lockMode(lockMode);
-        return list.isEmpty() ? null : list.get(0);
+        T found = list.isEmpty() ? null : list.get(0);
+        if (entitiesCached && found != null) {
+            EntityCache.put(found, stamp);
+        }
+        return found;
     }
 
     /**
@@ -223,13 +241,22 @@ public final class ModelDelegate {
         if (compositeKeys == null || compositeKeys.length != values.length){
             return null;
         }
+        T cached = EntityCache.get(metaModel, values);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = EntityCache.stamp(metaModel);
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < compositeKeys.length; i++) {
             sb.append(i == 0 ? "" : " AND ").append(compositeKeys[i])
                     .append(" = ?");
         }
         LazyList<T> list = new LazyList<T>(sb.toString(), metaModel, values).limit(1);
-        return list.isEmpty() ? null : list.get(0);
+        T found = list.isEmpty() ? null : list.get(0);
+        if (found != null) {
+            EntityCache.put(found, stamp);
+        }
+        return found;
     }
 
     public static <T extends Model> LazyList<T> findBySql(Class<T> clazz, String fullQuery, Object... params) {
@@ -243,16 +270,12 @@ public final class ModelDelegate {
 
     public static <T extends Model, M extends T> void findWith(final Class<M> clazz, final ModelListener<T> listener,
                                                                String query, Object... params) {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         final MetaModel metaModel = metaModelOf(clazz);
         String sql = metaModel.getDialect().selectStar(metaModel.getTableName(), query);
-        new DB(metaModel.getDbName()).find(sql, params).with(new RowListenerAdapter() {
-            @Override
-            public void onNext(Map<String, Object> row) {
-                listener.onModel(instance(row, metaModel, clazz));
-            }
-        });
-        LogFilter.logQuery(LOGGER, sql, null, start);
+        new DB(metaModel.getDbName()).find(sql, params).with(metaModel, sql, listener);
+        Registry.instance().getSlowQueryLog().check(metaModel.getDbName(), sql, params, start);
+        LogFilter.logQueryNanos(LOGGER, sql, null, start);
     }
 
     static <T extends Model> T instance(Map<String, Object> map, MetaModel metaModel) {
@@ -260,23 +283,46 @@ public final class ModelDelegate {
     }
 
     static <T extends Model> T instance(Map<String, Object> map, MetaModel metaModel, Class<T> clazz) {
+        T instance = newInstance(clazz);
+        instance.hydrate(map, true);
+        return instance;
+    }
+
+    private static <T extends Model> T newInstance(Class<T> clazz) {
         try {
-            T instance = clazz.getDeclaredConstructor().newInstance();
-            instance.hydrate(map, true);
-            return instance;
-        } catch(DBException e) {
-            throw e;
+            return clazz.getDeclaredConstructor().newInstance();
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e.getMessage(), e);
-        } catch (Exception e) {
-            if (e instanceof NoSuchMethodException || e instanceof InvocationTargetException || e instanceof InstantiationException) {
-                throw new InitException("Failed to create a new instance of: " + metaModel.getModelClass() + ", are you sure this class has a default constructor?", e);
-            } else {
-                throw new RuntimeException(e.getMessage(), e);
-            }
+        } catch (NoSuchMethodException | InvocationTargetException | InstantiationException e) {
+            throw new InitException("Failed to create a new instance of: " + clazz + ", are you sure this class has a default constructor?", e);
         }
     }
 
+    /**
+     * Used by cache codecs, see {@link org.javalite.activejdbc.cache.CacheCodec}.
+     *
+     * @param model model to read attributes of
+     * @return read-only view of attributes of a model, values exactly as kept by the model.
+     */
+    public static Map<String, Object> attributesOf(Model model) {
+        return Collections.unmodifiableMap(model.rawAttributes());
+    }
+
+    /**
+     * Used by cache codecs, see {@link org.javalite.activejdbc.cache.CacheCodec}. Creates a model with attributes
+     * read from a cache. Values are not converted, no attributes are marked as changed, and no callbacks are fired.
+     *
+     * @param clazz class of model
+     * @param attributeNames names of attributes, <code>null</code> names are skipped
+     * @param values values of attributes, in the same order as names
+     * @return new model
+     */
+    public static <T extends Model> T restore(Class<T> clazz, String[] attributeNames, Object[] values) {
+        T instance = newInstance(clazz);
+        instance.restore(attributeNames, values);
+        return instance;
+    }
+
     static String[] lowerCased(Collection<String> collection) {
         String[] array = new String[collection.size()];
         int i = 0;
@@ -312,6 +358,7 @@ public final class ModelDelegate {
 
     public static void purgeCache(Class<? extends Model> clazz) {
         QueryCache.instance().purgeTableCache(metaModelOf(clazz));
+        EntityCache.purge(metaModelOf(clazz));
     }
 
     static void purgeEdges(MetaModel metaModel) {
@@ -333,6 +380,151 @@ public final class ModelDelegate {
 
     }
 
+    public static int saveAll(Collection<? extends Model> models) {
+        for (Model model : models) {
+            if (!model.prepareSave()) {
+                throw new ValidationException(model);
+            }
+        }
+        int saved = 0;
+        Set<MetaModel> metaModels = new LinkedHashSet<>();
+        try (CacheEventSquasher ces = new CacheEventSquasher()) {
+            Map<String, Batch> inserts = new LinkedHashMap<>();
+            Map<String, Batch> updates = new LinkedHashMap<>();
+            for (Model model : models) {
+                MetaModel metaModel = metaModelOf(model.getClass());
+                metaModels.add(metaModel);
+                List<Object> values = new ArrayList<>();
+                if (model.isNewRecord()) {
+                    String query = model.prepareInsert(values);
+                    boolean generatesId = model.insertGeneratesId();
+                    batch(inserts, metaModel, query, generatesId).add(model, values);
+                } else {
+                    String query = model.prepareUpdate(values);
+                    if (query != null) {
+                        batch(updates, metaModel, query, false).add(model, values);
+                    }
+                }
+            }
+            for (Batch batch : inserts.values()) {
+                saved += batch.insert();
+            }
+            for (Batch batch : updates.values()) {
+                saved += batch.update();
+            }
+        }
+        for (Model model : models) {
+            model.fireAfterSave();
+        }
+        for (MetaModel metaModel : metaModels) {
+            purgeEdges(metaModel);
+        }
+        return saved;
+    }
+
+    private static Batch batch(Map<String, Batch> batches, MetaModel metaModel, String query, boolean generatesId) {
+        String key = metaModel.getDbName() + ':' + generatesId + ':' + query;
+        Batch batch = batches.get(key);
+        if (batch == null) {
+            batches.put(key, batch = new Batch(metaModel, query, generatesId));
+        }
+        return batch;
+    }
+
+    /**
+     * Models saved with the same statement.
+     */
+    private static final class Batch {
+        private static final int MAX_SIZE = 1000;
+
+        private final MetaModel metaModel;
+        private final String query;
+        private final boolean generatesId;
+        private final List<Model> models = new ArrayList<>();
+        private final List<Object[]> params = new ArrayList<>();
+
+        private Batch(MetaModel metaModel, String query, boolean generatesId) {
+            this.metaModel = metaModel;
+            this.query = query;
+            this.generatesId = generatesId;
+        }
+
+        private void add(Model model, List<Object> values) {
+            models.add(model);
+            params.add(values.toArray());
+        }
+
+        private int insert() {
+            DB db = new DB(metaModel.getDbName());
+            int inserted = 0;
+            for (int from = 0; from < models.size(); from += MAX_SIZE) {
+                int to = Math.min(from + MAX_SIZE, models.size());
+                List<Object[]> chunk = params.subList(from, to);
+                if (generatesId) {
+                    List<Object> ids = db.execInsertBatch(query, metaModel.getIdName(), chunk);
+                    if (ids == null) { // the driver did not return IDs for the batch, which was rolled back
+                        ids = new ArrayList<>(chunk.size());
+                        for (Object[] row : chunk) {
+                            ids.add(db.execInsert(query, metaModel.getIdName(), row));
+                        }
+                    }
+                    for (int i = from; i < to; i++) {
+                        models.get(i).completeInsert(ids.get(i - from));
+                    }
+                } else {
+                    db.execBatch(query, chunk);
+                    for (int i = from; i < to; i++) {
+                        models.get(i).completeInsert(null);
+                    }
+                }
+                inserted += to - from;
+            }
+            return inserted;
+        }
+
+        /**
+         * Versioned models are updated one by one, because drivers may report {@link Statement#SUCCESS_NO_INFO}
+         * instead of counts of rows updated by a batch, and a stale model would go unnoticed. A stale model fails
+         * only after all other models of its chunk were completed, as their rows were updated.
+         */
+        private int update() {
+            DB db = new DB(metaModel.getDbName());
+            int updated = 0;
+            for (int from = 0; from < models.size(); from += MAX_SIZE) {
+                int to = Math.min(from + MAX_SIZE, models.size());
+                List<Object[]> chunk = params.subList(from, to);
+                int[] counts;
+                if (metaModel.isVersioned()) {
+                    counts = new int[chunk.size()];
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] = db.exec(query, chunk.get(i));
+                    }
+                } else {
+                    counts = db.execBatch(query, chunk);
+                }
+                StaleModelException stale = null;
+                for (int i = from; i < to; i++) {
+                    int count = counts[i - from] == Statement.SUCCESS_NO_INFO ? 1 : counts[i - from];
+                    try {
+                        models.get(i).completeUpdate(count);
+                    } catch (StaleModelException e) {
+                        if (stale == null) {
+                            stale = e;
+                        }
+                        continue;
+                    }
+                    if (count > 0) {
+                        updated++;
+                    }
+                }
+                if (stale != null) {
+                    throw stale;
+                }
+            }
+            return updated;
+        }
+    }
+
     public static void removeValidator(Class<? extends Model> clazz, Validator validator) {
         modelRegistryOf(clazz).removeValidator(validator);
     }
@@ -370,6 +562,7 @@ public final class ModelDelegate {
         }
         int count = new DB(metaModel.getDbName()).exec(sql.toString(), allParams);
         CacheEventSquasher.purge(metaModel);
+        EntityCache.purge(metaModel);
         return count;
     }
 
@@ -16,6 +16,7 @@ limitations under the License.
 
 package org.javalite.activejdbc;
 
+import org.javalite.conversion.Converter;
 import org.javalite.validation.ValidationSupport;
 
 import java.util.ArrayList;
@@ -30,6 +31,20 @@ import java.util.List;
  */
 public class ModelRegistry  extends ValidationSupport {
     private final List<CallbackListener> callbacks = new ArrayList<>();
+    private volatile boolean converters;
+
+    @Override
+    public void convertWith(Converter converter, String attribute) {
+        converters = true;
+        super.convertWith(converter, attribute);
+    }
+
+    /**
+     * @return true if any converter was registered for any attribute.
+     */
+    boolean hasConverters() {
+        return converters;
+    }
 
     void callbackWith(CallbackListener... listeners) {
         callbackWith(Arrays.asList(listeners));
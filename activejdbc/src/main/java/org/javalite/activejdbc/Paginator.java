@@ -25,6 +25,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,6 +57,9 @@ public class Paginator<T extends Model> implements Serializable {
     private final boolean fullQuery;
     private final String countQueryFull;
     private boolean suppressCounts;
+    private boolean approximateCount;
+    private List<String> seekColumns;
+    private boolean seekDescending;
     private Long count = 0L;
 
 
@@ -149,6 +155,119 @@ public class Paginator<T extends Model> implements Serializable {
         return this;
     }
 
+    /**
+     * Switches this paginator to keyset (seek) pagination. Instead of skipping rows with an offset, which makes
+     * the database read and discard all rows of previous pages, every page continues after the last row of the
+     * previous one: <code>WHERE (created_at, id) &gt; (?, ?) ORDER BY created_at, id</code>. This keeps every page
+     * as fast as the first one, as long as there is an index on these columns. Pages are then read with
+     * {@link #getPageAfter(String)} and {@link #nextPageToken(List)}:
+     *
+     * <pre>
+     * Paginator&lt;Post&gt; paginator = Paginator.&lt;Post&gt;instance().modelClass(Post.class).query("*").pageSize(50)
+     *         .seekBy("created_at", "id").create();
+     * LazyList&lt;Post&gt; page = paginator.getPageAfter(request.getParameter("after"));
+     * String next = paginator.nextPageToken(page); // null if this is the last page
+     * </pre>
+     *
+     * The columns must identify a row, usually by including the ID as the last column. Columns may be followed by
+     * <code>desc</code>, in which case all of them must be. The columns must not be nullable, because no row compares
+     * greater than NULL. Keyset pagination cannot be used with full queries.
+     *
+     * @param columns columns to order rows by, for instance: <code>"created_at", "id"</code>.
+     * @return instance to self.
+     */
+    public Paginator<T> seekBy(String... columns) {
+        if (fullQuery) {
+            throw new IllegalArgumentException("seekBy() cannot be used with a full query, use a sub-query instead");
+        }
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("seekBy() needs at least one column");
+        }
+        List<String> names = new ArrayList<>(columns.length);
+        Boolean descending = null;
+        for (String column : columns) {
+            String[] parts = column.trim().split("\\s+");
+            boolean desc = parts.length == 2 && parts[1].equalsIgnoreCase("desc");
+            if (parts.length > 2 || parts.length == 2 && !desc && !parts[1].equalsIgnoreCase("asc")) {
+                throw new IllegalArgumentException("invalid seek column: " + column);
+            }
+            if (descending != null && descending != desc) {
+                throw new IllegalArgumentException("all seek columns must be sorted in the same direction");
+            }
+            descending = desc;
+            names.add(parts[0]);
+        }
+        this.seekColumns = names;
+        this.seekDescending = descending;
+        return this;
+    }
+
+    /**
+     * Makes {@link #getCount()} return an estimate of number of rows kept in statistics of the database, instead of
+     * counting them, if the database provides such an estimate. See {@link org.javalite.activejdbc.dialects.Dialect#selectApproximateCount(String)}.
+     * Only used when paginating over all rows of a table (query <code>"*"</code>), since statistics are kept per table.
+     *
+     * @param approximateCount true to use an estimate.
+     * @return instance to self.
+     */
+    public Paginator<T> approximateCount(boolean approximateCount) {
+        this.approximateCount = approximateCount;
+        return this;
+    }
+
+    /**
+     * Returns a page of records which follow the row identified by a token, see {@link #seekBy(String...)}.
+     *
+     * @param token token produced by {@link #nextPageToken(List)}, or null for the first page.
+     * @return list of records which make up a page.
+     * @throws IllegalArgumentException if the token is not valid.
+     */
+    public LazyList<T> getPageAfter(String token) {
+        if (seekColumns == null) {
+            throw new IllegalStateException("keyset pagination is not enabled, see seekBy()");
+        }
+        List<Object> allParams = new ArrayList<>(Arrays.asList(params));
+        String where = query.equals("*") ? null : query;
+        if (token != null && !token.isEmpty()) {
+            Object[] values = SeekToken.decode(token, seekColumns.size());
+            String condition = metaModel.getDialect().seekCondition(seekColumns, seekDescending, values, allParams);
+            where = where == null ? condition : "(" + where + ") AND " + condition;
+        }
+        LazyList<T> list = where == null ? findAll() : new LazyList<T>(where, metaModel, allParams.toArray());
+        for (String column : seekColumns) {
+            list.orderBy(seekDescending ? column + " DESC" : column);
+        }
+        return list.limit(pageSize);
+    }
+
+    /**
+     * Returns an opaque token pointing past the last record of a page, to be passed to {@link #getPageAfter(String)}
+     * to get the next page. The token can be safely sent to clients, for instance as a URL parameter.
+     *
+     * @param page page returned by {@link #getPageAfter(String)}.
+     * @return token for the next page, or null if this is the last page.
+     * @throws IllegalStateException if a seek column of the last row of the page is null.
+     */
+    public String nextPageToken(List<T> page) {
+        if (seekColumns == null) {
+            throw new IllegalStateException("keyset pagination is not enabled, see seekBy()");
+        }
+        if (page.size() < pageSize) {
+            return null;
+        }
+        T last = page.get(page.size() - 1);
+        Object[] values = new Object[seekColumns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = last.getRaw(seekColumns.get(i));
+            if (values[i] == null) {
+                // no row compares greater than NULL, so the next page would be empty
+                throw new IllegalStateException("seek column " + seekColumns.get(i) + " is null in the last row of "
+                        + "the page, keyset pagination needs columns which are not nullable");
+            }
+        }
+        return SeekToken.encode(values);
+    }
+
     /**
      * This method will return a list of records for a specific page.
      *
@@ -249,7 +368,7 @@ public class Paginator<T extends Model> implements Serializable {
                     count = doCount();
                     QueryCache.instance().addItem(metaModel.getTableName(), countQueryFull, params, count);
                 }else {
-                    LogFilter.logQuery(LOGGER, countQueryFull, params, System.currentTimeMillis(), true);
+                    LogFilter.logCacheHit(LOGGER, countQueryFull, params);
                 }
             } else {
                 count = doCount();
@@ -262,6 +381,15 @@ public class Paginator<T extends Model> implements Serializable {
     }
 
     private Long doCount() {
+        if (approximateCount && query.equals("*")) {
+            String approximateCountQuery = metaModel.getDialect().selectApproximateCount(metaModel.getTableName());
+            if (approximateCountQuery != null) {
+                Object estimate = new DB(metaModel.getDbName()).firstCell(approximateCountQuery);
+                if (estimate != null && Convert.toLong(estimate) >= 0) { // -1 if table was never analyzed
+                    return Convert.toLong(estimate);
+                }
+            }
+        }
         Object count = new DB(metaModel.getDbName()).firstCell(countQueryFull, params);
         return count == null? 0: Convert.toLong(count);
     }
@@ -292,6 +420,8 @@ public class Paginator<T extends Model> implements Serializable {
         private int currentPageIndex = 1;
         private boolean skipCheck;
         private String orderBys;
+        private String[] seekColumns;
+        private boolean approximateCount;
 
         /**
          * Model class mapped to a table.>
@@ -322,6 +452,22 @@ public class Paginator<T extends Model> implements Serializable {
             return this;
         }
 
+        /**
+         * @param columns columns for keyset pagination, see {@link Paginator#seekBy(String...)}
+         */
+        public PaginatorBuilder<T> seekBy(String... columns){
+            this.seekColumns = columns;
+            return this;
+        }
+
+        /**
+         * @param approximateCount true to count records from database statistics, see {@link Paginator#approximateCount(boolean)}
+         */
+        public PaginatorBuilder<T> approximateCount(boolean approximateCount){
+            this.approximateCount = approximateCount;
+            return this;
+        }
+
         /**
          * Suppress calling "select count(*)... " on a table each time. If set to true,
          *                       it will call count only once. If set to false, it will call count each time
@@ -381,7 +527,12 @@ public class Paginator<T extends Model> implements Serializable {
          */
         public Paginator<T> create(){
             Paginator<T> paginator = new Paginator<T>(modelClass, pageSize, suppressCounts, query, countQuery, params);
-            paginator.setCurrentPageIndex(currentPageIndex, skipCheck);
+            paginator.approximateCount(approximateCount);
+            if (seekColumns != null) {
+                paginator.seekBy(seekColumns);
+            } else {
+                paginator.setCurrentPageIndex(currentPageIndex, skipCheck);
+            }
             paginator.orderBy(orderBys);
             return paginator;
         }
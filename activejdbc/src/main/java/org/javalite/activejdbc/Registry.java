@@ -21,6 +21,7 @@ import org.javalite.activejdbc.cache.CacheManager;
 import org.javalite.activejdbc.cache.QueryCache;
 import org.javalite.activejdbc.logging.LogFilter;
 import org.javalite.activejdbc.logging.LogLevel;
+import org.javalite.activejdbc.statistics.SlowQueryLog;
 import org.javalite.activejdbc.statistics.StatisticsQueue;
 import org.javalite.common.CaseInsensitiveMap;
 import org.javalite.common.Inflector;
@@ -29,11 +30,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -55,14 +54,42 @@ public enum Registry {
     private final MetaModels metaModels = new MetaModels();
     private final Configuration configuration = new Configuration();
     private final StatisticsQueue statisticsQueue;
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(configuration);
     private final Set<String> initedDbs = new HashSet<>();
     private int staticMetadataStatus = 0;
+    private boolean initializing;
+    private final boolean lazyMetadata;
+
+    /**
+     * Meta models registered in lazy mode, whose columns and associations were not discovered yet, see
+     * {@link Configuration#lazyMetadata()}.
+     */
+    private final Set<MetaModel> pendingMetaModels = new HashSet<>();
+    /**
+     * Models whose annotations of associations were not processed yet, in lazy mode.
+     */
+    private final Set<Class<? extends Model>> pendingOverrides = new HashSet<>();
+    private final Set<Class<? extends Model>> unrelatedModels = new HashSet<>();
+    /**
+     * Positions of tables and models in the order in which associations of all models are discovered at once, to rank
+     * associations by, see {@link MetaModel#addAssociation(Association, long)}.
+     */
+    private final Map<String, Integer> tableOrder = new CaseInsensitiveMap<>();
+    private final Map<Class<? extends Model>, Integer> modelOrder = new HashMap<>();
+    private long overrideRank;
+
+    /**
+     * Meta models of models whose databases were fully initialized. Never modified, but replaced with a copy when a
+     * meta model is added, so that it can be read without a lock once metadata is loaded.
+     */
+    private volatile Map<Class<? extends Model>, MetaModel> initializedMetaModels = Collections.emptyMap();
     private String modelFile = "activejdbc_models.properties";
 
     Registry() {
         statisticsQueue = configuration.collectStatistics()
-                ? new StatisticsQueue(configuration.collectStatisticsOnHold())
+                ? new StatisticsQueue(configuration.collectStatisticsOnHold(), configuration.collectStatisticsMaxQueries())
                 : null;
+        lazyMetadata = configuration.lazyMetadata();
     }
 
 
@@ -77,6 +104,13 @@ public enum Registry {
         return statisticsQueue;
     }
 
+    /**
+     * @return queries which took longer than thresholds configured in <code>activejdbc.properties</code>.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
     public Configuration getConfiguration(){
         return configuration;
     }
@@ -92,15 +126,27 @@ public enum Registry {
      * @return MetaModel of a model representing a table.
      */
     public MetaModel getMetaModel(String table) {
-        return metaModels.getMetaModel(table);
+        MetaModel metaModel = metaModels.getMetaModel(table);
+        return lazyMetadata && metaModel != null ? getMetaModel(metaModel.getModelClass()) : metaModel;
     }
 
     public MetaModel getMetaModel(Class<? extends Model> modelClass) {
+        MetaModel metaModel = initializedMetaModels.get(modelClass);
+        return metaModel != null ? metaModel : initMetaModel(modelClass);
+    }
 
-        String dbName = MetaModel.getDbName(modelClass);
-        init(dbName);
-
-        return metaModels.getMetaModel(modelClass);
+    private synchronized MetaModel initMetaModel(Class<? extends Model> modelClass) {
+        init(MetaModel.getDbName(modelClass));
+        MetaModel metaModel = metaModels.getMetaModel(modelClass);
+        if (metaModel != null && pendingMetaModels.contains(metaModel)) {
+            discover(metaModel);
+        }
+        if (metaModel != null && !initializing) {
+            Map<Class<? extends Model>, MetaModel> published = new HashMap<>(initializedMetaModels);
+            published.put(modelClass, metaModel);
+            initializedMetaModels = Collections.unmodifiableMap(published);
+        }
+        return metaModel;
     }
 
     ModelRegistry modelRegistryOf(Class<? extends Model> modelClass) {
@@ -117,6 +163,16 @@ public enum Registry {
             initedDbs.add(dbName);
         }
 
+        boolean outer = initializing;
+        initializing = true;
+        try {
+            initDb(dbName);
+        } finally {
+            initializing = outer;
+        }
+    }
+
+    private void initDb(String dbName) {
         if (staticMetadataStatus != STATIC_METADATA_CHECKED && loadStaticMetadata()) return;
 
         try {
@@ -124,21 +180,41 @@ public enum Registry {
             if(c == null){
                 throw new DBException("Failed to retrieve metadata from DB, connection: '" + dbName + "' is not available");
             }
-            DatabaseMetaData databaseMetaData = c.getMetaData();
+            long start = System.currentTimeMillis();
             String dbType = c.getMetaData().getDatabaseProductName();
             Set<Class<? extends Model>> modelClasses = ModelFinder.getModelsForDb(dbName);
             registerModels(dbName, modelClasses, dbType);
             String[] tables = metaModels.getTableNames(dbName);
-
-            for (String table : tables) {
-                Map<String, ColumnMetadata> metaParams = fetchMetaParams(databaseMetaData, dbType, table);
-                registerColumnMetadata(table, metaParams);
+            for (int i = 0; i < tables.length; i++) {
+                tableOrder.put(tables[i], i);
+            }
+            if (lazyMetadata) {
+                for (String table : tables) {
+                    pendingMetaModels.add(metaModels.getMetaModel(table));
+                }
+                for (Class<? extends Model> modelClass : modelClasses) {
+                    pendingOverrides.add(modelClass);
+                    if (modelClass.getAnnotation(UnrelatedTo.class) != null) {
+                        unrelatedModels.add(modelClass);
+                    }
+                }
+                LogFilter.log(LOGGER, LogLevel.INFO, "Registered models of database: {}, tables: {}, {} ms, metadata "
+                        + "will be read when they are used", dbName, tables.length, System.currentTimeMillis() - start);
+                return;
             }
 
+            long columnsStart = System.currentTimeMillis();
+            String source = fetchColumnMetadata(c, dbName, dbType, tables);
+            long associationsStart = System.currentTimeMillis();
+
             for (String table : tables) {
                 discoverAssociationsFor(table, dbName);
             }
             processOverrides(modelClasses);
+            long end = System.currentTimeMillis();
+            LogFilter.log(LOGGER, LogLevel.INFO, "Initialized database: {}, tables: {}, total: {} ms, models: {} ms, "
+                    + "columns: {} ms ({}), associations: {} ms", dbName, tables.length, end - start,
+                    columnsStart - start, associationsStart - columnsStart, source, end - associationsStart);
         } catch (Exception e) {
             initedDbs.remove(dbName);
             if (e instanceof InitException) {
@@ -152,144 +228,185 @@ public enum Registry {
         }
     }
 
-    private boolean loadStaticMetadata() {
+    /**
+     * Reads columns of a model registered in lazy mode, and discovers its associations by the same rules as
+     * {@link #initDb(String)} does for all models at once. A one to many association is discovered by whichever of
+     * the two models is used first: the parent looks up tables which have its foreign key, a child checks its own
+     * columns for foreign keys of parents. Annotations of a model are processed when the model, or any model which
+     * they refer to, is used first.
+     */
+    private void discover(MetaModel metaModel) {
+        boolean outer = initializing;
+        initializing = true;
+        String dbName = metaModel.getDbName();
         try {
-            Enumeration<URL> urls = Registry.instance().getClass().getClassLoader().getResources("activejdbc_metadata.json");
-            staticMetadataStatus = urls.hasMoreElements() ? STATIC_METADATA_LOADED : STATIC_METADATA_CHECKED;
-            while(urls.hasMoreElements()) {
-                URL url = urls.nextElement();
-                LogFilter.log(LOGGER, LogLevel.INFO, "Loading metadata from: {}", url.toExternalForm());
-                metaModels.fromJSON(Util.read(url.openStream()));
+            long start = System.currentTimeMillis();
+            Connection c = ConnectionsAccess.getConnection(dbName);
+            if (c == null) {
+                throw new DBException("Failed to retrieve metadata from DB, connection: '" + dbName + "' is not available");
             }
-            return staticMetadataStatus == STATIC_METADATA_LOADED;
-        } catch(IOException e) {
+            ColumnMetadataReader reader = new ColumnMetadataReader(c.getMetaData(), metaModel.getDbType());
+            pendingMetaModels.remove(metaModel);
+            readColumns(reader, metaModel);
+
+            List<String> pendingTables = new ArrayList<>();
+            for (String table : metaModels.getTableNames(dbName)) {
+                MetaModel other = metaModels.getMetaModel(table);
+                if (pendingMetaModels.contains(other)) {
+                    pendingTables.add(table);
+                    if (metaModel.hasAttribute(other.getFKName())) {
+                        addOne2ManyAssociation(other, metaModel);
+                    }
+                }
+            }
+            for (String table : reader.tablesWithColumn(metaModel.getFKName(), pendingTables)) {
+                addOne2ManyAssociation(metaModel, metaModels.getMetaModel(table));
+            }
+            discoverMany2ManyAssociationsFor(metaModel.getTableName(), dbName, reader);
+
+            Class<? extends Model> modelClass = metaModel.getModelClass();
+            Set<Class<? extends Model>> overrides = new HashSet<>();
+            for (Class<? extends Model> pending : pendingOverrides) {
+                if (pending.equals(modelClass) || referencedModels(pending).contains(modelClass)) {
+                    overrides.add(pending);
+                }
+            }
+            pendingOverrides.removeAll(overrides);
+            processOverrides(overrides);
+            // associations added after an @UnrelatedTo was processed are removed again
+            for (Class<? extends Model> unrelated : unrelatedModels) {
+                UnrelatedTo unrelatedTo = unrelated.getAnnotation(UnrelatedTo.class);
+                if (unrelated.equals(modelClass) || Arrays.asList(unrelatedTo.value()).contains(modelClass)) {
+                    processUnrelatedTo(unrelatedTo, unrelated);
+                }
+            }
+            LogFilter.log(LOGGER, LogLevel.INFO, "Initialized model: {}, {} ms ({} getColumns() calls)",
+                    modelClass.getName(), System.currentTimeMillis() - start, reader.calls());
+        } catch (SQLException e) {
+            pendingMetaModels.add(metaModel);
             throw new InitException(e);
+        } catch (RuntimeException e) {
+            pendingMetaModels.add(metaModel);
+            throw e;
+        } finally {
+            initializing = outer;
         }
     }
 
-    //instrumentation
-    protected String metadataToJSON() {
-        return metaModels.toJSON();
+    private void readColumns(ColumnMetadataReader reader, MetaModel metaModel) throws SQLException {
+        if (!metaModel.hasColumnMetadata()) {
+            registerColumnMetadata(metaModel.getTableName(), reader.fetch(metaModel.getTableName()));
+        }
     }
 
-
     /**
-     * Some databases will improve the search of metadata if you give them the schema name
-     *
-     * @return  may return null
-     *
+     * @return models which annotations of associations of a model refer to.
      */
-    private String getConnectionSchema(DatabaseMetaData databaseMetaData) throws SQLException {
-        try {
-            return databaseMetaData.getConnection().getSchema();
-        } catch (SQLException e) {
-            throw e;
-        } catch (Exception ignore) {} // getSchema does not exist on android.
-        return null;
+    private static Set<Class<? extends Model>> referencedModels(Class<? extends Model> modelClass) {
+        Set<Class<? extends Model>> referenced = new HashSet<>();
+        List<BelongsTo> belongsTos = new ArrayList<>();
+        if (modelClass.getAnnotation(BelongsTo.class) != null) {
+            belongsTos.add(modelClass.getAnnotation(BelongsTo.class));
+        }
+        if (modelClass.getAnnotation(BelongsToParents.class) != null) {
+            belongsTos.addAll(Arrays.asList(modelClass.getAnnotation(BelongsToParents.class).value()));
+        }
+        belongsTos.forEach(belongsTo -> referenced.add(belongsTo.parent()));
+        List<HasMany> hasManies = new ArrayList<>();
+        if (modelClass.getAnnotation(HasMany.class) != null) {
+            hasManies.add(modelClass.getAnnotation(HasMany.class));
+        }
+        if (modelClass.getAnnotation(HasManies.class) != null) {
+            hasManies.addAll(Arrays.asList(modelClass.getAnnotation(HasManies.class).value()));
+        }
+        hasManies.forEach(hasMany -> referenced.add(hasMany.child()));
+        for (Many2Many many2Many : many2Manies(modelClass)) {
+            referenced.add(many2Many.other());
+        }
+        if (modelClass.getAnnotation(BelongsToPolymorphic.class) != null) {
+            referenced.addAll(Arrays.asList(modelClass.getAnnotation(BelongsToPolymorphic.class).parents()));
+        }
+        if (modelClass.getAnnotation(UnrelatedTo.class) != null) {
+            referenced.addAll(Arrays.asList(modelClass.getAnnotation(UnrelatedTo.class).value()));
+        }
+        return referenced;
     }
 
-
-    /**
-     * Some databases will improve the search of metadata if you give them the catalog name
-     *
-     * @return  may return null
-     *
-     */
-    private String getConnectionCatalog(DatabaseMetaData databaseMetaData) throws SQLException {
-        try {
-            return databaseMetaData.getConnection().getCatalog();
-        } catch (SQLException e) {
-            throw e;
-        } catch (Exception ignore) {} // getCatalog does not exist on android.
-        return null;
+    private static List<Many2Many> many2Manies(Class<? extends Model> modelClass) {
+        List<Many2Many> many2Manies = new ArrayList<>();
+        if (modelClass.getAnnotation(Many2Many.class) != null) {
+            many2Manies.add(modelClass.getAnnotation(Many2Many.class));
+        }
+        if (modelClass.getAnnotation(Many2Manies.class) != null) {
+            many2Manies.addAll(Arrays.asList(modelClass.getAnnotation(Many2Manies.class).value()));
+        }
+        return many2Manies;
     }
 
-
     /**
-     * Workarounds for some DB idiosyncrasies
+     * In lazy mode, discovers models which can be edges of a join table, by name or by annotations.
      */
-    private String mangleTableName(String tableName, String dbType) {
-        if(dbType.toLowerCase().contains("h2")){
-            // keep quoted table names as is, otherwise use uppercase
-            if (!tableName.contains("\"")) {
-                tableName = tableName.toUpperCase();
-            } else if(tableName.startsWith("\"") && tableName.endsWith("\"")) {
-                tableName = tableName.substring(1, tableName.length() - 1);
+    private synchronized void discoverEdges(String join) {
+        for (MetaModel metaModel : new ArrayList<>(pendingMetaModels)) {
+            boolean edge = Inflector.getOtherName(metaModel.getTableName(), join) != null;
+            for (Many2Many many2Many : many2Manies(metaModel.getModelClass())) {
+                edge |= many2Many.join().equalsIgnoreCase(join);
+            }
+            if (edge && pendingMetaModels.contains(metaModel)) {
+                getMetaModel(metaModel.getModelClass());
             }
-        } else if(dbType.toLowerCase().contains("postgres") && tableName.startsWith("\"") && tableName.endsWith("\"")) {
-            tableName = tableName.substring(1, tableName.length() - 1);
         }
-        return tableName;
     }
 
     /**
-     * Returns a hash keyed off a column name.
+     * Registers columns of tables, read from a snapshot if one is configured and exists, or else from JDBC metadata.
+     *
+     * @return where columns were read from, for the timing report.
      */
-    private Map<String, ColumnMetadata> fetchMetaParams(DatabaseMetaData databaseMetaData, String dbType, String table) throws SQLException {
-
-        /*
-         * Valid table name format: tablename or schemaname.tablename
-         */
-        String[] parts = table.split("\\.", 3);
-
-        String schema = null;
-
-        String tableName = null;
-
-        switch (parts.length) {
-            case 1:
-                schema = getConnectionSchema(databaseMetaData);
-                tableName = parts[0];
-                break;
-            case 2:
-                schema = parts[0];
-                tableName = parts[1];
-                break;
-        }
-
-        if (Util.blank(tableName) || (schema != null && schema.trim().length() == 0)) {
-            throw new DBException("invalid table name : " + table);
-        }
-
-        String catalog = getConnectionCatalog(databaseMetaData);
-
-        tableName = mangleTableName(tableName, dbType);
-
-        ResultSet rs = databaseMetaData.getColumns(catalog, schema, tableName, null);
-        Map<String, ColumnMetadata> columns = getColumns(rs, dbType);
-        rs.close();
-
-        //try upper case table name - Oracle uses upper case
-        if (columns.isEmpty()) {
-            rs = databaseMetaData.getColumns(catalog, schema, tableName.toUpperCase(), null);
-            columns = getColumns(rs, dbType);
-            rs.close();
-        }
-
-        //if upper case not found, try lower case.
-        if (columns.isEmpty()) {
-            rs = databaseMetaData.getColumns(catalog, schema, tableName.toLowerCase(), null);
-            columns = getColumns(rs, dbType);
-            rs.close();
+    private String fetchColumnMetadata(Connection c, String dbName, String dbType, String[] tables) throws SQLException {
+        Path snapshot = null;
+        String snapshotDir = configuration.getMetadataSnapshotDir();
+        if (snapshotDir != null) {
+            String fingerprint = MetadataSnapshot.fingerprint(c, dbName, tables);
+            if (fingerprint == null) {
+                LogFilter.log(LOGGER, LogLevel.INFO, "Database: {} has no table schema_version, metadata snapshot "
+                        + "will not be used", dbName);
+            } else {
+                snapshot = MetadataSnapshot.path(snapshotDir, fingerprint);
+                Map<String, Map<String, ColumnMetadata>> columnsByTable = MetadataSnapshot.read(snapshot, tables);
+                if (columnsByTable != null) {
+                    columnsByTable.forEach(this::registerColumnMetadata);
+                    return "snapshot " + snapshot;
+                }
+            }
         }
-
-        //if table is back-quoted, try to remove quotes - helped with MySQL
-        if (columns.isEmpty() && tableName.contains("`")) {
-            tableName = tableName.substring(1, tableName.length() -1);
-            rs = databaseMetaData.getColumns(catalog, schema, tableName.toLowerCase(), null);
-            columns = getColumns(rs, dbType);
-            rs.close();
+        ColumnMetadataReader reader = new ColumnMetadataReader(c.getMetaData(), dbType);
+        Map<String, Map<String, ColumnMetadata>> columnsByTable = reader.read(tables);
+        columnsByTable.forEach(this::registerColumnMetadata);
+        if (snapshot != null) {
+            MetadataSnapshot.write(snapshot, columnsByTable);
         }
+        return reader.calls() + " getColumns() calls";
+    }
 
-        if (columns.size() > 0) {
-            LogFilter.log(LOGGER, LogLevel.INFO, "Fetched metadata for table: {}", table);
-        } else {
-            LogFilter.log(LOGGER, LogLevel.WARNING, "Failed to retrieve metadata for table: '{}'."
-                    + " Are you sure this table exists? For some databases table names are case sensitive.",
-                    table);
+    private boolean loadStaticMetadata() {
+        try {
+            Enumeration<URL> urls = Registry.instance().getClass().getClassLoader().getResources("activejdbc_metadata.json");
+            staticMetadataStatus = urls.hasMoreElements() ? STATIC_METADATA_LOADED : STATIC_METADATA_CHECKED;
+            while(urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                LogFilter.log(LOGGER, LogLevel.INFO, "Loading metadata from: {}", url.toExternalForm());
+                metaModels.fromJSON(Util.read(url.openStream()));
+            }
+            return staticMetadataStatus == STATIC_METADATA_LOADED;
+        } catch(IOException e) {
+            throw new InitException(e);
         }
+    }
 
-        return columns;
+    //instrumentation
+    protected String metadataToJSON() {
+        return metaModels.toJSON();
     }
 
 
@@ -302,6 +419,7 @@ public enum Registry {
         for (Class<? extends Model> modelClass : modelClasses) {
             MetaModel mm = new MetaModel(dbName, modelClass, dbType);
             metaModels.addMetaModel(mm, modelClass);
+            modelOrder.put(modelClass, modelOrder.size());
             LogFilter.log(LOGGER, LogLevel.INFO, "Registered model: {}", modelClass);
         }
     }
@@ -309,6 +427,7 @@ public enum Registry {
     private void processOverrides(Set<Class<? extends Model>> models) {
 
         for(Class<? extends Model> modelClass : models){
+            overrideRank = (1L << 62) + ((long) modelOrder.get(modelClass) << 24);
 
             BelongsTo belongsToAnnotation = modelClass.getAnnotation(BelongsTo.class);
             processOverridesBelongsTo(modelClass, belongsToAnnotation);
@@ -390,12 +509,12 @@ public enum Registry {
 
             BelongsToPolymorphicAssociation belongsToPolymorphicAssociation =
                     new BelongsToPolymorphicAssociation(modelClass, parentClass, typeLabel, parentClass.getName());
-            metaModels.getMetaModel(modelClass).addAssociation(belongsToPolymorphicAssociation);
+            addOverride(metaModels.getMetaModel(modelClass), belongsToPolymorphicAssociation);
 
 
             OneToManyPolymorphicAssociation oneToManyPolymorphicAssociation =
                     new OneToManyPolymorphicAssociation(parentClass, modelClass, typeLabel);
-            metaModels.getMetaModel(parentClass).addAssociation(oneToManyPolymorphicAssociation);
+            addOverride(metaModels.getMetaModel(parentClass), oneToManyPolymorphicAssociation);
         }
     }
 
@@ -410,22 +529,38 @@ public enum Registry {
         String targetFKName = many2manyAnnotation.targetFKName();
         String otherPk;
         String thisPk;
-        try {
-            Method m = modelClass.getMethod("getMetaModel");
-            MetaModel mm = (MetaModel) m.invoke(modelClass);
-            thisPk = mm.getIdName();
-            m = otherClass.getMethod("getMetaModel");
-            mm = (MetaModel) m.invoke(otherClass);
-            otherPk = mm.getIdName();
-        } catch (Exception e) {
-            throw new InitException("failed to determine PK name in many to many relationship", e);
+        MetaModel thisMM = metaModels.getMetaModel(modelClass);
+        MetaModel otherMM = metaModels.getMetaModel(otherClass);
+        if (thisMM == null || otherMM == null) {
+            throw new InitException("failed to determine PK name in many to many relationship");
         }
+        thisPk = thisMM.getIdName();
+        otherPk = otherMM.getIdName();
 
         Association many2many1 = new Many2ManyAssociation(modelClass, otherClass, join, sourceFKName, targetFKName, otherPk);
-        metaModels.getMetaModel(source).addAssociation(many2many1);
+        addOverride(metaModels.getMetaModel(source), many2many1);
 
         Association many2many2 = new Many2ManyAssociation(otherClass, modelClass, join, targetFKName, sourceFKName, thisPk);
-        metaModels.getMetaModel(target).addAssociation(many2many2);
+        addOverride(metaModels.getMetaModel(target), many2many2);
+    }
+
+    /**
+     * Adds an association declared by an annotation. These follow discovered associations, in order of models and
+     * of annotations of each model.
+     */
+    private void addOverride(MetaModel metaModel, Association association) {
+        metaModel.addAssociation(association, overrideRank++);
+    }
+
+    /**
+     * Ranks an association discovered while associations of a table are looked up, after those of tables before it.
+     *
+     * @param table table whose associations are looked up
+     * @param many2many true for many to many associations, looked up after one to many ones
+     * @param other child or join table, in order of which associations of one table are discovered
+     */
+    private long discoveredRank(String table, boolean many2many, String other) {
+        return ((tableOrder.get(table) * 2L + (many2many ? 1 : 0)) << 24) + tableOrder.get(other);
     }
 
     private void processOverridesBelongsTo(Class<? extends Model> modelClass, BelongsTo belongsToAnnotation) {
@@ -442,8 +577,8 @@ public enum Registry {
             Association hasMany = new OneToManyAssociation(parentClass, modelClass, foreignKeyName);
             Association belongsTo = new BelongsToAssociation(modelClass, parentClass, foreignKeyName);
 
-            metaModels.getMetaModel(parentClass).addAssociation(hasMany);
-            metaModels.getMetaModel(modelClass).addAssociation(belongsTo);
+            addOverride(metaModels.getMetaModel(parentClass), hasMany);
+            addOverride(metaModels.getMetaModel(modelClass), belongsTo);
         }
 	}
 
@@ -462,36 +597,33 @@ public enum Registry {
             Association hasMany = new OneToManyAssociation(modelClass, childClass, foreignKeyName);
             Association belongsTo = new BelongsToAssociation(childClass, modelClass, foreignKeyName);
 
-            metaModels.getMetaModel(modelClass).addAssociation(hasMany);
-            metaModels.getMetaModel(childClass).addAssociation(belongsTo);
+            addOverride(metaModels.getMetaModel(modelClass), hasMany);
+            addOverride(metaModels.getMetaModel(childClass), belongsTo);
         }
     }
 
-    private Map<String, ColumnMetadata> getColumns(ResultSet rs, String dbType) throws SQLException {
-        Map<String, ColumnMetadata> columns = new CaseInsensitiveMap<>();
-        while (rs.next()) {
-            // skip h2 INFORMATION_SCHEMA table columns.
-            if (!"h2".equalsIgnoreCase(dbType) || !"INFORMATION_SCHEMA".equals(rs.getString("TABLE_SCHEM"))) {
-                ColumnMetadata cm = new ColumnMetadata(rs.getString("COLUMN_NAME"), rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"));
-                columns.put(cm.getColumnName(), cm);
-            }
-        }
-        return columns;
-    }
-
-    private void discoverAssociationsFor(String source, String dbName) {
+    private void discoverAssociationsFor(String source, String dbName) throws SQLException {
         discoverOne2ManyAssociationsFor(source, dbName);
-        discoverMany2ManyAssociationsFor(source, dbName);
+        discoverMany2ManyAssociationsFor(source, dbName, null);
     }
 
-    private void discoverMany2ManyAssociationsFor(String source, String dbName) {
+    /**
+     * @param reader reads columns of join tables which were not read yet, in lazy mode, or null
+     */
+    private void discoverMany2ManyAssociationsFor(String source, String dbName, ColumnMetadataReader reader) throws SQLException {
         for (String potentialJoinTable : metaModels.getTableNames(dbName)) {
             String target = Inflector.getOtherName(source, potentialJoinTable);
-            if (target != null && getMetaModel(target) != null && hasForeignKeys(potentialJoinTable, source, target)) {
-                Class<? extends Model> sourceModelClass = metaModels.getModelClass(source);
-                Class<? extends Model> targetModelClass = metaModels.getModelClass(target);
-                Association associationSource = new Many2ManyAssociation(sourceModelClass, targetModelClass, potentialJoinTable, getMetaModel(source).getFKName(), getMetaModel(target).getFKName());
-                getMetaModel(source).addAssociation(associationSource);
+            if (target != null && metaModels.getMetaModel(target) != null) {
+                if (reader != null) {
+                    readColumns(reader, metaModels.getMetaModel(potentialJoinTable));
+                }
+                if (hasForeignKeys(potentialJoinTable, source, target)) {
+                    Class<? extends Model> sourceModelClass = metaModels.getModelClass(source);
+                    Class<? extends Model> targetModelClass = metaModels.getModelClass(target);
+                    Association associationSource = new Many2ManyAssociation(sourceModelClass, targetModelClass, potentialJoinTable, metaModels.getMetaModel(source).getFKName(), metaModels.getMetaModel(target).getFKName());
+                    metaModels.getMetaModel(source).addAssociation(associationSource,
+                            discoveredRank(source, true, potentialJoinTable));
+                }
             }
         }
     }
@@ -506,9 +638,9 @@ public enum Registry {
      * @return true if "join" table exists and contains foreign keys of "source" and "other" tables, false otherwise.
      */
     private boolean hasForeignKeys(String join, String source, String other) {
-        String sourceFKName = getMetaModel(source).getFKName();
-        String otherFKName = getMetaModel(other).getFKName();
-        MetaModel joinMM = getMetaModel(join);
+        String sourceFKName = metaModels.getMetaModel(source).getFKName();
+        String otherFKName = metaModels.getMetaModel(other).getFKName();
+        MetaModel joinMM = metaModels.getMetaModel(join);
         return joinMM.hasAttribute(sourceFKName) && joinMM.hasAttribute(otherFKName);
     }
 
@@ -520,20 +652,25 @@ public enum Registry {
      */
     private void discoverOne2ManyAssociationsFor(String source, String dbName) {
 
-        MetaModel sourceMM = getMetaModel(source);
+        MetaModel sourceMM = metaModels.getMetaModel(source);
 
         for (String target : metaModels.getTableNames(dbName)) {
-            MetaModel targetMM = getMetaModel(target);
-            String sourceFKName = getMetaModel(source).getFKName();
-            if (targetMM != sourceMM && targetMM.hasAttribute(sourceFKName)) {
-                Class<? extends Model> sourceModelClass = metaModels.getModelClass(source);
-                Class<? extends Model> targetModelClass = metaModels.getModelClass(target);
-                targetMM.addAssociation(new BelongsToAssociation(targetModelClass, sourceModelClass, sourceFKName));
-                sourceMM.addAssociation(new OneToManyAssociation(sourceModelClass, targetModelClass, sourceFKName));
+            MetaModel targetMM = metaModels.getMetaModel(target);
+            if (targetMM != sourceMM && targetMM.hasAttribute(sourceMM.getFKName())) {
+                addOne2ManyAssociation(sourceMM, targetMM);
             }
         }
     }
 
+    private void addOne2ManyAssociation(MetaModel sourceMM, MetaModel targetMM) {
+        String sourceFKName = sourceMM.getFKName();
+        Class<? extends Model> sourceModelClass = metaModels.getModelClass(sourceMM.getTableName());
+        Class<? extends Model> targetModelClass = metaModels.getModelClass(targetMM.getTableName());
+        long rank = discoveredRank(sourceMM.getTableName(), false, targetMM.getTableName());
+        targetMM.addAssociation(new BelongsToAssociation(targetModelClass, sourceModelClass, sourceFKName), rank);
+        sourceMM.addAssociation(new OneToManyAssociation(sourceModelClass, targetModelClass, sourceFKName), rank);
+    }
+
 
 
     /**
@@ -572,6 +709,9 @@ public enum Registry {
      * @return edges for a join
      */
     protected List<String> getEdges(String join) {
+        if (lazyMetadata) {
+            discoverEdges(join);
+        }
         return metaModels.getEdges(join);
     }
 
@@ -0,0 +1,137 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.dialects.DefaultDialect;
+import org.javalite.activejdbc.dialects.Dialect;
+import org.javalite.common.Convert;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Array;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps rows of a result set to models. Column labels are resolved to attributes of a model once, when the mapper is
+ * compiled, after which models are filled by column index, skipping columns which are not attributes of the model.
+ * Mappers are cached per model and query, see {@link MetaModel#rowMapper(String, String[])}.
+ *
+ * @author Igor Polevoy
+ */
+final class RowMapper {
+
+    private final MetaModel metaModel;
+    private final Constructor<? extends Model> constructor;
+    private final String[] labels;
+    private final int[] columns;
+    private final String[] attributeNames;
+    private final boolean cached;
+    private final Dialect dialect;
+
+    RowMapper(MetaModel metaModel, String[] labels) {
+        this.metaModel = metaModel;
+        this.labels = labels;
+        this.cached = metaModel.cached() || metaModel.entitiesCached();
+        Dialect dialect = metaModel.getDialect();
+        this.dialect = overridesConversion(dialect) ? dialect : null;
+        try {
+            this.constructor = metaModel.getModelClass().getDeclaredConstructor();
+        } catch (NoSuchMethodException | SecurityException e) {
+            throw new InitException("Failed to create a new instance of: " + metaModel.getModelClass()
+                    + ", are you sure this class has a default constructor?", e);
+        }
+
+        Set<String> attributeNames = metaModel.getAttributeNames();
+        List<Integer> columns = new ArrayList<>(labels.length);
+        List<String> names = new ArrayList<>(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            if (attributeNames.contains(labels[i])) {
+                columns.add(i + 1);
+                names.add(labels[i]);
+            }
+        }
+        this.columns = new int[columns.size()];
+        for (int i = 0; i < this.columns.length; i++) {
+            this.columns[i] = columns.get(i);
+        }
+        this.attributeNames = names.toArray(new String[0]);
+    }
+
+    /**
+     * @return true if dialect does something other than {@link DefaultDialect#overrideDriverTypeConversion}, which
+     * returns the value as is.
+     */
+    private static boolean overridesConversion(Dialect dialect) {
+        try {
+            return dialect.getClass().getMethod("overrideDriverTypeConversion", MetaModel.class, String.class, Object.class)
+                    .getDeclaringClass() != DefaultDialect.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    boolean matches(String[] labels) {
+        return Arrays.equals(this.labels, labels);
+    }
+
+    /**
+     * Creates a new model from the current row of a result set.
+     *
+     * @param rs result set positioned on a row.
+     * @return new model, after-load callbacks fired.
+     */
+    <T extends Model> T map(ResultSet rs) throws SQLException {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = convert(attributeNames[i], rs.getObject(columns[i]));
+        }
+        T model = newInstance();
+        model.hydrate(attributeNames, values);
+        return model;
+    }
+
+    private Object convert(String attributeName, Object value) throws SQLException {
+        if (value == null) {
+            return null;
+        } else if (cached && value instanceof Array) {
+            return ((Array) value).getArray();
+        } else if (cached && value instanceof Clob) {
+            return Convert.toString(value);
+        } else if (dialect != null) {
+            return dialect.overrideDriverTypeConversion(metaModel, attributeName, value);
+        } else {
+            return value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Model> T newInstance() {
+        try {
+            return (T) constructor.newInstance();
+        } catch (InvocationTargetException | InstantiationException e) {
+            throw new InitException("Failed to create a new instance of: " + metaModel.getModelClass()
+                    + ", are you sure this class has a default constructor?", e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+}
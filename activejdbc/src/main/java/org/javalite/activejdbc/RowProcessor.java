@@ -17,6 +17,8 @@ package org.javalite.activejdbc;
 
 import org.javalite.common.CaseInsensitiveMap;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.ResultSetMetaData;
@@ -62,10 +64,20 @@ public class RowProcessor {
 
     private final ResultSet rs;
     private final Statement s;
+    private final Connection connection;
+    private RowMapper mapper;
 
     protected RowProcessor(ResultSet rs, Statement s){
+        this(rs, s, null);
+    }
+
+    /**
+     * @param connection if not null, the statement is returned to a statement cache of this connection instead of being closed.
+     */
+    RowProcessor(ResultSet rs, Statement s, Connection connection){
         this.rs = rs;
         this.s = s;
+        this.connection = connection;
     }
 
     public void with(RowListener listener){
@@ -74,24 +86,74 @@ public class RowProcessor {
         } catch(SQLException e) {
             throw new DBException(e);
         } finally {
-            closeQuietly(rs);
-            closeQuietly(s);
+            close();
         }
     }
 
-    protected void processRS(RowListener listener) throws SQLException {
+    /**
+     * Same as {@link #with(RowListener)}, but creates models, see {@link #nextModel(MetaModel, String)}.
+     *
+     * @param metaModel model to create
+     * @param sql query which produced the result set
+     * @param listener called for every model
+     */
+    <T extends Model> void with(MetaModel metaModel, String sql, ModelListener<T> listener) {
+        try {
+            T model;
+            while ((model = nextModel(metaModel, sql)) != null) {
+                listener.onModel(model);
+            }
+        } catch(SQLException e) {
+            throw new DBException(e);
+        } finally {
+            close();
+        }
+    }
 
-        ResultSetMetaData metaData = rs.getMetaData();
+    /**
+     * Closes the result set and releases the statement.
+     */
+    void close() {
+        closeQuietly(rs);
+        if (connection != null && s instanceof PreparedStatement) {
+            StatementCache.instance().release(connection, (PreparedStatement) s);
+        } else {
+            closeQuietly(s);
+        }
+    }
+
+    /**
+     * Reads models one at a time, for callers that pull models rather than have them pushed to a listener. Does not close
+     * anything, call {@link #close()} when done. Columns are mapped to attributes by a {@link RowMapper}
+     * compiled once per model and query, so that no intermediate map is created for a row.
+     *
+     * @param metaModel model to create
+     * @param sql query which produced the result set, used to look up the row mapper
+     * @return next model, or null if there are no more rows.
+     */
+    <T extends Model> T nextModel(MetaModel metaModel, String sql) throws SQLException {
+        if (mapper == null) {
+            mapper = metaModel.rowMapper(sql, labels(rs.getMetaData()));
+        }
+        return rs.next() ? mapper.<T>map(rs) : null;
+    }
 
+    private static String[] labels(ResultSetMetaData metaData) throws SQLException {
         String[] labels = new String[metaData.getColumnCount()];
         int i = 0;
         while (i < labels.length) {
             labels[i++] = metaData.getColumnLabel(i);
         }
+        return labels;
+    }
+
+    protected void processRS(RowListener listener) throws SQLException {
+
+        String[] labels = labels(rs.getMetaData());
 
         while (rs.next()) {
             Map<String, Object> row = new CaseInsensitiveMap<>();
-            i = 0;
+            int i = 0;
             while (i < labels.length) {
                 row.put(labels[i++], rs.getObject(i));
             }
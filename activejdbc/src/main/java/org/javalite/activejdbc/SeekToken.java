@@ -0,0 +1,142 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes values of the last row of a page into an opaque, URL-safe token, used by keyset pagination
+ * in {@link Paginator}. Only simple types are supported, not nulls, and every value keeps its type, so that it can be
+ * passed to the database as a parameter after decoding. Tokens come from clients, which is why no Java
+ * serialization is used.
+ *
+ * @author Igor Polevoy
+ */
+final class SeekToken {
+
+    private SeekToken() {}
+
+    static String encode(Object[] values) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(); DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(values.length);
+            for (Object value : values) {
+                write(out, value);
+            }
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * @param token token produced by {@link #encode(Object[])}
+     * @param count expected number of values
+     * @return values of a row
+     * @throws IllegalArgumentException if the token is not valid
+     */
+    static Object[] decode(String token, int count) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readUnsignedByte() != count) {
+                throw new IllegalArgumentException("page token does not match columns");
+            }
+            Object[] values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = read(in);
+            }
+            if (in.read() != -1) {
+                throw new IllegalArgumentException("invalid page token");
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid page token: " + token, e);
+        }
+    }
+
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            throw new IllegalArgumentException("cannot use null in a page token");
+        } else if (value instanceof String) {
+            out.writeByte('S');
+            out.writeUTF((String) value);
+        } else if (value instanceof Long) {
+            out.writeByte('L');
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte('I');
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte('D');
+            out.writeUTF(value.toString());
+        } else if (value instanceof BigInteger) {
+            out.writeByte('G');
+            out.writeUTF(value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte('F');
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte('B');
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte('T');
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte('d');
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte('t');
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof java.util.Date) {
+            out.writeByte('u');
+            out.writeLong(((java.util.Date) value).getTime());
+        } else if (value instanceof UUID) {
+            out.writeByte('U');
+            out.writeLong(((UUID) value).getMostSignificantBits());
+            out.writeLong(((UUID) value).getLeastSignificantBits());
+        } else {
+            throw new IllegalArgumentException("cannot use value of type " + value.getClass().getName() + " in a page token");
+        }
+    }
+
+    private static Object read(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case 'S': return in.readUTF();
+            case 'L': return in.readLong();
+            case 'I': return in.readInt();
+            case 'D': return new BigDecimal(in.readUTF());
+            case 'G': return new BigInteger(in.readUTF());
+            case 'F': return in.readDouble();
+            case 'B': return in.readBoolean();
+            case 'T':
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case 'd': return new java.sql.Date(in.readLong());
+            case 't': return new Time(in.readLong());
+            case 'u': return new java.util.Date(in.readLong());
+            case 'U': return new UUID(in.readLong(), in.readLong());
+            default: throw new IllegalArgumentException("invalid page token");
+        }
+    }
+}
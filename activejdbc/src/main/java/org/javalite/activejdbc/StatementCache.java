@@ -19,42 +19,172 @@ package org.javalite.activejdbc;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.util.HashMap;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import static org.javalite.common.Collections.map;
 import static org.javalite.common.Util.*;
 
 /**
+ * Per-connection cache of prepared statements. Statements are kept in LRU order, and the least recently used
+ * statement is closed once there are more than {@link Configuration#getStatementCacheSize()} statements
+ * cached for a connection.
+ *
+ * <p></p>
+ * A statement is checked out of the cache for the duration of its use and is put back on release. This way, a nested
+ * execution of the same SQL on the same connection (for instance, from a <code>RowListener</code>) gets its own statement
+ * and does not close a result set that is still being read.
+ *
  * @author Igor Polevoy
  */
 enum StatementCache {
     INSTANCE;
 
-    private final ConcurrentMap<Connection, Map<String, PreparedStatement>> statementCache = new ConcurrentHashMap<>();
+    interface StatementFactory {
+        PreparedStatement create(Connection connection) throws SQLException;
+    }
+
+    private final ConcurrentMap<Connection, Statements> statementCache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int capacity = -1;
 
     private StatementCache() { }
     
     static StatementCache instance() { return INSTANCE; }
 
-    PreparedStatement getPreparedStatement(Connection connection, String query) {
-        if (!statementCache.containsKey(connection)) {
-            statementCache.put(connection, new HashMap<String, PreparedStatement>());
+    /**
+     * Takes a statement out of the cache, or creates a new one if none is available.
+     *
+     * @param connection connection to prepare statement on
+     * @param key SQL, including anything that makes statements for the same SQL different, such as result set type.
+     * @param factory creates a new statement in case of a cache miss
+     * @return statement that must be returned with {@link #release(Connection, PreparedStatement)}
+     */
+    PreparedStatement checkout(Connection connection, String key, StatementFactory factory) throws SQLException {
+        if (capacity() == 0) {
+            return factory.create(connection);
         }
-        return statementCache.get(connection).get(query);
+        Statements statements = statementCache.computeIfAbsent(connection, c -> new Statements());
+        PreparedStatement ps = statements.take(key);
+        if (ps != null) {
+            hits.increment();
+            ps.clearParameters();
+            ps.clearBatch(); // rows added to a batch that was released without being executed
+            return ps;
+        }
+        misses.increment();
+        ps = factory.create(connection);
+        statements.checkedOut(ps, key);
+        return ps;
     }
 
-    public void cache(Connection connection, String query, PreparedStatement ps) {
-        statementCache.get(connection).put(query, ps);
+    /**
+     * Returns a statement to the cache. Statements that did not come from the cache, or that were closed by client
+     * code, are closed.
+     */
+    void release(Connection connection, PreparedStatement ps) {
+        if (ps == null) {
+            return;
+        }
+        Statements statements = statementCache.get(connection);
+        if (statements == null || !statements.put(ps)) {
+            closeQuietly(ps);
+        }
     }
 
     void cleanStatementCache(Connection connection) {
-       Map<String, PreparedStatement> stmsMap = statementCache.remove(connection);
-	   if(stmsMap != null) { //Close prepared statements to release cursors on connection pools
-			for(PreparedStatement stmt : stmsMap.values()) {
-                closeQuietly(stmt);
-			}
-	   }
+        Statements statements = statementCache.remove(connection);
+        if (statements != null) { //Close prepared statements to release cursors on connection pools
+            statements.close();
+        }
+    }
+
+    Map<String, Object> statistics() {
+        int size = 0;
+        for (Statements statements : statementCache.values()) {
+            size += statements.size();
+        }
+        return map("hits", hits.sum(), "misses", misses.sum(), "evictions", evictions.sum(),
+                "size", size, "connections", statementCache.size(), "capacity", capacity());
+    }
+
+    private int capacity() {
+        int c = capacity;
+        if (c < 0) {
+            capacity = c = Registry.instance().getConfiguration().getStatementCacheSize();
+        }
+        return c;
+    }
+
+    private static boolean isClosed(PreparedStatement ps) {
+        try {
+            return ps.isClosed();
+        } catch (SQLException e) {
+            return true;
+        } catch (AbstractMethodError e) { // drivers and pools predating JDBC 4
+            return false;
+        }
+    }
+
+    /**
+     * Statements of one connection. A connection is normally used by one thread at a time, so the lock is uncontended.
+     */
+    private final class Statements {
+        private final LinkedHashMap<String, PreparedStatement> cached = new LinkedHashMap<>(16, 0.75f, true);
+        private final IdentityHashMap<PreparedStatement, String> checkedOut = new IdentityHashMap<>();
+
+        synchronized PreparedStatement take(String key) {
+            PreparedStatement ps = cached.remove(key);
+            if (ps != null) {
+                if (isClosed(ps)) {
+                    return null;
+                }
+                checkedOut.put(ps, key);
+            }
+            return ps;
+        }
+
+        synchronized void checkedOut(PreparedStatement ps, String key) {
+            checkedOut.put(ps, key);
+        }
+
+        synchronized boolean put(PreparedStatement ps) {
+            String key = checkedOut.remove(ps);
+            if (key == null || cached.containsKey(key) || isClosed(ps)) {
+                return false;
+            }
+            cached.put(key, ps);
+            int max = capacity();
+            Iterator<PreparedStatement> iterator = cached.values().iterator();
+            while (cached.size() > max && iterator.hasNext()) {
+                closeQuietly(iterator.next());
+                iterator.remove();
+                evictions.increment();
+            }
+            return true;
+        }
+
+        synchronized int size() {
+            return cached.size();
+        }
+
+        synchronized void close() {
+            for (PreparedStatement ps : cached.values()) {
+                closeQuietly(ps);
+            }
+            for (PreparedStatement ps : checkedOut.keySet()) {
+                closeQuietly(ps);
+            }
+            cached.clear();
+            checkedOut.clear();
+        }
     }
 }
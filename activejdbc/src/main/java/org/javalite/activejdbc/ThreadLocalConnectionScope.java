@@ -0,0 +1,75 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Default {@link ConnectionScope}, keeps connections of every thread in a <code>ThreadLocal</code>. A thread which
+ * never opened a connection does not get a map of connections, and the map is removed from the thread as soon as the
+ * last connection is closed, so that short-lived threads, such as virtual threads serving requests, do not leave
+ * entries behind.
+ *
+ * @author Igor Polevoy
+ */
+public class ThreadLocalConnectionScope implements ConnectionScope {
+
+    private final ThreadLocal<Map<String, Connection>> connections;
+
+    public ThreadLocalConnectionScope() {
+        this(new ThreadLocal<>());
+    }
+
+    protected ThreadLocalConnectionScope(ThreadLocal<Map<String, Connection>> connections) {
+        this.connections = connections;
+    }
+
+    @Override
+    public Connection get(String dbName) {
+        Map<String, Connection> map = connections.get();
+        return map == null ? null : map.get(dbName);
+    }
+
+    @Override
+    public void attach(String dbName, Connection connection) {
+        Map<String, Connection> map = connections.get();
+        if (map == null) {
+            map = new HashMap<>(4);
+            connections.set(map);
+        }
+        map.put(dbName, connection);
+    }
+
+    @Override
+    public void detach(String dbName) {
+        Map<String, Connection> map = connections.get();
+        if (map != null) {
+            map.remove(dbName);
+            if (map.isEmpty()) {
+                connections.remove();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Connection> all() {
+        Map<String, Connection> map = connections.get();
+        return map == null ? Collections.<String, Connection>emptyMap() : Collections.unmodifiableMap(map);
+    }
+}
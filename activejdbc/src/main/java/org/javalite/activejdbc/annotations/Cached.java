@@ -21,7 +21,47 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
 /**
+ * Marks a model whose data is cached, see {@link org.javalite.activejdbc.cache.QueryCache}.
+ *
+ * <p></p>
+ * By default, results of queries are cached per table, and any change to the table purges all of them.
+ *
+ * <p></p>
+ * With <code>entities = true</code>, rows found with <code>findById()</code>, <code>findByCompositeKeys()</code>
+ * and <code>parent()</code> are cached by ID, see {@link org.javalite.activejdbc.cache.EntityCache}. Saving or
+ * deleting a model only removes its own row from that cache, so rows of a table which changes often can still be
+ * served from cache. With <code>idLists = true</code>, results of queries are cached as lists of IDs, and rows are
+ * taken from the cache of rows.
+ *
+ * <p></p>
+ * Rows are cached as they were after <code>afterLoad()</code> callbacks ran on the model first read from the
+ * database. Models restored from the cache of rows are copies of them, and callbacks do not run on them again,
+ * the same as on models returned from cached results of queries.
+ *
+ * <pre>
+ * &#064;Cached                                    // results of queries
+ * &#064;Cached(entities = true)                   // results of queries and rows by ID
+ * &#064;Cached(queries = false, entities = true)  // only rows by ID
+ * &#064;Cached(idLists = true)                    // results of queries as IDs, and rows by ID
+ * </pre>
+ *
  * @author Igor Polevoy
  */
 @Retention(RetentionPolicy.RUNTIME)
-public @interface Cached {}
+public @interface Cached {
+
+    /**
+     * @return true to cache results of queries.
+     */
+    boolean queries() default true;
+
+    /**
+     * @return true to cache rows by ID.
+     */
+    boolean entities() default false;
+
+    /**
+     * @return true to cache results of queries as lists of IDs, implies <code>queries</code> and <code>entities</code>.
+     */
+    boolean idLists() default false;
+}
@@ -0,0 +1,40 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+/**
+ * Converts cached objects to bytes and back, for cache managers which keep caches outside of JVM, such as
+ * {@link RedisCacheManager}. Cached objects are lists of models, single models and counts of type <code>Long</code>.
+ * Implementations must be thread safe.
+ *
+ * @author Igor Polevoy
+ */
+public interface CacheCodec {
+
+    /**
+     * @param cache object to cache
+     * @return bytes to keep in cache
+     * @throws CacheException if object cannot be encoded
+     */
+    byte[] encode(Object cache);
+
+    /**
+     * @param bytes bytes produced by {@link #encode(Object)}
+     * @return object which was cached
+     * @throws CacheException if bytes cannot be decoded
+     */
+    Object decode(byte[] bytes);
+}
@@ -0,0 +1,226 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Key of a cached query result, made of a query and its parameters, see {@link QueryCache}.
+ *
+ * <p></p>
+ * Creating a key does not concatenate the query with its parameters. Queries are interned, so that keys of the same
+ * query share one instance of it, which is compared by reference, and hashed once. Parameters are hashed into
+ * 128 bits when a key is created. Keys with equal hashes are still compared by query text and
+ * {@link Arrays#deepEquals(Object[], Object[])} of parameters, so different queries never share a cache, even if
+ * their hashes collide.
+ *
+ * <p></p>
+ * Cache managers which keep objects in memory use keys as they are, see
+ * {@link CacheManager#getCache(String, CacheKey)}. Cache managers which need strings use {@link #toString()}: 64
+ * hexadecimal digits of hashes of the query and parameters, which are the same in every JVM.
+ *
+ * @author Igor Polevoy
+ */
+public final class CacheKey implements Serializable {
+
+    private static final int MAX_QUERIES = 10000;
+    private static final ConcurrentHashMap<String, Query> QUERIES = new ConcurrentHashMap<>();
+
+    private final Query query;
+    private final Object[] params;
+    private final long hash1, hash2;
+    private transient String string;
+
+    private CacheKey(Query query, Object[] params) {
+        this.query = query;
+        this.params = params;
+        Hash hash = new Hash();
+        if (params == null) {
+            hash.add(-1);
+        } else {
+            hash.add(params.length);
+            for (Object param : params) {
+                hash.add(param);
+            }
+        }
+        hash.finish();
+        this.hash1 = hash.h1;
+        this.hash2 = hash.h2;
+    }
+
+    /**
+     * @param query query text
+     * @param params query parameters, can be null.
+     * @return key of the query with parameters
+     */
+    public static CacheKey of(String query, Object[] params) {
+        Query q = QUERIES.get(query);
+        if (q == null) {
+            q = new Query(query);
+            if (QUERIES.size() < MAX_QUERIES) { // queries with inlined values would grow this without bound
+                Query existing = QUERIES.putIfAbsent(query, q);
+                if (existing != null) {
+                    q = existing;
+                }
+            }
+        }
+        return new CacheKey(q, params == null ? null : params.clone());
+    }
+
+    public String getQuery() {
+        return query.sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        return hash1 == other.hash1 && hash2 == other.hash2
+                && (query == other.query || query.sql.equals(other.query.sql))
+                && Arrays.deepEquals(params, other.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (query.hash1 ^ hash1);
+    }
+
+    /**
+     * @return hashes of the query and parameters, as 64 hexadecimal digits.
+     */
+    @Override
+    public String toString() {
+        if (string == null) {
+            HexFormat hex = HexFormat.of();
+            string = hex.toHexDigits(query.hash1) + hex.toHexDigits(query.hash2) + hex.toHexDigits(hash1) + hex.toHexDigits(hash2);
+        }
+        return string;
+    }
+
+    private Object readResolve() {
+        return of(query.sql, params);
+    }
+
+    private static final class Query implements Serializable {
+        private final String sql;
+        private final long hash1, hash2;
+
+        private Query(String sql) {
+            this.sql = sql;
+            Hash hash = new Hash();
+            hash.add(sql);
+            hash.finish();
+            this.hash1 = hash.h1;
+            this.hash2 = hash.h2;
+        }
+    }
+
+    /**
+     * 128-bit hash, mixing values like MurmurHash3 does. Values are hashed by content rather than
+     * <code>hashCode()</code>, so that hashes are the same in every JVM.
+     */
+    private static final class Hash {
+        private static final long C1 = 0x87c37b91114253d5L, C2 = 0x4cf5ad432745937fL;
+        private long h1 = 0x9368e53c2f6af274L, h2 = 0x586dcd208f7cd3fdL;
+        private int length;
+
+        private void add(long value) {
+            long k1 = Long.rotateLeft(value * C1, 31) * C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            long k2 = Long.rotateLeft(value * C2, 33) * C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+            length++;
+        }
+
+        private void add(String value) {
+            int n = value.length();
+            add(n);
+            int i = 0;
+            for (; i + 4 <= n; i += 4) {
+                add((long) value.charAt(i) | (long) value.charAt(i + 1) << 16
+                        | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+            }
+            long last = 0;
+            for (int shift = 0; i < n; i++, shift += 16) {
+                last |= (long) value.charAt(i) << shift;
+            }
+            add(last);
+        }
+
+        private void add(Object value) {
+            if (value == null) {
+                add(0);
+            } else if (value instanceof String) {
+                add(1);
+                add((String) value);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                add(2);
+                add(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                add(3);
+                add(Double.doubleToLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof Boolean) {
+                add((Boolean) value ? 4 : 5);
+            } else if (value instanceof java.util.Date) {
+                add(6);
+                add(((java.util.Date) value).getTime());
+                if (value instanceof Timestamp) {
+                    add(((Timestamp) value).getNanos());
+                }
+            } else if (value instanceof BigDecimal) {
+                add(7);
+                add(value.toString());
+            } else {
+                add(8);
+                add(value.getClass().isArray() ? Arrays.deepToString(new Object[]{value}) : value.toString());
+            }
+        }
+
+        private void finish() {
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = mix(h1);
+            h2 = mix(h2);
+            h1 += h2;
+            h2 += h1;
+        }
+
+        private static long mix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -25,7 +25,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.javalite.activejdbc.ModelDelegate.metaModelFor;
 
@@ -56,6 +58,41 @@ public abstract class CacheManager {
      */
     public abstract void addCache(String group, String key, Object cache);
 
+    /**
+     * Returns a cached result of a query. Uses {@link CacheKey#toString()} as a key by default. Cache managers which
+     * can use any object as a key override this method together with {@link #addCache(String, CacheKey, Object)},
+     * to save creating strings.
+     *
+     * @param group group of caches - this is a name of a table for which query results are cached
+     * @param key key of the item.
+     * @return a cached item. Can return null if not found.
+     */
+    public Object getCache(String group, CacheKey key) {
+        return getCache(group, key.toString());
+    }
+
+    /**
+     * Adds a result of a query to cache. Uses {@link CacheKey#toString()} as a key by default.
+     *
+     * @param group group name of cache.
+     * @param key key of the item.
+     * @param cache cache item to add to cache.
+     */
+    public void addCache(String group, CacheKey key, Object cache) {
+        addCache(group, key.toString(), cache);
+    }
+
+
+    /**
+     * Removes a cached result from cache. Cache managers which can remove single items override this method,
+     * by default it flushes the whole group.
+     *
+     * @param group group name of cache.
+     * @param key key of the item.
+     */
+    public void removeCache(String group, CacheKey key) {
+        flush(new CacheEvent(group, getClass().getName()));
+    }
 
     public abstract void doFlush(CacheEvent event);
 
@@ -138,12 +175,24 @@ public abstract class CacheManager {
      * @param query query
      * @param params query parameters.
      * @return generated key for tied to these parameters.
+     * @deprecated not used by {@link QueryCache}, which keys caches with {@link CacheKey}.
      */
+    @Deprecated
     public String getKey(String tableName, String query, Object[] params) {
         return tableName + query + (params == null ? null : Arrays.asList(params).toString());
     }
 
 
+    /**
+     * Provides statistics of this cache, such as number of hits and misses. Implementations which keep statistics
+     * override this method.
+     *
+     * @return statistics of this cache, empty by default.
+     */
+    public Map<String, Object> getStatistics() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Returns underlying instance of implementation for specific configuration.
      *
@@ -0,0 +1,487 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.javalite.activejdbc.Model;
+import org.javalite.activejdbc.ModelDelegate;
+import org.javalite.common.CaseInsensitiveMap;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes lists of models, single models and counts in a compact columnar format, and everything else with
+ * Java serialization, see {@link JavaCacheCodec}.
+ *
+ * <p></p>
+ * Names of attributes are written once per list rather than once per model. Values of every attribute follow as a
+ * column: a type, a bit set of <code>null</code> values, and then values without per-value type information. Columns
+ * of types other than strings, numbers, dates, booleans, UUIDs and byte arrays, or columns with values of different
+ * types, are written with Java serialization. Models with changed attributes are not encoded in columns, since
+ * the format does not keep changes.
+ *
+ * <p></p>
+ * Encoded results of at least <code>compressionThreshold</code> bytes are compressed with {@link Deflater}, as long
+ * as that makes them smaller.
+ *
+ * <p></p>
+ * Bytes produced by Java serialization, including those written by earlier versions of {@link RedisCacheManager},
+ * are decoded as well.
+ *
+ * @author Igor Polevoy
+ */
+public class ColumnarCacheCodec implements CacheCodec {
+
+    // Java serialization streams start with 0xACED, so these cannot be confused
+    private static final byte MAGIC_0 = 'A';
+    private static final byte MAGIC_1 = 'C';
+    private static final byte VERSION = 1;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER = 4;
+
+    private static final byte LIST = 'L', MODEL = 'M', COUNT = 'n';
+
+    private static final byte NULLS = 'N', OBJECT = 'O', STRING = 'S', LONG = 'J', INTEGER = 'I', SHORT = 's',
+            DECIMAL = 'D', BIG_INTEGER = 'G', DOUBLE = 'F', FLOAT = 'f', BOOLEAN = 'B', TIMESTAMP = 'T', SQL_DATE = 'd',
+            TIME = 't', DATE = 'u', UUID_ = 'U', BYTES = 'b';
+
+    private final JavaCacheCodec java = new JavaCacheCodec();
+    private final int compressionThreshold;
+
+    /**
+     * Compresses encoded results of 4096 bytes or more.
+     */
+    public ColumnarCacheCodec() {
+        this(4096);
+    }
+
+    /**
+     * @param compressionThreshold encoded results of at least this many bytes are compressed,
+     *                             <code>Integer.MAX_VALUE</code> to never compress.
+     */
+    public ColumnarCacheCodec(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] encode(Object cache) {
+        List<? extends Model> models = models(cache);
+        if (models == null && !(cache instanceof Long)) {
+            return java.encode(cache);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            if (models == null) {
+                out.writeByte(COUNT);
+                out.writeLong((Long) cache);
+            } else {
+                out.writeByte(cache instanceof Model ? MODEL : LIST);
+                writeModels(out, models);
+            }
+            out.flush();
+            return frame(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new CacheException("Failed to encode " + cache.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * @return models to encode in columns, or <code>null</code> if the object is not a model, or not a list of
+     * unchanged models of the same class.
+     */
+    private static List<? extends Model> models(Object cache) {
+        if (cache instanceof Model) {
+            return ((Model) cache).isModified() ? null : Collections.singletonList((Model) cache);
+        }
+        if (!(cache instanceof List) || ((List<?>) cache).isEmpty()) {
+            return null;
+        }
+        List<?> list = (List<?>) cache;
+        Class<?> modelClass = list.get(0) == null ? null : list.get(0).getClass();
+        if (modelClass == null || !Model.class.isAssignableFrom(modelClass)) {
+            return null;
+        }
+        for (Object item : list) {
+            if (item == null || item.getClass() != modelClass || ((Model) item).isModified()) {
+                return null;
+            }
+        }
+        return (List<? extends Model>) list;
+    }
+
+    private byte[] frame(byte[] payload) {
+        byte[] compressed = payload.length >= compressionThreshold ? deflate(payload) : null;
+        byte[] body = compressed != null && compressed.length + 4 < payload.length ? compressed : payload;
+        byte[] framed = new byte[HEADER + (body == payload ? 0 : 4) + body.length];
+        framed[0] = MAGIC_0;
+        framed[1] = MAGIC_1;
+        framed[2] = VERSION;
+        int offset = HEADER;
+        if (body != payload) {
+            framed[3] = DEFLATED;
+            framed[4] = (byte) (payload.length >>> 24);
+            framed[5] = (byte) (payload.length >>> 16);
+            framed[6] = (byte) (payload.length >>> 8);
+            framed[7] = (byte) payload.length;
+            offset += 4;
+        }
+        System.arraycopy(body, 0, framed, offset, body.length);
+        return framed;
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) throws DataFormatException {
+        int length = ((bytes[4] & 0xFF) << 24) | ((bytes[5] & 0xFF) << 16) | ((bytes[6] & 0xFF) << 8) | (bytes[7] & 0xFF);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, HEADER + 4, bytes.length - HEADER - 4);
+            byte[] payload = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(payload, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new DataFormatException("expected " + length + " bytes, inflated " + read);
+            }
+            return payload;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        if (bytes.length < HEADER || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            return java.decode(bytes);
+        }
+        if (bytes[2] != VERSION) {
+            throw new CacheException("Unsupported version of columnar cache format: " + bytes[2], null);
+        }
+        try {
+            DataInputStream in = (bytes[3] & DEFLATED) != 0
+                    ? new DataInputStream(new ByteArrayInputStream(inflate(bytes)))
+                    : new DataInputStream(new ByteArrayInputStream(bytes, HEADER, bytes.length - HEADER));
+            byte kind = in.readByte();
+            Object cache;
+            if (kind == COUNT) {
+                cache = in.readLong();
+            } else if (kind == LIST) {
+                cache = Collections.unmodifiableList(readModels(in));
+            } else if (kind == MODEL) {
+                cache = readModels(in).get(0);
+            } else {
+                throw new IOException("unknown kind of cached object: " + kind);
+            }
+            if (in.read() != -1) {
+                throw new IOException("unexpected bytes after cached object");
+            }
+            return cache;
+        } catch (IOException | ClassNotFoundException | DataFormatException | ClassCastException e) {
+            throw new CacheException("Failed to decode cached object", e);
+        }
+    }
+
+    private static void writeModels(DataOutputStream out, List<? extends Model> models) throws IOException {
+        int rows = models.size();
+        CaseInsensitiveMap<Integer> index = new CaseInsensitiveMap<>();
+        List<String> names = new ArrayList<>();
+        List<Object[]> values = new ArrayList<>();
+        List<BitSet> present = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            for (Map.Entry<String, Object> entry : ModelDelegate.attributesOf(models.get(row)).entrySet()) {
+                Integer column = index.get(entry.getKey());
+                if (column == null) {
+                    column = names.size();
+                    index.put(entry.getKey(), column);
+                    names.add(entry.getKey());
+                    values.add(new Object[rows]);
+                    present.add(new BitSet(rows));
+                }
+                values.get(column)[row] = entry.getValue();
+                present.get(column).set(row);
+            }
+        }
+        out.writeUTF(models.get(0).getClass().getName());
+        writeVarInt(out, rows);
+        writeVarInt(out, names.size());
+        for (int column = 0; column < names.size(); column++) {
+            out.writeUTF(names.get(column));
+            writeColumn(out, rows, values.get(column), present.get(column));
+        }
+    }
+
+    private static void writeColumn(DataOutputStream out, int rows, Object[] values, BitSet present) throws IOException {
+        BitSet nulls = new BitSet(rows);
+        Class<?> type = null;
+        boolean mixed = false;
+        for (int row = present.nextSetBit(0); row != -1; row = present.nextSetBit(row + 1)) {
+            if (values[row] == null) {
+                nulls.set(row);
+            } else if (type == null) {
+                type = values[row].getClass();
+            } else if (type != values[row].getClass()) {
+                mixed = true;
+            }
+        }
+        byte tag = type == null ? NULLS : mixed ? OBJECT : tag(type);
+        out.writeByte(tag);
+        boolean allPresent = present.cardinality() == rows;
+        out.writeBoolean(allPresent);
+        if (!allPresent) {
+            writeBits(out, present);
+        }
+        writeBits(out, nulls);
+        if (tag == OBJECT) {
+            List<Object> objects = new ArrayList<>();
+            for (int row = present.nextSetBit(0); row != -1; row = present.nextSetBit(row + 1)) {
+                if (values[row] != null) {
+                    objects.add(values[row]);
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(objects.toArray());
+            }
+            writeBytes(out, bytes.toByteArray());
+        } else if (tag != NULLS) {
+            for (int row = present.nextSetBit(0); row != -1; row = present.nextSetBit(row + 1)) {
+                if (values[row] != null) {
+                    writeValue(out, tag, values[row]);
+                }
+            }
+        }
+    }
+
+    private static byte tag(Class<?> type) {
+        if (type == String.class) return STRING;
+        if (type == Long.class) return LONG;
+        if (type == Integer.class) return INTEGER;
+        if (type == Short.class) return SHORT;
+        if (type == BigDecimal.class) return DECIMAL;
+        if (type == BigInteger.class) return BIG_INTEGER;
+        if (type == Double.class) return DOUBLE;
+        if (type == Float.class) return FLOAT;
+        if (type == Boolean.class) return BOOLEAN;
+        if (type == Timestamp.class) return TIMESTAMP;
+        if (type == java.sql.Date.class) return SQL_DATE;
+        if (type == Time.class) return TIME;
+        if (type == java.util.Date.class) return DATE;
+        if (type == UUID.class) return UUID_;
+        if (type == byte[].class) return BYTES;
+        return OBJECT;
+    }
+
+    private static void writeValue(DataOutputStream out, byte tag, Object value) throws IOException {
+        switch (tag) {
+            case STRING: writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8)); break;
+            case LONG: writeVarLong(out, (Long) value); break;
+            case INTEGER: writeVarLong(out, (Integer) value); break;
+            case SHORT: out.writeShort((Short) value); break;
+            case DECIMAL:
+                writeVarLong(out, ((BigDecimal) value).scale());
+                writeBytes(out, ((BigDecimal) value).unscaledValue().toByteArray());
+                break;
+            case BIG_INTEGER: writeBytes(out, ((BigInteger) value).toByteArray()); break;
+            case DOUBLE: out.writeDouble((Double) value); break;
+            case FLOAT: out.writeFloat((Float) value); break;
+            case BOOLEAN: out.writeBoolean((Boolean) value); break;
+            case TIMESTAMP:
+                out.writeLong(((Timestamp) value).getTime());
+                out.writeInt(((Timestamp) value).getNanos());
+                break;
+            case SQL_DATE: case TIME: case DATE: out.writeLong(((java.util.Date) value).getTime()); break;
+            case UUID_:
+                out.writeLong(((UUID) value).getMostSignificantBits());
+                out.writeLong(((UUID) value).getLeastSignificantBits());
+                break;
+            case BYTES: writeBytes(out, (byte[]) value); break;
+            default: throw new IOException("unknown column type: " + tag);
+        }
+    }
+
+    private static List<Model> readModels(DataInputStream in) throws IOException, ClassNotFoundException {
+        Class<? extends Model> modelClass = Class.forName(in.readUTF()).asSubclass(Model.class);
+        int rows = readVarInt(in);
+        int columns = readVarInt(in);
+        String[] names = new String[columns];
+        Object[][] values = new Object[columns][];
+        BitSet[] present = new BitSet[columns];
+        for (int column = 0; column < columns; column++) {
+            names[column] = in.readUTF();
+            byte tag = in.readByte();
+            present[column] = in.readBoolean() ? null : readBits(in);
+            BitSet nulls = readBits(in);
+            values[column] = readColumn(in, tag, rows, present[column], nulls);
+        }
+        List<Model> models = new ArrayList<>(rows);
+        String[] rowNames = new String[columns];
+        Object[] rowValues = new Object[columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                rowNames[column] = present[column] == null || present[column].get(row) ? names[column] : null;
+                rowValues[column] = values[column][row];
+            }
+            models.add(ModelDelegate.restore(modelClass, rowNames, rowValues));
+        }
+        return models;
+    }
+
+    private static Object[] readColumn(DataInputStream in, byte tag, int rows, BitSet present, BitSet nulls)
+            throws IOException, ClassNotFoundException {
+        Object[] values = new Object[rows];
+        if (tag == NULLS) {
+            return values;
+        }
+        Object[] objects = null;
+        if (tag == OBJECT) {
+            try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+                objects = (Object[]) objectIn.readObject();
+            }
+        }
+        int next = 0;
+        for (int row = 0; row < rows; row++) {
+            if ((present == null || present.get(row)) && !nulls.get(row)) {
+                values[row] = objects != null ? objects[next++] : readValue(in, tag);
+            }
+        }
+        return values;
+    }
+
+    private static Object readValue(DataInputStream in, byte tag) throws IOException {
+        switch (tag) {
+            case STRING: return new String(readBytes(in), StandardCharsets.UTF_8);
+            case LONG: return readVarLong(in);
+            case INTEGER: return (int) readVarLong(in);
+            case SHORT: return in.readShort();
+            case DECIMAL:
+                int scale = (int) readVarLong(in);
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case BIG_INTEGER: return new BigInteger(readBytes(in));
+            case DOUBLE: return in.readDouble();
+            case FLOAT: return in.readFloat();
+            case BOOLEAN: return in.readBoolean();
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case SQL_DATE: return new java.sql.Date(in.readLong());
+            case TIME: return new Time(in.readLong());
+            case DATE: return new java.util.Date(in.readLong());
+            case UUID_: return new UUID(in.readLong(), in.readLong());
+            case BYTES: return readBytes(in);
+            default: throw new IOException("unknown column type: " + tag);
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        writeVarInt(out, words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBits(DataInputStream in) throws IOException {
+        long[] words = new long[readVarInt(in)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed length");
+    }
+
+    /**
+     * Writes zig-zag encoded variable length number, so that small ids and counts take one or two bytes.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("malformed number");
+    }
+}
@@ -43,7 +43,7 @@ public class EHCache3Manager extends CacheManager {
 
     private org.ehcache.CacheManager cacheManager;
 
-    public EHCache3Manager() throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+    public EHCache3Manager() throws ReflectiveOperationException {
         URL url = getClass().getResource("/activejdbc-ehcache.xml");
         if(url == null){
             throw new InitException("You are using " + getClass().getName() + " but failed to provide a EHCache configuration file on classpath: activejdbc-ehcache.xml");
@@ -34,10 +34,20 @@ public class EHCacheManager extends CacheManager {
 
     @Override
     public Object getCache(String group, String key) {
+        return get(group, key);
+    }
+
+    @Override
+    public Object getCache(String group, CacheKey key) {
+        return get(group, key);
+    }
+
+    private Object get(String group, Object key) {
         try {
             createIfMissing(group);
             Cache c = cacheManager.getCache(group);
-            return c.get(key) == null ? null : c.get(key).getObjectValue();
+            Element element = c.get(key);
+            return element == null ? null : element.getObjectValue();
         } catch (Exception e) {
             LogFilter.log(LOGGER, LogLevel.WARNING, "{}", e, e);
             return null;
@@ -62,10 +72,27 @@ public class EHCacheManager extends CacheManager {
 
     @Override
     public void addCache(String group, String key, Object cache) {
+        put(group, key, cache);
+    }
+
+    @Override
+    public void addCache(String group, CacheKey key, Object cache) {
+        put(group, key, cache);
+    }
+
+    private void put(String group, Object key, Object cache) {
         createIfMissing(group);
         cacheManager.getCache(group).put(new Element(key, cache));
     }
 
+    @Override
+    public void removeCache(String group, CacheKey key) {
+        Cache c = cacheManager.getCache(group);
+        if (c != null) {
+            c.remove(key);
+        }
+    }
+
     @Override
     public void doFlush(CacheEvent event) {
 
@@ -0,0 +1,276 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.javalite.activejdbc.MetaModel;
+import org.javalite.activejdbc.Model;
+import org.javalite.activejdbc.ModelDelegate;
+import org.javalite.activejdbc.Registry;
+import org.javalite.activejdbc.annotations.Cached;
+import org.javalite.activejdbc.logging.LogFilter;
+import org.javalite.activejdbc.logging.LogLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of rows by ID, for models annotated with <code>&#064;Cached(entities = true)</code>, see {@link Cached}.
+ * Rows are kept by the configured {@link CacheManager}, in a group named after the table with suffix
+ * <code>.entities</code>, separate from cached results of queries.
+ *
+ * <p></p>
+ * Every model returned from this cache is a new copy, so that changes to it never reach the cache. When a model
+ * is saved or deleted, only its own row is removed from cache. Statements which change many rows at once, such as
+ * <code>Model.updateAll()</code> or <code>Model.delete(query)</code>, remove all rows of the table. Like cached
+ * results of queries, rows are removed when a statement is executed, not when a transaction is committed, and
+ * statements executed with <code>Base</code> or <code>DB</code> do not change the cache.
+ *
+ * <p></p>
+ * A row read from the database before a concurrent change of it, and cached after the change removed it, would stay
+ * in cache stale. So readers take a {@link #stamp(MetaModel)} before reading, and a row is not cached if it was
+ * removed after the stamp was taken. Removals are tracked in this JVM only.
+ *
+ * @author Igor Polevoy
+ */
+public final class EntityCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityCache.class);
+    private static final int MAX_REMOVALS = 1000;
+    private static final ConcurrentHashMap<String, Removals> REMOVALS = new ConcurrentHashMap<>();
+
+    private EntityCache() {}
+
+    /**
+     * Removals of rows of a table, numbered in sequence. Only the latest removals are kept by key; older ones count
+     * as removals of all rows.
+     */
+    private static final class Removals {
+        private final Map<CacheKey, Long> removed = new HashMap<>();
+        private long sequence, purged;
+
+        synchronized long stamp() {
+            return sequence;
+        }
+
+        synchronized void remove(CacheKey key) {
+            removed.put(key, ++sequence);
+            if (removed.size() > MAX_REMOVALS) {
+                removed.clear();
+                purged = sequence;
+            }
+        }
+
+        synchronized void purge() {
+            removed.clear();
+            purged = ++sequence;
+        }
+
+        synchronized boolean removedSince(CacheKey key, long stamp) {
+            Long removal = removed.get(key);
+            return purged > stamp || removal != null && removal > stamp;
+        }
+    }
+
+    private static Removals removals(MetaModel metaModel) {
+        return REMOVALS.computeIfAbsent(group(metaModel), group -> new Removals());
+    }
+
+    private static boolean enabled(MetaModel metaModel) {
+        return metaModel != null && metaModel.entitiesCached() && QueryCache.instance().isEnabled();
+    }
+
+    private static String group(MetaModel metaModel) {
+        return metaModel.getTableName() + ".entities";
+    }
+
+    /**
+     * IDs are compared as strings, so that a row found by ID "1" is the same as found by 1 or 1L.
+     */
+    private static CacheKey key(MetaModel metaModel, Object id) {
+        String[] compositeKeys = metaModel.getCompositeKeys();
+        Object[] ids = id instanceof Object[] ? (Object[]) id : new Object[]{id};
+        String[] values = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = ids[i] == null ? null : ids[i].toString();
+        }
+        return CacheKey.of(compositeKeys == null ? metaModel.getIdName() : String.join(",", compositeKeys), values);
+    }
+
+    /**
+     * @return value of ID of a model, or values of composite keys, or <code>null</code> if it has no ID.
+     */
+    private static Object idOf(MetaModel metaModel, Model model) {
+        String[] compositeKeys = metaModel.getCompositeKeys();
+        if (compositeKeys == null) {
+            return model.getId();
+        }
+        Object[] values = new Object[compositeKeys.length];
+        for (int i = 0; i < compositeKeys.length; i++) {
+            values[i] = model.get(compositeKeys[i]);
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private static <T extends Model> T copy(T model) {
+        Map<String, Object> attributes = ModelDelegate.attributesOf(model);
+        return (T) ModelDelegate.restore(model.getClass(), attributes.keySet().toArray(new String[0]),
+                attributes.values().toArray());
+    }
+
+    /**
+     * @param metaModel meta model of a cached model
+     * @param id value of ID, or an array of values of composite keys
+     * @return copy of a cached row, or <code>null</code> if it is not cached.
+     */
+    public static <T extends Model> T get(MetaModel metaModel, Object id) {
+        if (!enabled(metaModel) || id == null) {
+            return null;
+        }
+        T cached = (T) Registry.cacheManager().getCache(group(metaModel), key(metaModel, id));
+        if (cached != null) {
+            LogFilter.log(LOGGER, LogLevel.DEBUG, "Entity cache hit, table: {}", metaModel.getTableName());
+            return copy(cached);
+        }
+        return null;
+    }
+
+    /**
+     * Taken before rows are read from the database, to be passed to {@link #put(Model, long)} or
+     * {@link #putAll(MetaModel, List, long)}.
+     *
+     * @param metaModel meta model of models to be read
+     * @return number of removals of rows of the table so far
+     */
+    public static long stamp(MetaModel metaModel) {
+        return enabled(metaModel) ? removals(metaModel).stamp() : 0;
+    }
+
+    /**
+     * Caches a copy of a model, if its class is cached by ID, and its row was not removed from cache after
+     * the stamp was taken.
+     *
+     * @param model model as read from the database
+     * @param stamp taken with {@link #stamp(MetaModel)} before the model was read
+     */
+    public static void put(Model model, long stamp) {
+        MetaModel metaModel = Registry.instance().getMetaModel(model.getClass());
+        if (enabled(metaModel)) {
+            put(metaModel, model, stamp);
+        }
+    }
+
+    /**
+     * @return ID of the model, or <code>null</code> if it has no ID, or was not cached because it was removed.
+     */
+    private static Object put(MetaModel metaModel, Model model, long stamp) {
+        Object id = idOf(metaModel, model);
+        if (id != null) {
+            Removals removals = removals(metaModel);
+            CacheKey key = key(metaModel, id);
+            if (removals.removedSince(key, stamp)) {
+                return null;
+            }
+            CacheManager cacheManager = Registry.cacheManager();
+            cacheManager.addCache(group(metaModel), key, copy(model));
+            // removed while being added: the removal might have missed it
+            if (removals.removedSince(key, stamp)) {
+                cacheManager.removeCache(group(metaModel), key);
+                return null;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Caches copies of models, and returns their IDs, to be resolved with {@link #getAll(MetaModel, Object[])}.
+     *
+     * @param metaModel meta model of cached models
+     * @param models models as read from the database
+     * @param stamp taken with {@link #stamp(MetaModel)} before the models were read
+     * @return IDs of models, or <code>null</code> if some of them have no ID, or were removed after the stamp was taken.
+     */
+    public static Object[] putAll(MetaModel metaModel, List<? extends Model> models, long stamp) {
+        if (!enabled(metaModel)) {
+            return null;
+        }
+        Object[] ids = new Object[models.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = put(metaModel, models.get(i), stamp);
+            if (ids[i] == null) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @param metaModel meta model of cached models
+     * @param ids IDs returned by {@link #putAll(MetaModel, List)}
+     * @return copies of cached rows, in the order of IDs, or <code>null</code> if any of them is no longer cached.
+     */
+    public static <T extends Model> List<T> getAll(MetaModel metaModel, Object[] ids) {
+        if (!enabled(metaModel)) {
+            return null;
+        }
+        CacheManager cacheManager = Registry.cacheManager();
+        String group = group(metaModel);
+        List<T> models = new ArrayList<>(ids.length);
+        for (Object id : ids) {
+            T cached = (T) cacheManager.getCache(group, key(metaModel, id));
+            if (cached == null) {
+                return null;
+            }
+            models.add(copy(cached));
+        }
+        return models;
+    }
+
+    /**
+     * Removes the row of a model from cache, if its class is cached by ID.
+     *
+     * @param model model which was changed or deleted
+     */
+    public static void remove(Model model) {
+        MetaModel metaModel = Registry.instance().getMetaModel(model.getClass());
+        if (enabled(metaModel)) {
+            Object id = idOf(metaModel, model);
+            if (id != null) {
+                CacheKey key = key(metaModel, id);
+                removals(metaModel).remove(key);
+                Registry.cacheManager().removeCache(group(metaModel), key);
+            }
+        }
+    }
+
+    /**
+     * Removes all rows of a table from cache.
+     *
+     * @param metaModel meta model of a cached model
+     */
+    public static void purge(MetaModel metaModel) {
+        if (enabled(metaModel)) {
+            removals(metaModel).purge();
+            Registry.cacheManager().flush(new CacheEvent(group(metaModel), EntityCache.class.getName()));
+        }
+    }
+}
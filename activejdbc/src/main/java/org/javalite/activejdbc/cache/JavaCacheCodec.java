@@ -0,0 +1,48 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import java.io.*;
+
+/**
+ * Encodes cached objects with Java serialization. Works for any serializable object.
+ *
+ * @author Igor Polevoy
+ */
+public class JavaCacheCodec implements CacheCodec {
+
+    @Override
+    public byte[] encode(Object cache) {
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bout)) {
+                out.writeObject(cache);
+            }
+            return bout.toByteArray();
+        } catch (IOException e) {
+            throw new CacheException("Failed to serialize " + cache.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CacheException("Failed to deserialize object", e);
+        }
+    }
+}
@@ -22,7 +22,7 @@ import org.javalite.activejdbc.InitException;
 import org.javalite.activejdbc.MetaModel;
 import org.javalite.activejdbc.Registry;
 
-import java.util.Arrays;
+import java.util.Map;
 
 
 /**
@@ -86,7 +86,7 @@ public enum QueryCache {
      */
     public void addItem(String tableName, String query, Object[] params, Object cache) {
         if (enabled) {
-            cacheManager.addCache(tableName, getKey(tableName, query, params), cache);
+            cacheManager.addCache(tableName, CacheKey.of(query, params), cache);
         }
     }
 
@@ -100,17 +100,12 @@ public enum QueryCache {
      */
     public Object getItem(String tableName, String query, Object[] params) {
         if (enabled) {
-            String key = getKey(tableName, query, params);
-            return cacheManager.getCache(tableName, key);
+            return cacheManager.getCache(tableName, CacheKey.of(query, params));
         } else {
             return null;
         }
     }
 
-    private String getKey(String tableName, String query, Object[] params) {
-        return tableName + query + (params == null ? null : Arrays.asList(params).toString());
-    }
-
     /**
      * This method purges (removes) all caches associated with a table, if caching is enabled and
      * a corresponding model is marked cached.
@@ -137,6 +132,16 @@ public enum QueryCache {
         }
     }
 
+    /**
+     * Provides statistics of the configured cache manager, see {@link CacheManager#getStatistics()}. For instance,
+     * {@link TinyLFUCacheManager} provides numbers of hits, misses and evictions.
+     *
+     * @return statistics of cache, empty if cache manager does not keep statistics.
+     */
+    public Map<String, Object> getStatistics() {
+        return cacheManager.getStatistics();
+    }
+
     public CacheManager getCacheManager(){
         return cacheManager;
     }
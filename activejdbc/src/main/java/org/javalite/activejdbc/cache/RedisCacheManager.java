@@ -8,11 +8,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
 
-import java.io.*;
+import java.util.Map;
+import java.util.UUID;
 
 import static org.javalite.app_config.AppConfig.p;
 import static org.javalite.common.Convert.toInteger;
+import static org.javalite.common.Convert.toLong;
 import static org.javalite.common.Util.blank;
 
 /**
@@ -41,58 +44,152 @@ import static org.javalite.common.Util.blank;
  * If the properties or property files are missing, this class will default to <code>localhost</code> and default
  * port for Redis.
  *
+ * <p></p>
+ *
+ * <strong>Near cache.</strong> Every read from Redis costs a network round trip and deserialization. With property
+ * <code>redis.cache.manager.near_cache.max_weight</code> set, results read from Redis are also kept in a local
+ * {@link TinyLFUCacheManager} of that weight, which serves repeated reads from memory. When a group is flushed,
+ * the flush is published on Redis channel <code>activejdbc:cache:flush</code>, and every node using the same
+ * Redis server drops that group from its near cache. Flushes received from other nodes are not passed on to
+ * {@link CacheEventListener}s, since they were already notified on the node where the flush happened. The near
+ * cache is cleared whenever the subscription to the channel is (re)established, so that flushes missed while
+ * disconnected do not leave stale results. Single items removed with {@link #removeCache(String, CacheKey)} are
+ * removed from near caches of all nodes the same way. A result read from Redis is not kept in the near cache if its
+ * group was flushed, or an item of the group was removed, while it was being read.
+ *
+ * <strong>Encoding.</strong> Cached objects are encoded by a {@link CacheCodec}, by default {@link ColumnarCacheCodec},
+ * which keeps lists of models in a compact columnar format. Another codec can be configured with property
+ * <code>redis.cache.manager.codec</code>, which is a name of a class implementing {@link CacheCodec} with a default
+ * constructor, for instance {@link JavaCacheCodec} to keep Java serialization.
+ *
+ * <p></p>
+ *
  * <p><strong>Limitation:</strong> Does not support {@link #flush(CacheEvent)} with value 'ALL'.</p>
  *
  * @author Igor Polevoy on 12/7/15.
  */
 public class RedisCacheManager extends CacheManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisCacheManager.class);
+    static final String CHANNEL = "activejdbc:cache:flush";
 
-    private JedisPool jedisPool;
+    private final JedisPool jedisPool;
+    private final TinyLFUCacheManager nearCache;
+    private final CacheCodec codec;
+    private final String nodeId = UUID.randomUUID().toString();
 
 
     public RedisCacheManager() {
+        this(createPool(), nearCacheWeight(), createCodec());
+    }
+
+    /**
+     * @param jedisPool pool of connections to Redis.
+     * @param nearCacheMaxWeight maximum weight of local near cache, see {@link TinyLFUCacheManager}, 0 for no near cache.
+     */
+    public RedisCacheManager(JedisPool jedisPool, long nearCacheMaxWeight) {
+        this(jedisPool, nearCacheMaxWeight, new ColumnarCacheCodec());
+    }
+
+    /**
+     * @param jedisPool pool of connections to Redis.
+     * @param nearCacheMaxWeight maximum weight of local near cache, see {@link TinyLFUCacheManager}, 0 for no near cache.
+     * @param codec encodes cached objects.
+     */
+    public RedisCacheManager(JedisPool jedisPool, long nearCacheMaxWeight, CacheCodec codec) {
+        this.jedisPool = jedisPool;
+        this.codec = codec;
+        if (nearCacheMaxWeight > 0) {
+            nearCache = new TinyLFUCacheManager(nearCacheMaxWeight, 100);
+            Thread subscriber = new Thread(this::subscribe, "activejdbc-redis-cache-subscriber");
+            subscriber.setDaemon(true);
+            subscriber.start();
+        } else {
+            nearCache = null;
+        }
+    }
+
+    private static JedisPool createPool() {
         try {
             String host = p("redis.cache.manager.host");
             String port = p("redis.cache.manager.port");
-            jedisPool = blank(host) || blank(port) ? new JedisPool() : new JedisPool(host,toInteger(port));
+            return blank(host) || blank(port) ? new JedisPool() : new JedisPool(host,toInteger(port));
         } catch (Exception e) {
             throw new InitException("Failed to configure connection to Redis server", e);
         }
     }
 
+    private static CacheCodec createCodec() {
+        String className = p("redis.cache.manager.codec");
+        if (blank(className)) {
+            return new ColumnarCacheCodec();
+        }
+        try {
+            return (CacheCodec) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new InitException("Failed to create cache codec. Please, ensure that the property " +
+                    "'redis.cache.manager.codec' points to correct class which implements '" + CacheCodec.class.getName()
+                    + "' and provides a default constructor.", e);
+        }
+    }
+
+    private static long nearCacheWeight() {
+        String weight = p("redis.cache.manager.near_cache.max_weight");
+        return blank(weight) ? 0 : toLong(weight);
+    }
+
     @Override
     public Object getCache(String group, String key) {
+        if (nearCache != null) {
+            Object cache = nearCache.getCache(group, key);
+            if (cache != null) {
+                return cache;
+            }
+        }
+        // taken before reading, so that a result read before a flush is not cached in the near cache after it
+        TinyLFUCacheManager.Stamp stamp = nearCache == null ? null : nearCache.stamp(group);
+        Object cache;
         try (Jedis jedis = jedisPool.getResource()){
             byte[] bytes = jedis.hget(group.getBytes(), key.getBytes());
 
             if (bytes == null) {
                 return null;
             } else {
-                ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
-                return in.readObject();
+                cache = codec.decode(bytes);
             }
 
         } catch (Exception e) {
             throw new CacheException("Failed to read object from Redis", e);
         }
+        if (nearCache != null) {
+            nearCache.addCache(stamp, group, key, cache);
+        }
+        return cache;
     }
 
     @Override
     public void addCache(String group, String key, Object cache) {
+        TinyLFUCacheManager.Stamp stamp = nearCache == null ? null : nearCache.stamp(group);
         try (Jedis jedis = jedisPool.getResource()){
-            ByteArrayOutputStream bout = new ByteArrayOutputStream();
-            ObjectOutput objectOutput = new ObjectOutputStream(bout);
-            objectOutput.writeObject(cache);
-            objectOutput.close();
-            byte[] bytes = bout.toByteArray();
-            jedis.hset(group.getBytes(), key.getBytes(), bytes);
-
+            jedis.hset(group.getBytes(), key.getBytes(), codec.encode(cache));
+            if (nearCache != null) {
+                nearCache.addCache(stamp, group, key, cache);
+            }
         } catch (Exception e) {
             LogFilter.log(LOGGER, LogLevel.ERROR, "Failed to add object to cache with group: " + group + " and key: " + key, e);
         }
     }
 
+    @Override
+    public void removeCache(String group, CacheKey key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.hdel(group.getBytes(), key.toString().getBytes());
+            if (nearCache != null) {
+                nearCache.remove(group, key.toString());
+                jedis.publish(CHANNEL, nodeId + ' ' + group + ' ' + key);
+            }
+        }
+    }
+
     @Override
     public void doFlush(CacheEvent event) {
         if (event.getType().equals(CacheEvent.CacheEventType.ALL)) {
@@ -101,10 +198,60 @@ public class RedisCacheManager extends CacheManager {
 
             try(Jedis jedis = jedisPool.getResource()){
                 jedis.del(event.getGroup().getBytes());
+                if (nearCache != null) {
+                    nearCache.doFlush(event);
+                    jedis.publish(CHANNEL, nodeId + ' ' + event.getGroup());
+                }
             }
         }
     }
 
+    /**
+     * Listens to flushes published by other nodes, until the JVM exits. Reconnects if the connection is lost.
+     */
+    private void subscribe() {
+        JedisPubSub listener = new JedisPubSub() {
+            @Override
+            public void onSubscribe(String channel, int subscribedChannels) {
+                nearCache.doFlush(CacheEvent.ALL);
+            }
+
+            @Override
+            public void onMessage(String channel, String message) {
+                String[] parts = message.split(" ");
+                if (parts.length > 1 && !parts[0].equals(nodeId)) {
+                    if (parts.length > 2) {
+                        nearCache.remove(parts[1], parts[2]);
+                    } else {
+                        nearCache.doFlush(new CacheEvent(parts[1], RedisCacheManager.class.getName()));
+                        LogFilter.log(LOGGER, LogLevel.DEBUG, "Near cache purged by another node, table: {}", parts[1]);
+                    }
+                }
+            }
+        };
+        while (true) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.subscribe(listener, CHANNEL);
+            } catch (Exception e) {
+                LogFilter.log(LOGGER, LogLevel.WARNING, "Lost subscription to Redis channel " + CHANNEL + ", will retry", e);
+            }
+            nearCache.doFlush(CacheEvent.ALL);
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return statistics of near cache, see {@link TinyLFUCacheManager#getStatistics()}, or empty if it is not used.
+     */
+    @Override
+    public Map<String, Object> getStatistics() {
+        return nearCache == null ? super.getStatistics() : nearCache.getStatistics();
+    }
+
     @Override
     public Object getImplementation() {
         return this.jedisPool;
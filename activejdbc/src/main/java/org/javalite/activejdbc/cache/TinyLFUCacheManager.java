@@ -0,0 +1,528 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.javalite.activejdbc.InitException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.javalite.app_config.AppConfig.p;
+import static org.javalite.common.Collections.map;
+import static org.javalite.common.Convert.toLong;
+import static org.javalite.common.Util.blank;
+
+/**
+ * In-process cache manager, which needs no external library or server. Memory is bounded by weight: a cached list
+ * of models weighs as many models as it holds, any other object weighs 1. Entries are evicted with W-TinyLFU:
+ * new entries go to a small LRU window, and only move on to the main space if they were requested more often than
+ * the entry they would push out, which keeps one-off queries from flushing out popular ones. Frequencies are kept
+ * in a compact count-min sketch, which is periodically halved so that old popularity fades.
+ *
+ * <p></p>
+ * Every group (table) can take up to a quota of the total weight; a group which reaches its quota evicts its own
+ * oldest entries. Flushing a group does not iterate its entries: a group keeps a generation counter, which is
+ * incremented on flush, and entries of previous generations are treated as missing and evicted first.
+ *
+ * <p></p>
+ * Lookups take no lock. Recency and frequency are updated only if the lock is free, so under contention some
+ * accesses are not recorded, which only makes eviction decisions slightly less precise.
+ *
+ * <p></p>
+ * Configured with these properties, according to <code>AppConfig</code> rules:
+ *
+ * <ul>
+ *     <li><code>tinylfu.cache.manager.max_weight</code> - maximum total weight, defaults to 100000</li>
+ *     <li><code>tinylfu.cache.manager.group_quota</code> - maximum weight of a group, in percent of the total,
+ *     defaults to 25</li>
+ * </ul>
+ *
+ * @author Igor Polevoy
+ */
+public class TinyLFUCacheManager extends CacheManager {
+
+    private static final long DEFAULT_MAX_WEIGHT = 100000;
+    private static final int DEFAULT_GROUP_QUOTA = 25;
+
+    private enum Space { WINDOW, PROBATION, PROTECTED }
+
+    private final long maxWeight;
+    private final long windowMax;
+    private final long protectedMax;
+    private final long groupMax;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private volatile ConcurrentHashMap<String, Group> groups = new ConcurrentHashMap<>();
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedSpace = new AccessOrder();
+    private long weight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLFUCacheManager() {
+        this(property("tinylfu.cache.manager.max_weight", DEFAULT_MAX_WEIGHT),
+                (int) property("tinylfu.cache.manager.group_quota", DEFAULT_GROUP_QUOTA));
+    }
+
+    /**
+     * @param maxWeight maximum total weight of cached items.
+     * @param groupQuota maximum weight of a group, in percent of <code>maxWeight</code>, 100 for no quota.
+     */
+    public TinyLFUCacheManager(long maxWeight, int groupQuota) {
+        if (maxWeight < 1 || groupQuota < 1 || groupQuota > 100) {
+            throw new InitException("invalid configuration of TinyLFUCacheManager: max_weight: " + maxWeight
+                    + ", group_quota: " + groupQuota);
+        }
+        this.maxWeight = maxWeight;
+        this.windowMax = Math.max(1, maxWeight / 100);
+        this.protectedMax = (maxWeight - windowMax) * 80 / 100;
+        this.groupMax = groupQuota == 100 ? Long.MAX_VALUE : Math.max(1, maxWeight * groupQuota / 100);
+        this.sketch = new FrequencySketch((int) Math.min(maxWeight, 1 << 20));
+    }
+
+    private static long property(String name, long defaultValue) {
+        String value = p(name);
+        return blank(value) ? defaultValue : toLong(value);
+    }
+
+    @Override
+    public Object getCache(String group, String key) {
+        return get(group, key);
+    }
+
+    @Override
+    public Object getCache(String group, CacheKey key) {
+        return get(group, key);
+    }
+
+    private Object get(String group, Object key) {
+        Group g = groups.get(group);
+        Node node = g == null ? null : g.entries.get(key);
+        if (node == null || node.generation != g.generation) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                if (node.space != null && groups.get(group) == g) { // not removed or flushed in the meantime
+                    sketch.increment(node.hash);
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    @Override
+    public void addCache(String group, String key, Object cache) {
+        put(group, key, cache);
+    }
+
+    @Override
+    public void addCache(String group, CacheKey key, Object cache) {
+        put(group, key, cache);
+    }
+
+    /**
+     * Taken before a value to cache is read from elsewhere, such as from Redis, see
+     * {@link #addCache(Stamp, String, Object, Object)}.
+     *
+     * @param group name of group of the value
+     * @return current state of invalidations of the group
+     */
+    Stamp stamp(String group) {
+        Group g = groups.computeIfAbsent(group, k -> new Group());
+        return new Stamp(g, g.invalidations);
+    }
+
+    /**
+     * Caches a value read from elsewhere, unless its group was flushed or any key of it was removed after the stamp
+     * was taken. The value might have been read before the invalidation, and would be cached after it.
+     *
+     * @param stamp taken with {@link #stamp(String)} before the value was read
+     */
+    void addCache(Stamp stamp, String group, Object key, Object cache) {
+        put(group, key, cache, stamp);
+    }
+
+    private void put(String group, Object key, Object cache) {
+        put(group, key, cache, null);
+    }
+
+    private void put(String group, Object key, Object cache, Stamp stamp) {
+        long w = weigh(cache);
+        if (w > Math.min(groupMax, maxWeight - windowMax)) {
+            return; // would evict everything else
+        }
+        lock.lock();
+        try {
+            Group g = groups.computeIfAbsent(group, k -> new Group());
+            if (stamp != null && (stamp.group != g || stamp.invalidations != g.invalidations)) {
+                return;
+            }
+            Node node = new Node(g, key, cache, w);
+            sketch.increment(node.hash);
+            Node old = g.entries.put(key, node);
+            if (old != null) {
+                remove(old);
+            }
+            g.append(node);
+            window.append(node, Space.WINDOW);
+            weight += w;
+            windowWeight += w;
+
+            evictFromWindow();
+            while (g.weight > groupMax) {
+                evict(g.head);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeCache(String group, CacheKey key) {
+        remove(group, key);
+    }
+
+    void remove(String group, Object key) {
+        lock.lock();
+        try {
+            Group g = groups.get(group);
+            if (g != null) {
+                g.invalidations++;
+            }
+            Node node = g == null ? null : g.entries.get(key);
+            if (node != null && node.space != null) {
+                remove(node);
+                g.entries.remove(key, node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void doFlush(CacheEvent event) {
+        lock.lock();
+        try {
+            if (event.getType().equals(CacheEvent.CacheEventType.ALL)) {
+                groups = new ConcurrentHashMap<>();
+                window.clear();
+                probation.clear();
+                protectedSpace.clear();
+                weight = windowWeight = protectedWeight = 0;
+            } else if (event.getType().equals(CacheEvent.CacheEventType.GROUP)) {
+                Group g = groups.get(event.getGroup());
+                if (g != null) {
+                    g.generation++;
+                    g.invalidations++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object getImplementation() {
+        return this;
+    }
+
+    /**
+     * @return number of hits, misses and evictions, number of cached items and their total weight.
+     */
+    @Override
+    public Map<String, Object> getStatistics() {
+        lock.lock();
+        try {
+            int size = 0;
+            for (Group g : groups.values()) {
+                size += g.entries.size();
+            }
+            return map("hits", hits.sum(), "misses", misses.sum(), "evictions", evictions.sum(),
+                    "size", size, "weight", weight, "maxWeight", maxWeight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of models in a list, or 1 for anything else.
+     */
+    protected long weigh(Object cache) {
+        return cache instanceof Collection ? Math.max(1, ((Collection) cache).size()) : 1;
+    }
+
+    private void onAccess(Node node) {
+        switch (node.space) {
+            case WINDOW:
+                window.moveToTail(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedSpace.append(node, Space.PROTECTED);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMax) {
+                    Node demoted = protectedSpace.head;
+                    protectedSpace.remove(demoted);
+                    protectedWeight -= demoted.weight;
+                    probation.append(demoted, Space.PROBATION);
+                }
+                break;
+            case PROTECTED:
+                protectedSpace.moveToTail(node);
+                break;
+        }
+    }
+
+    /**
+     * Moves entries which fell out of the window to main space, if they are more popular than entries they replace.
+     */
+    private void evictFromWindow() {
+        while (windowWeight > windowMax) {
+            Node candidate = window.head;
+            window.remove(candidate);
+            windowWeight -= candidate.weight;
+            probation.append(candidate, Space.PROBATION);
+
+            while (weight > maxWeight) {
+                Node victim = probation.head != candidate ? probation.head : protectedSpace.head;
+                if (victim == null || candidate.stale()) {
+                    evict(candidate);
+                    break;
+                }
+                if (victim.stale() || sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                    evict(victim);
+                } else {
+                    evict(candidate);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void evict(Node node) {
+        remove(node);
+        node.group.entries.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private void remove(Node node) {
+        switch (node.space) {
+            case WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedSpace.remove(node);
+                protectedWeight -= node.weight;
+                break;
+        }
+        node.space = null;
+        node.group.remove(node);
+        weight -= node.weight;
+    }
+
+    private static final class Group {
+        private final ConcurrentHashMap<Object, Node> entries = new ConcurrentHashMap<>();
+        private volatile int generation;
+        private volatile long invalidations; // flushes and removals, changed under lock
+        private long weight;
+        private Node head, tail; // insertion order
+
+        private void append(Node node) {
+            node.groupPrev = tail;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.groupNext = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.groupPrev == null) {
+                head = node.groupNext;
+            } else {
+                node.groupPrev.groupNext = node.groupNext;
+            }
+            if (node.groupNext == null) {
+                tail = node.groupPrev;
+            } else {
+                node.groupNext.groupPrev = node.groupPrev;
+            }
+            node.groupPrev = node.groupNext = null;
+            weight -= node.weight;
+        }
+    }
+
+    /**
+     * State of invalidations of a group, see {@link #stamp(String)}.
+     */
+    static final class Stamp {
+        private final Group group;
+        private final long invalidations;
+
+        private Stamp(Group group, long invalidations) {
+            this.group = group;
+            this.invalidations = invalidations;
+        }
+    }
+
+    private static final class Node {
+        private final Group group;
+        private final Object key;
+        private final Object value;
+        private final long weight;
+        private final int generation;
+        private final int hash;
+        private Space space;
+        private Node prev, next, groupPrev, groupNext;
+
+        private Node(Group group, Object key, Object value, long weight) {
+            this.group = group;
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.generation = group.generation;
+            this.hash = key.hashCode();
+        }
+
+        private boolean stale() {
+            return generation != group.generation;
+        }
+    }
+
+    /**
+     * Doubly linked list of entries, least recently used first.
+     */
+    private static final class AccessOrder {
+        private Node head, tail;
+
+        private void append(Node node, Space space) {
+            node.space = space;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = node.next = null;
+        }
+
+        private void moveToTail(Node node) {
+            if (tail != node) {
+                Space space = node.space;
+                remove(node);
+                append(node, space);
+            }
+        }
+
+        private void clear() {
+            head = tail = null;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, 16 counters per <code>long</code> and one <code>long</code> per entry.
+     * Every key has 4 counters, its frequency is the smallest of them. Once the number of increments reaches
+     * 10 times the number of entries, all counters are halved.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxEntries) {
+            int size = Integer.highestOneBit(Math.max(maxEntries, 16) - 1) << 1;
+            table = new long[size];
+            sampleSize = 10 * size;
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                int offset = offset(hash, i);
+                frequency = Math.min(frequency, (int) ((table[index] >>> (offset << 2)) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                long mask = 0xfL << (offset(hash, i) << 2);
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << (offset(hash, i) << 2);
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int index(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        private static int offset(int hash, int i) {
+            return ((hash >>> (i << 3)) + i) & 15;
+        }
+    }
+}
@@ -30,6 +30,7 @@ public final class ConnectionJdbcConfig extends ConnectionConfig {
     private final String user;
     private final String password;
     private final Properties properties;
+    private ConnectionPoolConfig poolConfig;
 
     public ConnectionJdbcConfig(String driver, String url, String user, String password) {
         this.driver = driver;
@@ -66,4 +67,21 @@ public final class ConnectionJdbcConfig extends ConnectionConfig {
     public Properties getProps() {
         return properties;
     }
+
+    /**
+     * @return settings of a built-in connection pool, or null if connections are not pooled.
+     */
+    public ConnectionPoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+
+    /**
+     * Turns on a built-in connection pool for this config. Connections opened with {@link org.javalite.activejdbc.DB#open(ConnectionConfig)}
+     * will be borrowed from the pool and returned to it by {@link org.javalite.activejdbc.DB#close()}.
+     *
+     * @param poolConfig pool settings, null to open a new physical connection every time.
+     */
+    public void setPoolConfig(ConnectionPoolConfig poolConfig) {
+        this.poolConfig = poolConfig;
+    }
 }
@@ -0,0 +1,190 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc.connection_config;
+
+import org.javalite.json.JSONHelper;
+
+import java.util.Properties;
+
+import static org.javalite.common.Collections.map;
+import static org.javalite.common.Util.blank;
+
+/**
+ * Settings of a built-in connection pool. When an instance of this class is set on a {@link ConnectionJdbcConfig},
+ * connections opened with this config are borrowed from a {@link org.javalite.activejdbc.pool.ConnectionPool}
+ * and returned to it when closed.
+ *
+ * <p></p>
+ * Can be configured in a file <code>database.properties</code> with keys prefixed by environment:
+ *
+ * <pre>
+ development.pool.enabled=true
+ development.pool.min_size=2
+ development.pool.max_size=20
+ development.pool.max_wait=5000
+ development.pool.idle_timeout=600000
+ development.pool.leak_threshold=60000
+ development.pool.validate_on_borrow=true
+ development.pool.validation_timeout=5
+ * </pre>
+ *
+ * All time values are in milliseconds, except <code>validation_timeout</code>, which is in seconds.
+ *
+ * @author Igor Polevoy
+ */
+public class ConnectionPoolConfig {
+
+    static final String PREFIX = "pool.";
+
+    private int minSize = 0;
+    private int maxSize = 10;
+    private long maxWaitMillis = 30000;
+    private long idleTimeoutMillis = 600000;
+    private long leakThresholdMillis = 0;
+    private boolean validateOnBorrow = true;
+    private int validationTimeoutSeconds = 5;
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * @param minSize number of connections the pool keeps open even if they are idle.
+     */
+    public void setMinSize(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("minSize cannot be negative");
+        }
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param maxSize maximum number of connections the pool will open, borrowed and idle combined.
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @param maxWaitMillis how long to wait for a connection when all connections are borrowed.
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * @param idleTimeoutMillis connections idle longer than this are closed, as long as the pool stays
+     *                          at or above minimum size. Zero or negative value disables idle eviction.
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getLeakThresholdMillis() {
+        return leakThresholdMillis;
+    }
+
+    /**
+     * @param leakThresholdMillis a connection that is not returned to the pool within this time is reported as a
+     *                            potential leak, along with a stack trace of the code that borrowed it.
+     *                            Zero disables leak detection.
+     */
+    public void setLeakThresholdMillis(long leakThresholdMillis) {
+        this.leakThresholdMillis = leakThresholdMillis;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    /**
+     * @param validateOnBorrow true to check an idle connection with {@link java.sql.Connection#isValid(int)} before
+     *                         handing it out.
+     */
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Reads pool settings for an environment.
+     *
+     * @param props properties from a file such as <code>database.properties</code>
+     * @param env environment prefix, such as "development".
+     * @return pool settings, or null if a pool is not configured for the environment.
+     */
+    static ConnectionPoolConfig fromProperties(Properties props, String env) {
+        String prefix = env + "." + PREFIX;
+        boolean configured = false;
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                configured = true;
+                break;
+            }
+        }
+        if (!configured || "false".equalsIgnoreCase(props.getProperty(prefix + "enabled"))) {
+            return null;
+        }
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        try {
+            String value;
+            if (!blank(value = props.getProperty(prefix + "min_size"))) config.setMinSize(Integer.parseInt(value.trim()));
+            if (!blank(value = props.getProperty(prefix + "max_size"))) config.setMaxSize(Integer.parseInt(value.trim()));
+            if (!blank(value = props.getProperty(prefix + "max_wait"))) config.setMaxWaitMillis(Long.parseLong(value.trim()));
+            if (!blank(value = props.getProperty(prefix + "idle_timeout"))) config.setIdleTimeoutMillis(Long.parseLong(value.trim()));
+            if (!blank(value = props.getProperty(prefix + "leak_threshold"))) config.setLeakThresholdMillis(Long.parseLong(value.trim()));
+            if (!blank(value = props.getProperty(prefix + "validate_on_borrow"))) config.setValidateOnBorrow(Boolean.parseBoolean(value.trim()));
+            if (!blank(value = props.getProperty(prefix + "validation_timeout"))) config.setValidationTimeoutSeconds(Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Failed to parse connection pool settings for environment: " + env, e);
+        }
+        if (config.getMinSize() > config.getMaxSize()) {
+            throw new IllegalArgumentException("pool.min_size cannot be greater than pool.max_size for environment: " + env);
+        }
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        return JSONHelper.toJSON(map("min_size", minSize, "max_size", maxSize, "max_wait", maxWaitMillis,
+                "idle_timeout", idleTimeoutMillis, "leak_threshold", leakThresholdMillis, "validate_on_borrow", validateOnBorrow,
+                "validation_timeout", validationTimeoutSeconds));
+    }
+}
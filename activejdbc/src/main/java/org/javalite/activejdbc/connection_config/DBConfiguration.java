@@ -167,6 +167,9 @@ public class DBConfiguration {
      production.remote.password=xxx
      production.remote.url=jdbc:mysql://127.0.0.1:3309/poj1_production
 
+     # optional built-in connection pool, see ConnectionPoolConfig for all settings
+     production.remote.pool.max_size=10
+
      * </pre>
      *
      * Rules and limitations of using a file-based configuration:
@@ -210,7 +213,7 @@ public class DBConfiguration {
                         String password = props.getProperty(env + ".password");
                         String url = props.getProperty(env + ".url");
                         checkProps(driver, userName, password, url, env);
-                        createJdbcConfig(env, driver, url, userName, password);
+                        createJdbcConfig(env, driver, url, userName, password, ConnectionPoolConfig.fromProperties(props, env));
                     }
                 }
             }
@@ -230,10 +233,11 @@ public class DBConfiguration {
         }
     }
 
-    private static void createJdbcConfig(String env, String driver, String url, String userName, String password) {
+    private static void createJdbcConfig(String env, String driver, String url, String userName, String password, ConnectionPoolConfig poolConfig) {
 
         ConnectionJdbcConfig connectionJdbcConfig = new ConnectionJdbcConfig(driver, url, userName, password);
         connectionJdbcConfig.setEnvironment(env);
+        connectionJdbcConfig.setPoolConfig(poolConfig);
 
 
         if(env.equals("test")){
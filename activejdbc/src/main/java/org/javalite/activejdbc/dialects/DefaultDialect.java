@@ -22,6 +22,7 @@ import static org.javalite.common.Util.joinAndRepeat;
 
 import java.sql.Array;
 import java.sql.Connection;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -153,6 +154,56 @@ public class DefaultDialect implements Dialect {
         return "SELECT COUNT(*) FROM " + table + " WHERE " + where;
     }
 
+    @Override
+    public String selectApproximateCount(String table) {
+        return null;
+    }
+
+    @Override
+    public String explain(String query) {
+        return null;
+    }
+
+    @Override
+    public int maxInListSize() {
+        return 1024;
+    }
+
+    /**
+     * Expands the condition, for databases which cannot compare row values:
+     * <code>a &gt; ? OR (a = ? AND b &gt; ?)</code>.
+     */
+    @Override
+    public String seekCondition(List<String> columns, boolean descending, Object[] values, List<Object> params) {
+        String operator = descending ? " < ?" : " > ?";
+        StringBuilder condition = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                condition.append(" OR ");
+            }
+            condition.append('(');
+            for (int j = 0; j < i; j++) {
+                condition.append(columns.get(j)).append(" = ? AND ");
+                params.add(values[j]);
+            }
+            condition.append(columns.get(i)).append(operator).append(')');
+            params.add(values[i]);
+        }
+        return condition.append(')').toString();
+    }
+
+    /**
+     * Compares row values: <code>(a, b) &gt; (?, ?)</code>, which databases can resolve with a single index range scan.
+     */
+    protected String rowValueSeekCondition(List<String> columns, boolean descending, Object[] values, List<Object> params) {
+        StringBuilder condition = new StringBuilder("(");
+        join(condition, columns, ", ");
+        condition.append(descending ? ") < (" : ") > (");
+        appendQuestions(condition, columns.size());
+        params.addAll(Arrays.asList(values));
+        return condition.append(')').toString();
+    }
+
     @Override
     public String selectExists(MetaModel metaModel) {
 	    return "SELECT " + metaModel.getIdName() + " FROM " + metaModel.getTableName()
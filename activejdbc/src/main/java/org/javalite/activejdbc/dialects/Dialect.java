@@ -90,6 +90,43 @@ public interface Dialect extends Serializable{
 
     String selectCount(String table, String where);
 
+    /**
+     * Returns a query to read an estimate of number of rows in a table from statistics kept by the database,
+     * which is much faster than counting rows of large tables.
+     *
+     * @param table table name
+     * @return query selecting a single number, or null if the database does not provide such statistics.
+     */
+    String selectApproximateCount(String table);
+
+    /**
+     * Returns a statement which shows how the database executes a query, without executing it.
+     *
+     * @param query query with the same parameters as the statement returned
+     * @return statement returning the plan of a query, or null if the database cannot explain queries.
+     */
+    String explain(String query);
+
+    /**
+     * Returns the largest number of values in one <code>IN (?, ?, ...)</code> list, used when including
+     * associations of many models. Longer lists are split into several queries.
+     *
+     * @return power of two, not greater than limits of the database on values in a list and parameters of a statement.
+     */
+    int maxInListSize();
+
+    /**
+     * Forms a condition selecting rows which follow a given row in the order of given columns, used for keyset
+     * (seek) pagination.
+     *
+     * @param columns columns which together identify a row and define the order of rows
+     * @param descending true if rows are ordered by these columns in descending order
+     * @param values values of the columns in the row to continue after
+     * @param params list to add parameters of the condition to
+     * @return parametrized condition
+     */
+    String seekCondition(List<String> columns, boolean descending, Object[] values, List<Object> params);
+
     String selectExists(MetaModel mm);
 
     String selectManyToManyAssociation(Many2ManyAssociation association, String sourceFkColumnName, int questionsCount);
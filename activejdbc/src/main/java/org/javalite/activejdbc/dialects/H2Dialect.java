@@ -60,4 +60,13 @@ public class H2Dialect extends DefaultDialect {
         return fullQuery.toString();
     }
 
+    @Override
+    public String seekCondition(List<String> columns, boolean descending, Object[] values, List<Object> params) {
+        return rowValueSeekCondition(columns, descending, values, params);
+    }
+
+    @Override
+    public String explain(String query) {
+        return "EXPLAIN " + query;
+    }
 }
@@ -64,4 +64,24 @@ public class MySQLDialect extends DefaultDialect {
     protected void appendEmptyRow(MetaModel metaModel, StringBuilder query) {
         query.append("() VALUES ()");
     }
+
+    /**
+     * Uses the row count estimate kept by the storage engine, which for InnoDB may differ from the real count by
+     * 40 to 50%.
+     */
+    @Override
+    public String selectApproximateCount(String table) {
+        return "SELECT table_rows FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = '"
+                + table.replace("'", "''") + "'";
+    }
+
+    @Override
+    public String explain(String query) {
+        return "EXPLAIN " + query;
+    }
+
+    @Override
+    public String seekCondition(List<String> columns, boolean descending, Object[] values, List<Object> params) {
+        return rowValueSeekCondition(columns, descending, values, params);
+    }
 }
@@ -120,4 +120,12 @@ public class OracleDialect extends DefaultDialect {
         // Oracle has no TIME type
         appendTimestamp(query, new java.sql.Timestamp(value.getTime()));
     }
+
+    /**
+     * Oracle allows up to 1000 values in a list.
+     */
+    @Override
+    public int maxInListSize() {
+        return 512;
+    }
 }
@@ -157,4 +157,22 @@ public class PostgreSQLDialect extends DefaultDialect {
             throw new ConversionException(e);
         }
     }
+
+    /**
+     * Uses the row count estimate of the planner, kept up to date by <code>ANALYZE</code> and autovacuum.
+     */
+    @Override
+    public String selectApproximateCount(String table) {
+        return "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass('" + table.replace("'", "''") + "')";
+    }
+
+    @Override
+    public String explain(String query) {
+        return "EXPLAIN " + query;
+    }
+
+    @Override
+    public String seekCondition(List<String> columns, boolean descending, Object[] values, List<Object> params) {
+        return rowValueSeekCondition(columns, descending, values, params);
+    }
 }
@@ -85,4 +85,12 @@ public class SQLiteDialect extends DefaultDialect {
         // See https://www.sqlite.org/lang_datefunc.html
         query.append("datetime('").append(value.toString()).append("')");
     }
+
+    /**
+     * SQLite before 3.32 allows up to 999 parameters in a statement.
+     */
+    @Override
+    public int maxInListSize() {
+        return 512;
+    }
 }
@@ -0,0 +1,114 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.logging;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs messages of queries at INFO level in a background thread, so that threads executing queries only format
+ * messages. If messages are logged slower than queries are executed, and the queue is full, messages are logged by
+ * threads executing queries, so that none are lost.
+ *
+ * @author Igor Polevoy
+ */
+final class AsyncLogSink {
+    private static final int CAPACITY = 8192;
+
+    private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    AsyncLogSink() {
+        thread = new Thread(this::run, "ActiveJDBC log sink");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static final class Message {
+        private final Logger logger;
+        private final String text;
+
+        private Message(Logger logger, String text) {
+            this.logger = logger;
+            this.text = text;
+        }
+    }
+
+    void info(Logger logger, String text) {
+        pending.incrementAndGet();
+        if (stopped || !queue.offer(new Message(logger, text))) {
+            pending.decrementAndGet();
+            logger.info(text);
+        }
+    }
+
+    private void run() {
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                Message message = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    try {
+                        message.logger.info(message.text);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // a failing logger must not stop logging of other messages
+            }
+        }
+        Message message;
+        while ((message = queue.poll()) != null) { // offered while stopping
+            message.logger.info(message.text);
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until all queued messages are logged.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if all messages were logged.
+     */
+    boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (pending.get() > 0) {
+            if (System.nanoTime() > deadline || !thread.isAlive()) {
+                return false;
+            }
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+        return true;
+    }
+
+    /**
+     * Stops the background thread after it logs queued messages. Messages logged after this are logged by
+     * calling threads.
+     */
+    void stop() {
+        stopped = true;
+    }
+}
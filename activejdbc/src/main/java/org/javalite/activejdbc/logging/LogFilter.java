@@ -20,7 +20,6 @@ package org.javalite.activejdbc.logging;
 import org.javalite.activejdbc.Configuration;
 import org.javalite.activejdbc.Registry;
 import org.javalite.activejdbc.statistics.QueryExecutionEvent;
-import org.javalite.json.JSONHelper;
 import org.slf4j.Logger;
 
 import java.util.function.Consumer;
@@ -28,11 +27,26 @@ import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
+ * Filters and logs messages of ActiveJDBC. Logging is controlled with a system property <code>activejdbc.log</code>:
+ * if it is empty or <code>true</code>, all messages are logged; otherwise it is a regular expression which messages
+ * must match. Messages of queries are matched by their SQL, before they are formatted as JSON.
+ *
+ * <p></p>
+ * With a system property <code>activejdbc.log.async=true</code>, or {@link #setAsync(boolean)}, messages of queries
+ * are logged in a background thread.
+ *
  * @author Igor Polevoy
  */
 public class LogFilter {
 
-    private static Pattern pattern;
+    private static final long NANOS_IN_MILLI = 1000000;
+    private static final int NOT_CACHED = 0, CACHE_MISS = 1, CACHE_HIT = 2;
+    private static final int MAX_BUILDER_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private static volatile Pattern pattern;
+    private static volatile boolean matchAll, matchNone;
+    private static volatile AsyncLogSink asyncSink;
 
     static{
         String logFlag = System.getProperty("activejdbc.log");
@@ -43,7 +57,9 @@ public class LogFilter {
             setLogExpression(logFlag);
         } else {//match nothing
             setLogExpression("a{10000000}");
+            matchNone = true;
         }
+        setAsync(Boolean.getBoolean("activejdbc.log.async"));
     }
     
     private LogFilter() {
@@ -51,7 +67,34 @@ public class LogFilter {
     }
 
     public static void setLogExpression(String regexp){
-        pattern = Pattern.compile(regexp, Pattern.CASE_INSENSITIVE);
+        pattern = Pattern.compile(regexp, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        matchAll = ".*".equals(regexp);
+        matchNone = false;
+    }
+
+    /**
+     * Turns logging of queries in a background thread on or off. When turned off, queued messages are still logged.
+     *
+     * @param async true to log messages of queries in a background thread
+     */
+    public static synchronized void setAsync(boolean async) {
+        if (async && asyncSink == null) {
+            asyncSink = new AsyncLogSink();
+        } else if (!async && asyncSink != null) {
+            asyncSink.stop();
+            asyncSink = null;
+        }
+    }
+
+    /**
+     * Waits until messages of queries queued for a background thread are logged.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if all messages were logged.
+     */
+    public static boolean flush(long timeoutMillis) {
+        AsyncLogSink sink = asyncSink;
+        return sink == null || sink.flush(timeoutMillis);
     }
 
     /**
@@ -60,13 +103,13 @@ public class LogFilter {
      * @param logger logger to use
      * @param query query text
      * @param params parameters use in a query
-     * @param queryStartTime time of query start. This method will calculate how much time it took for the query to execute.
-     *
+     * @param queryStartTime time of query start in milliseconds. This method will calculate how much time it took for the query to execute.
+     * @deprecated use {@link #logQueryNanos(Logger, String, Object[], long)}, which measures time with
+     * <code>System.nanoTime()</code>.
      */
+    @Deprecated
     public static void logQuery(Logger logger, String query, Object[] params, long queryStartTime){
-        long time = System.currentTimeMillis() - queryStartTime;
-        collectStatistics(query, time, false);
-        log(logger, LogLevel.INFO, () -> getJson(query, params, time));
+        logQuery(logger, query, params, (System.currentTimeMillis() - queryStartTime) * NANOS_IN_MILLI, NOT_CACHED, -1);
     }
 
     /**
@@ -75,54 +118,143 @@ public class LogFilter {
      * @param logger logger to use
      * @param query query text
      * @param params params used  in a query
-     * @param queryStartTime time of query start. This method will calculate how much time it took for the query to execute.
+     * @param queryStartTime time of query start in milliseconds. This method will calculate how much time it took for the query to execute.
      * @param cacheHit true if cache was hit, false if not
+     * @deprecated use {@link #logQueryNanos(Logger, String, Object[], long, boolean, long)}, which measures time
+     * with <code>System.nanoTime()</code>, or {@link #logCacheHit(Logger, String, Object[])}.
      */
+    @Deprecated
     public static void logQuery(Logger logger, String query, Object[] params, long queryStartTime, boolean cacheHit){
-        long time = System.currentTimeMillis() - queryStartTime;
-        collectStatistics(query, time, cacheHit);
-        log(logger, LogLevel.INFO, () -> getJson(query, params, time, cacheHit));
+        logQuery(logger, query, params, (System.currentTimeMillis() - queryStartTime) * NANOS_IN_MILLI,
+                cacheHit ? CACHE_HIT : CACHE_MISS, -1);
     }
 
-    private static void collectStatistics(String query, long time, boolean cacheHit) {
-        if (Registry.instance().getConfiguration().collectStatistics() && !cacheHit) {
-            Registry.instance().getStatisticsQueue().enqueue(new QueryExecutionEvent(query, time));
-        }
+    /**
+     * Logs a query information to the log system
+     *
+     * @param logger logger to use
+     * @param query query text
+     * @param params parameters use in a query
+     * @param startNanos value of <code>System.nanoTime()</code> before the query was executed
+     */
+    public static void logQueryNanos(Logger logger, String query, Object[] params, long startNanos){
+        logQuery(logger, query, params, System.nanoTime() - startNanos, NOT_CACHED, -1);
+    }
+
+    /**
+     * Logs a query information to the log system
+     *
+     * @param logger logger to use
+     * @param query query text
+     * @param params params used  in a query
+     * @param startNanos value of <code>System.nanoTime()</code> before the query was executed
+     * @param cacheHit true if cache was hit, false if not
+     * @param rows number of rows returned, collected in statistics, or -1 if not known
+     */
+    public static void logQueryNanos(Logger logger, String query, Object[] params, long startNanos, boolean cacheHit, long rows){
+        logQuery(logger, query, params, System.nanoTime() - startNanos, cacheHit ? CACHE_HIT : CACHE_MISS, rows);
     }
 
-    private static String getJson(String query, Object[] params, long time) {
-        return  "{\"sql\":\"" + query.replace("\"", "'") + "\",\"params\":[" + getParamsJson(params) + "]" +
-                ",\"duration_millis\":" + time + "}";
+    /**
+     * Logs a query whose result was found in cache.
+     *
+     * @param logger logger to use
+     * @param query query text
+     * @param params params used  in a query
+     */
+    public static void logCacheHit(Logger logger, String query, Object[] params){
+        logQuery(logger, query, params, 0, CACHE_HIT, -1);
     }
 
-    private static String getJson(String query, Object[] params, long time, boolean cacheHit) {
-        return  "{\"sql\":\"" + JSONHelper.sanitize(query) + "\",\"params\":[" + getParamsJson(params) + "]" +
-                (!cacheHit ? (",\"duration_millis\":" + time ): "" ) +
-                ",\"cache\":" + (cacheHit ? "\"hit\"" : "\"miss\"") +
-                "}";
+    private static void logQuery(Logger logger, String query, Object[] params, long nanos, int cache, long rows) {
+        if (Registry.instance().getConfiguration().collectStatistics()) {
+            Registry.instance().getStatisticsQueue().add(QueryExecutionEvent.of(query, nanos, rows, cache == CACHE_HIT));
+        }
+        if (Configuration.hasActiveLogger()) {
+            Configuration.getActiveLogger().log(logger, LogLevel.INFO, () -> getJson(query, params, nanos, cache));
+        } else if (!matchNone && logger.isInfoEnabled() && (matchAll || pattern.matcher(query).matches())) {
+            String message = getJson(query, params, nanos, cache);
+            AsyncLogSink sink = asyncSink;
+            if (sink != null) {
+                sink.info(logger, message);
+            } else {
+                logger.info(message);
+            }
+        }
     }
 
-    private static String getParamsJson(Object[] params){
-        StringBuilder paramsSB = new StringBuilder("");
+    private static String getJson(String query, Object[] params, long nanos, int cache) {
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        sb.append("{\"sql\":\"");
+        appendEscaped(sb, query);
+        sb.append("\",\"params\":[");
+        appendParams(sb, params);
+        sb.append(']');
+        if (cache != CACHE_HIT) {
+            sb.append(",\"duration_millis\":").append(nanos / NANOS_IN_MILLI)
+              .append(",\"duration_nanos\":").append(nanos);
+        }
+        if (cache != NOT_CACHED) {
+            sb.append(",\"cache\":").append(cache == CACHE_HIT ? "\"hit\"" : "\"miss\"");
+        }
+        sb.append('}');
+        String json = sb.toString();
+        if (sb.capacity() > MAX_BUILDER_CAPACITY) { // do not keep memory of a huge query in every thread
+            BUILDER.remove();
+        }
+        return json;
+    }
+
+    private static void appendParams(StringBuilder sb, Object[] params){
         if (params != null) {
             for (int i = 0; i < params.length; i++) {
-                if(params[i] instanceof Number){
-                    paramsSB.append(JSONHelper.sanitize(params[i].toString()));
-                }else if(params[i] instanceof byte[]){
-                    paramsSB.append("\"bytes[...]\"");
-                }else {
-                    if(params[i] == null){
-                        paramsSB.append("null");
-                    }else {
-                        paramsSB.append("\"").append(JSONHelper.sanitize(params[i].toString())).append("\"");
-                    }
+                if (i != 0) {
+                    sb.append(',');
                 }
-                if(i != (params.length - 1)){
-                    paramsSB.append(",");
+                Object param = params[i];
+                if (param == null) {
+                    sb.append("null");
+                } else if (param instanceof Number) {
+                    appendEscaped(sb, param.toString());
+                } else if (param instanceof byte[]) {
+                    sb.append("\"bytes[...]\"");
+                } else {
+                    sb.append('"');
+                    appendEscaped(sb, param.toString());
+                    sb.append('"');
                 }
             }
         }
-        return paramsSB.toString();
+    }
+
+    /**
+     * Escapes like {@link org.javalite.json.JSONHelper#sanitize(String)}, without creating a copy of a value.
+     */
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\b': sb.append("\\b"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\f': sb.append("\\f"); break;
+                default:
+                    if (c <= 0x1f || c == '\u2028' || c == '\u2029') {
+                        sb.append("\\u");
+                        String hex = Integer.toHexString(c);
+                        for (int pad = hex.length(); pad < 4; pad++) {
+                            sb.append('0');
+                        }
+                        sb.append(hex);
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
     }
 
     public static void log(Logger logger, LogLevel logLevel, Supplier<String> messageSupplier){
@@ -0,0 +1,521 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc.pool;
+
+import org.javalite.activejdbc.InitException;
+import org.javalite.activejdbc.connection_config.ConnectionJdbcConfig;
+import org.javalite.activejdbc.connection_config.ConnectionPoolConfig;
+import org.javalite.activejdbc.logging.LogFilter;
+import org.javalite.activejdbc.logging.LogLevel;
+import org.javalite.json.JSONHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.javalite.common.Collections.map;
+
+/**
+ * Built-in JDBC connection pool. Used by {@link org.javalite.activejdbc.DB#open(org.javalite.activejdbc.connection_config.ConnectionConfig)}
+ * when a {@link ConnectionJdbcConfig} has {@link ConnectionPoolConfig} set, but can also be used directly as a
+ * <code>DataSource</code>.
+ *
+ * <p></p>
+ * Borrowing and returning connections does not take locks: idle connections are kept in a lock-free deque
+ * (most recently used first), and the maximum size is enforced by a semaphore, which only blocks when the pool
+ * is exhausted. A shared daemon thread closes connections idle for too long, keeps the pool at its minimum size,
+ * and reports connections that were not returned in time.
+ *
+ * @author Igor Polevoy
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService HOUSEKEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "activejdbc-pool-housekeeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ConnectionJdbcConfig jdbcConfig;
+    private final ConnectionPoolConfig config;
+    private final String key;
+
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    private final ScheduledFuture<?> housekeeping;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool. Prefer {@link #of(ConnectionJdbcConfig)}, which shares one pool between all callers
+     * with the same configuration.
+     *
+     * @param jdbcConfig JDBC connection spec with pool settings.
+     */
+    public ConnectionPool(ConnectionJdbcConfig jdbcConfig) {
+        this(jdbcConfig, jdbcConfig.getPoolConfig() == null ? new ConnectionPoolConfig() : jdbcConfig.getPoolConfig());
+    }
+
+    private ConnectionPool(ConnectionJdbcConfig jdbcConfig, ConnectionPoolConfig config) {
+        this.jdbcConfig = jdbcConfig;
+        this.config = config;
+        this.key = keyOf(jdbcConfig);
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        try {
+            Class.forName(jdbcConfig.getDriver());
+        } catch (ClassNotFoundException e) {
+            throw new InitException("Failed to load JDBC driver: " + jdbcConfig.getDriver(), e);
+        }
+        fill();
+        long period = 30000;
+        if (config.getIdleTimeoutMillis() > 0) {
+            period = Math.min(period, config.getIdleTimeoutMillis() / 2);
+        }
+        if (config.getLeakThresholdMillis() > 0) {
+            period = Math.min(period, config.getLeakThresholdMillis() / 2);
+        }
+        period = Math.max(period, 100);
+        housekeeping = HOUSEKEEPER.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        LogFilter.log(LOGGER, LogLevel.INFO, "Started connection pool for URL: {}, settings: {}", jdbcConfig.getUrl(), config);
+    }
+
+    /**
+     * Returns a pool for a JDBC configuration, creating one if needed. Configurations with the same driver, URL,
+     * credentials and pool settings share the same pool.
+     *
+     * @param jdbcConfig JDBC connection spec with pool settings.
+     * @return pool for the configuration.
+     */
+    public static ConnectionPool of(ConnectionJdbcConfig jdbcConfig) {
+        ConnectionPool pool = POOLS.get(keyOf(jdbcConfig));
+        return pool != null ? pool : POOLS.computeIfAbsent(keyOf(jdbcConfig), k -> new ConnectionPool(jdbcConfig));
+    }
+
+    /**
+     * @return all pools created by {@link #of(ConnectionJdbcConfig)} and not closed yet.
+     */
+    public static List<ConnectionPool> pools() {
+        return new ArrayList<>(POOLS.values());
+    }
+
+    /**
+     * Closes all pools created by {@link #of(ConnectionJdbcConfig)}.
+     */
+    public static void closeAll() {
+        for (ConnectionPool pool : pools()) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Reports a connection left open by application code and about to be closed by the framework. This is a
+     * no-op for connections that did not come from a pool.
+     *
+     * @param connection connection that was leaked.
+     * @return true if the connection came from a pool.
+     */
+    public static boolean reportLeak(Connection connection) {
+        PooledConnection pooled = PooledConnection.of(connection);
+        if (pooled == null) {
+            return false;
+        }
+        pooled.pool.leakCount.increment();
+        if (pooled.borrowedAt != null) {
+            LOGGER.warn("CONNECTION LEAK DETECTED: connection borrowed by thread {} was not closed", pooled.borrowedByThread, pooled.borrowedAt);
+        } else {
+            LOGGER.warn("CONNECTION LEAK DETECTED: connection borrowed by thread {} was not closed. Set pool "
+                    + "leak_threshold to log where it was borrowed", pooled.borrowedByThread);
+        }
+        return true;
+    }
+
+    private static String keyOf(ConnectionJdbcConfig jdbcConfig) {
+        return jdbcConfig.getDriver() + "|" + jdbcConfig.getUrl() + "|" + jdbcConfig.getUser() + "|" + jdbcConfig.getPassword()
+                + "|" + jdbcConfig.getProps() + "|" + jdbcConfig.getPoolConfig();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed: " + jdbcConfig.getUrl());
+        }
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(config.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection from pool: " + jdbcConfig.getUrl(), e);
+            }
+            if (!acquired) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Timed out after " + config.getMaxWaitMillis()
+                        + " milliseconds waiting for a connection from pool: " + jdbcConfig.getUrl() + ", " + this);
+            }
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        borrowCount.increment();
+        try {
+            PooledConnection pooled = take();
+            borrowed.add(pooled);
+            return pooled.borrow(config.getLeakThresholdMillis() > 0);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Caller must hold a permit, which guarantees that either an idle connection exists, or a new one can be opened.
+     */
+    private PooledConnection take() throws SQLException {
+        while (true) {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (!config.isValidateOnBorrow() || isValid(pooled)) {
+                    return pooled;
+                }
+                LogFilter.log(LOGGER, LogLevel.DEBUG, "Discarding invalid connection: {}", pooled.connection);
+                discard(pooled);
+            }
+            if (reserve(config.getMaxSize())) {
+                try {
+                    return create();
+                } catch (SQLException | RuntimeException e) {
+                    total.decrementAndGet();
+                    throw e;
+                }
+            }
+            // housekeeper is adding a connection to the idle deque right now
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.connection.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean reserve(int limit) {
+        int current;
+        do {
+            current = total.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection connection = jdbcConfig.getProps() != null
+                ? DriverManager.getConnection(jdbcConfig.getUrl(), jdbcConfig.getProps())
+                : DriverManager.getConnection(jdbcConfig.getUrl(), jdbcConfig.getUser(), jdbcConfig.getPassword());
+        createdCount.increment();
+        LogFilter.log(LOGGER, LogLevel.DEBUG, "Opened pooled connection: {}, URL: {}", connection, jdbcConfig.getUrl());
+        return new PooledConnection(this, connection);
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        pooled.closePhysical();
+    }
+
+    /**
+     * Called when a borrowed connection is closed.
+     */
+    void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+        try {
+            boolean discard = closed || pooled.broken;
+            if (!discard) {
+                try {
+                    if (!pooled.connection.getAutoCommit()) {
+                        LogFilter.log(LOGGER, LogLevel.WARNING, "Connection returned to pool with a transaction in progress, rolling back: {}", pooled.connection);
+                        pooled.connection.rollback();
+                        pooled.connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e) {
+                    discard = true;
+                }
+            }
+            if (discard) {
+                discard(pooled);
+            } else {
+                pooled.lastReturnedNanos = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void fill() {
+        while (!closed && reserve(config.getMinSize())) {
+            try {
+                idle.offerLast(create());
+            } catch (SQLException | RuntimeException e) {
+                total.decrementAndGet();
+                LOGGER.warn("Failed to open a connection to maintain minimum pool size for URL: " + jdbcConfig.getUrl(), e);
+                return;
+            }
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fill();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            LOGGER.error("Connection pool maintenance failed for URL: " + jdbcConfig.getUrl(), e);
+        }
+    }
+
+    /**
+     * Closes connections that were idle longer than idle timeout, oldest first, while the pool is above its minimum size.
+     */
+    void evictIdle() {
+        if (config.getIdleTimeoutMillis() <= 0) {
+            return;
+        }
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        long now = System.nanoTime();
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && total.get() > config.getMinSize()) {
+            PooledConnection pooled = iterator.next();
+            // removal fails if a borrower took this connection in the meantime
+            if (now - pooled.lastReturnedNanos > timeoutNanos && idle.removeFirstOccurrence(pooled)) {
+                evictedCount.increment();
+                discard(pooled);
+            }
+        }
+    }
+
+    /**
+     * Logs connections that were borrowed longer than leak threshold. Each borrow is reported once.
+     */
+    void detectLeaks() {
+        if (config.getLeakThresholdMillis() <= 0) {
+            return;
+        }
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getLeakThresholdMillis());
+        long now = System.nanoTime();
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedNanos > thresholdNanos) {
+                pooled.leakReported = true;
+                leakCount.increment();
+                LOGGER.warn("CONNECTION LEAK DETECTED: connection borrowed by thread " + pooled.borrowedByThread + " was not returned to pool for "
+                        + TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedNanos) + " milliseconds, URL: " + jdbcConfig.getUrl(), pooled.borrowedAt);
+            }
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the pool. Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeping.cancel(false);
+        POOLS.remove(key, this);
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        LogFilter.log(LOGGER, LogLevel.INFO, "Closed connection pool for URL: {}", jdbcConfig.getUrl());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public ConnectionPoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return number of connections currently borrowed.
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return number of open connections waiting in the pool.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return number of physical connections open, borrowed and idle.
+     */
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    /**
+     * @return approximate number of threads blocked waiting for a connection.
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * @return average time in nanoseconds spent waiting for a connection, including borrows that did not wait.
+     */
+    public long getAverageWaitNanos() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : waitNanos.sum() / count;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * @return number of borrow attempts that gave up after waiting for max wait time.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    /**
+     * @return number of connections reported as leaked, by the pool itself or by {@link #reportLeak(Connection)}.
+     */
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    /**
+     * @return pool metrics as a map, suitable for monitoring.
+     */
+    public Map<String, Object> getStatistics() {
+        return map("url", jdbcConfig.getUrl(), "active", getActiveCount(), "idle", getIdleCount(), "total", getTotalCount(),
+                "waiting", getWaitingCount(), "borrowed", getBorrowCount(), "avg_wait_nanos", getAverageWaitNanos(),
+                "max_wait_nanos", getMaxWaitNanos(), "timeouts", getTimeoutCount(), "created", getCreatedCount(),
+                "evicted", getEvictedCount(), "leaks", getLeakCount());
+    }
+
+    @Override
+    public String toString() {
+        return JSONHelper.toJSON(getStatistics());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are set by ConnectionJdbcConfig of this pool");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        throw new SQLException("Not a wrapper for: " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
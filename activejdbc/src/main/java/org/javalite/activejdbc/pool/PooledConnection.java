@@ -0,0 +1,130 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Physical connection managed by a {@link ConnectionPool}, together with its bookkeeping. Every borrow hands out
+ * a new proxy, so that a stale reference kept by a previous borrower cannot reach the connection after it was
+ * returned to the pool.
+ *
+ * @author Igor Polevoy
+ */
+final class PooledConnection {
+
+    private static final Class<?>[] INTERFACES = {Connection.class};
+
+    final ConnectionPool pool;
+    final Connection connection;
+
+    volatile long lastReturnedNanos;
+    volatile long borrowedNanos;
+    volatile String borrowedByThread;
+    volatile Throwable borrowedAt;
+    volatile boolean leakReported;
+    volatile boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+        this.lastReturnedNanos = System.nanoTime();
+    }
+
+    /**
+     * @param trace true to record a stack trace of the borrower for leak reports.
+     * @return new proxy that returns this connection to the pool when closed.
+     */
+    Connection borrow(boolean trace) {
+        borrowedNanos = System.nanoTime();
+        borrowedByThread = Thread.currentThread().getName();
+        borrowedAt = trace ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), INTERFACES, new Handle());
+    }
+
+    /**
+     * @param connection connection handed out by a pool.
+     * @return pooled connection behind the proxy or null if this is not a pooled connection.
+     */
+    static PooledConnection of(Connection connection) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(connection);
+            if (handler instanceof Handle) {
+                return ((Handle) handler).pooled();
+            }
+        }
+        return null;
+    }
+
+    void closePhysical() {
+        try {
+            connection.close();
+        } catch (SQLException ignore) {}
+    }
+
+    private final class Handle implements InvocationHandler {
+        private volatile boolean closed;
+
+        PooledConnection pooled() {
+            return PooledConnection.this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + connection + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection was returned to pool and cannot be used any longer");
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof SQLException) {
+                            String state = ((SQLException) cause).getSQLState();
+                            // SQL state class 08 is "connection exception": do not return this one to the pool
+                            if (state != null && state.startsWith("08")) {
+                                broken = true;
+                            }
+                        }
+                        throw cause;
+                    }
+            }
+        }
+    }
+}
@@ -17,9 +17,14 @@ limitations under the License.
 
 package org.javalite.activejdbc.statistics;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
+ * Execution of a query, reported to {@link StatisticsQueue}. Queries are normalized into shapes, so that executions
+ * which differ only in values are reported together: values of <code>IN</code> lists, offsets, inserted values,
+ * string literals and numbers compared with columns are replaced.
+ *
  * @author Igor Polevoy
  */
 public class QueryExecutionEvent {
@@ -27,33 +32,103 @@ public class QueryExecutionEvent {
     private static final Pattern IN_PATTERN = Pattern.compile("(IN|in)\\s*\\(.*\\)", Pattern.CASE_INSENSITIVE);
     private static final Pattern OFFSET_PATTERN = Pattern.compile("(offset|OFFSET|Offset)\\s*\\d*", Pattern.CASE_INSENSITIVE);
     private static final Pattern INSERT_INTO_PATTERN = Pattern.compile("INSERT.*into.*VALUES.*", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern STRING_PATTERN = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("(=|<>|!=|<|>)(\\s*)-?\\d+(?:\\.\\d+)?\\b");
 
+    private static final int MAX_SHAPES = 10000;
+    private static final ConcurrentHashMap<String, String> SHAPES = new ConcurrentHashMap<>();
 
+    private final String query;
+    private final long time, nanos, rows;
+    private final boolean cacheHit;
 
-    private String query;
-    private final long time;
-
+    /**
+     * @param query query, or another named operation
+     * @param time time in milliseconds it took to execute
+     */
     public QueryExecutionEvent(String query, long time) {
-        this.query = IN_PATTERN.matcher(query).replaceAll("IN (...)");
-        this.query = OFFSET_PATTERN.matcher(this.query).replaceAll("offset ...");
+        this(query, time * 1000000, -1, false);
+    }
+
+    private QueryExecutionEvent(String query, long nanos, long rows, boolean cacheHit) {
+        this.query = shapeOf(query);
+        this.time = nanos / 1000000;
+        this.nanos = nanos;
+        this.rows = rows;
+        this.cacheHit = cacheHit;
+    }
+
+    /**
+     * @param query query
+     * @param nanos time in nanoseconds it took to execute the query, ignored for cache hits
+     * @param rows number of rows returned, or -1 if not known
+     * @param cacheHit true if the result was found in cache, and the query was not executed
+     * @return new event
+     */
+    public static QueryExecutionEvent of(String query, long nanos, long rows, boolean cacheHit) {
+        return new QueryExecutionEvent(query, nanos, rows, cacheHit);
+    }
+
+    /**
+     * Shapes of queries are remembered, as most queries are executed many times with parameters. Queries with
+     * inlined values would grow this without bound, so at most {@value #MAX_SHAPES} are remembered.
+     */
+    private static String shapeOf(String query) {
+        String shape = SHAPES.get(query);
+        if (shape == null) {
+            shape = normalize(query);
+            if (SHAPES.size() < MAX_SHAPES) {
+                SHAPES.put(query, shape);
+            }
+        }
+        return shape;
+    }
+
+    private static String normalize(String query) {
+        String shape = IN_PATTERN.matcher(query).replaceAll("IN (...)");
+        shape = OFFSET_PATTERN.matcher(shape).replaceAll("offset ...");
 
         if(query.contains("TabSeparated")){
-            this.query = query.substring(0, query.indexOf("TabSeparated")) + "...";
+            shape = query.substring(0, query.indexOf("TabSeparated")) + "...";
         }
 
         if(INSERT_INTO_PATTERN.matcher(query).matches()){
             String lowerCase = query.toLowerCase();
-            this.query = query.substring(0, lowerCase.indexOf("values")) + " VALUES (...)";
+            shape = query.substring(0, lowerCase.indexOf("values")) + " VALUES (...)";
         }
 
-        this.time = time;
+        if (shape.indexOf('\'') != -1) {
+            shape = STRING_PATTERN.matcher(shape).replaceAll("?");
+        }
+        return NUMBER_PATTERN.matcher(shape).replaceAll("$1$2?");
     }
 
     public String getQuery() {
         return query;
     }
 
+    /**
+     * @return time in milliseconds it took to execute the query
+     */
     public long getTime() {
         return time;
     }
+
+    /**
+     * @return time in nanoseconds it took to execute the query
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return number of rows returned, or -1 if not known
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
 }
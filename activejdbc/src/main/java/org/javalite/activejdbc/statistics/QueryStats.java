@@ -17,15 +17,26 @@ limitations under the License.
 
 package org.javalite.activejdbc.statistics;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
- * This class represents statistical information for one query.
+ * This class represents statistical information for one query. Execution times are kept in nanoseconds in a
+ * histogram, to report percentiles. Methods without a unit in their names report milliseconds.
+ *
+ * <p></p>
+ * This class is thread safe and lock free: queries are added by threads which executed them.
  *
  * @author Igor Polevoy
  */
 public class QueryStats {
+    private static final long NANOS_IN_MILLI = 1000000;
 
     private final String query;//this is needed for report.
-    private long total, avg, min, max, count;
+    private final LongAdder count = new LongAdder(), totalNanos = new LongAdder(), rows = new LongAdder(),
+            rowCounts = new LongAdder(), cacheHits = new LongAdder();
+    private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE), maxNanos = new AtomicLong();
+    private final LatencyHistogram histogram = new LatencyHistogram();
 
     public QueryStats(String query) {
         this.query = query;
@@ -37,33 +48,131 @@ public class QueryStats {
      * @param time time in milliseconds it took to execute the query
      */
     public void addQueryTime(long time){
-        if (time < min || min == 0) min = time;
+        addQueryNanos(time * NANOS_IN_MILLI, -1);
+    }
 
-        if (time > max || max == 0) max = time;
+    /**
+     * Adds an execution of this query.
+     *
+     * @param nanos time in nanoseconds it took to execute the query
+     * @param rows number of rows returned, or -1 if not known
+     */
+    public void addQueryNanos(long nanos, long rows) {
+        count.increment();
+        totalNanos.add(nanos);
+        histogram.record(nanos);
+        long min;
+        while (nanos < (min = minNanos.get()) && !minNanos.compareAndSet(min, nanos)) { }
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) { }
+        if (rows >= 0) {
+            this.rows.add(rows);
+            rowCounts.increment();
+        }
+    }
 
-        avg = Math.round((avg + (time - avg) / (double) (++count)));
+    /**
+     * Adds a result of this query found in cache. Cache hits are not counted as executions.
+     */
+    public void addCacheHit() {
+        cacheHits.increment();
+    }
 
-        total += time;
+    private static long millis(long nanos) {
+        return Math.round(nanos / (double) NANOS_IN_MILLI);
     }
 
     public long getAvg() {
-        return avg;
+        return millis(getAvgNanos());
     }
 
     public long getMin() {
-        return min;
+        return millis(getMinNanos());
     }
 
     public long getMax() {
-        return max;
+        return millis(getMaxNanos());
     }
 
     public long getCount() {
-        return count;
+        return count.sum();
     }
 
     public long getTotal() {
-        return total;
+        return millis(getTotalNanos());
+    }
+
+    public long getAvgNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : Math.round(getTotalNanos() / (double) count);
+    }
+
+    public long getMinNanos() {
+        long min = minNanos.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @param percentile percentile, between 0 and 100
+     * @return execution time in nanoseconds, which is within 1/16 of the real value at this percentile.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        return histogram.valueAt(percentile, getMaxNanos());
+    }
+
+    public long getP50Nanos() {
+        return getPercentileNanos(50);
+    }
+
+    public long getP95Nanos() {
+        return getPercentileNanos(95);
+    }
+
+    public long getP99Nanos() {
+        return getPercentileNanos(99);
+    }
+
+    public long getP999Nanos() {
+        return getPercentileNanos(99.9);
+    }
+
+    /**
+     * @return total number of rows returned by executions which reported them.
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * @return average number of rows returned by executions which reported them.
+     */
+    public double getAvgRows() {
+        long counts = rowCounts.sum();
+        return counts == 0 ? 0 : getRows() / (double) counts;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return share of cache hits among cache hits and executions, between 0 and 1.
+     */
+    public double getCacheHitRatio() {
+        long hits = getCacheHits();
+        long all = hits + getCount();
+        return all == 0 ? 0 : hits / (double) all;
     }
 
     public String getQuery() {
@@ -74,11 +183,17 @@ public class QueryStats {
     public String toString() {
         return "QueryStats{" +
             "query='" + query + '\'' +
-            ", min=" + min +
-            ", max=" + max +
-            ", count=" + count +
-            ", total=" + total +
-            ", avg=" + avg +
+            ", min=" + getMin() +
+            ", max=" + getMax() +
+            ", count=" + getCount() +
+            ", total=" + getTotal() +
+            ", avg=" + getAvg() +
+            ", p50Nanos=" + getP50Nanos() +
+            ", p95Nanos=" + getP95Nanos() +
+            ", p99Nanos=" + getP99Nanos() +
+            ", p999Nanos=" + getP999Nanos() +
+            ", rows=" + getRows() +
+            ", cacheHits=" + getCacheHits() +
             '}';
     }
 }
@@ -0,0 +1,98 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.statistics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Query which took longer than a threshold of its database, see {@link SlowQueryLog}.
+ *
+ * @author Igor Polevoy
+ */
+public class SlowQuery {
+    private final String dbName, query, plan, thread;
+    private final Object[] params;
+    private final long nanos, time;
+    private final StackTraceElement[] stack;
+
+    SlowQuery(String dbName, String query, Object[] params, long nanos, String plan, StackTraceElement[] stack) {
+        this.dbName = dbName;
+        this.query = query;
+        this.params = params == null ? new Object[0] : params.clone();
+        this.nanos = nanos;
+        this.plan = plan;
+        this.stack = stack;
+        this.time = System.currentTimeMillis();
+        this.thread = Thread.currentThread().getName();
+    }
+
+    public String getDbName() {
+        return dbName;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<Object> getParams() {
+        return Arrays.asList(params.clone());
+    }
+
+    /**
+     * @return time in nanoseconds it took to execute the query
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return time when the query was reported, in milliseconds since epoch
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return plan of the query, one line per row returned by <code>EXPLAIN</code>, or null if the query was not
+     * sampled, or cannot be explained.
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    /**
+     * @return stack of the code which executed the query, starting with the first frame outside of ActiveJDBC.
+     */
+    public List<StackTraceElement> getStack() {
+        return Arrays.asList(stack.clone());
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQuery{" +
+            "dbName='" + dbName + '\'' +
+            ", query='" + query + '\'' +
+            ", params=" + Arrays.toString(params) +
+            ", nanos=" + nanos +
+            ", plan='" + plan + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,272 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.statistics;
+
+import org.javalite.activejdbc.Configuration;
+import org.javalite.activejdbc.DB;
+import org.javalite.activejdbc.Model;
+import org.javalite.activejdbc.dialects.Dialect;
+import org.javalite.activejdbc.dialects.Dialects;
+import org.javalite.activejdbc.logging.LogFilter;
+import org.javalite.activejdbc.logging.LogLevel;
+import org.javalite.json.JSONHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.security.CodeSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps most recent queries which took longer than a threshold, with their parameters, plans and stacks of code
+ * which executed them. Thresholds are configured in <code>activejdbc.properties</code> per database name, or for all
+ * databases:
+ * <pre>
+ *     slowQueryThresholdMillis = 500
+ *     slowQueryThresholdMillis.reports = 5000
+ *     slowQueryExplainSampleRate = 0.1
+ *     slowQueryLogSize = 100
+ * </pre>
+ *
+ * Plans are read with <code>EXPLAIN</code> where the dialect supports it (PostgreSQL, MySQL and H2), for a share
+ * of slow queries given by <code>slowQueryExplainSampleRate</code>. If a data source is set with
+ * {@link #setExplainDataSource(String, DataSource)}, plans are read on a separate connection from it. Otherwise they
+ * are read on the connection which executed the query, and inside a transaction a savepoint is used, so that a
+ * failed <code>EXPLAIN</code> does not affect the transaction.
+ *
+ * <p></p>
+ * Slow queries are kept in a ring buffer: when it is full, the oldest query is replaced.
+ *
+ * @author Igor Polevoy
+ */
+public class SlowQueryLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(SELECT|WITH|UPDATE|DELETE)\\b", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_STACK_DEPTH = 32;
+    private static final CodeSource FRAMEWORK = Model.class.getProtectionDomain().getCodeSource();
+
+    private final Configuration configuration;
+    private final ConcurrentHashMap<String, Long> thresholdNanos = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, DataSource> explainDataSources = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SlowQuery> buffer;
+    private final AtomicLong next = new AtomicLong();
+    private volatile boolean enabled;
+    private volatile double explainSampleRate;
+
+    public SlowQueryLog(Configuration configuration) {
+        this.configuration = configuration;
+        this.buffer = new AtomicReferenceArray<>(Math.max(1, configuration.getSlowQueryLogSize()));
+        this.explainSampleRate = configuration.getSlowQueryExplainSampleRate();
+        this.enabled = configuration.hasSlowQueryThresholds();
+    }
+
+    /**
+     * Overrides a threshold of a database from <code>activejdbc.properties</code>.
+     *
+     * @param dbName name of a database
+     * @param millis time in milliseconds after which queries are slow, or -1 to stop keeping slow queries
+     */
+    public void setThresholdMillis(String dbName, long millis) {
+        thresholdNanos.put(dbName, millis < 0 ? -1 : millis * 1000000);
+        if (millis >= 0) {
+            enabled = true;
+        }
+    }
+
+    /**
+     * @param rate share of slow queries to get a plan for, between 0 and 1
+     */
+    public void setExplainSampleRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("rate must be between 0 and 1");
+        }
+        explainSampleRate = rate;
+    }
+
+    /**
+     * @param dbName name of a database
+     * @param dataSource data source to get connections for <code>EXPLAIN</code> from, or null to use connections
+     *                   which executed queries.
+     */
+    public void setExplainDataSource(String dbName, DataSource dataSource) {
+        if (dataSource == null) {
+            explainDataSources.remove(dbName);
+        } else {
+            explainDataSources.put(dbName, dataSource);
+        }
+    }
+
+    private long thresholdNanos(String dbName) {
+        return thresholdNanos.computeIfAbsent(dbName, name -> {
+            long millis = configuration.getSlowQueryThresholdMillis(name);
+            return millis < 0 ? -1 : millis * 1000000;
+        });
+    }
+
+    /**
+     * Keeps a query if it took longer than the threshold of its database. Called right after a query is executed,
+     * on the thread and connection which executed it.
+     *
+     * @param dbName name of a database
+     * @param query query text
+     * @param params query parameters
+     * @param startNanos value of <code>System.nanoTime()</code> before the query was executed
+     */
+    public void check(String dbName, String query, Object[] params, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long threshold = thresholdNanos(dbName);
+        if (threshold < 0 || nanos < threshold) {
+            return;
+        }
+        String plan = null;
+        // batches are checked without parameters, which EXPLAIN of a parametrized query cannot do without
+        if (explainSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < explainSampleRate
+                && EXPLAINABLE.matcher(query).find() && (params != null || query.indexOf('?') < 0)) {
+            plan = explain(dbName, query, params);
+        }
+        SlowQuery slowQuery = new SlowQuery(dbName, query, params, nanos, plan, callSite());
+        buffer.set((int) (next.getAndIncrement() % buffer.length()), slowQuery);
+        LogFilter.log(LOGGER, LogLevel.WARNING, "Slow query: {}, duration millis: {}", query, nanos / 1000000);
+    }
+
+    private String explain(String dbName, String query, Object[] params) {
+        DataSource dataSource = explainDataSources.get(dbName);
+        try {
+            if (dataSource != null) {
+                try (Connection connection = dataSource.getConnection()) {
+                    return explain(connection, query, params);
+                }
+            }
+            DB db = new DB(dbName);
+            if (!db.hasConnection()) {
+                return null;
+            }
+            Connection connection = db.connection();
+            if (connection.getAutoCommit()) {
+                return explain(connection, query, params);
+            }
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                String plan = explain(connection, query, params);
+                connection.releaseSavepoint(savepoint);
+                return plan;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            LogFilter.log(LOGGER, LogLevel.WARNING, "Failed to explain slow query: {}", e.getMessage());
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    private static String explain(Connection connection, String query, Object[] params) throws SQLException {
+        Dialect dialect = Dialects.getDialect(connection.getMetaData().getDatabaseProductName());
+        String explain = dialect.explain(query);
+        if (explain == null) {
+            return null;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(explain)) {
+            if (params != null) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    if (plan.length() > 0) {
+                        plan.append('\n');
+                    }
+                    for (int i = 1; i <= columns; i++) {
+                        plan.append(i == 1 ? "" : "\t").append(rs.getString(i));
+                    }
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * @return stack of the calling thread, starting with the first frame outside of ActiveJDBC.
+     */
+    private static StackTraceElement[] callSite() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+                .dropWhile(frame -> Objects.equals(frame.getDeclaringClass().getProtectionDomain().getCodeSource(), FRAMEWORK))
+                .limit(MAX_STACK_DEPTH)
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .toArray(StackTraceElement[]::new));
+    }
+
+    /**
+     * @return slow queries kept, from the oldest to the most recent.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        long end = next.get();
+        long start = Math.max(0, end - buffer.length());
+        List<SlowQuery> queries = new ArrayList<>();
+        for (long i = start; i < end; i++) {
+            SlowQuery query = buffer.get((int) (i % buffer.length()));
+            if (query != null) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * @return slow queries kept, from the oldest to the most recent, as a JSON array.
+     */
+    public String toJSON() {
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (SlowQuery query : getSlowQueries()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("db", query.getDbName());
+            map.put("sql", query.getQuery());
+            map.put("params", query.getParams().stream()
+                    .map(p -> p == null || p instanceof Number || p instanceof Boolean ? p : p instanceof byte[] ? "bytes[...]" : p.toString())
+                    .collect(Collectors.toList()));
+            map.put("duration_millis", query.getNanos() / 1000000);
+            map.put("duration_nanos", query.getNanos());
+            map.put("time", query.getTime());
+            map.put("thread", query.getThread());
+            map.put("plan", query.getPlan());
+            map.put("stack", query.getStack().stream().map(StackTraceElement::toString).collect(Collectors.toList()));
+            queries.add(map);
+        }
+        return JSONHelper.toJSON(queries);
+    }
+
+    /**
+     * Removes all slow queries kept.
+     */
+    public void clear() {
+        for (int i = 0; i < buffer.length(); i++) {
+            buffer.set(i, null);
+        }
+    }
+}
@@ -1,28 +1,33 @@
 package org.javalite.activejdbc.statistics;
 
-import java.util.Comparator;
+import java.util.function.ToLongFunction;
 
 /**
  * @author stas
  */
 enum SortBy {
-    total((o1, o2) -> compareLongs(o2.getTotal(), o1.getTotal())),
-    avg((o1, o2) -> compareLongs(o2.getAvg(), o1.getAvg())),
-    min((o1, o2) -> compareLongs(o2.getMin(), o1.getMin())),
-    max ((o1, o2) -> compareLongs(o2.getMax(), o1.getMax())),
-    count((o1, o2) -> compareLongs(o2.getCount(), o1.getCount()));
+    total(QueryStats::getTotal),
+    avg(QueryStats::getAvg),
+    min(QueryStats::getMin),
+    max(QueryStats::getMax),
+    count(QueryStats::getCount),
+    p50(QueryStats::getP50Nanos),
+    p95(QueryStats::getP95Nanos),
+    p99(QueryStats::getP99Nanos),
+    p999(QueryStats::getP999Nanos),
+    rows(QueryStats::getRows),
+    cacheHits(QueryStats::getCacheHits);
 
-    private static int compareLongs(long v2, long v1) {
-        return v2 > v1 ? 1 : (v2 == v1 ? 0 : -1);
-    }
-
-    private final Comparator<? super QueryStats> comparator;
+    private final ToLongFunction<QueryStats> value;
 
-    SortBy(Comparator<? super QueryStats> comparator) {
-        this.comparator = comparator;
+    SortBy(ToLongFunction<QueryStats> value) {
+        this.value = value;
     }
 
-    public Comparator<? super QueryStats> getComparator() {
-        return comparator;
+    /**
+     * @return value to sort by, reports are sorted by it in descending order.
+     */
+    public ToLongFunction<QueryStats> getValue() {
+        return value;
     }
-}
\ No newline at end of file
+}
@@ -17,15 +17,15 @@ limitations under the License.
 
 package org.javalite.activejdbc.statistics;
 
-import org.javalite.activejdbc.logging.LogFilter;
-import org.javalite.activejdbc.logging.LogLevel;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
 
 /**
  * This class will collect statistics on executed queries and then can produce reports sorted by
@@ -40,28 +40,37 @@ import java.util.concurrent.*;
  *     List<QueryStats>  totals = Registry.getStatisticsQueue().getReportSortedBy("total") {
  * </pre>
  *
+ * <p></p>
+ * Events are added to statistics in threads which executed queries, without locks, so that collecting statistics
+ * adds neither a queue nor a thread hop to a query. Statistics are kept for at most
+ * <code>collectStatisticsMaxQueries</code> shapes of queries, 1000 by default, see {@link QueryExecutionEvent}.
+ * When there are more, a tenth of shapes which were executed the least are dropped.
  *
  * @author Igor Polevoy
  */
 public class StatisticsQueue {
+    public static final int DEFAULT_MAX_QUERIES = 1000;
 
-    private final ExecutorService worker;
     private final ConcurrentMap<String, QueryStats> statsByQuery = new ConcurrentHashMap<>();
-
-    private volatile boolean paused;
-
-    private static final Logger LOGGER = LoggerFactory.getLogger(StatisticsQueue.class);
+    private final int maxQueries;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder evicted = new LongAdder();
+    private volatile boolean paused, stopped;
 
     public StatisticsQueue(boolean paused) {
+        this(paused, DEFAULT_MAX_QUERIES);
+    }
+
+    /**
+     * @param paused true to start paused
+     * @param maxQueries maximum number of shapes of queries to keep statistics for
+     */
+    public StatisticsQueue(boolean paused, int maxQueries) {
+        if (maxQueries < 1) {
+            throw new IllegalArgumentException("maxQueries must be positive");
+        }
         this.paused = paused;
-        worker = Executors.newFixedThreadPool(1, new ThreadFactory() {
-            @Override public Thread newThread(Runnable runnable) {
-                Thread res = new Thread(runnable);
-                res.setDaemon(true);
-                res.setName("Statistics queue thread");
-                return res;
-            }
-        });
+        this.maxQueries = maxQueries;
     }
 
     public boolean isPaused() {
@@ -72,10 +81,7 @@ public class StatisticsQueue {
      * Shutdowns StatisticsQueue completely, new StatisticsQueue should be created to start gathering statistics again
      */
     public void stop() {
-        int notProcessed = worker.shutdownNow().size();
-        if (notProcessed != 0) {
-            LogFilter.log(LOGGER, LogLevel.INFO, "Worker exiting, {} execution events remaining, time: {}", notProcessed, System.currentTimeMillis());
-        }
+        stopped = true;
     }
 
     public void pause(boolean val) {
@@ -83,37 +89,110 @@ public class StatisticsQueue {
     }
 
     /**
-     * Enqueues a query execution event for processing.
+     * Adds a query execution event to statistics, in the calling thread.
      *
      * @param event instance of event.
-     * @return instance of Future associated with processing of event. You can examine that object
-     * to see if this event was processed.  In case the queue is paused, an event is not processed,
-     * and return value is <code>null</code>.
+     * @return completed Future, kept for compatibility, as events are no longer processed asynchronously.
+     * In case the queue is paused, an event is not processed, and return value is <code>null</code>.
      */
     public Future enqueue(final QueryExecutionEvent event) {
-        if (!paused) {
-            return worker.submit(new Runnable() {
-                @Override public void run() {
-                    QueryStats queryStats = statsByQuery.get(event.getQuery());
-                    if (queryStats == null) {
-                        statsByQuery.put(event.getQuery(), queryStats = new QueryStats(event.getQuery()));
-                    }
-                    queryStats.addQueryTime(event.getTime());
-                }
-            });
-        }else{
+        if (paused || stopped) {
             return null;
         }
+        add(event);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Adds a query execution event to statistics, in the calling thread, unless paused.
+     *
+     * @param event instance of event.
+     */
+    public void add(QueryExecutionEvent event) {
+        if (paused || stopped) {
+            return;
+        }
+        QueryStats queryStats = statsByQuery.get(event.getQuery());
+        if (queryStats == null) {
+            queryStats = statsByQuery.computeIfAbsent(event.getQuery(), QueryStats::new);
+            if (statsByQuery.size() > maxQueries) {
+                evict(queryStats);
+            }
+        }
+        if (event.isCacheHit()) {
+            queryStats.addCacheHit();
+        } else {
+            queryStats.addQueryNanos(event.getNanos(), event.getRows());
+        }
+    }
+
+    /**
+     * Drops a tenth of shapes executed the least. Only one thread evicts at a time, others keep going.
+     *
+     * @param added shape just added, which has no executions yet, and is never dropped
+     */
+    private void evict(QueryStats added) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<QueryStats> candidates = new ArrayList<>(statsByQuery.values());
+            if (candidates.size() <= maxQueries) {
+                return;
+            }
+            int toEvict = candidates.size() - maxQueries + maxQueries / 10;
+            candidates.remove(added);
+            candidates = sort(candidates, stats -> stats.getCount() + stats.getCacheHits(), false);
+            int removed = 0;
+            for (int i = 0; i < toEvict && i < candidates.size(); i++) {
+                if (statsByQuery.remove(candidates.get(i).getQuery(), candidates.get(i))) {
+                    removed++;
+                }
+            }
+            evicted.add(removed);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Sorts statistics by values read once, before sorting. Statistics keep changing while they are sorted,
+     * and a comparator reading them again could break the contract of {@link Arrays#sort(Object[], Comparator)}.
+     */
+    private static List<QueryStats> sort(Collection<QueryStats> stats, ToLongFunction<QueryStats> value, boolean descending) {
+        QueryStats[] all = stats.toArray(new QueryStats[0]);
+        long[] values = new long[all.length];
+        Integer[] order = new Integer[all.length];
+        for (int i = 0; i < all.length; i++) {
+            values[i] = value.applyAsLong(all[i]);
+            order[i] = i;
+        }
+        Comparator<Integer> comparator = Comparator.comparingLong(i -> values[i]);
+        Arrays.sort(order, descending ? comparator.reversed() : comparator);
+        List<QueryStats> sorted = new ArrayList<>(all.length);
+        for (int i : order) {
+            sorted.add(all[i]);
+        }
+        return sorted;
+    }
+
+    /**
+     * @return number of shapes of queries dropped since the last reset, to keep memory bounded.
+     */
+    public long getEvicted() {
+        return evicted.sum();
     }
 
     public void reset() {
         statsByQuery.clear();
+        evicted.reset();
     }
 
     /**
      * Produces a report sorted by one of the accepted value.
      *
-     * @param sortByVal - allowed values: "total", "avg", "min", "max", "count"
+     * @param sortByVal - allowed values: "total", "avg", "min", "max", "count", "p50", "p95", "p99", "p999",
+     *                  "rows", "cacheHits"
      * @return  sorted list of query stats
      */
     public List<QueryStats> getReportSortedBy(String sortByVal) {
@@ -123,9 +202,6 @@ public class StatisticsQueue {
         } catch (Exception e) {
             throw new IllegalArgumentException("allowed values are: " + Arrays.toString(SortBy.values()));
         }
-
-        List<QueryStats> res = new ArrayList<>(statsByQuery.values());
-        Collections.sort(res, sortBy.getComparator());
-        return res;
+        return sort(statsByQuery.values(), sortBy.getValue(), true);
     }
 }
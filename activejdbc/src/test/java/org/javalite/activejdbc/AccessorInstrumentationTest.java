@@ -0,0 +1,133 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Warehouse;
+import org.javalite.instrumentation.AccessorInstrumentation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link AccessorInstrumentation} on a copy of a compiled model, the same as the plugin does on
+ * <code>target/classes</code>. Lives here rather than in the instrumentation module, because it needs a model.
+ *
+ * @author Igor Polevoy
+ */
+public class AccessorInstrumentationTest extends ActiveJDBCTest {
+
+    private static final String METADATA = "[{\"modelClass\":\"" + Warehouse.class.getName() + "\",\"columnMetadata\":{"
+            + "\"id\":{\"columnName\":\"id\",\"typeName\":\"INTEGER\",\"columnSize\":10},"
+            + "\"name\":{\"columnName\":\"name\",\"typeName\":\"VARCHAR\",\"columnSize\":56}}}]";
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("accessors");
+        String classFile = Warehouse.class.getName().replace('.', '/') + ".class";
+        Path copy = dir.resolve(classFile);
+        Files.createDirectories(copy.getParent());
+        try (InputStream in = Warehouse.class.getClassLoader().getResourceAsStream(classFile)) {
+            Files.copy(in, copy);
+        }
+        Files.write(dir.resolve("activejdbc_metadata.json"), METADATA.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldGenerateAccessorsFromStaticMetadata() throws Exception {
+        new AccessorInstrumentation().instrument(dir.toString());
+        Class<?> instrumented = load();
+        the(instrumented == Warehouse.class).shouldBeFalse();
+
+        Field attributes = instrumented.getDeclaredField(MetaModel.GENERATED_ATTRIBUTES);
+        the(Modifier.isStatic(attributes.getModifiers())).shouldBeTrue();
+        attributes.setAccessible(true);
+        the(Arrays.equals((String[]) attributes.get(null), new String[]{"id", "name"})).shouldBeTrue();
+
+        Method getter = instrumented.getDeclaredMethod("getName");
+        the(getter.getReturnType()).shouldBeEqual(String.class);
+        Method setter = instrumented.getDeclaredMethod("setName", String.class);
+        the(setter.getReturnType()).shouldBeEqual(instrumented);
+
+        // Model already has getId() and setId(Object)
+        the(declares(instrumented, "getId")).shouldBeFalse();
+        the(declares(instrumented, "setId")).shouldBeFalse();
+
+        // the copy is not registered with its generated names, so accessors fall back to attributes by name
+        Model warehouse = (Model) instrumented.getDeclaredConstructor().newInstance();
+        the(setter.invoke(warehouse, "north")).shouldBeTheSameAs(warehouse);
+        the(getter.invoke(warehouse)).shouldBeEqual("north");
+        the(warehouse.get("name")).shouldBeEqual("north");
+    }
+
+    @Test
+    public void shouldNotGenerateAccessorsTwice() throws Exception {
+        new AccessorInstrumentation().instrument(dir.toString());
+        Path classFile = dir.resolve(Warehouse.class.getName().replace('.', '/') + ".class");
+        byte[] once = Files.readAllBytes(classFile);
+        new AccessorInstrumentation().instrument(dir.toString());
+        the(Arrays.equals(Files.readAllBytes(classFile), once)).shouldBeTrue();
+    }
+
+    private static boolean declares(Class<?> c, String methodName) {
+        for (Method method : c.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the instrumented copy of the model, instead of the one compiled into test classes.
+     */
+    private Class<?> load() throws IOException, ClassNotFoundException {
+        byte[] bytecode = Files.readAllBytes(dir.resolve(Warehouse.class.getName().replace('.', '/') + ".class"));
+        return new ClassLoader(Warehouse.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!name.equals(Warehouse.class.getName())) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> c = findLoadedClass(name);
+                    return c != null ? c : defineClass(name, bytecode, 0, bytecode.length);
+                }
+            }
+        }.loadClass(Warehouse.class.getName());
+    }
+}
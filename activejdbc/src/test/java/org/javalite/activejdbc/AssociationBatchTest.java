@@ -0,0 +1,114 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Address;
+import org.javalite.activejdbc.test_models.Room;
+import org.javalite.common.Util;
+import org.javalite.test.SystemStreamUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Igor Polevoy
+ */
+public class AssociationBatchTest extends ActiveJDBCTest {
+
+    @Before
+    public void setUp() {
+        deleteAndPopulateTables("users", "addresses", "rooms");
+        SystemStreamUtil.replaceOut();
+    }
+
+    @After
+    public void restore() {
+        SystemStreamUtil.restoreSystemOut();
+    }
+
+    private long queries(String table) {
+        return Arrays.stream(Util.split(SystemStreamUtil.getSystemOut(), System.lineSeparator()))
+                .filter(line -> line.contains("\"sql\"") && line.contains("FROM " + table)).count();
+    }
+
+    @Test
+    public void shouldLoadChildrenOfAllModelsAtOnce() {
+        LazyList<Address> addresses = Address.findAll().orderBy("id").batchAssociations();
+        the(addresses.get(0).getAll(Room.class).size()).shouldBeEqual(2);
+        LazyList<Room> rooms = addresses.get(6).getAll(Room.class);
+        the(rooms.size()).shouldBeEqual(2);
+        the(addresses.get(6).getAll(Room.class)).shouldBeTheSameAs(rooms);
+        the(addresses.get(1).getAll(Room.class).size()).shouldBeEqual(0);
+        the(queries("rooms")).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldLoadParentsOfAllModelsAtOnce() {
+        LazyList<Room> rooms = Room.findAll().orderBy("id").batchAssociations();
+        Address address = rooms.get(0).parent(Address.class);
+        the(address.getId()).shouldBeEqual(1);
+        the(rooms.get(1).parent(Address.class)).shouldBeTheSameAs(address);
+        the(rooms.get(3).parent(Address.class).getId()).shouldBeEqual(7);
+        the(queries("addresses")).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldLoadAssociationsOneByOneByDefault() {
+        LazyList<Room> rooms = Room.findAll().orderBy("id");
+        rooms.get(0).parent(Address.class);
+        rooms.get(3).parent(Address.class);
+        the(queries("addresses")).shouldBeEqual(2);
+        the(SystemStreamUtil.getSystemOut()).shouldNotContain("N+1 queries");
+    }
+
+    @Test
+    public void shouldDetectNPlusOneQueries() {
+        LazyList<Room> rooms = Room.findAll().orderBy("id");
+        AssociationBatch<Room> batch = new AssociationBatch<>(rooms.metaModel(), rooms, false, true);
+        for (Room room : rooms) {
+            ((Model) room).setAssociationBatch(batch);
+        }
+        rooms.get(0).parent(Address.class);
+        the(SystemStreamUtil.getSystemOut()).shouldNotContain("N+1 queries");
+        rooms.get(1).parent(Address.class);
+        rooms.get(2).parent(Address.class);
+        String out = SystemStreamUtil.getSystemOut();
+        the(out).shouldContain("N+1 queries");
+        the(out).shouldContain("use include(Address.class)");
+        the(out.indexOf("N+1 queries")).shouldBeEqual(out.lastIndexOf("N+1 queries"));
+        the(queries("addresses")).shouldBeEqual(3);
+    }
+
+    @Test
+    public void shouldNotKeepListOfModelsInMemory() throws InterruptedException {
+        LazyList<Room> rooms = Room.findAll().orderBy("id").batchAssociations();
+        Room room = rooms.get(3);
+        WeakReference<List<Room>> models = new WeakReference<>(rooms.delegate);
+        rooms = null;
+        for (int i = 0; i < 50 && models.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        the(models.get()).shouldBeNull();
+        the(room.parent(Address.class).getId()).shouldBeEqual(7);
+        the(queries("addresses")).shouldBeEqual(1);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.connection_config.ConnectionJdbcConfig;
+import org.javalite.activejdbc.connection_config.DBConfiguration;
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Person;
+import org.javalite.app_config.AppConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.javalite.activejdbc.test.JdbcProperties.*;
+
+
+/**
+ * @author Igor Polevoy
+ */
+public class AsyncDBTest extends ActiveJDBCTest {
+
+    @Before
+    public void setup() {
+        ConnectionJdbcConfig config = new ConnectionJdbcConfig(driver(), url(), user(), password());
+        config.setDbName("async");
+        config.setEnvironment(AppConfig.activeEnv());
+        DBConfiguration.addConnectionConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        DBConfiguration.resetConnectionConfigs();
+        DB.asyncExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Test
+    public void shouldRunInCurrentTransaction() throws Exception {
+        deleteAndPopulateTable("people");
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Thread> thread = Base.async(Thread::currentThread);
+        CompletableFuture<LazyList<Person>> people = Person.where("name <> ?", "John").toFuture();
+
+        a(thread.isDone()).shouldBeTrue();
+        a(thread.get()).shouldBeTheSameAs(caller);
+        a(people.get().size()).shouldBeEqual(3); // rows not committed yet are visible
+        a(Base.findAsync("SELECT * FROM people WHERE name = ?", "John").get().size()).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldRunOnOwnConnection() throws Exception {
+        DB async = new DB("async");
+        Thread caller = Thread.currentThread();
+        List<CompletableFuture<Object[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(async.async(() -> new Object[]{Thread.currentThread(), async.connection()}));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        for (CompletableFuture<Object[]> future : futures) {
+            a(future.get()[0]).shouldNotBeTheSameAs(caller);
+            Connection connection = (Connection) future.get()[1];
+            a(connection.isClosed()).shouldBeTrue(); // returned after the call
+        }
+        a(async.hasConnection()).shouldBeFalse();
+    }
+
+    @Test
+    public void shouldUseConfiguredExecutor() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        DB.asyncExecutor(command -> {
+            calls.incrementAndGet();
+            new Thread(command).start();
+        });
+        a(new DB("async").execAsync("DELETE FROM people WHERE name = ?", "Nobody").get()).shouldBeEqual(0);
+        a(calls.get()).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldCompleteExceptionally() throws InterruptedException {
+        try {
+            new DB("async").findAsync("SELECT * FROM no_such_table").get();
+            throw new AssertionError("should have failed");
+        } catch (ExecutionException e) {
+            a(e.getCause()).shouldBeA(DBException.class);
+        }
+        try {
+            new DB("not_configured").firstCellAsync("SELECT COUNT(*) FROM people").get();
+            throw new AssertionError("should have failed");
+        } catch (ExecutionException e) {
+            a(e.getCause()).shouldBeA(DBException.class);
+        }
+    }
+
+    @Test
+    public void shouldNotLoadTwice() {
+        deleteAndPopulateTable("people");
+        LazyList<Person> people = Person.findAll().load();
+        try {
+            people.toFuture();
+            throw new AssertionError("should have failed");
+        } catch (DBException e) {
+            a(e.getMessage()).shouldContain("toFuture()");
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc;
+
+import org.javalite.common.CaseInsensitiveMap;
+import org.javalite.common.CaseInsensitiveSet;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.javalite.test.jspec.JSpec.the;
+
+/**
+ * @author Igor Polevoy
+ */
+public class AttributeMapSpec {
+
+    private final AttributeSlots slots = new AttributeSlots(new CaseInsensitiveSet(asList("id", "first_name", "last_name", "dob")));
+
+    @Test
+    public void shouldFindEverySlotIgnoringCase() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            names.add("column_" + i);
+        }
+        AttributeSlots many = new AttributeSlots(names);
+        for (int i = 0; i < 500; i++) {
+            the(many.slot("column_" + i)).shouldBeEqual(i);
+            the(many.slot("COLUMN_" + i)).shouldBeEqual(i);
+        }
+        the(many.slot("column_500")).shouldBeEqual(-1);
+        the(many.slot("")).shouldBeEqual(-1);
+        the(AttributeSlots.EMPTY.slot("id")).shouldBeEqual(-1);
+    }
+
+    @Test
+    public void shouldKeepLookupTablesLinearInNumberOfAttributes() {
+        for (int size : new int[]{1, 2, 3, 7, 100, 1000, 5000}) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                names.add("Attribute" + i);
+            }
+            AttributeSlots many = new AttributeSlots(names);
+            for (int i = 0; i < size; i++) {
+                the(many.slot("attribute" + i)).shouldBeEqual(i);
+            }
+            the(many.slot("attribute" + size)).shouldBeEqual(-1);
+            the(many.footprint() <= size + size / 2 + 1).shouldBeTrue();
+        }
+    }
+
+    @Test
+    public void shouldTellNullValueFromMissingValue() {
+        AttributeMap map = new AttributeMap(slots);
+        map.put("first_name", null);
+        the(map.containsKey("FIRST_NAME")).shouldBeTrue();
+        the(map.containsKey("last_name")).shouldBeFalse();
+        the(map.size()).shouldBeEqual(1);
+
+        map.remove("First_Name");
+        the(map.isEmpty()).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldIterateLikeCaseInsensitiveMap() {
+        AttributeMap map = new AttributeMap(slots);
+        CaseInsensitiveMap<Object> expected = new CaseInsensitiveMap<>();
+        for (Object[] entry : new Object[][]{{"LAST_NAME", "Smith"}, {"id", 1}, {"First_Name", "John"}, {"last_name", "Doe"}, {"extra", true}}) {
+            map.put((String) entry[0], entry[1]);
+            expected.put((String) entry[0], entry[1]);
+        }
+        the(map).shouldBeEqual(expected);
+        the(new ArrayList<>(map.keySet())).shouldBeEqual(asList("First_Name", "id", "LAST_NAME", "extra"));
+        the(map.get("last_name")).shouldBeEqual("Doe");
+        the(map.get("EXTRA")).shouldBeEqual(true);
+    }
+
+    @Test
+    public void shouldRemoveWithIterator() {
+        AttributeMap map = new AttributeMap(slots);
+        map.put("id", 1);
+        map.put("dob", null);
+        map.put("extra", 2);
+        Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            if (!"id".equals(it.next().getKey())) {
+                it.remove();
+            }
+        }
+        the(map.keySet()).shouldBeEqual(new CaseInsensitiveSet(asList("id")));
+    }
+
+    @Test
+    public void shouldKeepNamesInBitSet() {
+        AttributeNameSet names = new AttributeNameSet(slots);
+        the(names.add("first_name")).shouldBeTrue();
+        the(names.add("FIRST_NAME")).shouldBeFalse();
+        names.add("unknown");
+        the(names.contains("First_Name")).shouldBeTrue();
+        the(names.contains("UNKNOWN")).shouldBeTrue();
+        the(names.size()).shouldBeEqual(2);
+
+        List<String> list = new ArrayList<>(asList("id", "first_name", "last_name"));
+        list.retainAll(names);
+        the(list).shouldBeEqual(asList("first_name"));
+
+        names.clear();
+        the(names.isEmpty()).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldSerializeAsCaseInsensitiveCollections() throws IOException, ClassNotFoundException {
+        AttributeMap map = new AttributeMap(slots);
+        map.put("id", 1);
+        map.put("unknown", "x");
+        AttributeNameSet names = new AttributeNameSet(slots, asList("id", "unknown"));
+
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(map);
+        out.writeObject(names);
+        out.flush();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        Object readMap = in.readObject();
+        Object readNames = in.readObject();
+        the(readMap).shouldBeA(CaseInsensitiveMap.class);
+        the(readMap).shouldBeEqual(map);
+        the(readNames).shouldBeA(CaseInsensitiveSet.class);
+        the(readNames).shouldBeEqual(names);
+    }
+
+    @Test
+    public void shouldAccessSlotsOnlyByGeneratedNames() {
+        String[] generated = {"dob", "first_name", "id", "last_name"};
+        AttributeMap map = new AttributeMap(new AttributeSlots(new CaseInsensitiveSet(asList(generated)), generated));
+        int slot = 1;
+        the(map.isSlot(slot, generated[1])).shouldBeTrue();
+        the(map.isSlot(slot, new String("first_name"))).shouldBeFalse();
+        the(map.isSlot(slot + 1, generated[1])).shouldBeFalse();
+        the(new AttributeMap(slots).isSlot(slots.slot("first_name"), "first_name")).shouldBeFalse();
+
+        map.putSlot(slot, "John");
+        the(map.get("FIRST_NAME")).shouldBeEqual("John");
+        the(map.slotName(slot)).shouldBeEqual("first_name");
+        map.put("first_name", "Joe");
+        the(map.getSlot(slot)).shouldBeEqual("Joe");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * @author Igor Polevoy
+ */
+public class ColumnMetadataReaderTest extends ActiveJDBCTest {
+
+    private static final String[] TABLES = {"people", "addresses", "\"Wild Animals\"", "Member"};
+
+    private int getColumnsCalls;
+
+    private DatabaseMetaData countingMetaData() throws SQLException {
+        DatabaseMetaData databaseMetaData = Base.connection().getMetaData();
+        return (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DatabaseMetaData.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getColumns")) {
+                        getColumnsCalls++;
+                    }
+                    return method.invoke(databaseMetaData, args);
+                });
+    }
+
+    @Test
+    public void shouldReadColumnsOfAllTablesAtOnce() throws SQLException {
+        String dbType = Base.connection().getMetaData().getDatabaseProductName();
+        ColumnMetadataReader reader = new ColumnMetadataReader(countingMetaData(), dbType);
+        Map<String, Map<String, ColumnMetadata>> columnsByTable = reader.read(TABLES);
+
+        the(new ArrayList<>(columnsByTable.keySet())).shouldBeEqual(Arrays.asList(TABLES));
+        the(columnsByTable.get("people").containsKey("LAST_NAME")).shouldBeTrue();
+        the(reader.calls()).shouldBeEqual(1);
+        the(getColumnsCalls).shouldBeEqual(1);
+
+        ColumnMetadataReader oneByOne = new ColumnMetadataReader(Base.connection().getMetaData(), dbType);
+        for (String table : TABLES) {
+            Map<String, ColumnMetadata> columns = columnsByTable.get(table);
+            Map<String, ColumnMetadata> expected = oneByOne.fetch(table);
+            the(columns.keySet()).shouldBeEqual(expected.keySet());
+            for (String column : expected.keySet()) {
+                the(columns.get(column).getTypeName()).shouldBeEqual(expected.get(column).getTypeName());
+                the(columns.get(column).getColumnSize()).shouldBeEqual(expected.get(column).getColumnSize());
+            }
+        }
+    }
+
+    @Test
+    public void shouldLookUpMissingTablesOneByOne() throws SQLException {
+        ColumnMetadataReader reader = new ColumnMetadataReader(countingMetaData(), Base.connection().getMetaData().getDatabaseProductName());
+        Map<String, Map<String, ColumnMetadata>> columnsByTable = reader.read(new String[]{"people", "no_such_table"});
+        the(columnsByTable.get("people").isEmpty()).shouldBeFalse();
+        the(columnsByTable.get("no_such_table").isEmpty()).shouldBeTrue();
+        the(getColumnsCalls > 1).shouldBeTrue();
+        the(reader.calls()).shouldBeEqual(getColumnsCalls);
+    }
+
+    @Test
+    public void shouldLookUpTablesWithSchemaOneByOne() throws SQLException {
+        String schema = Base.connection().getSchema();
+        if (schema == null) {
+            return;
+        }
+        ColumnMetadataReader reader = new ColumnMetadataReader(countingMetaData(), Base.connection().getMetaData().getDatabaseProductName());
+        Map<String, ColumnMetadata> columns = reader.read(new String[]{schema + ".people"}).get(schema + ".people");
+        the(columns.containsKey("name")).shouldBeTrue();
+        the(getColumnsCalls >= 1).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldFindTablesWithForeignKey() throws SQLException {
+        ColumnMetadataReader reader = new ColumnMetadataReader(countingMetaData(), Base.connection().getMetaData().getDatabaseProductName());
+        the(reader.tablesWithColumn("user_id", Arrays.asList("people", "addresses", "users"))).shouldBeEqual(new HashSet<>(Arrays.asList("addresses")));
+        the(reader.tablesWithColumn("no_such_id", Arrays.asList("people", "addresses"))).shouldBeEqual(new HashSet<>());
+        the(reader.calls()).shouldBeEqual(getColumnsCalls);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Person;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * @author Igor Polevoy
+ */
+public class ConnectionScopeTest extends ActiveJDBCTest {
+
+    private static Object inThread(Runnable runnable, AtomicReference<Object> result) throws InterruptedException {
+        Thread thread = new Thread(runnable);
+        thread.start();
+        thread.join();
+        return result.get();
+    }
+
+    @Test
+    public void shouldBindConnectionsToThread() throws InterruptedException {
+        ThreadLocalConnectionScope scope = new ThreadLocalConnectionScope();
+        Connection connection = Base.connection();
+        a(scope.all().isEmpty()).shouldBeTrue();
+        a(scope.get("default")).shouldBeNull();
+
+        scope.attach("default", connection);
+        a(scope.get("default")).shouldBeTheSameAs(connection);
+        a(scope.all().size()).shouldBeEqual(1);
+
+        AtomicReference<Object> other = new AtomicReference<>();
+        a(inThread(() -> other.set(scope.get("default")), other)).shouldBeNull();
+
+        scope.detach("default");
+        a(scope.get("default")).shouldBeNull();
+        a(scope.all().isEmpty()).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldCarryConnectionsToChildThreads() throws InterruptedException {
+        InheritableConnectionScope scope = new InheritableConnectionScope();
+        Connection connection = Base.connection();
+        scope.attach("default", connection);
+
+        AtomicReference<Object> child = new AtomicReference<>();
+        a(inThread(() -> {
+            Connection inherited = scope.get("default");
+            scope.detach("default");
+            child.set(inherited);
+        }, child)).shouldBeTheSameAs(connection);
+
+        a(scope.get("default")).shouldBeTheSameAs(connection); // detached only from the child
+        scope.detach("default");
+    }
+
+    @Test
+    public void shouldUseConfiguredScope() throws InterruptedException {
+        deleteAndPopulateTable("people");
+        ConnectionScope previous = ConnectionsAccess.scope();
+        InheritableConnectionScope scope = new InheritableConnectionScope();
+        scope.attach(DB.DEFAULT_NAME, Base.connection());
+        ConnectionsAccess.setScope(scope);
+        try {
+            AtomicReference<Object> count = new AtomicReference<>();
+            a(inThread(() -> count.set(Person.count()), count)).shouldBeEqual(4L); // same connection and transaction
+            a(DB.connections().get(DB.DEFAULT_NAME)).shouldBeTheSameAs(Base.connection());
+        } finally {
+            ConnectionsAccess.setScope(previous);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Gauge;
+import org.javalite.test.jspec.ExceptionExpectation;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Igor Polevoy
+ */
+public class GeneratedAccessorsTest extends ActiveJDBCTest {
+
+    @Before
+    public void setUp() {
+        deleteFromTable("gauges");
+    }
+
+    @Test
+    public void shouldReadAndWriteAttributesInSlots() {
+        Gauge gauge = new Gauge().setName("pressure").setReading(12);
+        the(((Model) gauge).slotAccessible(1, "name")).shouldBeTrue();
+        the(gauge.getName()).shouldBeEqual("pressure");
+        the(gauge.get("NAME")).shouldBeEqual("pressure");
+        the(gauge.isModified()).shouldBeTrue();
+        gauge.saveIt();
+
+        Gauge found = Gauge.findById(gauge.getId());
+        the(found.getName()).shouldBeEqual("pressure");
+        the(found.getReading()).shouldBeEqual(12);
+        the(found.isModified()).shouldBeFalse();
+
+        found.setReading(12);
+        the(found.isModified()).shouldBeFalse();
+        found.setReading(14);
+        the(found.dirtyAttributeNames()).shouldContain("reading");
+        found.saveIt();
+        the(Gauge.findById(gauge.getId()).getInteger("reading")).shouldBeEqual(14);
+
+        found.set("reading", "16");
+        the(found.getReading()).shouldBeEqual(16);
+    }
+
+    @Test
+    public void shouldFallBackToAttributesByNameIfFrozen() {
+        Gauge gauge = new Gauge().setName("flow").setReading(1);
+        gauge.saveIt();
+        gauge.delete();
+        the(((Model) gauge).slotAccessible(1, "name")).shouldBeFalse();
+        expect(new ExceptionExpectation<FrozenException>(FrozenException.class) {
+            @Override
+            public void exec() {
+                gauge.setReading(2);
+            }
+        });
+    }
+
+    @Test
+    public void shouldNotAccessSlotsByOtherNames() {
+        Gauge gauge = new Gauge().setName("level");
+        the(((Model) gauge).slotAccessible(1, new String("name"))).shouldBeFalse();
+        the(((Model) gauge).slotAccessible(2, "name")).shouldBeFalse();
+        the(gauge.getName()).shouldBeEqual("level");
+    }
+}
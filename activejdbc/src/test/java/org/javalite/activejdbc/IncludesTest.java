@@ -20,8 +20,8 @@ import org.javalite.activejdbc.test.ActiveJDBCTest;
 import org.javalite.activejdbc.test_models.*;
 import org.junit.Test;
 
-import java.util.List;
-import java.util.Map;
+import java.sql.PreparedStatement;
+import java.util.*;
 
 /**
  * @author Igor Polevoy
@@ -276,4 +276,48 @@ public class IncludesTest extends ActiveJDBCTest {
         // see log
     }
 
+    @Test
+    public void shouldSplitIdsIntoPaddedChunks() {
+        MetaModel metaModel = Registry.instance().getMetaModel(Room.class);
+        int max = metaModel.getDialect().maxInListSize();
+        List<Object> ids = new ArrayList<>();
+        for (int i = 0; i < max * 2 + 3; i++) {
+            ids.add(i);
+        }
+        List<Object[]> chunks = LazyList.chunks(ids, metaModel);
+        the(chunks.size()).shouldBeEqual(3);
+        the(chunks.get(0).length).shouldBeEqual(max);
+        the(chunks.get(1)[0]).shouldBeEqual(max);
+        the(Arrays.asList(chunks.get(2))).shouldBeEqual(Arrays.asList(max * 2, max * 2 + 1, max * 2 + 2, max * 2 + 2));
+        the(LazyList.chunks(Collections.singletonList(5), metaModel).get(0).length).shouldBeEqual(1);
+        the(LazyList.chunks(Collections.emptyList(), metaModel).size()).shouldBeEqual(0);
+    }
+
+    @Test
+    public void shouldIncludeChildrenOfMoreParentsThanFitInOneQuery() {
+        deleteAndPopulateTable("users");
+        deleteFromTable("rooms");
+        deleteFromTable("addresses");
+        int count = Registry.instance().getMetaModel(Room.class).getDialect().maxInListSize() + 10;
+        PreparedStatement ps = Base.startBatch("INSERT INTO addresses (address1, address2, city, state, zip, user_id) VALUES (?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < count; i++) {
+            Base.addBatch(ps, i + " Pine St.", "", "Springfield", "IL", "60606", 1);
+        }
+        Base.executeBatch(ps);
+        LazyList<Address> all = Address.findAll().orderBy("id");
+        Room.createIt("name", "bathroom", "address_id", all.get(0).getId());
+        Room.createIt("name", "basement", "address_id", all.get(count - 1).getId());
+        Room.createIt("name", "ball room", "address_id", all.get(count - 1).getId());
+
+        LazyList<Address> addresses = Address.findAll().orderBy("id").include(Room.class);
+        the(addresses.size()).shouldBeEqual(count);
+        the(addresses.get(0).getAll(Room.class).size()).shouldBeEqual(1);
+        the(addresses.get(1).getAll(Room.class).size()).shouldBeEqual(0);
+        List<Room> rooms = addresses.get(count - 1).getAll(Room.class);
+        the(rooms.size()).shouldBeEqual(2);
+        the(rooms.get(0).get("name")).shouldBeEqual("basement");
+
+        LazyList<Room> withAddresses = Room.findAll().orderBy("id").include(Address.class);
+        the(withAddresses.get(2).parent(Address.class).getId()).shouldBeEqual(all.get(count - 1).getId());
+    }
 }
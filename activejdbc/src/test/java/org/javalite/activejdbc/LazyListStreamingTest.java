@@ -0,0 +1,126 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.javalite.common.Collections.li;
+
+/**
+ * @author Igor Polevoy
+ */
+public class LazyListStreamingTest extends ActiveJDBCTest {
+
+    @Test
+    public void shouldStreamModelsInOrder() {
+        deleteAndPopulateTable("people");
+        List<Object> names = new ArrayList<>();
+        LazyList<Person> people = Person.where("name <> ?", "nobody").orderBy("name");
+        people.forEachStreamed(p -> names.add(p.get("name")));
+
+        the(names).shouldBeEqual(Person.where("name <> ?", "nobody").orderBy("name").collect("name"));
+        the(names.size()).shouldBeEqual(4);
+    }
+
+    @Test
+    public void shouldRespectLimitAndOffset() {
+        deleteAndPopulateTable("people");
+        LazyList<Person> list = Person.findAll().orderBy("name").offset(1).limit(2);
+        try (Stream<Person> people = list.stream(10)) {
+            the(people.map(p -> p.getString("name")).collect(Collectors.toList())).shouldBeEqual(li("John", "Leylah"));
+        }
+    }
+
+    @Test
+    public void shouldLoadChildrenInWindows() {
+        deleteAndPopulateTables("users", "addresses");
+        List<User> expected = User.findAll().orderBy("id").include(Address.class);
+
+        List<User> streamed = new ArrayList<>();
+        LazyList<User> users = User.findAll().orderBy("id").include(Address.class);
+        users.forEachStreamed(10, 2, streamed::add);
+
+        the(streamed.size()).shouldBeEqual(expected.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            List<Address> addresses = streamed.get(i).getAll(Address.class);
+            //children are cached by include
+            the(addresses).shouldBeTheSameAs(streamed.get(i).getAll(Address.class));
+            the(addresses.size()).shouldBeEqual(expected.get(i).getAll(Address.class).size());
+        }
+    }
+
+    @Test
+    public void shouldLoadParentsInWindows() {
+        deleteAndPopulateTables("users", "addresses");
+        List<Address> streamed = new ArrayList<>();
+        LazyList<Address> addresses = Address.where("city = ?", "Springfield").orderBy("id").include(User.class);
+        addresses.forEachStreamed(5, 3, streamed::add);
+
+        User u1 = streamed.get(0).parent(User.class);
+        the(u1).shouldBeTheSameAs(streamed.get(0).parent(User.class));
+        the(u1.get("first_name")).shouldBeEqual("Marilyn");
+        the(streamed.get(6).parent(User.class).get("first_name")).shouldBeEqual("John");
+    }
+
+    @Test
+    public void shouldLoadManyToManyInWindows() {
+        deleteAndPopulateTables("doctors", "patients", "doctors_patients");
+        List<Doctor> streamed = new ArrayList<>();
+        LazyList<Doctor> doctors = Doctor.findAll().orderBy("id").include(Patient.class);
+        doctors.forEachStreamed(1, 1, streamed::add);
+        List<Doctor> expected = Doctor.findAll().orderBy("id").include(Patient.class);
+
+        the(streamed.size()).shouldBeEqual(expected.size());
+        the(streamed.get(0).getAll(Patient.class).size()).shouldBeEqual(2);
+        for (int i = 0; i < streamed.size(); i++) {
+            the(streamed.get(i).getAll(Patient.class).size()).shouldBeEqual(expected.get(i).getAll(Patient.class).size());
+        }
+    }
+
+    @Test
+    public void shouldReleaseCursorWhenStreamIsClosedEarly() {
+        deleteAndPopulateTable("people");
+        LazyList<Person> list = Person.findAll().orderBy("name");
+        try (Stream<Person> people = list.stream(1)) {
+            the(people.findFirst().get().get("name")).shouldBeEqual("Joe");
+        }
+        // connection is still usable
+        the(Person.count()).shouldBeEqual(4L);
+    }
+
+    @Test
+    public void shouldStreamFromMemoryIfAlreadyLoaded() {
+        deleteAndPopulateTable("people");
+        LazyList<Person> people = Person.findAll().orderBy("name").load();
+        try (Stream<Person> stream = people.stream(100)) {
+            the(stream.findFirst().get()).shouldBeTheSameAs(people.get(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyIncludeWindow() {
+        Person.findAll().stream(10, 0);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.associations.Association;
+import org.javalite.activejdbc.associations.BelongsToAssociation;
+import org.javalite.activejdbc.associations.Many2ManyAssociation;
+import org.javalite.activejdbc.associations.OneToManyAssociation;
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.*;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Runs with <code>lazyMetadata=true</code> in an execution of Surefire of its own, and as any other test in the
+ * default one. Each test uses a child before its parent, or the other way around, and expects the same associations,
+ * in the same order, as when metadata of all models is read at once.
+ *
+ * @author Igor Polevoy
+ */
+public class LazyMetadataTest extends ActiveJDBCTest {
+
+    @Test
+    public void shouldDiscoverAssociationsWhenChildIsUsedFirst() {
+        a(Prescription.belongsTo(Doctor.class)).shouldBeTrue();
+        a(Prescription.belongsTo(Patient.class)).shouldBeTrue();
+        a(Doctor.getMetaModel().getAssociationForTarget(Prescription.class, OneToManyAssociation.class)).shouldNotBeNull();
+    }
+
+    @Test
+    public void shouldDiscoverAssociationsWhenParentIsUsedFirst() {
+        a(Patient.getMetaModel().getAssociationForTarget(PatientCard.class, OneToManyAssociation.class)).shouldNotBeNull();
+        a(PatientCard.getMetaModel().getAssociationForTarget(Patient.class, BelongsToAssociation.class)).shouldNotBeNull();
+    }
+
+    @Test
+    public void shouldListAssociationsInOrderOfTables() {
+        a(Prescription.getMetaModel().getAssociationForTarget(Doctor.class, BelongsToAssociation.class)).shouldNotBeNull();
+
+        List<Association> associations = Doctor.associations();
+        a(associations.size()).shouldBeEqual(3);
+        a(associations.get(0).getTargetClass()).shouldBeEqual(DoctorsPatients.class);
+        a(associations.get(0) instanceof OneToManyAssociation).shouldBeTrue();
+        a(associations.get(1).getTargetClass()).shouldBeEqual(Prescription.class);
+        a(associations.get(1) instanceof OneToManyAssociation).shouldBeTrue();
+        a(associations.get(2).getTargetClass()).shouldBeEqual(Patient.class);
+        a(associations.get(2) instanceof Many2ManyAssociation).shouldBeTrue();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * @author Igor Polevoy
+ */
+public class MetadataSnapshotTest extends ActiveJDBCTest {
+
+    private static final String[] TABLES = {"people", "addresses"};
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("activejdbc-snapshot");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+        Base.exec("DROP TABLE IF EXISTS schema_version");
+    }
+
+    @Test
+    public void shouldFingerprintOnlyMigratedDatabases() throws SQLException {
+        Base.exec("DROP TABLE IF EXISTS schema_version");
+        the(MetadataSnapshot.fingerprint(Base.connection(), "default", TABLES)).shouldBeNull();
+
+        Base.exec("CREATE TABLE schema_version (version VARCHAR(32) NOT NULL, applied_on TIMESTAMP NOT NULL, duration INT NOT NULL)");
+        Base.exec("INSERT INTO schema_version VALUES ('20260101000000', CURRENT_TIMESTAMP, 1)");
+        String fingerprint = MetadataSnapshot.fingerprint(Base.connection(), "default", TABLES);
+        the(fingerprint.length()).shouldBeEqual(64);
+        the(MetadataSnapshot.fingerprint(Base.connection(), "default", new String[]{"addresses", "people"})).shouldBeEqual(fingerprint);
+        the(MetadataSnapshot.fingerprint(Base.connection(), "other", TABLES)).shouldNotBeEqual(fingerprint);
+        the(MetadataSnapshot.fingerprint(Base.connection(), "default", new String[]{"people"})).shouldNotBeEqual(fingerprint);
+
+        Base.exec("INSERT INTO schema_version VALUES ('20260102000000', CURRENT_TIMESTAMP, 1)");
+        the(MetadataSnapshot.fingerprint(Base.connection(), "default", TABLES)).shouldNotBeEqual(fingerprint);
+    }
+
+    @Test
+    public void shouldWriteAndReadColumns() throws SQLException, IOException {
+        Map<String, Map<String, ColumnMetadata>> columnsByTable =
+                new ColumnMetadataReader(Base.connection().getMetaData(), Base.connection().getMetaData().getDatabaseProductName()).read(TABLES);
+        Path file = MetadataSnapshot.path(dir.resolve("snapshots").toString(), "abc");
+        the(MetadataSnapshot.read(file, TABLES)).shouldBeNull();
+
+        MetadataSnapshot.write(file, columnsByTable);
+        Map<String, Map<String, ColumnMetadata>> read = MetadataSnapshot.read(file, TABLES);
+        the(read.keySet()).shouldBeEqual(columnsByTable.keySet());
+        for (String table : TABLES) {
+            the(read.get(table).keySet()).shouldBeEqual(columnsByTable.get(table).keySet());
+        }
+        the(read.get("people").get("name").getTypeName()).shouldBeEqual(columnsByTable.get("people").get("name").getTypeName());
+        the(read.get("people").get("name").getColumnSize()).shouldBeEqual(columnsByTable.get("people").get("name").getColumnSize());
+        the(MetadataSnapshot.read(file, new String[]{"people", "accounts"})).shouldBeNull();
+
+        Files.writeString(file, "{broken");
+        the(MetadataSnapshot.read(file, TABLES)).shouldBeNull();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Item;
+import org.javalite.test.jspec.ExceptionExpectation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+
+/**
+ * @author Igor Polevoy
+ */
+public class PaginatorSeekTest extends ActiveJDBCTest {
+
+    @Before
+    public void setup() {
+        deleteAndPopulateTable("items");
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= 95; i++) {
+            items.add(Item.create("item_number", i % 10, "item_description", "this is item # " + i));
+        }
+        Item.saveAll(items);
+    }
+
+    private List<Object> readAllPages(Paginator<Item> paginator) {
+        List<Object> ids = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            LazyList<Item> page = paginator.getPageAfter(token);
+            for (Item item : page) {
+                ids.add(item.getId());
+            }
+            token = paginator.nextPageToken(page);
+            pages++;
+        } while (token != null);
+        a(pages).shouldBeEqual(10);
+        return ids;
+    }
+
+    private List<Object> ids(LazyList<Item> items) {
+        List<Object> ids = new ArrayList<>();
+        for (Item item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void shouldReadAllPagesInOrder() {
+        Paginator<Item> paginator = Paginator.<Item>instance().modelClass(Item.class).query("*").pageSize(10)
+                .seekBy("item_number", "id").create();
+        LazyList<Item> expected = Item.findAll().orderBy("item_number").orderBy("id");
+        a(readAllPages(paginator)).shouldBeEqual(ids(expected));
+    }
+
+    @Test
+    public void shouldReadAllPagesInDescendingOrder() {
+        Paginator<Item> paginator = new Paginator<>(Item.class, 10, "*").seekBy("item_number desc", "id DESC");
+        LazyList<Item> expected = Item.findAll().orderBy("item_number desc").orderBy("id desc");
+        a(readAllPages(paginator)).shouldBeEqual(ids(expected));
+    }
+
+    @Test
+    public void shouldKeepSubQueryAndParameters() {
+        Paginator<Item> paginator = new Paginator<>(Item.class, 4, "item_number = ? OR item_number = ?", 3, 7)
+                .seekBy("id");
+        List<Object> ids = new ArrayList<>();
+        String token = null;
+        do {
+            LazyList<Item> page = paginator.getPageAfter(token);
+            ids.addAll(ids(page));
+            token = paginator.nextPageToken(page);
+        } while (token != null);
+        a(ids).shouldBeEqual(ids(Item.where("item_number = ? OR item_number = ?", 3, 7).orderBy("id")));
+        a(ids.size()).shouldBeEqual(19);
+    }
+
+    @Test
+    public void shouldNotUseOffset() {
+        Paginator<Item> paginator = new Paginator<>(Item.class, 10, "*").seekBy("item_number", "id");
+        LazyList<Item> first = paginator.getPageAfter(null);
+        String sql = paginator.getPageAfter(paginator.nextPageToken(first)).toSql(false).toUpperCase();
+        a(sql).shouldContain("(ITEM_NUMBER, ID) > (?, ?)");
+        a(sql).shouldNotContain("OFFSET");
+    }
+
+    @Test
+    public void shouldRejectInvalidToken() {
+        final Paginator<Item> paginator = new Paginator<>(Item.class, 10, "*").seekBy("id");
+        expect(new ExceptionExpectation<IllegalArgumentException>(IllegalArgumentException.class) {
+            @Override
+            public void exec() {
+                paginator.getPageAfter("not a token");
+            }
+        });
+        expect(new ExceptionExpectation<IllegalArgumentException>(IllegalArgumentException.class) {
+            @Override
+            public void exec() {
+                paginator.getPageAfter(SeekToken.encode(new Object[]{1, 2}));
+            }
+        });
+    }
+
+    @Test
+    public void shouldRejectInvalidSeekColumns() {
+        expect(new ExceptionExpectation<IllegalArgumentException>(IllegalArgumentException.class) {
+            @Override
+            public void exec() {
+                new Paginator<>(Item.class, 10, "select * from items").seekBy("id");
+            }
+        });
+        expect(new ExceptionExpectation<IllegalArgumentException>(IllegalArgumentException.class) {
+            @Override
+            public void exec() {
+                new Paginator<>(Item.class, 10, "*").seekBy("item_number desc", "id");
+            }
+        });
+        expect(new ExceptionExpectation<IllegalStateException>(IllegalStateException.class) {
+            @Override
+            public void exec() {
+                new Paginator<>(Item.class, 10, "*").getPageAfter(null);
+            }
+        });
+    }
+
+    @Test
+    public void shouldRoundTripTokenValues() {
+        Timestamp timestamp = new Timestamp(1000L);
+        timestamp.setNanos(123456789);
+        Object[] values = {"x", 1L, 2, new BigDecimal("1.50"), 2.5, true, timestamp, UUID.randomUUID()};
+        Object[] decoded = SeekToken.decode(SeekToken.encode(values), values.length);
+        a(Arrays.asList(decoded)).shouldBeEqual(Arrays.asList(values));
+    }
+
+    @Test
+    public void shouldNotEncodeNullSeekValues() {
+        Item.update("item_number = NULL", "item_number = ?", 0);
+        final Paginator<Item> paginator = new Paginator<>(Item.class, 5, "*").seekBy("item_number", "id");
+        final LazyList<Item> page = paginator.getPageAfter(null);
+        a(page.get(4).get("item_number")).shouldBeNull();
+        expect(new ExceptionExpectation<IllegalStateException>(IllegalStateException.class) {
+            @Override
+            public void exec() {
+                paginator.nextPageToken(page);
+            }
+        });
+        expect(new ExceptionExpectation<IllegalArgumentException>(IllegalArgumentException.class) {
+            @Override
+            public void exec() {
+                SeekToken.encode(new Object[]{null});
+            }
+        });
+    }
+
+    @Test
+    public void shouldCountRowsIfDatabaseHasNoEstimate() {
+        Paginator<Item> paginator = Paginator.<Item>instance().modelClass(Item.class).query("*").pageSize(10)
+                .approximateCount(true).create();
+        a(paginator.getCount()).shouldBeEqual(95);
+        a(paginator.pageCount()).shouldBeEqual(10);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Person;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author Igor Polevoy
+ */
+public class RegistryTest extends ActiveJDBCTest {
+
+    @Test
+    public void shouldFindMetaModelWithoutLockAfterInit() throws Exception {
+        MetaModel metaModel = Person.getMetaModel();
+        CompletableFuture<MetaModel> found;
+        synchronized (Registry.instance()) { // another thread holding the registry must not block lookups
+            found = CompletableFuture.supplyAsync(() -> Registry.instance().getMetaModel(Person.class));
+            a(found.get(10, TimeUnit.SECONDS)).shouldBeTheSameAs(metaModel);
+        }
+        a(Registry.instance().getMetaModel(Person.class)).shouldBeTheSameAs(metaModel);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Person;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Igor Polevoy
+ */
+public class RowMapperTest extends ActiveJDBCTest {
+
+    @Test
+    public void shouldHydrateSameAsFromMap() {
+        deleteAndPopulateTable("people");
+        List<Person> people = Person.findAll().orderBy("id");
+        List<Map<String, Object>> rows = Base.findAll("SELECT * FROM people ORDER BY id");
+        the(people.size()).shouldBeEqual(rows.size());
+        for (int i = 0; i < people.size(); i++) {
+            Person fromMap = ModelDelegate.instance(rows.get(i), Person.getMetaModel());
+            the(people.get(i).toMap()).shouldBeEqual(fromMap.toMap());
+            the(people.get(i).isModified()).shouldBeFalse();
+        }
+    }
+
+    @Test
+    public void shouldSkipColumnsWhichAreNotAttributes() {
+        deleteAndPopulateTable("people");
+        LazyList<Person> people = Person.findBySQL("SELECT name, last_name, 'x' AS extra FROM people WHERE name = ?", "John");
+        Person person = people.get(0);
+        the(person.get("name")).shouldBeEqual("John");
+        the(person.get("last_name")).shouldNotBeNull();
+        the(person.toMap().containsKey("extra")).shouldBeFalse();
+        the(person.toMap().containsKey("dob")).shouldBeFalse();
+    }
+
+    @Test
+    public void shouldReuseMapperForSameQuery() {
+        MetaModel metaModel = Person.getMetaModel();
+        String[] labels = {"ID", "NAME"};
+        RowMapper mapper = metaModel.rowMapper("SELECT id, name FROM people", labels);
+        the(metaModel.rowMapper("SELECT id, name FROM people", new String[]{"ID", "NAME"})).shouldBeTheSameAs(mapper);
+        the(metaModel.rowMapper("SELECT id, name FROM people", new String[]{"ID", "NAME", "LAST_NAME"})).shouldNotBeTheSameAs(mapper);
+        the(metaModel.rowMapper("SELECT id, name FROM people p", labels)).shouldNotBeTheSameAs(mapper);
+    }
+
+    @Test
+    public void shouldFireAfterLoadCallbacks() {
+        deleteAndPopulateTable("people");
+        final int[] loaded = {0};
+        CallbackAdapter listener = new CallbackAdapter() {
+            @Override
+            public void afterLoad(Model m) {
+                loaded[0]++;
+            }
+        };
+        Person.callbackWith(listener);
+        try {
+            Person.findAll().load();
+            Person.findWith(p -> { }, "name <> ?", "nobody");
+        } finally {
+            Person.callbackWith(new CallbackAdapter());
+        }
+        the(loaded[0]).shouldBeEqual(8);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Item;
+import org.javalite.activejdbc.test_models.Person;
+import org.javalite.validation.ValidationException;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+
+/**
+ * @author Igor Polevoy
+ */
+public class SaveAllTest extends ActiveJDBCTest {
+
+    @Test
+    public void shouldInsertModelsAndAssignIds() {
+        deleteFromTable("people");
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            people.add(new Person().set("name", "Name" + i, "last_name", "Last" + i));
+        }
+        people.get(3).set("dob", getDate(1970, 1, 1)); // different shape
+
+        the(Person.saveAll(people)).shouldBeEqual(25);
+        the(Person.count()).shouldBeEqual(25L);
+
+        Set<Object> ids = new HashSet<>();
+        for (Person person : people) {
+            the(person.getId()).shouldNotBeNull();
+            the(person.isModified()).shouldBeFalse();
+            the(person.get("created_at")).shouldNotBeNull();
+            ids.add(person.getId());
+            the(Person.<Person>findById(person.getId()).get("name")).shouldBeEqual(person.get("name"));
+        }
+        the(ids.size()).shouldBeEqual(25);
+    }
+
+    @Test
+    public void shouldInsertAndUpdateInOneCall() {
+        deleteAndPopulateTable("people");
+        LazyList<Person> people = Person.findAll().orderBy("id");
+        for (Person person : people) {
+            person.set("last_name", person.get("last_name") + "!");
+        }
+        List<Person> all = new ArrayList<>(people);
+        all.add(new Person().set("name", "Ann", "last_name", "Doe"));
+
+        the(Person.saveAll(all)).shouldBeEqual(5);
+        the(Person.count("last_name LIKE ?", "%!")).shouldBeEqual(4L);
+        the(Person.count()).shouldBeEqual(5L);
+
+        the(people.saveAll()).shouldBeEqual(4); // updated_at is set, same as by save()
+    }
+
+    @Test
+    public void shouldNotSaveAnythingIfModelIsInvalid() {
+        deleteFromTable("people");
+        Person invalid = new Person().set("name", "NoLastName");
+        Exception e = null;
+        try {
+            Person.saveAll(asList(new Person().set("name", "Ann", "last_name", "Doe"), invalid));
+        } catch (ValidationException ex) {
+            e = ex;
+        }
+        the(e).shouldNotBeNull();
+        the(invalid.errors().get("last_name")).shouldNotBeNull();
+        the(Person.count()).shouldBeEqual(0L);
+    }
+
+    @Test
+    public void shouldIncrementVersionAndDetectStaleModels() {
+        deleteFromTable("items");
+        Item i1 = new Item().set("item_number", 1, "item_description", "first");
+        Item i2 = new Item().set("item_number", 2, "item_description", "second");
+        Item.saveAll(asList(i1, i2));
+        the(i1.getLong("lock_version")).shouldBeEqual(1L);
+
+        i1.set("item_description", "first!");
+        i2.set("item_description", "second!");
+        Item.saveAll(asList(i1, i2));
+        the(i1.getLong("lock_version")).shouldBeEqual(2L);
+        the(Item.<Item>findById(i2.getId()).getLong("lock_version")).shouldBeEqual(2L);
+
+        Item stale = Item.findById(i1.getId());
+        i1.set("item_description", "again").saveIt();
+        stale.set("item_description", "stale");
+        Exception e = null;
+        try {
+            Item.saveAll(asList(stale));
+        } catch (StaleModelException ex) {
+            e = ex;
+        }
+        the(e).shouldNotBeNull();
+    }
+
+    @Test
+    public void shouldCompleteOtherModelsBeforeFailingOnStaleModel() {
+        deleteFromTable("items");
+        Item i1 = new Item().set("item_number", 1, "item_description", "first");
+        Item i2 = new Item().set("item_number", 2, "item_description", "second");
+        Item i3 = new Item().set("item_number", 3, "item_description", "third");
+        Item.saveAll(asList(i1, i2, i3));
+
+        Item.<Item>findById(i2.getId()).set("item_description", "changed").saveIt();
+        i1.set("item_description", "first!");
+        i2.set("item_description", "second!");
+        i3.set("item_description", "third!");
+        Exception e = null;
+        try {
+            Item.saveAll(asList(i1, i2, i3));
+        } catch (StaleModelException ex) {
+            e = ex;
+        }
+        the(e).shouldNotBeNull();
+        the(i1.getLong("lock_version")).shouldBeEqual(2L);
+        the(i1.isModified()).shouldBeFalse();
+        the(i2.getLong("lock_version")).shouldBeEqual(1L);
+        the(i2.isModified()).shouldBeTrue();
+        the(i3.getLong("lock_version")).shouldBeEqual(2L);
+        the(i3.isModified()).shouldBeFalse();
+        the(Item.<Item>findById(i3.getId()).getString("item_description")).shouldBeEqual("third!");
+        the(Item.<Item>findById(i2.getId()).getString("item_description")).shouldBeEqual("changed");
+    }
+
+    @Test
+    public void shouldFireCallbacks() {
+        deleteFromTable("people");
+        final List<String> events = new ArrayList<>();
+        Person.callbackWith(new CallbackAdapter() {
+            @Override public void beforeSave(Model m) { events.add("beforeSave"); }
+            @Override public void beforeCreate(Model m) { events.add("beforeCreate"); }
+            @Override public void afterCreate(Model m) { events.add("afterCreate"); }
+            @Override public void afterSave(Model m) { events.add("afterSave"); }
+        });
+        try {
+            Person.saveAll(asList(new Person().set("name", "Ann", "last_name", "Doe"), new Person().set("name", "Bob", "last_name", "Doe")));
+        } finally {
+            Person.callbackWith(new CallbackAdapter());
+        }
+        the(events).shouldBeEqual(asList("beforeSave", "beforeSave", "beforeCreate", "beforeCreate",
+                "afterCreate", "afterCreate", "afterSave", "afterSave"));
+    }
+
+    @Test
+    public void shouldInsertOneByOneIfDriverReturnsNoIdsForBatch() {
+        deleteFromTable("people");
+        List<Person> people = asList(new Person().set("name", "Ann", "last_name", "Doe"),
+                new Person().set("name", "Bob", "last_name", "Doe"));
+        DB db = new DB(DB.DEFAULT_NAME);
+        Connection connection = db.detach();
+        db.attach(noBatchKeys(connection));
+        try {
+            the(Person.saveAll(people)).shouldBeEqual(2);
+        } finally {
+            db.detach();
+            db.attach(connection);
+        }
+        the(Person.count()).shouldBeEqual(2L); // the batch was rolled back
+        for (Person person : people) {
+            the(person.getLongId() > 0).shouldBeTrue();
+            the(Person.<Person>findById(person.getId()).get("name")).shouldBeEqual(person.get("name"));
+        }
+    }
+
+    /**
+     * @return connection whose statements return no generated keys after a batch, as some drivers do.
+     */
+    private static Connection noBatchKeys(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SaveAllTest.class.getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(method, connection, args);
+                    if (!(result instanceof PreparedStatement)) {
+                        return result;
+                    }
+                    PreparedStatement ps = (PreparedStatement) result;
+                    boolean[] batched = new boolean[1];
+                    return Proxy.newProxyInstance(SaveAllTest.class.getClassLoader(), new Class[]{PreparedStatement.class},
+                            (psProxy, psMethod, psArgs) -> {
+                                if (psMethod.getName().equals("executeBatch")) {
+                                    batched[0] = true;
+                                } else if (psMethod.getName().equals("executeUpdate")) {
+                                    batched[0] = false;
+                                } else if (psMethod.getName().equals("getGeneratedKeys") && batched[0]) {
+                                    return connection.createStatement().executeQuery("SELECT 1 FROM people WHERE 1 = 0");
+                                }
+                                return invoke(psMethod, ps, psArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc;
+
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Igor Polevoy
+ */
+public class StatementCacheTest extends ActiveJDBCTest {
+
+    @Before
+    public void setup() {
+        deleteAndPopulateTable("people");
+    }
+
+    private long stat(String name) {
+        return (Long) DB.statementCacheStatistics().get(name);
+    }
+
+    @Test
+    public void shouldReuseStatementsAcrossQueryPaths() {
+        String query = "SELECT COUNT(*) FROM people WHERE name = ?";
+        Base.firstCell(query, "John");
+        long hits = stat("hits");
+        long misses = stat("misses");
+
+        Base.firstCell(query, "John");
+        Base.firstColumn(query, "Leylah");
+        Base.findAll(query, "Joe");
+
+        the(stat("hits")).shouldBeEqual(hits + 3);
+        the(stat("misses")).shouldBeEqual(misses);
+    }
+
+    @Test
+    public void shouldReuseStatementForExecAndInsert() {
+        long misses = stat("misses");
+        for (int i = 0; i < 3; i++) {
+            Base.exec("UPDATE people SET graduation_date = ? WHERE name = ?", null, "John");
+            new Person().set("name", "Ann" + i, "last_name", "Smith").saveIt();
+        }
+        // one miss for UPDATE, one for INSERT, possibly more for queries made by saveIt() to refresh
+        the(stat("misses") - misses < 6).shouldBeTrue();
+        the(Person.count("name LIKE ?", "Ann%")).shouldBeEqual(3L);
+    }
+
+    @Test
+    public void shouldUseSeparateStatementForNestedExecutionOfSameQuery() {
+        final String query = "SELECT name FROM people WHERE last_name <> ? ORDER BY name";
+        final List<Object> names = new ArrayList<>();
+        Base.find(query, "nobody").with(new RowListenerAdapter() {
+            @Override
+            public void onNext(Map<String, Object> row) {
+                names.add(row.get("name"));
+                the(Base.firstColumn(query, "nobody").size()).shouldBeEqual(4);
+            }
+        });
+        the(names.size()).shouldBeEqual(4);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedStatements() {
+        int capacity = Registry.instance().getConfiguration().getStatementCacheSize();
+        long evictions = stat("evictions");
+        for (int i = 0; i < capacity + 10; i++) {
+            Base.firstCell("SELECT " + i + " FROM people WHERE name = ?", "John");
+        }
+        the(stat("evictions")).shouldBeEqual(evictions + 10);
+        the((Integer) DB.statementCacheStatistics().get("size") <= capacity).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldReturnBatchStatementToCache() {
+        deleteFromTable("people");
+        String insert = "INSERT INTO people (name, last_name, dob) VALUES (?, ?, ?)";
+        PreparedStatement ps = Base.startBatch(insert);
+        Base.addBatch(ps, "Mic", "Jagger", getDate(1962, 1, 1));
+        Base.executeBatch(ps);
+        Base.closePreparedStatement(ps);
+
+        long hits = stat("hits");
+        PreparedStatement ps2 = Base.startBatch(insert);
+        the(ps2).shouldBeTheSameAs(ps);
+        the(stat("hits")).shouldBeEqual(hits + 1);
+        Base.addBatch(ps2, "Marilyn", "Monroe", getDate(1932, 1, 1));
+        Base.executeBatch(ps2);
+        Base.closePreparedStatement(ps2);
+
+        the(Base.count("people")).shouldBeEqual(2L);
+    }
+
+    @Test
+    public void shouldNotExecuteRowsOfReleasedBatch() {
+        String query = "INSERT INTO people (name, last_name) VALUES (?, ?)";
+        PreparedStatement ps = Base.startBatch(query);
+        Base.addBatch(ps, "Stale", "Row");
+        Base.closePreparedStatement(ps); // released without executeBatch(), as after an exception
+
+        long hits = stat("hits");
+        ps = Base.startBatch(query);
+        the(stat("hits")).shouldBeEqual(hits + 1);
+        Base.addBatch(ps, "Fresh", "Row");
+        Base.executeBatch(ps);
+        Base.closePreparedStatement(ps);
+
+        the(Person.count("last_name = ?", "Row")).shouldBeEqual(1L);
+        the(Person.count("name = ?", "Stale")).shouldBeEqual(0L);
+    }
+}
@@ -16,7 +16,10 @@ limitations under the License.
 
 package org.javalite.activejdbc;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import org.javalite.activejdbc.test.ActiveJDBCTest;
 import org.javalite.activejdbc.test_models.Address;
 import org.javalite.activejdbc.test_models.Article;
@@ -191,4 +194,20 @@ public class ToFromXmlSpec extends ActiveJDBCTest {
         the(xml).shouldContain("<Name>Joe</Name>");
         the(xml).shouldContain("<Last_Name>Schmoe</Last_Name>");
     }
+
+    @Test
+    public void shouldWriteSameXmlAsGenerated() {
+        deleteAndPopulateTables("people", "users", "addresses");
+        Person.findById(1).set("name", "J<o>hn & ë").saveIt();
+        String xml = Person.findAll().orderBy("id").toXml(true, true);
+        StringWriter writer = new StringWriter();
+        Person.findAll().orderBy("id").writeXml(writer, true, true);
+        the(writer.toString()).shouldBeEqual(xml);
+        a(XPathHelper.selectText("//person[1]/name", xml)).shouldEqual("J<o>hn & ë");
+
+        xml = User.findAll().orderBy("id").include(Address.class).toXml(false, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        User.findAll().orderBy("id").include(Address.class).writeXml(out, false, false);
+        the(new String(out.toByteArray(), StandardCharsets.UTF_8)).shouldBeEqual(xml);
+    }
 }
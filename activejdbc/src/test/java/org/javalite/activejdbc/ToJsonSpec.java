@@ -24,6 +24,9 @@ import org.javalite.common.Util;
 import org.javalite.json.JSONHelper;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -250,4 +253,37 @@ public class ToJsonSpec extends ActiveJDBCTest {
         Map m = JSONHelper.toMap(p.toJson(true));
         a(m.get("name")).shouldBeEqual("bad\n\tfor\n\t\tJson");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldWriteSameJsonAsGenerated() {
+        deleteAndPopulateTables("users", "addresses");
+        User.findById(1).set("last_name", "Mon\"roe\u2028\u0001 – ë").saveIt();
+        for (boolean pretty : new boolean[]{false, true}) {
+            String json = User.findAll().orderBy("id").include(Address.class).toJson(pretty);
+
+            StringWriter writer = new StringWriter();
+            User.findAll().orderBy("id").include(Address.class).writeJson(writer, pretty);
+            the(writer.toString()).shouldBeEqual(json);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            LazyList<User> loaded = User.findAll().orderBy("id").include(Address.class);
+            loaded.size();
+            loaded.writeJson(out, pretty);
+            the(new String(out.toByteArray(), StandardCharsets.UTF_8)).shouldBeEqual(json);
+        }
+        List list = JSONHelper.toList(User.findAll().orderBy("id").toJson(false));
+        the(((Map) list.get(0)).get("last_name")).shouldBeEqual("Mon\"roe\u2028\u0001 – ë");
+    }
+
+    @Test
+    public void shouldEscapeLikeSanitize() {
+        StringBuilder value = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            value.append(c);
+        }
+        value.append("\u2028\u2029ë");
+        Person p = new Person();
+        p.set("name", value.toString());
+        the(p.toJson(false, "name")).shouldBeEqual("{\"name\":\"" + JSONHelper.sanitize(value.toString()) + "\"}");
+    }
+}
@@ -0,0 +1,98 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.javalite.test.jspec.JSpec.the;
+
+/**
+ * @author Igor Polevoy
+ */
+public class CacheKeySpec {
+
+    private static final String QUERY = "SELECT * FROM people WHERE name = ? AND id IN (?, ?)";
+
+    @Test
+    public void shouldBeEqualForEqualQueriesAndParameters() {
+        CacheKey key = CacheKey.of(QUERY, new Object[]{"John", 1L, 2L});
+        CacheKey same = CacheKey.of(new String(QUERY.toCharArray()), new Object[]{"John", 1L, 2L});
+        the(same).shouldBeEqual(key);
+        the(same.hashCode()).shouldBeEqual(key.hashCode());
+        the(same.toString()).shouldBeEqual(key.toString());
+        the(key.toString().length()).shouldBeEqual(64);
+        the(same.getQuery() == key.getQuery()).shouldBeTrue(); // interned
+    }
+
+    @Test
+    public void shouldTellDifferentQueriesAndParametersApart() {
+        Set<Object> keys = new HashSet<>();
+        Object[][] params = {null, {}, {null}, {"John", 1L, 2L}, {"John", 2L, 1L}, {"John", 1, 2}, {"John", "1", "2"},
+                {"Joh", "n1", 2L}, {1.0}, {1L}, {true}, {false}, {new BigDecimal("1.0")}, {new BigDecimal("1.00")},
+                {new Timestamp(0)}, {new java.util.Date(0)}, {new Object[]{1L}}, {new long[]{1L}}};
+        for (Object[] p : params) {
+            keys.add(CacheKey.of(QUERY, p));
+            keys.add(CacheKey.of(QUERY + " ORDER BY id", p));
+        }
+        the(keys.size()).shouldBeEqual(params.length * 2);
+
+        Set<String> strings = new HashSet<>();
+        for (Object key : keys) {
+            strings.add(key.toString());
+        }
+        // Integers and Longs have the same hashes, and so do arrays with the same text, but keys are still different
+        the(strings.size()).shouldBeEqual(params.length * 2 - 4);
+    }
+
+    @Test
+    public void shouldNotChangeIfParametersChange() {
+        Object[] params = {"John"};
+        CacheKey key = CacheKey.of(QUERY, params);
+        params[0] = "Joe";
+        the(key).shouldBeEqual(CacheKey.of(QUERY, new Object[]{"John"}));
+    }
+
+    @Test
+    public void shouldSerialize() throws IOException, ClassNotFoundException {
+        CacheKey key = CacheKey.of(QUERY, new Object[]{"John", 1L, new Timestamp(1000)});
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bout)) {
+            out.writeObject(key);
+        }
+        CacheKey read = (CacheKey) new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray())).readObject();
+        the(read).shouldBeEqual(key);
+        the(read.toString()).shouldBeEqual(key.toString());
+        the(read.getQuery() == key.getQuery()).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldBeUsedAsKeyByCacheManagers() {
+        TinyLFUCacheManager manager = new TinyLFUCacheManager(1000, 100);
+        manager.addCache("people", CacheKey.of(QUERY, new Object[]{"John", 1L, 2L}), "john");
+        the(manager.getCache("people", CacheKey.of(QUERY, new Object[]{"John", 1L, 2L}))).shouldBeEqual("john");
+        the(manager.getCache("people", CacheKey.of(QUERY, new Object[]{"John", 1L, 3L}))).shouldBeNull();
+
+        NopeCacheManager nope = new NopeCacheManager();
+        nope.addCache("people", CacheKey.of(QUERY, null), "john");
+        the(nope.getCache("people", CacheKey.of(QUERY, null))).shouldBeNull();
+    }
+}
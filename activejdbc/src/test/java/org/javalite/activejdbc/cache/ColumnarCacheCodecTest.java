@@ -0,0 +1,151 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.javalite.activejdbc.Model;
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Account;
+import org.javalite.activejdbc.test_models.Person;
+import org.javalite.test.jspec.ExceptionExpectation;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * @author Igor Polevoy
+ */
+public class ColumnarCacheCodecTest extends ActiveJDBCTest {
+
+    private final ColumnarCacheCodec codec = new ColumnarCacheCodec();
+    private final JavaCacheCodec java = new JavaCacheCodec();
+
+    private static <T extends Model> List<T> cached(List<T> models) {
+        return Collections.unmodifiableList(new ArrayList<>(models));
+    }
+
+    private List<?> decodeList(byte[] bytes) {
+        Object decoded = codec.decode(bytes);
+        the(decoded).shouldBeA(List.class);
+        return (List<?>) decoded;
+    }
+
+    private void shouldBeSame(List<?> decoded, List<? extends Model> models) {
+        the(decoded.size()).shouldBeEqual(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            the(decoded.get(i).getClass()).shouldBeEqual(models.get(i).getClass());
+            Model model = (Model) decoded.get(i);
+            the(model.toMap()).shouldBeEqual(models.get(i).toMap());
+            the(model.isModified()).shouldBeFalse();
+        }
+    }
+
+    @Test
+    public void shouldEncodeListOfModelsSmallerThanJavaSerialization() {
+        deleteAndPopulateTable("people");
+        List<Person> people = cached(Person.findAll().orderBy("id"));
+
+        byte[] bytes = codec.encode(people);
+        the(bytes.length < java.encode(people).length / 2).shouldBeTrue();
+
+        List<?> decoded = decodeList(bytes);
+        shouldBeSame(decoded, people);
+        the(((Person) decoded.get(0)).getDate("dob")).shouldBeEqual(people.get(0).getDate("dob"));
+        expect(new ExceptionExpectation<UnsupportedOperationException>(UnsupportedOperationException.class) {
+            public void exec() {
+                decoded.remove(0);
+            }
+        });
+    }
+
+    @Test
+    public void shouldEncodeNullsDecimalsAndSingleModels() {
+        deleteAndPopulateTable("accounts");
+        Account.createIt("account", "123", "description", null, "amount", 9.99, "total", null);
+        List<Account> accounts = cached(Account.findAll().orderBy("id"));
+        shouldBeSame(decodeList(codec.encode(accounts)), accounts);
+
+        Account account = accounts.get(accounts.size() - 1);
+        Object decoded = codec.decode(codec.encode(account));
+        the(decoded).shouldBeA(Account.class);
+        the(((Account) decoded).toMap()).shouldBeEqual(account.toMap());
+        the(((Account) decoded).get("description")).shouldBeNull();
+    }
+
+    @Test
+    public void shouldCompressLargeResults() {
+        deleteAndPopulateTable("people");
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            people.addAll(Person.findAll().orderBy("id"));
+        }
+        people = cached(people);
+
+        byte[] compressed = new ColumnarCacheCodec(0).encode(people);
+        byte[] uncompressed = new ColumnarCacheCodec(Integer.MAX_VALUE).encode(people);
+        the(compressed.length < uncompressed.length / 4).shouldBeTrue();
+        shouldBeSame(decodeList(compressed), people);
+        shouldBeSame(decodeList(uncompressed), people);
+    }
+
+    @Test
+    public void shouldKeepMissingAndMixedTypeAttributes() {
+        Person john = new Person();
+        john.set("name", "John", "last_name", 1, "graduation_date", "1975-12-06").saveIt();
+        Person joe = new Person();
+        joe.set("name", "Joe", "last_name", "Pesci", "graduation_date", "1965-12-06").saveIt();
+        Person ann = new Person();
+        ann.set("name", "Ann", "last_name", "Smith").saveIt();
+        List<Person> people = cached(Arrays.asList(john, joe, ann));
+
+        List<?> decoded = decodeList(codec.encode(people));
+        shouldBeSame(decoded, people);
+        the(((Person) decoded.get(0)).get("last_name")).shouldBeEqual(1);
+        the(((Person) decoded.get(2)).toMap().containsKey("graduation_date")).shouldBeFalse();
+    }
+
+    @Test
+    public void shouldFallBackToJavaSerialization() {
+        the(codec.decode(codec.encode(42L))).shouldBeEqual(42L);
+        the(codec.encode(42L).length < java.encode(42L).length).shouldBeTrue();
+        the(codec.decode(codec.encode(Arrays.asList("a", "b")))).shouldBeEqual(Arrays.asList("a", "b"));
+        the(codec.decode(codec.encode(new ArrayList<>()))).shouldBeEqual(new ArrayList<>());
+
+        deleteAndPopulateTable("people");
+        Person person = Person.findFirst("name = ?", "John");
+        person.set("last_name", "Doe");
+        byte[] bytes = codec.encode(person);
+        the(Arrays.equals(bytes, java.encode(person))).shouldBeTrue();
+        the(((Person) codec.decode(bytes)).isModified()).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldDecodeJavaSerializedCaches() {
+        deleteAndPopulateTable("people");
+        List<Person> people = cached(Person.findAll().orderBy("id"));
+        shouldBeSame(decodeList(java.encode(people)), people);
+    }
+
+    @Test
+    public void shouldRejectCorruptedBytes() {
+        deleteAndPopulateTable("people");
+        byte[] bytes = codec.encode(cached(Person.findAll()));
+        expect(new ExceptionExpectation<CacheException>(CacheException.class) {
+            public void exec() {
+                codec.decode(Arrays.copyOf(bytes, bytes.length - 3));
+            }
+        });
+    }
+}
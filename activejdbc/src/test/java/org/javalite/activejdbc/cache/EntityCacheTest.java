@@ -0,0 +1,177 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.cache;
+
+import org.javalite.activejdbc.Base;
+import org.javalite.activejdbc.LockMode;
+import org.javalite.activejdbc.MetaModel;
+import org.javalite.activejdbc.Registry;
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Bin;
+import org.javalite.activejdbc.test_models.Warehouse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Rows are changed with <code>Base</code> behind the cache, to tell which of them are served from cache.
+ *
+ * @author Igor Polevoy
+ */
+public class EntityCacheTest extends ActiveJDBCTest {
+
+    private Object northId, southId;
+
+    @Before
+    public void setUp() {
+        deleteFromTable("bins");
+        deleteFromTable("warehouses");
+        Registry.cacheManager().flush(CacheEvent.ALL);
+        northId = Warehouse.createIt("name", "North").getId();
+        southId = Warehouse.createIt("name", "South").getId();
+        Bin.createIt("warehouse_id", northId, "code", "A1", "label", "Bolts");
+        Bin.createIt("warehouse_id", northId, "code", "A2", "label", "Nuts");
+        Bin.createIt("warehouse_id", southId, "code", "B1", "label", "Nails");
+    }
+
+    private void renameBehindCache(Object id, String name) {
+        Base.exec("UPDATE warehouses SET name = ? WHERE id = ?", name, id);
+    }
+
+    @Test
+    public void shouldReturnCopiesOfCachedRows() {
+        Warehouse north = Warehouse.findById(northId);
+        renameBehindCache(northId, "Changed");
+
+        Warehouse cached = Warehouse.findById(northId);
+        the(cached).shouldNotBeTheSameAs(north);
+        the(cached.getString("name")).shouldBeEqual("North");
+        the(cached.isModified()).shouldBeFalse();
+        the(cached.isFrozen()).shouldBeFalse();
+
+        cached.set("name", "Modified copy");
+        the(Warehouse.findById(northId).getString("name")).shouldBeEqual("North");
+        the(Warehouse.findById(northId.toString()).getString("name")).shouldBeEqual("North");
+    }
+
+    @Test
+    public void shouldRemoveOnlySavedRow() {
+        Warehouse.findById(northId);
+        Warehouse south = Warehouse.findById(southId);
+        renameBehindCache(northId, "North behind cache");
+
+        south.set("name", "South-East").saveIt();
+        the(Warehouse.findById(southId).getString("name")).shouldBeEqual("South-East");
+        the(Warehouse.findById(northId).getString("name")).shouldBeEqual("North"); // still cached
+    }
+
+    @Test
+    public void shouldRemoveDeletedRow() {
+        Warehouse.findById(northId).delete();
+        the(Warehouse.findById(northId)).shouldBeNull();
+        the(Warehouse.findById(southId)).shouldNotBeNull();
+    }
+
+    @Test
+    public void shouldPurgeAllRowsAfterStatementsChangingManyRows() {
+        Warehouse.findById(northId);
+        Warehouse.findById(southId);
+        renameBehindCache(southId, "South behind cache");
+
+        Warehouse.update("name = ?", "id = ?", "Far North", northId);
+        the(Warehouse.findById(northId).getString("name")).shouldBeEqual("Far North");
+        the(Warehouse.findById(southId).getString("name")).shouldBeEqual("South behind cache");
+
+        renameBehindCache(southId, "South");
+        Warehouse.purgeCache();
+        the(Warehouse.findById(southId).getString("name")).shouldBeEqual("South");
+    }
+
+    @Test
+    public void shouldNotUseCacheWhenLocking() {
+        Warehouse.findById(northId);
+        renameBehindCache(northId, "Locked");
+        the(Warehouse.findById(northId, LockMode.FOR_UPDATE).getString("name")).shouldBeEqual("Locked");
+        the(Warehouse.findById(northId).getString("name")).shouldBeEqual("North");
+    }
+
+    @Test
+    public void shouldCacheRowsFoundByCompositeKeys() {
+        Bin a1 = Bin.findByCompositeKeys(northId, "A1");
+        Base.exec("UPDATE bins SET label = ? WHERE code = ?", "Screws", "A1");
+        the(Bin.findByCompositeKeys(northId, "A1").getString("label")).shouldBeEqual("Bolts");
+
+        a1.set("label", "Washers").saveIt();
+        the(Bin.findByCompositeKeys(northId, "A1").getString("label")).shouldBeEqual("Washers");
+    }
+
+    @Test
+    public void shouldTakeParentsFromCache() {
+        Warehouse.findById(northId);
+        renameBehindCache(northId, "Changed");
+        Bin bin = Bin.findByCompositeKeys(northId, "A1");
+        the(bin.parent(Warehouse.class).getString("name")).shouldBeEqual("North");
+    }
+
+    @Test
+    public void shouldCacheQueriesAsListsOfIds() {
+        List<Bin> bins = Bin.where("warehouse_id = ?", northId).orderBy("code");
+        the(bins.size()).shouldBeEqual(2);
+        Base.exec("UPDATE bins SET label = ? WHERE code = ?", "Screws", "A1");
+
+        // rows come from the cache of rows, as copies
+        List<Bin> cached = Bin.where("warehouse_id = ?", northId).orderBy("code");
+        the(cached.get(0).getString("label")).shouldBeEqual("Bolts");
+        the(cached.get(0)).shouldNotBeTheSameAs(bins.get(0));
+        the(Bin.findByCompositeKeys(northId, "A2").getString("label")).shouldBeEqual("Nuts");
+
+        // a row missing from the cache of rows makes the query run again
+        Registry.cacheManager().flush(new CacheEvent("bins.entities", getClass().getName()));
+        the(Bin.where("warehouse_id = ?", northId).orderBy("code").get(0).getString("label")).shouldBeEqual("Screws");
+
+        // saving a row purges cached queries of its table
+        Bin.createIt("warehouse_id", northId, "code", "A3", "label", "Rivets");
+        the(Bin.where("warehouse_id = ?", northId).orderBy("code").size()).shouldBeEqual(3);
+    }
+
+    @Test
+    public void shouldNotCacheQueriesUnlessConfigured() {
+        the(Warehouse.where("name = ?", "North").size()).shouldBeEqual(1);
+        renameBehindCache(northId, "Changed");
+        the(Warehouse.where("name = ?", "North").size()).shouldBeEqual(0);
+    }
+
+    @Test
+    public void shouldNotCacheRowsReadBeforeTheyWereChanged() {
+        MetaModel metaModel = Registry.instance().getMetaModel(Warehouse.class);
+        long stamp = EntityCache.stamp(metaModel);
+        Warehouse read = Warehouse.findFirst("id = ?", northId);
+        Warehouse.<Warehouse>findFirst("id = ?", northId).set("name", "North-West").saveIt(); // changed by another reader
+        EntityCache.put(read, stamp);
+        the(Warehouse.findById(northId).getString("name")).shouldBeEqual("North-West");
+
+        stamp = EntityCache.stamp(metaModel);
+        read = Warehouse.findFirst("id = ?", southId);
+        Warehouse.update("name = ?", "id = ?", "South-West", southId); // purges all rows
+        EntityCache.put(read, stamp);
+        the(Warehouse.findById(southId).getString("name")).shouldBeEqual("South-West");
+
+        // rows read after a change are cached
+        renameBehindCache(southId, "South behind cache");
+        the(Warehouse.findById(southId).getString("name")).shouldBeEqual("South-West");
+    }
+}
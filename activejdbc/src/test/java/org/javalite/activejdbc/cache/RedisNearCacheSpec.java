@@ -0,0 +1,176 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.javalite.test.jspec.JSpec.the;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs near caches of two nodes against a stand-in for a Redis server, kept in memory.
+ *
+ * @author Igor Polevoy
+ */
+public class RedisNearCacheSpec {
+
+    private final Map<String, Map<String, byte[]>> hashes = new ConcurrentHashMap<>();
+    private final List<JedisPubSub> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger reads = new AtomicInteger();
+    private volatile Runnable afterRead;
+    private JedisPool pool;
+
+    private static String s(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Before
+    public void before() {
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.hget(any(byte[].class), any(byte[].class))).thenAnswer(invocation -> {
+            reads.incrementAndGet();
+            Map<String, byte[]> hash = hashes.get(s(invocation.getArgument(0)));
+            byte[] value = hash == null ? null : hash.get(s(invocation.getArgument(1)));
+            Runnable runnable = afterRead;
+            if (runnable != null) {
+                afterRead = null;
+                runnable.run();
+            }
+            return value;
+        });
+        when(jedis.hset(any(byte[].class), any(byte[].class), any(byte[].class))).thenAnswer(invocation -> {
+            hashes.computeIfAbsent(s(invocation.getArgument(0)), k -> new ConcurrentHashMap<>())
+                    .put(s(invocation.getArgument(1)), invocation.getArgument(2));
+            return 1L;
+        });
+        when(jedis.hdel(any(byte[].class), any(byte[].class))).thenAnswer(invocation -> {
+            Map<String, byte[]> hash = hashes.get(s(invocation.getArgument(0)));
+            return hash == null || hash.remove(s(invocation.getArgument(1))) == null ? 0L : 1L;
+        });
+        when(jedis.del(any(byte[].class))).thenAnswer(invocation -> hashes.remove(s(invocation.getArgument(0))) == null ? 0L : 1L);
+        when(jedis.publish(anyString(), anyString())).thenAnswer(invocation -> {
+            for (JedisPubSub subscriber : subscribers) {
+                subscriber.onMessage(invocation.getArgument(0), invocation.getArgument(1));
+            }
+            return (long) subscribers.size();
+        });
+        doAnswer(invocation -> {
+            JedisPubSub subscriber = invocation.getArgument(0);
+            subscriber.onSubscribe(RedisCacheManager.CHANNEL, 1);
+            subscribers.add(subscriber);
+            new CountDownLatch(1).await(); // blocks, like a real subscription
+            return null;
+        }).when(jedis).subscribe(any(JedisPubSub.class), any(String[].class));
+
+        pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+    }
+
+    private RedisCacheManager node() throws InterruptedException {
+        int expected = subscribers.size() + 1;
+        RedisCacheManager manager = new RedisCacheManager(pool, 1000);
+        while (subscribers.size() < expected) {
+            Thread.sleep(10);
+        }
+        return manager;
+    }
+
+    @Test
+    public void shouldReadFromNearCache() throws InterruptedException {
+        RedisCacheManager node1 = node();
+        RedisCacheManager node2 = node();
+        node1.addCache("people", "q1", Arrays.asList("John", "Joe"));
+
+        the(node2.getCache("people", "q1")).shouldBeEqual(Arrays.asList("John", "Joe"));
+        the(node2.getCache("people", "q1")).shouldBeEqual(Arrays.asList("John", "Joe"));
+        the(node1.getCache("people", "q1")).shouldBeEqual(Arrays.asList("John", "Joe"));
+        the(reads.get()).shouldBeEqual(1); // node1 cached on write, node2 on first read
+        the(node2.getStatistics().get("hits")).shouldBeEqual(1L);
+    }
+
+    @Test
+    public void shouldPurgeGroupOnAllNodes() throws InterruptedException {
+        RedisCacheManager node1 = node();
+        RedisCacheManager node2 = node();
+        node1.addCache("people", "q1", "John");
+        node1.addCache("animals", "q1", "dog");
+        the(node2.getCache("people", "q1")).shouldBeEqual("John");
+        the(node2.getCache("animals", "q1")).shouldBeEqual("dog");
+
+        node1.flush(new CacheEvent("people", "test"));
+        the(node1.getCache("people", "q1")).shouldBeNull();
+        the(node2.getCache("people", "q1")).shouldBeNull();
+        the(node2.getCache("animals", "q1")).shouldBeEqual("dog");
+    }
+
+    @Test
+    public void shouldNotKeepResultsReadBeforeFlushInNearCache() throws InterruptedException {
+        RedisCacheManager node1 = node();
+        RedisCacheManager node2 = node();
+        node1.addCache("people", "q1", "John");
+
+        afterRead = () -> node1.flush(new CacheEvent("people", "test")); // flushed while node2 reads
+        the(node2.getCache("people", "q1")).shouldBeEqual("John");
+        the(node2.getCache("people", "q1")).shouldBeNull();
+
+        CacheKey key = CacheKey.of("select * from people", new Object[0]);
+        node1.addCache("people", key.toString(), "Joe");
+        afterRead = () -> node1.removeCache("people", key); // removed while node2 reads
+        the(node2.getCache("people", key.toString())).shouldBeEqual("Joe");
+        the(node2.getCache("people", key.toString())).shouldBeNull();
+        the(reads.get()).shouldBeEqual(4);
+    }
+
+    @Test
+    public void shouldNotifyListenersOnlyOnNodeWhichFlushed() throws InterruptedException {
+        RedisCacheManager node1 = node();
+        RedisCacheManager node2 = node();
+        CacheEventListener listener1 = mock(CacheEventListener.class);
+        CacheEventListener listener2 = mock(CacheEventListener.class);
+        node1.addCacheEventListener(listener1);
+        node2.addCacheEventListener(listener2);
+
+        node1.flush(new CacheEvent("people", "test"));
+        verify(listener1).onFlush(any(CacheEvent.class));
+        verify(listener2, never()).onFlush(any(CacheEvent.class));
+    }
+
+    @Test
+    public void shouldReadFromRedisWithoutNearCache() {
+        RedisCacheManager manager = new RedisCacheManager(pool, 0);
+        manager.addCache("people", "q1", "John");
+        the(manager.getCache("people", "q1")).shouldBeEqual("John");
+        the(manager.getCache("people", "q1")).shouldBeEqual("John");
+        the(reads.get()).shouldBeEqual(2);
+        the(subscribers.isEmpty()).shouldBeTrue();
+        the(manager.getStatistics().isEmpty()).shouldBeTrue();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package org.javalite.activejdbc.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.javalite.test.jspec.JSpec.the;
+
+/**
+ * @author Igor Polevoy
+ */
+public class TinyLFUCacheManagerSpec {
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        TinyLFUCacheManager manager = new TinyLFUCacheManager(1000, 100);
+        manager.addCache("people", "q1", Arrays.asList(1, 2, 3));
+        the(manager.getCache("people", "q1")).shouldBeEqual(Arrays.asList(1, 2, 3));
+        the(manager.getCache("people", "q2")).shouldBeNull();
+        the(manager.getCache("animals", "q1")).shouldBeNull();
+
+        the(manager.getStatistics().get("hits")).shouldBeEqual(1L);
+        the(manager.getStatistics().get("misses")).shouldBeEqual(2L);
+        the(manager.getStatistics().get("size")).shouldBeEqual(1);
+        the(manager.getStatistics().get("weight")).shouldBeEqual(3L);
+    }
+
+    @Test
+    public void shouldFlushGroupWithoutTouchingOthers() {
+        TinyLFUCacheManager manager = new TinyLFUCacheManager(1000, 100);
+        manager.addCache("people", "q1", "john");
+        manager.addCache("animals", "q1", "dog");
+
+        manager.flush(new CacheEvent("people", "test"));
+        the(manager.getCache("people", "q1")).shouldBeNull();
+        the(manager.getCache("animals", "q1")).shouldBeEqual("dog");
+
+        manager.addCache("people", "q1", "joe");
+        the(manager.getCache("people", "q1")).shouldBeEqual("joe");
+
+        manager.flush(CacheEvent.ALL);
+        the(manager.getCache("people", "q1")).shouldBeNull();
+        the(manager.getCache("animals", "q1")).shouldBeNull();
+        the(manager.getStatistics().get("weight")).shouldBeEqual(0L);
+    }
+
+    @Test
+    public void shouldStayWithinMaxWeight() {
+        TinyLFUCacheManager manager = new TinyLFUCacheManager(1000, 100);
+        for (int i = 0; i < 200; i++) {
+            manager.addCache("people", "q" + i, Collections.nCopies(50, i));
+            the((Long) manager.getStatistics().get("weight") <= 1000).shouldBeTrue();
+        }
+        the((Long) manager.getStatistics().get("evictions") > 0).shouldBeTrue();
+        manager.addCache("people", "huge", Collections.nCopies(5000, 0));
+        the(manager.getCache("people", "huge")).shouldBeNull();
+    }
+
+    @Test
+    public void shouldKeepPopularEntriesDuringScan() {
+        TinyLFUCacheManager manager = new TinyLFUCacheManager(100, 100);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (manager.getCache("people", "hot" + i) == null) {
+                    manager.addCache("people", "hot" + i, i);
+                }
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            manager.addCache("people", "scan" + i, i);
+        }
+        int found = 0;
+        for (int i = 0; i < 50; i++) {
+            if (manager.getCache("people", "hot" + i) != null) {
+                found++;
+            }
+        }
+        the(found >= 45).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldEvictOldestEntriesOfGroupOverQuota() {
+        TinyLFUCacheManager manager = new TinyLFUCacheManager(1000, 10);
+        manager.addCache("animals", "q", "dog");
+        for (int i = 0; i < 150; i++) {
+            manager.addCache("people", "q" + i, i);
+        }
+        the(manager.getCache("people", "q0")).shouldBeNull();
+        the(manager.getCache("people", "q149")).shouldBeEqual(149);
+        the(manager.getCache("animals", "q")).shouldBeEqual("dog");
+        the(manager.getStatistics().get("size")).shouldBeEqual(101);
+    }
+
+    @Test
+    public void shouldHalveFrequencies() {
+        TinyLFUCacheManager.FrequencySketch sketch = new TinyLFUCacheManager.FrequencySketch(16);
+        int hash = "key".hashCode();
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(hash);
+        }
+        the(sketch.frequency(hash)).shouldBeEqual(15);
+        for (int i = 0; i < 200; i++) {
+            sketch.increment(i * 31);
+        }
+        the(sketch.frequency(hash) < 15).shouldBeTrue();
+    }
+}
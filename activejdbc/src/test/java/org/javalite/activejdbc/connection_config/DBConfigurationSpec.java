@@ -3,6 +3,8 @@ package org.javalite.activejdbc.connection_config;
 import org.javalite.app_config.AppConfig;
 import org.junit.Test;
 
+import java.util.Properties;
+
 import static org.javalite.test.jspec.JSpec.the;
 
 public class DBConfigurationSpec {
@@ -20,4 +22,25 @@ public class DBConfigurationSpec {
         the(DBConfiguration.getConnectionConfigsForCurrentEnv().size()).shouldEqual(1);
         AppConfig.setActiveEnv("development");
     }
+
+    @Test
+    public void shouldReadPoolConfigForEnvironment(){
+        Properties props = new Properties();
+        props.setProperty("development.pool.min_size", "2");
+        props.setProperty("development.pool.max_size", "15");
+        props.setProperty("development.pool.leak_threshold", "60000");
+        props.setProperty("development.pool.validation_timeout", "2");
+        props.setProperty("production.pool.enabled", "false");
+        props.setProperty("production.pool.max_size", "5");
+
+        ConnectionPoolConfig config = ConnectionPoolConfig.fromProperties(props, "development");
+        the(config.getMinSize()).shouldBeEqual(2);
+        the(config.getMaxSize()).shouldBeEqual(15);
+        the(config.getLeakThresholdMillis()).shouldBeEqual(60000L);
+        the(config.isValidateOnBorrow()).shouldBeTrue();
+        the(config.getValidationTimeoutSeconds()).shouldBeEqual(2);
+
+        the(ConnectionPoolConfig.fromProperties(props, "production")).shouldBeNull();
+        the(ConnectionPoolConfig.fromProperties(props, "staging")).shouldBeNull();
+    }
 }
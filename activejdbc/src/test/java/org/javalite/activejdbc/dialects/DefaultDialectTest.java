@@ -27,6 +27,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 public class DefaultDialectTest extends ActiveJDBCTest {
@@ -52,6 +53,18 @@ public class DefaultDialectTest extends ActiveJDBCTest {
         a(dialect.selectStar("people", "name = ?")).shouldBeEqual("SELECT * FROM people WHERE name = ?");
     }
 
+    @Test
+    public void shouldExpandSeekCondition() {
+        List<Object> params = new ArrayList<>();
+        a(dialect.seekCondition(Arrays.asList("a", "b", "c"), false, new Object[]{1, 2, 3}, params)).shouldBeEqual(
+                "((a > ?) OR (a = ? AND b > ?) OR (a = ? AND b = ? AND c > ?))");
+        a(params).shouldBeEqual(Arrays.asList(1, 1, 2, 1, 2, 3));
+
+        params.clear();
+        a(dialect.seekCondition(Arrays.asList("a"), true, new Object[]{1}, params)).shouldBeEqual("((a < ?))");
+        a(dialect.selectApproximateCount("people")).shouldBeNull();
+    }
+
     @Test
     public void testSelectStarParametrized() {
         a(dialect.selectStarParametrized("people", "name")).shouldBeEqual("SELECT * FROM people WHERE name = ?");
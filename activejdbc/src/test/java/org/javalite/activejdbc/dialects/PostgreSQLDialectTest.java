@@ -17,6 +17,7 @@ package org.javalite.activejdbc.dialects;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.javalite.activejdbc.test.ActiveJDBCTest;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -57,4 +58,14 @@ public class PostgreSQLDialectTest extends ActiveJDBCTest {
         a(dialect.formSelect("people", null, "last_name = ?", new ArrayList<String>(), 1, 10)).shouldBeEqual("SELECT * FROM people WHERE last_name = ? LIMIT 1 OFFSET 10");
         a(dialect.formSelect("people", null, "name = ?", Arrays.asList("name"), 10, 10)).shouldBeEqual("SELECT * FROM people WHERE name = ? ORDER BY name LIMIT 10 OFFSET 10");
     }
+
+    @Test
+    public void shouldCompareRowValuesInSeekCondition() {
+        List<Object> params = new ArrayList<>();
+        a(dialect.seekCondition(Arrays.asList("created_at", "id"), false, new Object[]{"2020-01-01", 5}, params))
+                .shouldBeEqual("(created_at, id) > (?, ?)");
+        a(params).shouldBeEqual(Arrays.asList("2020-01-01", 5));
+        a(dialect.seekCondition(Arrays.asList("id"), true, new Object[]{5}, new ArrayList<>())).shouldBeEqual("(id) < (?)");
+        a(dialect.selectApproximateCount("people")).shouldBeEqual("SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass('people')");
+    }
 }
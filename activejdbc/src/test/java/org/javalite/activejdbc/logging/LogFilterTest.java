@@ -0,0 +1,88 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.logging;
+
+import org.javalite.activejdbc.Base;
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.common.Util;
+import org.javalite.json.JSONHelper;
+import org.javalite.test.SystemStreamUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author Igor Polevoy
+ */
+public class LogFilterTest extends ActiveJDBCTest {
+
+    @Before
+    public void replaceOut() {
+        deleteAndPopulateTables("people", "accounts");
+        SystemStreamUtil.replaceOut();
+    }
+
+    @After
+    public void restore() {
+        LogFilter.setAsync(false);
+        LogFilter.setLogExpression(".*");
+        SystemStreamUtil.restoreSystemOut();
+    }
+
+    private List<Map> messages(String sql) {
+        String out = SystemStreamUtil.getSystemOut();
+        return Arrays.stream(Util.split(out, System.lineSeparator()))
+                .filter(line -> line.contains(sql))
+                .map(line -> (Map) JSONHelper.toMap(line).get("message"))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldLogQueriesWithNanosAndEscapedParameters() {
+        Base.findAll("SELECT * FROM people WHERE name = ? OR id = ?", "Joh\"n\n", 42);
+        List<Map> messages = messages("SELECT * FROM people WHERE name = ? OR id = ?");
+        the(messages.size()).shouldBeEqual(1);
+        Map message = messages.get(0);
+        the(message.get("params")).shouldBeEqual(Arrays.asList("Joh\"n\n", 42));
+        the(((Number) message.get("duration_nanos")).longValue() > 0).shouldBeTrue();
+        the(message.get("duration_millis")).shouldNotBeNull();
+        the(message.get("cache")).shouldBeNull();
+    }
+
+    @Test
+    public void shouldFilterQueriesBySql() {
+        LogFilter.setLogExpression(".*FROM accounts.*");
+        Base.findAll("SELECT * FROM people");
+        Base.findAll("SELECT * FROM accounts");
+        the(messages("SELECT * FROM people").size()).shouldBeEqual(0);
+        the(messages("SELECT * FROM accounts").size()).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldLogQueriesInBackground() {
+        LogFilter.setAsync(true);
+        for (int i = 0; i < 100; i++) {
+            Base.findAll("SELECT * FROM people WHERE id = ?", i);
+        }
+        the(LogFilter.flush(10000)).shouldBeTrue();
+        the(messages("SELECT * FROM people WHERE id = ?").size()).shouldBeEqual(100);
+    }
+}
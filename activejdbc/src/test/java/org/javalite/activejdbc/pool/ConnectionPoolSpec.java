@@ -0,0 +1,200 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package org.javalite.activejdbc.pool;
+
+import org.javalite.activejdbc.Base;
+import org.javalite.activejdbc.DB;
+import org.javalite.activejdbc.connection_config.ConnectionJdbcConfig;
+import org.javalite.activejdbc.connection_config.ConnectionPoolConfig;
+import org.javalite.test.SystemStreamUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+import static org.javalite.activejdbc.test.JdbcProperties.*;
+import static org.javalite.test.jspec.JSpec.the;
+
+/**
+ * @author Igor Polevoy
+ */
+public class ConnectionPoolSpec {
+
+    private ConnectionPool pool;
+
+    @After
+    public void after() {
+        DB.closeAllConnections();
+        if (pool != null) {
+            pool.close();
+        }
+        ConnectionPool.closeAll();
+    }
+
+    private ConnectionJdbcConfig config(int minSize, int maxSize) {
+        ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
+        poolConfig.setMinSize(minSize);
+        poolConfig.setMaxSize(maxSize);
+        poolConfig.setMaxWaitMillis(100);
+        ConnectionJdbcConfig config = new ConnectionJdbcConfig(driver(), url(), user(), password());
+        config.setPoolConfig(poolConfig);
+        return config;
+    }
+
+    @Test
+    public void shouldReuseConnectionOpenedByDB() {
+        ConnectionJdbcConfig config = config(0, 2);
+
+        new DB().open(config);
+        the(Base.firstCell("SELECT 1")).shouldNotBeNull();
+        new DB().close();
+
+        new DB().open(config);
+        Base.firstCell("SELECT 1");
+        new DB().close();
+
+        ConnectionPool pool = ConnectionPool.of(config);
+        the(pool.getCreatedCount()).shouldBeEqual(1L);
+        the(pool.getBorrowCount()).shouldBeEqual(2L);
+        the(pool.getActiveCount()).shouldBeEqual(0);
+        the(pool.getIdleCount()).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldShareSamePoolForSameConfiguration() {
+        the(ConnectionPool.of(config(0, 3))).shouldBeTheSameAs(ConnectionPool.of(config(0, 3)));
+        the(ConnectionPool.of(config(0, 3))).shouldNotBeTheSameAs(ConnectionPool.of(config(0, 4)));
+    }
+
+    @Test
+    public void shouldFillPoolToMinSize() {
+        pool = new ConnectionPool(config(2, 5));
+        the(pool.getTotalCount()).shouldBeEqual(2);
+        the(pool.getIdleCount()).shouldBeEqual(2);
+    }
+
+    @Test
+    public void shouldTimeOutWhenPoolIsExhausted() throws SQLException {
+        pool = new ConnectionPool(config(0, 1));
+        Connection connection = pool.getConnection();
+        Exception e = null;
+        try {
+            pool.getConnection();
+        } catch (SQLTimeoutException ex) {
+            e = ex;
+        }
+        the(e).shouldNotBeNull();
+        the(pool.getTimeoutCount()).shouldBeEqual(1L);
+        the(pool.getTotalCount()).shouldBeEqual(1);
+
+        connection.close();
+        pool.getConnection().close();
+        the(pool.getTotalCount()).shouldBeEqual(1);
+        the(pool.getMaxWaitNanos() > 0).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldNotAllowUseOfReturnedConnection() throws SQLException {
+        pool = new ConnectionPool(config(0, 1));
+        Connection connection = pool.getConnection();
+        connection.close();
+        connection.close(); // second close is ignored
+        the(connection.isClosed()).shouldBeTrue();
+        the(pool.getIdleCount()).shouldBeEqual(1);
+
+        Exception e = null;
+        try {
+            connection.createStatement();
+        } catch (SQLException ex) {
+            e = ex;
+        }
+        the(e).shouldNotBeNull();
+        the(pool.getConnection().isClosed()).shouldBeFalse();
+    }
+
+    @Test
+    public void shouldRollbackTransactionLeftOpen() throws SQLException {
+        pool = new ConnectionPool(config(0, 1));
+        Connection connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+        the(pool.getConnection().getAutoCommit()).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldEvictIdleConnectionsAboveMinSize() throws SQLException, InterruptedException {
+        ConnectionJdbcConfig config = config(1, 3);
+        config.getPoolConfig().setIdleTimeoutMillis(1);
+        pool = new ConnectionPool(config);
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        Connection c3 = pool.getConnection();
+        c1.close();
+        c2.close();
+        c3.close();
+        the(pool.getTotalCount()).shouldBeEqual(3);
+        Thread.sleep(10);
+
+        pool.evictIdle();
+        the(pool.getTotalCount()).shouldBeEqual(1);
+        the(pool.getEvictedCount()).shouldBeEqual(2L);
+    }
+
+    @Test
+    public void shouldReportLeakOncePerBorrow() throws SQLException, InterruptedException {
+        ConnectionJdbcConfig config = config(0, 1);
+        config.getPoolConfig().setLeakThresholdMillis(1);
+        pool = new ConnectionPool(config);
+        Connection connection = pool.getConnection();
+        Thread.sleep(10);
+        pool.detectLeaks();
+        pool.detectLeaks();
+        the(pool.getLeakCount()).shouldBeEqual(1L);
+
+        the(ConnectionPool.reportLeak(connection)).shouldBeTrue();
+        the(pool.getLeakCount()).shouldBeEqual(2L);
+        connection.close();
+    }
+
+    @Test
+    public void shouldReportLeakWithoutThreshold() throws SQLException {
+        pool = new ConnectionPool(config(0, 1));
+        Connection connection = pool.getConnection();
+        SystemStreamUtil.replaceOut();
+        try {
+            the(ConnectionPool.reportLeak(connection)).shouldBeTrue();
+            the(SystemStreamUtil.getSystemOut()).shouldContain("borrowed by thread " + Thread.currentThread().getName());
+        } finally {
+            SystemStreamUtil.restoreSystemOut();
+        }
+        the(pool.getLeakCount()).shouldBeEqual(1L);
+        connection.close();
+    }
+
+    @Test
+    public void shouldProvideStatistics() throws SQLException {
+        pool = new ConnectionPool(config(0, 2));
+        Connection connection = pool.getConnection();
+        the(pool.getStatistics().get("active")).shouldBeEqual(1);
+        the(pool.getStatistics().get("idle")).shouldBeEqual(0);
+        connection.close();
+        the(pool.toString()).shouldContain("\"active\":0");
+    }
+}
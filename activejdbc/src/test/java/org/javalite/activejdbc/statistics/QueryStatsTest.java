@@ -20,6 +20,9 @@ package org.javalite.activejdbc.statistics;
 import static org.javalite.test.jspec.JSpec.*;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Igor Polevoy
  */
@@ -41,4 +44,67 @@ public class QueryStatsTest {
         a(queryStats.getMax()).shouldBeEqual(30);
         a(queryStats.getTotal()).shouldBeEqual(49);
     }
+
+    @Test
+    public void shouldReportPercentilesInNanos(){
+        QueryStats queryStats = new QueryStats("test");
+        for (int i = 1; i <= 1000; i++) {
+            queryStats.addQueryNanos(i * 1000, 10);
+        }
+        queryStats.addQueryNanos(5000000000L, 10);
+
+        a(queryStats.getCount()).shouldBeEqual(1001);
+        a(queryStats.getMinNanos()).shouldBeEqual(1000);
+        a(queryStats.getMaxNanos()).shouldBeEqual(5000000000L);
+        a(queryStats.getMax()).shouldBeEqual(5000);
+        shouldBeClose(queryStats.getP50Nanos(), 501000);
+        shouldBeClose(queryStats.getP95Nanos(), 951000);
+        shouldBeClose(queryStats.getP99Nanos(), 991000);
+        shouldBeClose(queryStats.getP999Nanos(), 1000000);
+        a(queryStats.getPercentileNanos(100)).shouldBeEqual(5000000000L);
+        a(queryStats.getRows()).shouldBeEqual(10010);
+        a(queryStats.getAvgRows()).shouldBeEqual(10.0);
+    }
+
+    private void shouldBeClose(long actual, long expected) {
+        the(Math.abs(actual - expected) <= expected / 16).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldCountCacheHitsSeparately(){
+        QueryStats queryStats = new QueryStats("test");
+        queryStats.addQueryTime(3);
+        queryStats.addCacheHit();
+        queryStats.addCacheHit();
+        queryStats.addCacheHit();
+
+        a(queryStats.getCount()).shouldBeEqual(1);
+        a(queryStats.getCacheHits()).shouldBeEqual(3);
+        a(queryStats.getCacheHitRatio()).shouldBeEqual(0.75);
+        a(queryStats.getAvgRows()).shouldBeEqual(0.0);
+        a(new QueryStats("none").getP99Nanos()).shouldBeEqual(0);
+    }
+
+    @Test
+    public void shouldCollectFromManyThreads() throws InterruptedException {
+        QueryStats queryStats = new QueryStats("test");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 10000; i++) {
+                    queryStats.addQueryNanos(i, 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        a(queryStats.getCount()).shouldBeEqual(80000);
+        a(queryStats.getRows()).shouldBeEqual(80000);
+        a(queryStats.getTotalNanos()).shouldBeEqual(8L * 10000 * 10001 / 2);
+        a(queryStats.getMinNanos()).shouldBeEqual(1);
+        a(queryStats.getMaxNanos()).shouldBeEqual(10000);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.statistics;
+
+import org.javalite.activejdbc.Base;
+import org.javalite.activejdbc.DB;
+import org.javalite.activejdbc.Registry;
+import org.javalite.activejdbc.test.ActiveJDBCTest;
+import org.javalite.activejdbc.test_models.Person;
+import org.javalite.json.JSONHelper;
+import org.javalite.json.JSONList;
+import org.javalite.json.JSONMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Igor Polevoy
+ */
+public class SlowQueryLogTest extends ActiveJDBCTest {
+
+    private final SlowQueryLog log = Registry.instance().getSlowQueryLog();
+
+    @Before
+    public void setUp() {
+        deleteAndPopulateTable("people");
+        log.clear();
+        log.setThresholdMillis(DB.DEFAULT_NAME, 0);
+    }
+
+    @After
+    public void tearDown() {
+        log.setThresholdMillis(DB.DEFAULT_NAME, -1);
+        log.setExplainSampleRate(1);
+        log.clear();
+    }
+
+    @Test
+    public void shouldKeepSlowQueriesWithPlansAndCallSites() {
+        Person.where("name = ?", "John").size();
+
+        List<SlowQuery> queries = log.getSlowQueries();
+        the(queries.size()).shouldBeEqual(1);
+        SlowQuery query = queries.get(0);
+        the(query.getDbName()).shouldBeEqual(DB.DEFAULT_NAME);
+        the(query.getQuery()).shouldContain("FROM people WHERE name = ?");
+        the(query.getParams().get(0)).shouldBeEqual("John");
+        the(query.getPlan().toUpperCase()).shouldContain("PEOPLE");
+        the(query.getStack().get(0).getClassName()).shouldBeEqual(getClass().getName());
+        the(query.getNanos() > 0).shouldBeTrue();
+
+        // EXPLAIN ran in a savepoint, and the transaction is still usable
+        the(Base.count("people")).shouldBeEqual(4);
+    }
+
+    @Test
+    public void shouldSampleExplains() {
+        log.setExplainSampleRate(0);
+        Base.findAll("SELECT * FROM people");
+        the(log.getSlowQueries().get(0).getPlan()).shouldBeNull();
+    }
+
+    @Test
+    public void shouldNotKeepQueriesUnderThreshold() {
+        log.setThresholdMillis(DB.DEFAULT_NAME, 60000);
+        Person.findAll().size();
+        the(log.getSlowQueries().size()).shouldBeEqual(0);
+    }
+
+    @Test
+    public void shouldKeepOnlyMostRecentQueries() {
+        SlowQueryLog small = new SlowQueryLog(Registry.instance().getConfiguration());
+        small.setThresholdMillis(DB.DEFAULT_NAME, 0);
+        small.setExplainSampleRate(0);
+        for (int i = 0; i < 150; i++) {
+            small.check(DB.DEFAULT_NAME, "SELECT " + i, null, System.nanoTime());
+        }
+        List<SlowQuery> queries = small.getSlowQueries();
+        the(queries.size()).shouldBeEqual(100);
+        the(queries.get(0).getQuery()).shouldBeEqual("SELECT 50");
+        the(queries.get(99).getQuery()).shouldBeEqual("SELECT 149");
+    }
+
+    @Test
+    public void shouldDumpJSON() {
+        Base.findAll("SELECT * FROM people WHERE last_name = ?", "Smith");
+        JSONList list = JSONHelper.toList(log.toJSON());
+        the(list.size()).shouldBeEqual(1);
+        JSONMap query = list.getMap(0);
+        the(query.get("sql")).shouldBeEqual("SELECT * FROM people WHERE last_name = ?");
+        the(query.getList("params").get(0)).shouldBeEqual("Smith");
+        the(query.get("plan")).shouldNotBeNull();
+        the(query.getList("stack").size() > 0).shouldBeTrue();
+    }
+
+    @Test
+    public void shouldNotExplainBatchesWithoutParameters() {
+        List<Person> people = Person.findAll();
+        people.forEach(person -> person.set("last_name", "Jones"));
+        log.clear();
+        Person.saveAll(people);
+
+        SlowQuery batch = null;
+        for (SlowQuery query : log.getSlowQueries()) {
+            if (query.getQuery().startsWith("UPDATE people")) {
+                batch = query;
+            }
+        }
+        the(batch).shouldNotBeNull();
+        the(batch.getQuery()).shouldContain("?");
+        the(batch.getPlan()).shouldBeNull();
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -132,4 +133,90 @@ public class StatisticsQueueTest {
         QueryExecutionEvent event = new QueryExecutionEvent(sql, 1);
         the(event.getQuery().toLowerCase()).shouldBeEqual("insert into analytics_events (person_id,other_person_id,location_id,location_name,date,action,type,info,created_at,updated_at)  values (...)");
     }
+
+    @Test
+    public void shouldNormalizeLiterals(){
+        QueryExecutionEvent event = new QueryExecutionEvent("select * from people where name = 'O''Hara' and age>=42 and id=-7 limit 10", 1);
+        the(event.getQuery()).shouldBeEqual("select * from people where name = ? and age>=? and id=? limit 10");
+        the(new QueryExecutionEvent("select * from people where name = 'John' and age>=3 and id=5 limit 10", 1).getQuery())
+                .shouldBeEqual(event.getQuery());
+    }
+
+    @Test
+    public void shouldCollectCacheHitsAndRowsWithoutPausing(){
+        queue.reset();
+        queue.add(QueryExecutionEvent.of("select * from people where id = 1", 2000, 1, false));
+        queue.add(QueryExecutionEvent.of("select * from people where id = 2", 4000, 1, false));
+        queue.add(QueryExecutionEvent.of("select * from people where id = 3", 0, -1, true));
+
+        List<QueryStats> report = queue.getReportSortedBy("p99");
+        a(report.size()).shouldBeEqual(1);
+        a(report.get(0).getQuery()).shouldBeEqual("select * from people where id = ?");
+        a(report.get(0).getCount()).shouldBeEqual(2);
+        a(report.get(0).getTotalNanos()).shouldBeEqual(6000);
+        a(report.get(0).getRows()).shouldBeEqual(2);
+        a(report.get(0).getCacheHits()).shouldBeEqual(1);
+
+        queue.pause(true);
+        queue.add(QueryExecutionEvent.of("select * from people", 1000, 1, false));
+        a(queue.getReportSortedBy("count").size()).shouldBeEqual(1);
+    }
+
+    @Test
+    public void shouldEvictRarelyExecutedQueries(){
+        StatisticsQueue bounded = new StatisticsQueue(false, 20);
+        for (int i = 0; i < 5; i++) {
+            bounded.add(new QueryExecutionEvent("frequent", 1));
+        }
+        for (int i = 0; i < 100; i++) {
+            bounded.add(new QueryExecutionEvent("rare" + i, 1));
+        }
+        List<QueryStats> report = bounded.getReportSortedBy("count");
+        the(report.size() <= 20).shouldBeTrue();
+        the(report.get(0).getQuery()).shouldBeEqual("frequent");
+        the(bounded.getEvicted()).shouldBeEqual(101L - report.size());
+    }
+
+    @Test
+    public void shouldKeepQueryAddedWhenEvicting(){
+        StatisticsQueue bounded = new StatisticsQueue(false, 10);
+        for (int i = 0; i < 10; i++) {
+            bounded.add(new QueryExecutionEvent("old" + i, 1));
+            bounded.add(new QueryExecutionEvent("old" + i, 1));
+        }
+        bounded.add(new QueryExecutionEvent("new", 1));
+
+        List<QueryStats> report = bounded.getReportSortedBy("count");
+        the(report.size()).shouldBeEqual(9);
+        the(report.get(8).getQuery()).shouldBeEqual("new");
+        the(report.get(8).getCount()).shouldBeEqual(1L);
+        the(bounded.getEvicted()).shouldBeEqual(2L);
+    }
+
+    @Test
+    public void shouldEvictAndReportWhileQueriesAreAdded() throws InterruptedException {
+        StatisticsQueue bounded = new StatisticsQueue(false, 50);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        bounded.add(new QueryExecutionEvent("query" + ((i * 7 + seed) % 200), 1));
+                        if (i % 1000 == 0) {
+                            bounded.getReportSortedBy("count");
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        the(errors.toString()).shouldBeEqual("[]");
+    }
 }
@@ -0,0 +1,29 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.test_models;
+
+import org.javalite.activejdbc.Model;
+import org.javalite.activejdbc.annotations.BelongsTo;
+import org.javalite.activejdbc.annotations.Cached;
+import org.javalite.activejdbc.annotations.CompositePK;
+
+/**
+ * @author Igor Polevoy
+ */
+@CompositePK({"warehouse_id", "code"})
+@BelongsTo(parent = Warehouse.class, foreignKeyName = "warehouse_id")
+@Cached(idLists = true)
+public class Bin extends Model {}
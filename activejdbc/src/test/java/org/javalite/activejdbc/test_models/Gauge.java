@@ -0,0 +1,44 @@
+/*
+Copyright 2009-2019 Igor Polevoy
+
+Licensed under the Apache License, Version 2.0 (the "License"); 
+you may not use this file except in compliance with the License. 
+You may obtain a copy of the License at 
+
+http://www.apache.org/licenses/LICENSE-2.0 
+
+Unless required by applicable law or agreed to in writing, software 
+distributed under the License is distributed on an "AS IS" BASIS, 
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+See the License for the specific language governing permissions and 
+limitations under the License. 
+*/
+package org.javalite.activejdbc.test_models;
+
+import org.javalite.activejdbc.Model;
+import org.javalite.common.Convert;
+
+/**
+ * Model with accessors as generated by instrumentation with <code>generateAccessors</code> enabled.
+ *
+ * @author Igor Polevoy
+ */
+public class Gauge extends Model {
+    private static final String[] ACTIVEJDBC_ATTRIBUTES = {"id", "name", "reading"};
+
+    public String getName() {
+        return slotAccessible(1, "name") ? Convert.toString(slotValue(1)) : getString("name");
+    }
+
+    public Gauge setName(String name) {
+        return slotAccessible(1, "name") ? setSlotValue(1, name) : set("name", name);
+    }
+
+    public Integer getReading() {
+        return slotAccessible(2, "reading") ? Convert.toInteger(slotValue(2)) : getInteger("reading");
+    }
+
+    public Gauge setReading(Integer reading) {
+        return slotAccessible(2, "reading") ? setSlotValue(2, reading) : set("reading", reading);
+    }
+}
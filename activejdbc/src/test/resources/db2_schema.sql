@@ -224,4 +224,13 @@ CALL dropTable('postal_addresses');
 CREATE TABLE postal_addresses (id  int primary key GENERATED ALWAYS AS IDENTITY, address1 VARCHAR(56), address2 VARCHAR(56), city VARCHAR(56), zip VARCHAR(56), country VARCHAR(56), scope VARCHAR(56), customer_id int);
 
 CALL dropTable('phone_numbers');
-CREATE TABLE phone_numbers (id  int primary key GENERATED ALWAYS AS IDENTITY, the_number VARCHAR(56), type VARCHAR(56), scope VARCHAR(56), customer_id int);
\ No newline at end of file
+CREATE TABLE phone_numbers (id  int primary key GENERATED ALWAYS AS IDENTITY, the_number VARCHAR(56), type VARCHAR(56), scope VARCHAR(56), customer_id int);
+
+CALL dropTable('warehouses');
+CREATE TABLE warehouses (id int primary key GENERATED ALWAYS AS IDENTITY, name VARCHAR(56));
+
+CALL dropTable('bins');
+CREATE TABLE bins (warehouse_id int NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56), CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code));
+
+CALL dropTable('gauges');
+CREATE TABLE gauges (id int primary key GENERATED ALWAYS AS IDENTITY, name VARCHAR(56), reading int);
@@ -248,3 +248,12 @@ CREATE TABLE postal_addresses (id  int NOT NULL  auto_increment PRIMARY KEY, add
 DROP TABLE IF EXISTS phone_numbers;
 CREATE TABLE phone_numbers (id  int NOT NULL  auto_increment PRIMARY KEY, the_number VARCHAR(56), type VARCHAR(56), scope VARCHAR(56), customer_id int);
 
+
+DROP TABLE IF EXISTS warehouses;
+CREATE TABLE warehouses (id  int NOT NULL  auto_increment PRIMARY KEY, name VARCHAR(56));
+
+DROP TABLE IF EXISTS bins;
+CREATE TABLE bins (warehouse_id int NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56), CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code));
+
+DROP TABLE IF EXISTS gauges;
+CREATE TABLE gauges (id  int NOT NULL  auto_increment PRIMARY KEY, name VARCHAR(56), reading int);
@@ -480,3 +480,21 @@ IF object_id('phone_numbers') IS NOT NULL
         DROP TABLE [dbo].[phone_numbers]
     END
 CREATE TABLE phone_numbers ( id INT IDENTITY PRIMARY KEY, the_number VARCHAR(56), type VARCHAR(56), scope VARCHAR(56), customer_id INT);
+
+IF object_id('warehouses') IS NOT NULL
+    BEGIN
+        DROP TABLE [dbo].[warehouses]
+    END
+CREATE TABLE warehouses ( id INT IDENTITY PRIMARY KEY, name VARCHAR(56));
+
+IF object_id('bins') IS NOT NULL
+    BEGIN
+        DROP TABLE [dbo].[bins]
+    END
+CREATE TABLE bins ( warehouse_id INT NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56), CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code));
+
+IF object_id('gauges') IS NOT NULL
+    BEGIN
+        DROP TABLE [dbo].[gauges]
+    END
+CREATE TABLE gauges ( id INT IDENTITY PRIMARY KEY, name VARCHAR(56), reading INT);
@@ -253,3 +253,12 @@ CREATE TABLE postal_addresses (id int(11) NOT NULL auto_increment PRIMARY KEY, a
 DROP TABLE IF EXISTS phone_numbers;
 CREATE TABLE phone_numbers (id int(11) NOT NULL auto_increment PRIMARY KEY, the_number VARCHAR(56), type VARCHAR(56), scope VARCHAR(56), customer_id int(11));
 
+
+DROP TABLE IF EXISTS warehouses;
+CREATE TABLE warehouses (id int(11) NOT NULL auto_increment PRIMARY KEY, name VARCHAR(56));
+
+DROP TABLE IF EXISTS bins;
+CREATE TABLE bins (warehouse_id int(11) NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56), CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code));
+
+DROP TABLE IF EXISTS gauges;
+CREATE TABLE gauges (id int(11) NOT NULL auto_increment PRIMARY KEY, name VARCHAR(56), reading int(11));
@@ -1299,3 +1299,40 @@ begin
     select coalesce(:new.id, phone_numbers_seq.nextval) into :new.id from dual;
 end;
 -- BREAK
+
+CREATE TABLE warehouses (id NUMBER NOT NULL, name VARCHAR(56))
+-- BREAK
+ALTER TABLE warehouses ADD CONSTRAINT warehouses_pk PRIMARY KEY (id)
+-- BREAK
+CREATE SEQUENCE warehouses_seq START WITH 1 INCREMENT BY 1
+-- BREAK
+CREATE OR REPLACE TRIGGER warehouses_trigger
+    BEFORE INSERT ON warehouses REFERENCING
+    NEW AS new
+    OLD AS old
+    FOR EACH ROW
+begin
+    select coalesce(:new.id, warehouses_seq.nextval) into :new.id from dual;
+end;
+-- BREAK
+
+CREATE TABLE bins (warehouse_id NUMBER NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56))
+-- BREAK
+ALTER TABLE bins ADD CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code)
+-- BREAK
+
+CREATE TABLE gauges (id NUMBER NOT NULL, name VARCHAR(56), reading NUMBER)
+-- BREAK
+ALTER TABLE gauges ADD CONSTRAINT gauges_pk PRIMARY KEY (id)
+-- BREAK
+CREATE SEQUENCE gauges_seq START WITH 1 INCREMENT BY 1
+-- BREAK
+CREATE OR REPLACE TRIGGER gauges_trigger
+    BEFORE INSERT ON gauges REFERENCING
+    NEW AS new
+    OLD AS old
+    FOR EACH ROW
+begin
+    select coalesce(:new.id, gauges_seq.nextval) into :new.id from dual;
+end;
+-- BREAK
@@ -250,4 +250,14 @@ CREATE TABLE statuses ( id serial PRIMARY KEY, description VARCHAR(56), status s
 
 
 DROP TABLE IF EXISTS salaried_employees;
-CREATE TABLE salaried_employees( id serial PRIMARY KEY, name text, pay_by_quarter integer[], schedule text[][]);
\ No newline at end of file
+CREATE TABLE salaried_employees( id serial PRIMARY KEY, name text, pay_by_quarter integer[], schedule text[][]);
+
+
+DROP TABLE IF EXISTS warehouses;
+CREATE TABLE warehouses (id serial PRIMARY KEY, name VARCHAR(56));
+
+DROP TABLE IF EXISTS bins;
+CREATE TABLE bins (warehouse_id INT NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56), CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code));
+
+DROP TABLE IF EXISTS gauges;
+CREATE TABLE gauges (id serial PRIMARY KEY, name VARCHAR(56), reading INT);
@@ -238,3 +238,12 @@ CREATE TABLE postal_addresses (id INTEGER PRIMARY KEY AUTOINCREMENT, address1 VA
 
 DROP TABLE IF EXISTS phone_numbers;
 CREATE TABLE phone_numbers (id INTEGER PRIMARY KEY AUTOINCREMENT, the_number VARCHAR(56), type VARCHAR(56), scope VARCHAR(56), customer_id INT(11));
+
+DROP TABLE IF EXISTS warehouses;
+CREATE TABLE warehouses (id INTEGER PRIMARY KEY AUTOINCREMENT, name VARCHAR(56));
+
+DROP TABLE IF EXISTS bins;
+CREATE TABLE bins (warehouse_id INT(11) NOT NULL, code VARCHAR(56) NOT NULL, label VARCHAR(56), CONSTRAINT bins_pk PRIMARY KEY (warehouse_id, code));
+
+DROP TABLE IF EXISTS gauges;
+CREATE TABLE gauges (id INTEGER PRIMARY KEY AUTOINCREMENT, name VARCHAR(56), reading INT);
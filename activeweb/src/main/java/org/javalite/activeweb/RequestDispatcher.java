@@ -17,6 +17,7 @@ package org.javalite.activeweb;
 
 import freemarker.template.TemplateNotFoundException;
 import org.javalite.activejdbc.DB;
+import org.javalite.activejdbc.pool.ConnectionPool;
 
 import org.javalite.activeweb.proxy.ProxyWriterException;
 import org.javalite.activeweb.proxy.ProxyIOException;
@@ -34,6 +35,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.sql.Connection;
 import java.util.*;
 
 import static org.javalite.common.Collections.map;
@@ -237,6 +239,9 @@ public class RequestDispatcher implements Filter {
             if(!connectionsRemaining.isEmpty()){
                 logger.warn("CONNECTION LEAK DETECTED ... and AVERTED!!! You left connections opened:"
                         + connectionsRemaining + ". ActiveWeb is closing all active connections for you...");
+                for (Connection connection : DB.connections().values()) {
+                    ConnectionPool.reportLeak(connection);
+                }
                 DB.closeAllConnections();
             }
         }
@@ -18,20 +18,40 @@ limitations under the License.
 package org.javalite.common;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Transforms words and names between singular and plural, CamelCase and under_score forms.
+ *
+ * <p></p>
+ * Rules are compiled once, when they are added. Results of every transform are remembered for up to
+ * 10000 distinct words each, so that a word is only transformed once, no matter how many times names
+ * of tables, classes and attributes are inflected. Adding a rule forgets all remembered results.
+ */
 public class Inflector {
 
-    private static final List<String[]> singulars;
-    private static final List<String[]> plurals;
+    private static final int MAX_MEMO = 10000;
+
+    private static final List<Rule> singulars;
+    private static final List<Rule> plurals;
     private static final List<String[]> irregulars;
-    private static final List<String> uncountables;
+    private static final Set<String> uncountables;
+    private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private static volatile Rule[] singularRules, pluralRules;
+    private static volatile String[][] irregularPairs;
+    private static volatile Map<String, String> pluralized, singularized;
+    private static final Map<String, String> underscored = new ConcurrentHashMap<>();
+    private static final Map<String, String> camelized = new ConcurrentHashMap<>();
+    private static final Map<String, String> camelizedLower = new ConcurrentHashMap<>();
 
     static {
-        singulars = new ArrayList<String[]>();
-        plurals = new ArrayList<String[]>();
-        irregulars = new ArrayList<String[]>();
+        singulars = new ArrayList<>();
+        plurals = new ArrayList<>();
+        irregulars = new ArrayList<>();
 
         addPlural("$", "s");
         addPlural("s$", "s");
@@ -84,26 +104,64 @@ public class Inflector {
         addIrregular("sex", "sexes");
         addIrregular("move", "moves");
 
-        uncountables = Arrays.asList("equipment", "information", "rice", "money", "species", "series", "fish", "sheep");
+        uncountables = new HashSet<>(Arrays.asList("equipment", "information", "rice", "money", "species", "series", "fish", "sheep"));
     }
     
     private Inflector() {
         
     }
 
-    public static void addPlural(String rule, String replacement){
-        plurals.add(0, new String[]{rule, replacement});
+    public static synchronized void addPlural(String rule, String replacement){
+        plurals.add(0, new Rule(rule, replacement));
+        rulesChanged();
     }
 
-    public static void addSingular(String rule, String replacement){
-        singulars.add(0, new String[]{rule, replacement});
+    public static synchronized void addSingular(String rule, String replacement){
+        singulars.add(0, new Rule(rule, replacement));
+        rulesChanged();
     }
 
-    public static void addIrregular(String rule, String replacement){
+    public static synchronized void addIrregular(String rule, String replacement){
         irregulars.add(new String[]{rule, replacement});
+        rulesChanged();
+    }
+
+    /**
+     * Publishes rules as arrays read without locking, and forgets results of the previous rules.
+     */
+    private static void rulesChanged() {
+        pluralRules = plurals.toArray(new Rule[0]);
+        singularRules = singulars.toArray(new Rule[0]);
+        irregularPairs = irregulars.toArray(new String[0][]);
+        pluralized = new ConcurrentHashMap<>();
+        singularized = new ConcurrentHashMap<>();
     }
 
+    private static Pattern compile(String rule) {
+        Pattern pattern = patterns.get(rule);
+        if (pattern == null) {
+            pattern = Pattern.compile(rule, Pattern.CASE_INSENSITIVE);
+            if (patterns.size() < MAX_MEMO) {
+                patterns.put(rule, pattern);
+            }
+        }
+        return pattern;
+    }
 
+    /**
+     * Returns a remembered result of a transform of a word, or transforms the word and remembers the result,
+     * unless there are already too many remembered results.
+     */
+    private static String memo(Map<String, String> results, String word, Function<String, String> transform) {
+        String result = results.get(word);
+        if (result == null) {
+            result = transform.apply(word);
+            if (results.size() < MAX_MEMO) {
+                results.put(word, result);
+            }
+        }
+        return result;
+    }
 
 
     /**
@@ -114,23 +172,30 @@ public class Inflector {
      * @return Replaces a found pattern in a word and returns a transformed word. Null is pattern does not match.
      */
     public static String gsub(String word, String rule, String replacement) {
-        Pattern pattern = Pattern.compile(rule, Pattern.CASE_INSENSITIVE);
+        return gsub(word, compile(rule), replacement);
+    }
+
+    private static String gsub(String word, Pattern pattern, String replacement) {
         Matcher matcher = pattern.matcher(word);
         return matcher.find() ? matcher.replaceFirst(replacement) : null;
     }
 
     public static String pluralize(String word) {
+        return memo(pluralized, word, Inflector::inflectPlural);
+    }
+
+    private static String inflectPlural(String word) {
 
         if(uncountables.contains(word)) return word;
 
-        for (String[] irregular : irregulars) {
+        for (String[] irregular : irregularPairs) {
             if (irregular[0].equalsIgnoreCase(word)) {
                 return irregular[1];
             }
         }
 
-        for (String[] pair: plurals) {
-            String plural = gsub(word, pair[0], pair[1]);
+        for (Rule rule: pluralRules) {
+            String plural = gsub(word, rule.pattern, rule.replacement);
             if (plural != null)
                 return plural;
         }
@@ -139,18 +204,22 @@ public class Inflector {
     }
 
 
-     public static String singularize(String word) {
+    public static String singularize(String word) {
+        return memo(singularized, word, Inflector::inflectSingular);
+    }
+
+    private static String inflectSingular(String word) {
 
         if(uncountables.contains(word)) return word;
 
-        for (String[] irregular : irregulars) {
+        for (String[] irregular : irregularPairs) {
             if (irregular[1].equalsIgnoreCase(word)) {
                 return irregular[0];
             }
         }
 
-        for (String[] pair: singulars) {
-            String singular = gsub(word, pair[0], pair[1]);
+        for (Rule rule: singularRules) {
+            String singular = gsub(word, rule.pattern, rule.replacement);
             if (singular != null)
                 return singular;
         }
@@ -178,6 +247,10 @@ public class Inflector {
      * @return result converted to underscores.
      */
     public static String underscore(String camel) {
+        return memo(underscored, camel, Inflector::toUnderscore);
+    }
+
+    private static String toUnderscore(String camel) {
 
         List<Integer> upper = new ArrayList<Integer>();
         byte[] bytes = camel.getBytes();
@@ -218,6 +291,19 @@ public class Inflector {
      * @return camel case version of underscore.
      */
     public static String camelize(String underscore, boolean capitalizeFirstChar){
+        return capitalizeFirstChar ? memo(camelized, underscore, Inflector::toCamelCase)
+                : memo(camelizedLower, underscore, Inflector::toLowerCamelCase);
+    }
+
+    private static String toCamelCase(String underscore) {
+        return toCamelCase(underscore, true);
+    }
+
+    private static String toLowerCamelCase(String underscore) {
+        return toCamelCase(underscore, false);
+    }
+
+    private static String toCamelCase(String underscore, boolean capitalizeFirstChar) {
         StringBuilder result = new StringBuilder();
         StringTokenizer st = new StringTokenizer(underscore, "_");
         while (st.hasMoreTokens()) {
@@ -306,4 +392,14 @@ public class Inflector {
         }
         return other.trim();
     }
+
+    private static final class Rule {
+        private final Pattern pattern;
+        private final String replacement;
+
+        private Rule(String rule, String replacement) {
+            this.pattern = Pattern.compile(rule, Pattern.CASE_INSENSITIVE);
+            this.replacement = replacement;
+        }
+    }
 }
@@ -85,6 +85,28 @@ public class InflectorTest extends TestCase {
         a(other).shouldBeNull();
     }
 
+    public void testRememberResults(){
+        a(Inflector.pluralize("Address")).shouldBeTheSameAs(Inflector.pluralize("Address"));
+        a(Inflector.singularize("addresses")).shouldBeTheSameAs(Inflector.singularize("addresses"));
+        a(Inflector.underscore("GreyDuck")).shouldBeTheSameAs(Inflector.underscore("GreyDuck"));
+        a(Inflector.camelize("grey_duck", false)).shouldBeEqual("greyDuck");
+        a(Inflector.camelize("grey_duck", true)).shouldBeEqual("GreyDuck");
+        a(Inflector.camelize("grey_duck", false)).shouldBeTheSameAs(Inflector.camelize("grey_duck", false));
+    }
+
+    public void testForgetResultsWhenRulesAreAdded(){
+        a(Inflector.pluralize("zorb")).shouldBeEqual("zorbs");
+        a(Inflector.singularize("zorbim")).shouldBeEqual("zorbim");
+        Inflector.addIrregular("zorb", "zorbim");
+        a(Inflector.pluralize("zorb")).shouldBeEqual("zorbim");
+        a(Inflector.singularize("zorbim")).shouldBeEqual("zorb");
+
+        a(Inflector.pluralize("glorp")).shouldBeEqual("glorps");
+        Inflector.addPlural("(glor)p$", "$1pen");
+        a(Inflector.pluralize("glorp")).shouldBeEqual("glorpen");
+        a(Inflector.pluralize("book")).shouldBeEqual("books");
+    }
+
     public void testCamelize(){
         a(Inflector.camelize("library_book")).shouldBeEqual("LibraryBook");
         a(Inflector.camelize("library_book", false)).shouldBeEqual("libraryBook");